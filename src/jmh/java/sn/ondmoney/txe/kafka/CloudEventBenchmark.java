@@ -0,0 +1,212 @@
+package sn.ondmoney.txe.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.Transfer;
+import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+import sn.ondmoney.txe.repository.WalletSnapshot;
+
+/**
+ * Compares the map-based CloudEvent serialization of the producers, as it was, with {@link CloudEventWriter},
+ * for a transfer and a wallet event, and the binary content mode for a transfer event.
+ * <p>
+ * Run with {@code ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark=CloudEventBenchmark -Dbenchmark.args="-prof gc"}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CloudEventBenchmark {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+        .addModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+
+    private Transfer transfer;
+    private WalletSnapshot sender;
+    private WalletSnapshot receiver;
+    private WalletCreatedEvent walletCreated;
+    private CloudEventWriter.Writer<TransferEventData> transferCompletedWriter;
+    private CloudEventWriter.Writer<WalletCreatedEvent> walletCreatedWriter;
+    private CloudEventWriter.Writer<TransferEventData> binaryTransferCompletedWriter;
+
+    @Setup
+    public void setUp() {
+        transfer = new Transfer();
+        transfer.setTxId("TXN_0ABCDEFGHJKMN");
+        transfer.setStatus(TransactionStatus.COMPLETED);
+        transfer.setAmount(Money.xof(5000));
+        transfer.setFees(Money.xof(50));
+        transfer.setSenderPhone("+221770000001");
+        transfer.setReceiverPhone("+221770000002");
+        transfer.setInitiatedAt(Instant.now());
+        transfer.setCompletedAt(Instant.now());
+        sender = new Snapshot("usr_sender", "+221770000001");
+        receiver = new Snapshot("usr_receiver", "+221770000002");
+        walletCreated = WalletCreatedEvent.builder()
+            .walletId("wal_1")
+            .userId("usr_sender")
+            .currency("XOF")
+            .initialBalance(BigDecimal.ZERO)
+            .status("ACTIVE")
+            .createdAt(Instant.now())
+            .build();
+
+        CloudEventWriter cloudEventWriter = new CloudEventWriter(
+            objectMapper,
+            new ApplicationProperties(),
+            new StandardEnvironment(),
+            List.of(),
+            new InProcessEventSchemaRegistry()
+        );
+        transferCompletedWriter = cloudEventWriter.forType("transfer.completed", TransferEventData.class);
+        walletCreatedWriter = cloudEventWriter.forType("wallet.created", WalletCreatedEvent.class);
+
+        ApplicationProperties binary = new ApplicationProperties();
+        binary.getCloudEvents().setContentMode(CloudEventWriter.ContentMode.BINARY);
+        binaryTransferCompletedWriter = new CloudEventWriter(objectMapper, binary, new StandardEnvironment(), List.of(), new InProcessEventSchemaRegistry())
+            .forType("transfer.completed", TransferEventData.class);
+    }
+
+    @Benchmark
+    public String mapTransferCompleted() throws JsonProcessingException {
+        Map<String, Object> data = new HashMap<>();
+        data.put("transferId", transfer.getTxId());
+        data.put("senderId", sender.getUserId());
+        data.put("receiverId", receiver.getUserId());
+        data.put("senderPhoneNumber", transfer.getSenderPhone());
+        data.put("receiverPhoneNumber", transfer.getReceiverPhone());
+        data.put("amount", transfer.getAmount().toString());
+        data.put("fees", transfer.getFees().toString());
+        data.put("currency", sender.getCurrency());
+        data.put("description", "Transfert P2P");
+        data.put("status", transfer.getStatus().name());
+        data.put("completedAt", transfer.getCompletedAt().toString());
+        data.put("senderNewBalance", "44950");
+        data.put("receiverNewBalance", "5000");
+        data.put("senderName", sender.getPhone());
+        data.put("receiverName", receiver.getPhone());
+        return mapEnvelope("transfer.completed", data, transfer.getTxId(), "corr_1");
+    }
+
+    @Benchmark
+    public CloudEventMessage typedTransferCompleted() throws JsonProcessingException {
+        return transferCompletedWriter.write(
+            transfer.getTxId(),
+            "corr_1",
+            TransferEventData.completed(transfer, sender, receiver, new BigDecimal("44950"), new BigDecimal("5000"))
+        );
+    }
+
+    @Benchmark
+    public CloudEventMessage binaryTransferCompleted() throws JsonProcessingException {
+        return binaryTransferCompletedWriter.write(
+            transfer.getTxId(),
+            "corr_1",
+            TransferEventData.completed(transfer, sender, receiver, new BigDecimal("44950"), new BigDecimal("5000"))
+        );
+    }
+
+    @Benchmark
+    public String mapWalletCreated() throws JsonProcessingException {
+        return mapEnvelope("wallet.created", walletCreated, walletCreated.getUserId(), "corr_1");
+    }
+
+    @Benchmark
+    public CloudEventMessage typedWalletCreated() throws JsonProcessingException {
+        return walletCreatedWriter.write(walletCreated.getUserId(), "corr_1", walletCreated);
+    }
+
+    private String mapEnvelope(String type, Object data, String subject, String correlationId) throws JsonProcessingException {
+        String eventId = "evt_" + UUID.randomUUID();
+        Map<String, Object> cloudEvent = new HashMap<>();
+        cloudEvent.put("specversion", "1.0");
+        cloudEvent.put("id", eventId);
+        cloudEvent.put("source", "ond-money/txe-service");
+        cloudEvent.put("type", type);
+        cloudEvent.put("datacontenttype", "application/json");
+        cloudEvent.put("time", Instant.now().toString());
+        cloudEvent.put("subject", subject);
+        cloudEvent.put("data", data);
+        cloudEvent.put("ondmoney", Map.of("correlationId", correlationId, "version", "1.0.0", "environment", environment()));
+        return objectMapper.writeValueAsString(cloudEvent);
+    }
+
+    private static String environment() {
+        String profile = System.getProperty("spring.profiles.active", "dev");
+        return switch (profile) {
+            case "prod" -> "production";
+            case "staging" -> "staging";
+            default -> "development";
+        };
+    }
+
+    private record Snapshot(String userId, String phone) implements WalletSnapshot {
+        @Override
+        public Long getId() {
+            return 1L;
+        }
+
+        @Override
+        public String getUserId() {
+            return userId;
+        }
+
+        @Override
+        public String getPhone() {
+            return phone;
+        }
+
+        @Override
+        public String getCurrency() {
+            return Money.XOF;
+        }
+
+        @Override
+        public WalletStatus getStatus() {
+            return WalletStatus.ACTIVE;
+        }
+
+        @Override
+        public BigDecimal getBalance() {
+            return BigDecimal.ZERO;
+        }
+
+        @Override
+        public Integer getVersion() {
+            return 0;
+        }
+
+        @Override
+        public Long getBalanceShards() {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package sn.ondmoney.txe.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the JSON and Protobuf encodings of the event data: encode and decode time per event, and
+ * the bytes per event, printed at setup.
+ * <p>
+ * Run with {@code ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark=EventEncodingBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventEncodingBenchmark {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+        .addModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+    private final TransferEventProtobufCodec transferCodec = new TransferEventProtobufCodec();
+    private final WalletCreatedProtobufCodec walletCodec = new WalletCreatedProtobufCodec();
+
+    private ObjectWriter transferWriter;
+    private ObjectReader transferReader;
+    private ObjectWriter walletWriter;
+    private ObjectReader walletReader;
+
+    private TransferEventData transfer;
+    private WalletCreatedEvent wallet;
+    private byte[] transferJson;
+    private byte[] transferProtobuf;
+    private byte[] walletJson;
+    private byte[] walletProtobuf;
+
+    @Setup
+    public void setUp() throws IOException {
+        transferWriter = objectMapper.writerFor(TransferEventData.class);
+        transferReader = objectMapper.readerFor(TransferEventData.class);
+        walletWriter = objectMapper.writerFor(WalletCreatedEvent.class);
+        walletReader = objectMapper.readerFor(WalletCreatedEvent.class);
+
+        transfer = new TransferEventData(
+            "TXN_0ABCDEFGHJKMN",
+            "usr_sender",
+            "usr_receiver",
+            "+221770000001",
+            "+221770000002",
+            "5000",
+            "50",
+            "XOF",
+            "Transfert P2P",
+            "COMPLETED",
+            null,
+            Instant.now(),
+            "44950.00",
+            "5000.00",
+            "+221770000001",
+            "+221770000002",
+            null,
+            null,
+            null
+        );
+        wallet = WalletCreatedEvent.builder()
+            .walletId("wal_1")
+            .userId("usr_sender")
+            .currency("XOF")
+            .initialBalance(BigDecimal.ZERO)
+            .status("ACTIVE")
+            .createdAt(Instant.now())
+            .build();
+
+        transferJson = transferWriter.writeValueAsBytes(transfer);
+        transferProtobuf = transferCodec.encode(transfer);
+        walletJson = walletWriter.writeValueAsBytes(wallet);
+        walletProtobuf = walletCodec.encode(wallet);
+        System.out.printf(
+            "%nBytes per event: transfer.completed json=%d protobuf=%d, wallet.created json=%d protobuf=%d%n",
+            transferJson.length,
+            transferProtobuf.length,
+            walletJson.length,
+            walletProtobuf.length
+        );
+    }
+
+    @Benchmark
+    public byte[] jsonEncodeTransfer() throws IOException {
+        return transferWriter.writeValueAsBytes(transfer);
+    }
+
+    @Benchmark
+    public byte[] protobufEncodeTransfer() {
+        return transferCodec.encode(transfer);
+    }
+
+    @Benchmark
+    public TransferEventData jsonDecodeTransfer() throws IOException {
+        return transferReader.readValue(transferJson);
+    }
+
+    @Benchmark
+    public TransferEventData protobufDecodeTransfer() {
+        return transferCodec.decode(transferProtobuf);
+    }
+
+    @Benchmark
+    public byte[] jsonEncodeWallet() throws IOException {
+        return walletWriter.writeValueAsBytes(wallet);
+    }
+
+    @Benchmark
+    public byte[] protobufEncodeWallet() {
+        return walletCodec.encode(wallet);
+    }
+
+    @Benchmark
+    public WalletCreatedEvent jsonDecodeWallet() throws IOException {
+        return walletReader.readValue(walletJson);
+    }
+
+    @Benchmark
+    public WalletCreatedEvent protobufDecodeWallet() {
+        return walletCodec.decode(walletProtobuf);
+    }
+}
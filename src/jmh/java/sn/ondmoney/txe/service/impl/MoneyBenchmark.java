@@ -0,0 +1,93 @@
+package sn.ondmoney.txe.service.impl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.enumeration.TransactionType;
+
+/**
+ * Compares the fee and balance math of a transfer on {@link BigDecimal}, as it was, and on {@link Money}
+ * with the compiled default {@link FeeTable}.
+ * <p>
+ * Run with {@code ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark=MoneyBenchmark -Dbenchmark.args="-prof gc"}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final BigDecimal FEE_PERCENTAGE = new BigDecimal("0.01");
+    private static final BigDecimal MIN_FEE = new BigDecimal("25");
+    private static final BigDecimal MAX_FEE = new BigDecimal("5000");
+
+    @Param({ "1500", "123456", "9000000" })
+    private long amount;
+
+    private BigDecimal decimalAmount;
+    private BigDecimal decimalBalance;
+    private Money moneyAmount;
+    private Money moneyBalance;
+    private FeeTable feeTable;
+
+    @Setup
+    public void setUp() {
+        decimalAmount = BigDecimal.valueOf(amount);
+        decimalBalance = new BigDecimal("25000000.00");
+        moneyAmount = Money.xof(amount);
+        moneyBalance = Money.xof(25_000_000);
+        feeTable = FeeTable.compile(new ApplicationProperties().getFees().getTiers());
+    }
+
+    @Benchmark
+    public BigDecimal decimalFees() {
+        return decimalFees(decimalAmount);
+    }
+
+    @Benchmark
+    public Money moneyFees() {
+        return moneyFees(moneyAmount);
+    }
+
+    @Benchmark
+    public BigDecimal decimalBalanceMath() {
+        BigDecimal total = decimalAmount.add(decimalFees(decimalAmount));
+        return decimalBalance.compareTo(total) >= 0 ? decimalBalance.subtract(total) : decimalBalance;
+    }
+
+    @Benchmark
+    public Money moneyBalanceMath() {
+        Money total = moneyAmount.plus(moneyFees(moneyAmount));
+        return moneyBalance.compareTo(total) >= 0 ? moneyBalance.minus(total) : moneyBalance;
+    }
+
+    private Money moneyFees(Money amount) {
+        return Money.ofMinor(feeTable.fee(TransactionType.TRANSFER_P2P, amount.getMinorUnits()), amount.getCurrency());
+    }
+
+    private static BigDecimal decimalFees(BigDecimal amount) {
+        BigDecimal calculatedFee = amount.multiply(FEE_PERCENTAGE);
+        if (calculatedFee.compareTo(MIN_FEE) < 0) {
+            return MIN_FEE;
+        }
+        if (calculatedFee.compareTo(MAX_FEE) > 0) {
+            return MAX_FEE;
+        }
+        return calculatedFee.setScale(0, RoundingMode.CEILING);
+    }
+}
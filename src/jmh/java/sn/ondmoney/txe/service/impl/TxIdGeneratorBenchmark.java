@@ -0,0 +1,53 @@
+package sn.ondmoney.txe.service.impl;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the random and Snowflake transaction ID generators, on one thread and on eight contending threads.
+ * <p>
+ * Run with {@code ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark=TxIdGeneratorBenchmark},
+ * add {@code -Dbenchmark.args="-prof gc"} to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TxIdGeneratorBenchmark {
+
+    private final RandomTxIdGenerator random = new RandomTxIdGenerator();
+    private final SnowflakeTxIdGenerator snowflake = new SnowflakeTxIdGenerator(1, System::currentTimeMillis);
+
+    @Benchmark
+    public String random() {
+        return random.nextTxId();
+    }
+
+    @Benchmark
+    public String snowflake() {
+        return snowflake.nextTxId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String randomContended() {
+        return random.nextTxId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String snowflakeContended() {
+        return snowflake.nextTxId();
+    }
+}
@@ -2,50 +2,55 @@ package sn.ondmoney.txe.broker;
 
 import static org.springframework.web.servlet.mvc.method.annotation.SseEmitter.event;
 
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
 import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+/**
+ * Forwards the messages of the sse topic to the connected users: a message goes to the user named by its key only.
+ * An unkeyed message is addressed to nobody and dropped, never sent to every user.
+ */
 @Component
-public class KafkaConsumer implements Consumer<String> {
+public class KafkaConsumer implements Consumer<Message<String>> {
 
     private static final Logger LOG = LoggerFactory.getLogger(KafkaConsumer.class);
 
-    private Map<String, SseEmitter> emitters = new HashMap<>();
+    private final SubscriptionHub subscriptionHub;
+
+    public KafkaConsumer(@Qualifier("subscriptionHub") SubscriptionHub subscriptionHub) {
+        this.subscriptionHub = subscriptionHub;
+    }
 
     public SseEmitter register(String key) {
-        LOG.debug("Registering sse client for {}", key);
-        SseEmitter emitter = new SseEmitter();
-        emitter.onCompletion(() -> emitters.remove(key));
-        emitters.put(key, emitter);
-        return emitter;
+        return subscriptionHub.subscribe(key);
     }
 
     public void unregister(String key) {
-        LOG.debug("Unregistering sse emitter for: {}", key);
-        Optional.ofNullable(emitters.get(key)).ifPresent(SseEmitter::complete);
+        subscriptionHub.unsubscribe(key);
     }
 
     @Override
-    public void accept(String input) {
-        LOG.debug("Got message from kafka stream: {}", input);
-        emitters
-            .entrySet()
-            .stream()
-            .map(Map.Entry::getValue)
-            .forEach((SseEmitter emitter) -> {
-                try {
-                    emitter.send(event().data(input, MediaType.TEXT_PLAIN));
-                } catch (IOException e) {
-                    LOG.debug("error sending sse message, {}", input);
-                }
-            });
+    public void accept(Message<String> message) {
+        LOG.debug("Got message from kafka stream: {}", message.getPayload());
+        String user = key(message.getHeaders().get(KafkaHeaders.RECEIVED_KEY));
+        if (user == null || user.isEmpty()) {
+            LOG.warn("Dropping an sse-topic message without a user key");
+            return;
+        }
+        subscriptionHub.publish(user, event().data(message.getPayload(), MediaType.TEXT_PLAIN));
+    }
+
+    private static String key(Object key) {
+        if (key instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return key != null ? key.toString() : null;
     }
 }
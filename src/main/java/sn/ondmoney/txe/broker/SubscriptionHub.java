@@ -0,0 +1,299 @@
+package sn.ondmoney.txe.broker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+import sn.ondmoney.txe.config.ApplicationProperties;
+
+/**
+ * Server-sent event connections of the users, and delivery of events to them.
+ * <p>
+ * A user may hold several connections. Each one has a bounded queue of {@code application.sse.queue-capacity}
+ * events: publishing only enqueues, and a small shared pool of {@code delivery-threads} writes the queues to the
+ * connections, one drain at a time per connection. A slow client thus never blocks the publisher nor the other
+ * clients; when its queue is full, the {@link OverflowPolicy} applies. A write still blocked after
+ * {@code send-timeout-ms}, on a client that stopped reading, closes its connection, which gives the delivery thread
+ * back to the others. Idle connections get a heartbeat comment every {@code heartbeat-interval-ms}, which keeps
+ * proxies from closing them and detects dead clients.
+ * <p>
+ * Metrics, tagged by hub name: {@code txe.sse.subscribers} gauges the open connections, {@code txe.sse.queue_depth}
+ * the events waiting in their queues; {@code txe.sse.sent} counts the delivered events and {@code txe.sse.dropped}
+ * the lost ones, with a {@code reason} tag: {@code overflow}, {@code stalled} or {@code disconnected}.
+ */
+public class SubscriptionHub {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SubscriptionHub.class);
+
+    /** Events written by one drain before the connection yields its delivery thread. */
+    private static final int DRAIN_BATCH = 64;
+
+    /**
+     * What to do with an event for a connection whose queue is full.
+     */
+    public enum OverflowPolicy {
+        /** Drop the oldest queued event: the client misses events but stays connected. */
+        DROP_OLDEST,
+        /** Close the connection: the client reconnects and reloads its state. */
+        DISCONNECT,
+    }
+
+    private final ConcurrentHashMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final ExecutorService delivery;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long timeoutMs;
+    private final long sendTimeoutNanos;
+    private final Counter sent;
+    private final Counter droppedOverflow;
+    private final Counter droppedStalled;
+    private final Counter droppedDisconnected;
+
+    public SubscriptionHub(String name, MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        this(
+            name,
+            meterRegistry,
+            applicationProperties,
+            Executors.newFixedThreadPool(
+                applicationProperties.getSse().getDeliveryThreads(),
+                new CustomizableThreadFactory("sse-" + name + "-")
+            )
+        );
+    }
+
+    SubscriptionHub(String name, MeterRegistry meterRegistry, ApplicationProperties applicationProperties, ExecutorService delivery) {
+        ApplicationProperties.Sse sse = applicationProperties.getSse();
+        this.queueCapacity = sse.getQueueCapacity();
+        this.overflowPolicy = sse.getOverflowPolicy();
+        this.timeoutMs = sse.getTimeoutMs();
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sse.getSendTimeoutMs());
+        this.delivery = delivery;
+        meterRegistry.gauge("txe.sse.subscribers", Tags.of("hub", name), subscriberCount);
+        meterRegistry.gauge("txe.sse.queue_depth", Tags.of("hub", name), queueDepth);
+        this.sent = meterRegistry.counter("txe.sse.sent", "hub", name);
+        this.droppedOverflow = meterRegistry.counter("txe.sse.dropped", "hub", name, "reason", "overflow");
+        this.droppedStalled = meterRegistry.counter("txe.sse.dropped", "hub", name, "reason", "stalled");
+        this.droppedDisconnected = meterRegistry.counter("txe.sse.dropped", "hub", name, "reason", "disconnected");
+    }
+
+    /**
+     * Open a connection for a user.
+     */
+    public SseEmitter subscribe(String user) {
+        return subscribe(user, List.of());
+    }
+
+    /**
+     * Open a connection for a user, starting with events it missed.
+     */
+    public SseEmitter subscribe(String user, List<SseEventBuilder> missed) {
+        return subscribe(user, new SseEmitter(timeoutMs), missed);
+    }
+
+    SseEmitter subscribe(String user, SseEmitter emitter, List<SseEventBuilder> missed) {
+        LOG.debug("Registering sse client for {}", user);
+        Subscriber subscriber = new Subscriber(user, emitter);
+        missed.forEach(event -> subscriber.offer(event.build()));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.computeIfAbsent(user, u -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriberCount.incrementAndGet();
+        return emitter;
+    }
+
+    /**
+     * Close all the connections of a user.
+     */
+    public void unsubscribe(String user) {
+        LOG.debug("Unregistering sse emitters for: {}", user);
+        Set<Subscriber> userSubscribers = subscribers.get(user);
+        if (userSubscribers != null) {
+            userSubscribers.forEach(Subscriber::close);
+        }
+    }
+
+    /**
+     * Send an event to the connections of a user, if any.
+     */
+    public void publish(String user, SseEventBuilder event) {
+        Set<Subscriber> userSubscribers = subscribers.get(user);
+        if (userSubscribers != null && !userSubscribers.isEmpty()) {
+            Set<DataWithMediaType> built = event.build();
+            userSubscribers.forEach(subscriber -> subscriber.offer(built));
+        }
+    }
+
+    /**
+     * Send a heartbeat comment to the idle connections.
+     */
+    @Scheduled(fixedDelayString = "${application.sse.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        Set<DataWithMediaType> heartbeat = SseEmitter.event().comment("heartbeat").build();
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> subscriber.heartbeat(heartbeat)));
+    }
+
+    /**
+     * Close the connections whose current write has been blocked for more than {@code send-timeout-ms}.
+     * <p>
+     * Closing the connection fails the blocked write, which frees its delivery thread.
+     */
+    @Scheduled(fixedDelayString = "${application.sse.send-timeout-ms:10000}")
+    public void closeStalled() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> subscriber.closeIfStalled(now)));
+    }
+
+    /**
+     * @return the number of open connections of a user.
+     */
+    public int subscriptions(String user) {
+        Set<Subscriber> userSubscribers = subscribers.get(user);
+        return userSubscribers != null ? userSubscribers.size() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(Subscriber::close));
+        delivery.shutdown();
+        delivery.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.removed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribers.computeIfPresent(subscriber.user, (user, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+        subscriberCount.decrementAndGet();
+        int pending = 0;
+        while (subscriber.queue.poll() != null) {
+            pending++;
+        }
+        queueDepth.addAndGet(-pending);
+        droppedDisconnected.increment(pending);
+    }
+
+    private final class Subscriber {
+
+        private final String user;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+        private volatile boolean sending;
+        private volatile long sendStartedAt;
+
+        private Subscriber(String user, SseEmitter emitter) {
+            this.user = user;
+            this.emitter = emitter;
+        }
+
+        private void offer(Set<DataWithMediaType> event) {
+            if (removed.get()) {
+                return;
+            }
+            while (!queue.offer(event)) {
+                if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                    droppedOverflow.increment();
+                    LOG.debug("Closing sse client of {}: {} events behind", user, queueCapacity);
+                    close();
+                    return;
+                }
+                if (queue.poll() != null) {
+                    queueDepth.decrementAndGet();
+                    droppedOverflow.increment();
+                }
+            }
+            queueDepth.incrementAndGet();
+            schedule();
+        }
+
+        private void heartbeat(Set<DataWithMediaType> heartbeat) {
+            // Only idle connections need one: a busy connection is already known alive
+            if (queue.isEmpty()) {
+                offer(heartbeat);
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    delivery.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                for (int i = 0; i < DRAIN_BATCH && !removed.get(); i++) {
+                    Set<DataWithMediaType> event = queue.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    queueDepth.decrementAndGet();
+                    sendStartedAt = System.nanoTime();
+                    sending = true;
+                    try {
+                        emitter.send(event);
+                    } finally {
+                        sending = false;
+                    }
+                    sent.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                LOG.debug("Error sending sse event to {}: {}", user, e.getMessage());
+                emitter.completeWithError(e);
+                remove(this);
+            } finally {
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty() && !removed.get()) {
+                schedule();
+            }
+        }
+
+        private void closeIfStalled(long now) {
+            if (sending && now - sendStartedAt >= sendTimeoutNanos && !removed.get()) {
+                LOG.debug("Closing sse client of {}: a write is blocked for over {} ms", user, sendTimeoutNanos / 1_000_000);
+                droppedStalled.increment();
+                emitter.completeWithError(new TimeoutException("SSE write blocked for over " + sendTimeoutNanos / 1_000_000 + " ms"));
+                remove(this);
+            }
+        }
+
+        private void close() {
+            emitter.complete();
+            // The completion callback only runs for an emitter bound to a request
+            remove(this);
+        }
+    }
+}
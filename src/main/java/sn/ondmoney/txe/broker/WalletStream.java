@@ -0,0 +1,272 @@
+package sn.ondmoney.txe.broker;
+
+import static org.springframework.web.servlet.mvc.method.annotation.SseEmitter.event;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
+import com.hazelcast.topic.ReliableMessageListener;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.kafka.TransferEventData;
+
+/**
+ * Wallet update stream of the users: balance changes and transfer statuses, pushed to the sender and the receiver
+ * of a transfer once it is committed.
+ * <p>
+ * The updates are built from the {@code transfer.completed} and {@code transfer.failed} events, without reading the
+ * database, and published after the commit to the {@value #TOPIC} Hazelcast reliable topic, so every node gets them,
+ * whichever node the users are connected to. Each node keeps the last {@code application.wallet-stream.replay-size}
+ * updates of each user: a client reconnecting with the id of the last update it got, in {@code Last-Event-ID},
+ * first gets the ones it missed. When they are no longer kept, it gets a {@value #RESYNC} event and should reload
+ * its balance once.
+ * <p>
+ * The updates of a user are kept and replayed under a lock of their own: the updates of other users never wait on
+ * them. No update falls between the replay and the subscription, but the last replayed ones may follow it again,
+ * with the same id.
+ */
+@Component
+public class WalletStream {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WalletStream.class);
+
+    public static final String TOPIC = "wallet-updates";
+    public static final String UPDATE = "wallet-update";
+    public static final String RESYNC = "resync";
+
+    private static final String COMPLETED = "COMPLETED";
+    private static final String FAILED = "FAILED";
+
+    private final SubscriptionHub walletStreamHub;
+    private final ITopic<WalletUpdate> topic;
+    private final UUID listenerId;
+    private final int replaySize;
+    private final Duration replayWindow;
+
+    /** Recent updates per phone number. A deque is only read or changed in a {@code compute} of its phone. */
+    private final ConcurrentMap<String, Deque<WalletUpdate>> replay;
+
+    public WalletStream(
+            @Qualifier("walletStreamHub") SubscriptionHub walletStreamHub,
+            HazelcastInstance hazelcastInstance,
+            ApplicationProperties applicationProperties) {
+        this.walletStreamHub = walletStreamHub;
+        ApplicationProperties.WalletStream properties = applicationProperties.getWalletStream();
+        this.replaySize = properties.getReplaySize();
+        this.replayWindow = Duration.ofMillis(properties.getReplayWindowMs());
+        this.replay = Caffeine.newBuilder()
+            .maximumSize(properties.getReplayUsers())
+            .expireAfterWrite(replayWindow)
+            .<String, Deque<WalletUpdate>>build()
+            .asMap();
+        this.topic = hazelcastInstance.getReliableTopic(TOPIC);
+        this.listenerId = topic.addMessageListener(new UpdateListener());
+    }
+
+    /**
+     * Push the updates of a settled transfer to its parties, once the current transaction commits.
+     *
+     * @param transfer the data of the {@code transfer.completed} or {@code transfer.failed} event
+     */
+    public void transferSettled(TransferEventData transfer) {
+        List<WalletUpdate> updates = updatesOf(transfer);
+        if (updates.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        publish(updates);
+                    }
+                }
+            );
+        } else {
+            publish(updates);
+        }
+    }
+
+    /**
+     * Open the stream of a user.
+     *
+     * @param lastEventId the id of the last update the client got, {@code null} for a new client
+     */
+    public SseEmitter subscribe(String phone, String lastEventId) {
+        SseEmitter[] emitter = new SseEmitter[1];
+        // In the lock of the phone, so that no update of the user falls between the replay and the subscription
+        replay.compute(phone, (key, updates) -> {
+            List<SseEventBuilder> missed = new ArrayList<>();
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                List<WalletUpdate> after = updatesAfter(updates, lastEventId);
+                if (after == null) {
+                    missed.add(event().name(RESYNC).data(RESYNC, MediaType.TEXT_PLAIN));
+                } else {
+                    after.forEach(update -> missed.add(toEvent(update)));
+                }
+            }
+            emitter[0] = walletStreamHub.subscribe(phone, missed);
+            return updates;
+        });
+        return emitter[0];
+    }
+
+    @PreDestroy
+    public void stop() {
+        topic.removeMessageListener(listenerId);
+    }
+
+    void deliver(WalletUpdate update) {
+        replay.compute(update.phone(), (phone, updates) -> {
+            Deque<WalletUpdate> kept = updates != null ? updates : new ArrayDeque<>();
+            kept.addLast(update);
+            while (kept.size() > replaySize) {
+                kept.removeFirst();
+            }
+            return kept;
+        });
+        // Out of the lock: kept first, so a subscription either replays it or gets it from here
+        walletStreamHub.publish(update.phone(), toEvent(update));
+    }
+
+    /**
+     * @return the kept updates after the one with the id, or {@code null} if it is no longer kept.
+     */
+    private List<WalletUpdate> updatesAfter(Deque<WalletUpdate> updates, String lastEventId) {
+        if (updates == null) {
+            return null;
+        }
+        Instant oldest = Instant.now().minus(replayWindow);
+        while (!updates.isEmpty() && updates.peekFirst().occurredAt().isBefore(oldest)) {
+            updates.removeFirst();
+        }
+        List<WalletUpdate> after = new ArrayList<>();
+        boolean found = false;
+        for (Iterator<WalletUpdate> it = updates.descendingIterator(); it.hasNext();) {
+            WalletUpdate update = it.next();
+            if (update.id().equals(lastEventId)) {
+                found = true;
+                break;
+            }
+            after.add(0, update);
+        }
+        return found ? after : null;
+    }
+
+    private void publish(List<WalletUpdate> updates) {
+        // Never holds up the committing thread, which may be a transfer engine writer
+        topic
+            .publishAllAsync(updates)
+            .whenComplete((result, failure) -> {
+                if (failure != null) {
+                    LOG.warn("Failed to publish the wallet updates of transfer {}: {}", updates.get(0).transferId(), failure.getMessage());
+                }
+            });
+    }
+
+    private static SseEventBuilder toEvent(WalletUpdate update) {
+        return event().id(update.id()).name(UPDATE).data(update, MediaType.APPLICATION_JSON);
+    }
+
+    static List<WalletUpdate> updatesOf(TransferEventData transfer) {
+        String id = transfer.transferId() + ":" + transfer.status();
+        if (COMPLETED.equals(transfer.status())) {
+            return List.of(
+                new WalletUpdate(
+                    id,
+                    transfer.senderPhoneNumber(),
+                    transfer.transferId(),
+                    transfer.status(),
+                    WalletUpdate.DEBIT,
+                    transfer.receiverPhoneNumber(),
+                    transfer.amount(),
+                    transfer.fees(),
+                    transfer.currency(),
+                    transfer.senderNewBalance(),
+                    transfer.completedAt()
+                ),
+                new WalletUpdate(
+                    id,
+                    transfer.receiverPhoneNumber(),
+                    transfer.transferId(),
+                    transfer.status(),
+                    WalletUpdate.CREDIT,
+                    transfer.senderPhoneNumber(),
+                    transfer.amount(),
+                    "0",
+                    transfer.currency(),
+                    transfer.receiverNewBalance(),
+                    transfer.completedAt()
+                )
+            );
+        }
+        if (FAILED.equals(transfer.status())) {
+            // Only the sender saw the transfer
+            return List.of(
+                new WalletUpdate(
+                    id,
+                    transfer.senderPhoneNumber(),
+                    transfer.transferId(),
+                    transfer.status(),
+                    WalletUpdate.DEBIT,
+                    transfer.receiverPhoneNumber(),
+                    transfer.amount(),
+                    transfer.fees(),
+                    transfer.currency(),
+                    null,
+                    transfer.failedAt()
+                )
+            );
+        }
+        return List.of();
+    }
+
+    /**
+     * Delivers the updates published from now on by any node, and goes on after missing some.
+     */
+    private final class UpdateListener implements ReliableMessageListener<WalletUpdate> {
+
+        @Override
+        public void onMessage(Message<WalletUpdate> message) {
+            deliver(message.getMessageObject());
+        }
+
+        @Override
+        public long retrieveInitialSequence() {
+            return -1;
+        }
+
+        @Override
+        public void storeSequence(long sequence) {}
+
+        @Override
+        public boolean isLossTolerant() {
+            return true;
+        }
+
+        @Override
+        public boolean isTerminal(Throwable failure) {
+            LOG.warn("Failed to deliver a wallet update: {}", failure.getMessage());
+            return false;
+        }
+    }
+}
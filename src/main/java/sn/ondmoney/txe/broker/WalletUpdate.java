@@ -0,0 +1,40 @@
+package sn.ondmoney.txe.broker;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A change of a user's wallet, pushed on the wallet stream: the status of a transfer and, once it completed, the
+ * new balance.
+ *
+ * @param id the event id, the resume token of the stream
+ * @param phone the phone number of the wallet owner, who receives the update
+ * @param transferId the transaction id of the transfer
+ * @param status the status of the transfer
+ * @param direction {@code DEBIT} for the sender, {@code CREDIT} for the receiver
+ * @param counterparty the phone number of the other party
+ * @param amount the transferred amount
+ * @param fees the fees paid by the sender
+ * @param currency the currency of the amounts
+ * @param balance the balance of the wallet after the transfer, {@code null} when it did not change
+ * @param occurredAt when the transfer completed or failed
+ */
+public record WalletUpdate(
+    String id,
+    @JsonIgnore String phone,
+    String transferId,
+    String status,
+    String direction,
+    String counterparty,
+    String amount,
+    String fees,
+    String currency,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String balance,
+    Instant occurredAt
+)
+    implements Serializable {
+    public static final String DEBIT = "DEBIT";
+    public static final String CREDIT = "CREDIT";
+}
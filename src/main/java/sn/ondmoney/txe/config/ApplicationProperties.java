@@ -1,6 +1,18 @@
 package sn.ondmoney.txe.config;
 
+import com.hazelcast.config.InMemoryFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import sn.ondmoney.txe.broker.SubscriptionHub;
+import sn.ondmoney.txe.domain.enumeration.TransactionType;
+import sn.ondmoney.txe.kafka.CloudEventWriter;
+import sn.ondmoney.txe.kafka.KafkaConfig;
+import sn.ondmoney.txe.service.TxIdGenerator;
+import sn.ondmoney.txe.service.WalletConcurrencyStrategy;
 
 /**
  * Properties specific to Ondmoney Transaction Engine.
@@ -13,12 +25,90 @@ public class ApplicationProperties {
 
     private final Liquibase liquibase = new Liquibase();
 
+    private final Outbox outbox = new Outbox();
+
+    private final Producer producer = new Producer();
+
+    private final Wallet wallet = new Wallet();
+
+    private final TransferEngine transferEngine = new TransferEngine();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final TxId txId = new TxId();
+
+    private final Fees fees = new Fees();
+
+    private final CloudEvents cloudEvents = new CloudEvents();
+
+    private final UserRegistered userRegistered = new UserRegistered();
+
+    private final ProcessedEvents processedEvents = new ProcessedEvents();
+
+    private final Sse sse = new Sse();
+
+    private final WalletStream walletStream = new WalletStream();
+
+    private final Cache cache = new Cache();
+
     // jhipster-needle-application-properties-property
 
     public Liquibase getLiquibase() {
         return liquibase;
     }
 
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public Producer getProducer() {
+        return producer;
+    }
+
+    public Wallet getWallet() {
+        return wallet;
+    }
+
+    public TransferEngine getTransferEngine() {
+        return transferEngine;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public TxId getTxId() {
+        return txId;
+    }
+
+    public Fees getFees() {
+        return fees;
+    }
+
+    public CloudEvents getCloudEvents() {
+        return cloudEvents;
+    }
+
+    public UserRegistered getUserRegistered() {
+        return userRegistered;
+    }
+
+    public ProcessedEvents getProcessedEvents() {
+        return processedEvents;
+    }
+
+    public Sse getSse() {
+        return sse;
+    }
+
+    public WalletStream getWalletStream() {
+        return walletStream;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
     public static class Liquibase {
@@ -33,5 +123,691 @@ public class ApplicationProperties {
             this.asyncStart = asyncStart;
         }
     }
+
+    public static class Outbox {
+
+        private int batchSize = 200;
+
+        private long pollIntervalMs = 200;
+
+        private long sendTimeoutMs = 10000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(long pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+
+        public long getSendTimeoutMs() {
+            return sendTimeoutMs;
+        }
+
+        public void setSendTimeoutMs(long sendTimeoutMs) {
+            this.sendTimeoutMs = sendTimeoutMs;
+        }
+    }
+
+    public static class Producer {
+
+        private KafkaConfig.ProducerProfile profile = KafkaConfig.ProducerProfile.BALANCED;
+
+        private int maxInFlightPerTopic = 1000;
+
+        private long backpressureTimeoutMs = 1000;
+
+        private long maxBlockMs = 5000;
+
+        public KafkaConfig.ProducerProfile getProfile() {
+            return profile;
+        }
+
+        public void setProfile(KafkaConfig.ProducerProfile profile) {
+            this.profile = profile;
+        }
+
+        public int getMaxInFlightPerTopic() {
+            return maxInFlightPerTopic;
+        }
+
+        public void setMaxInFlightPerTopic(int maxInFlightPerTopic) {
+            this.maxInFlightPerTopic = maxInFlightPerTopic;
+        }
+
+        public long getBackpressureTimeoutMs() {
+            return backpressureTimeoutMs;
+        }
+
+        public void setBackpressureTimeoutMs(long backpressureTimeoutMs) {
+            this.backpressureTimeoutMs = backpressureTimeoutMs;
+        }
+
+        public long getMaxBlockMs() {
+            return maxBlockMs;
+        }
+
+        public void setMaxBlockMs(long maxBlockMs) {
+            this.maxBlockMs = maxBlockMs;
+        }
+    }
+
+    public static class Wallet {
+
+        private WalletConcurrencyStrategy.Mode concurrencyMode = WalletConcurrencyStrategy.Mode.ATOMIC;
+
+        private int maxAttempts = 5;
+
+        private long retryDelayMs = 5;
+
+        private long retryMaxDelayMs = 100;
+
+        public WalletConcurrencyStrategy.Mode getConcurrencyMode() {
+            return concurrencyMode;
+        }
+
+        public void setConcurrencyMode(WalletConcurrencyStrategy.Mode concurrencyMode) {
+            this.concurrencyMode = concurrencyMode;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getRetryDelayMs() {
+            return retryDelayMs;
+        }
+
+        public void setRetryDelayMs(long retryDelayMs) {
+            this.retryDelayMs = retryDelayMs;
+        }
+
+        public long getRetryMaxDelayMs() {
+            return retryMaxDelayMs;
+        }
+
+        public void setRetryMaxDelayMs(long retryMaxDelayMs) {
+            this.retryMaxDelayMs = retryMaxDelayMs;
+        }
+    }
+
+    public static class TransferEngine {
+
+        private boolean enabled = false;
+
+        private int partitions = 8;
+
+        private int maxBatchSize = 64;
+
+        private int queueCapacity = 10000;
+
+        private long submitTimeoutMs = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPartitions() {
+            return partitions;
+        }
+
+        public void setPartitions(int partitions) {
+            this.partitions = partitions;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getSubmitTimeoutMs() {
+            return submitTimeoutMs;
+        }
+
+        public void setSubmitTimeoutMs(long submitTimeoutMs) {
+            this.submitTimeoutMs = submitTimeoutMs;
+        }
+    }
+
+    public static class Idempotency {
+
+        private long ttlSeconds = 86400;
+
+        private long waitTimeoutMs = 15000;
+
+        private long purgeIntervalMs = 3600000;
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public long getWaitTimeoutMs() {
+            return waitTimeoutMs;
+        }
+
+        public void setWaitTimeoutMs(long waitTimeoutMs) {
+            this.waitTimeoutMs = waitTimeoutMs;
+        }
+
+        public long getPurgeIntervalMs() {
+            return purgeIntervalMs;
+        }
+
+        public void setPurgeIntervalMs(long purgeIntervalMs) {
+            this.purgeIntervalMs = purgeIntervalMs;
+        }
+    }
+
+    public static class TxId {
+
+        private TxIdGenerator.Mode generator = TxIdGenerator.Mode.SNOWFLAKE;
+
+        private int nodeId = -1;
+
+        public TxIdGenerator.Mode getGenerator() {
+            return generator;
+        }
+
+        public void setGenerator(TxIdGenerator.Mode generator) {
+            this.generator = generator;
+        }
+
+        public int getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(int nodeId) {
+            this.nodeId = nodeId;
+        }
+    }
+
+    public static class Fees {
+
+        private List<FeeTier> tiers = new ArrayList<>(List.of(new FeeTier(TransactionType.TRANSFER_P2P, 0, 100, 0, 25, 5000L)));
+
+        public List<FeeTier> getTiers() {
+            return tiers;
+        }
+
+        public void setTiers(List<FeeTier> tiers) {
+            this.tiers = tiers;
+        }
+    }
+
+    public static class FeeTier {
+
+        private TransactionType type;
+
+        private long fromAmount;
+
+        private long rateBps;
+
+        private long fixedFee;
+
+        private long minFee;
+
+        private Long maxFee;
+
+        public FeeTier() {}
+
+        public FeeTier(TransactionType type, long fromAmount, long rateBps, long fixedFee, long minFee, Long maxFee) {
+            this.type = type;
+            this.fromAmount = fromAmount;
+            this.rateBps = rateBps;
+            this.fixedFee = fixedFee;
+            this.minFee = minFee;
+            this.maxFee = maxFee;
+        }
+
+        public TransactionType getType() {
+            return type;
+        }
+
+        public void setType(TransactionType type) {
+            this.type = type;
+        }
+
+        public long getFromAmount() {
+            return fromAmount;
+        }
+
+        public void setFromAmount(long fromAmount) {
+            this.fromAmount = fromAmount;
+        }
+
+        public long getRateBps() {
+            return rateBps;
+        }
+
+        public void setRateBps(long rateBps) {
+            this.rateBps = rateBps;
+        }
+
+        public long getFixedFee() {
+            return fixedFee;
+        }
+
+        public void setFixedFee(long fixedFee) {
+            this.fixedFee = fixedFee;
+        }
+
+        public long getMinFee() {
+            return minFee;
+        }
+
+        public void setMinFee(long minFee) {
+            this.minFee = minFee;
+        }
+
+        public Long getMaxFee() {
+            return maxFee;
+        }
+
+        public void setMaxFee(Long maxFee) {
+            this.maxFee = maxFee;
+        }
+    }
+
     // jhipster-needle-application-properties-property-class
+
+    public static class CloudEvents {
+
+        private CloudEventWriter.ContentMode contentMode = CloudEventWriter.ContentMode.STRUCTURED;
+
+        private Map<String, CloudEventWriter.ContentMode> topicContentModes = new HashMap<>();
+
+        private CloudEventWriter.Encoding encoding = CloudEventWriter.Encoding.JSON;
+
+        private Map<String, CloudEventWriter.Encoding> topicEncodings = new HashMap<>();
+
+        public CloudEventWriter.ContentMode getContentMode() {
+            return contentMode;
+        }
+
+        public void setContentMode(CloudEventWriter.ContentMode contentMode) {
+            this.contentMode = contentMode;
+        }
+
+        public Map<String, CloudEventWriter.ContentMode> getTopicContentModes() {
+            return topicContentModes;
+        }
+
+        public void setTopicContentModes(Map<String, CloudEventWriter.ContentMode> topicContentModes) {
+            this.topicContentModes = topicContentModes;
+        }
+
+        public CloudEventWriter.Encoding getEncoding() {
+            return encoding;
+        }
+
+        public void setEncoding(CloudEventWriter.Encoding encoding) {
+            this.encoding = encoding;
+        }
+
+        public Map<String, CloudEventWriter.Encoding> getTopicEncodings() {
+            return topicEncodings;
+        }
+
+        public void setTopicEncodings(Map<String, CloudEventWriter.Encoding> topicEncodings) {
+            this.topicEncodings = topicEncodings;
+        }
+    }
+
+    public static class UserRegistered {
+
+        private boolean batchEnabled = false;
+
+        private int maxPollRecords = 500;
+
+        private String transactionIdPrefix = "txe-user-registered-";
+
+        private int retryAttempts = 4;
+
+        private long retryDelayMs = 1000;
+
+        private double retryMultiplier = 5;
+
+        private long retryMaxDelayMs = 60000;
+
+        public boolean isBatchEnabled() {
+            return batchEnabled;
+        }
+
+        public void setBatchEnabled(boolean batchEnabled) {
+            this.batchEnabled = batchEnabled;
+        }
+
+        public int getMaxPollRecords() {
+            return maxPollRecords;
+        }
+
+        public void setMaxPollRecords(int maxPollRecords) {
+            this.maxPollRecords = maxPollRecords;
+        }
+
+        public String getTransactionIdPrefix() {
+            return transactionIdPrefix;
+        }
+
+        public void setTransactionIdPrefix(String transactionIdPrefix) {
+            this.transactionIdPrefix = transactionIdPrefix;
+        }
+
+        public int getRetryAttempts() {
+            return retryAttempts;
+        }
+
+        public void setRetryAttempts(int retryAttempts) {
+            this.retryAttempts = retryAttempts;
+        }
+
+        public long getRetryDelayMs() {
+            return retryDelayMs;
+        }
+
+        public void setRetryDelayMs(long retryDelayMs) {
+            this.retryDelayMs = retryDelayMs;
+        }
+
+        public double getRetryMultiplier() {
+            return retryMultiplier;
+        }
+
+        public void setRetryMultiplier(double retryMultiplier) {
+            this.retryMultiplier = retryMultiplier;
+        }
+
+        public long getRetryMaxDelayMs() {
+            return retryMaxDelayMs;
+        }
+
+        public void setRetryMaxDelayMs(long retryMaxDelayMs) {
+            this.retryMaxDelayMs = retryMaxDelayMs;
+        }
+    }
+    public static class ProcessedEvents {
+
+        private int retentionDays = 7;
+
+        private long expectedPerDay = 200000;
+
+        private double falsePositiveRate = 0.01;
+
+        private int recentCacheSize = 10000;
+
+        private int partitionsAhead = 2;
+
+        private long maintenanceIntervalMs = 3600000;
+
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(int retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+
+        public long getExpectedPerDay() {
+            return expectedPerDay;
+        }
+
+        public void setExpectedPerDay(long expectedPerDay) {
+            this.expectedPerDay = expectedPerDay;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        public int getRecentCacheSize() {
+            return recentCacheSize;
+        }
+
+        public void setRecentCacheSize(int recentCacheSize) {
+            this.recentCacheSize = recentCacheSize;
+        }
+
+        public int getPartitionsAhead() {
+            return partitionsAhead;
+        }
+
+        public void setPartitionsAhead(int partitionsAhead) {
+            this.partitionsAhead = partitionsAhead;
+        }
+
+        public long getMaintenanceIntervalMs() {
+            return maintenanceIntervalMs;
+        }
+
+        public void setMaintenanceIntervalMs(long maintenanceIntervalMs) {
+            this.maintenanceIntervalMs = maintenanceIntervalMs;
+        }
+    }
+
+    public static class Sse {
+
+        private int queueCapacity = 256;
+
+        private SubscriptionHub.OverflowPolicy overflowPolicy = SubscriptionHub.OverflowPolicy.DROP_OLDEST;
+
+        private int deliveryThreads = 16;
+
+        private long heartbeatIntervalMs = 15000;
+
+        private long timeoutMs = 1800000;
+
+        private long sendTimeoutMs = 10000;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public SubscriptionHub.OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(SubscriptionHub.OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public int getDeliveryThreads() {
+            return deliveryThreads;
+        }
+
+        public void setDeliveryThreads(int deliveryThreads) {
+            this.deliveryThreads = deliveryThreads;
+        }
+
+        public long getHeartbeatIntervalMs() {
+            return heartbeatIntervalMs;
+        }
+
+        public void setHeartbeatIntervalMs(long heartbeatIntervalMs) {
+            this.heartbeatIntervalMs = heartbeatIntervalMs;
+        }
+
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+
+        public long getSendTimeoutMs() {
+            return sendTimeoutMs;
+        }
+
+        public void setSendTimeoutMs(long sendTimeoutMs) {
+            this.sendTimeoutMs = sendTimeoutMs;
+        }
+    }
+
+    public static class WalletStream {
+
+        private int replaySize = 20;
+
+        private int replayUsers = 100000;
+
+        private long replayWindowMs = 900000;
+
+        public int getReplaySize() {
+            return replaySize;
+        }
+
+        public void setReplaySize(int replaySize) {
+            this.replaySize = replaySize;
+        }
+
+        public int getReplayUsers() {
+            return replayUsers;
+        }
+
+        public void setReplayUsers(int replayUsers) {
+            this.replayUsers = replayUsers;
+        }
+
+        public long getReplayWindowMs() {
+            return replayWindowMs;
+        }
+
+        public void setReplayWindowMs(long replayWindowMs) {
+            this.replayWindowMs = replayWindowMs;
+        }
+    }
+
+    public static class Cache {
+
+        private final CacheRegion defaults = new CacheRegion(1, InMemoryFormat.BINARY, 10000, 3600, false);
+
+        private Map<String, CacheRegion> regions = new LinkedHashMap<>();
+
+        public CacheRegion getDefaults() {
+            return defaults;
+        }
+
+        public Map<String, CacheRegion> getRegions() {
+            return regions;
+        }
+
+        public void setRegions(Map<String, CacheRegion> regions) {
+            this.regions = regions;
+        }
+
+        /**
+         * @return the settings of a region, those it leaves unset taken from the defaults.
+         */
+        public CacheRegion region(String name) {
+            CacheRegion region = regions.getOrDefault(name, new CacheRegion());
+            return new CacheRegion(
+                region.backupCount != null ? region.backupCount : defaults.backupCount,
+                region.inMemoryFormat != null ? region.inMemoryFormat : defaults.inMemoryFormat,
+                region.maxSize != null ? region.maxSize : defaults.maxSize,
+                region.timeToLiveSeconds != null ? region.timeToLiveSeconds : defaults.timeToLiveSeconds,
+                region.nearCache != null ? region.nearCache : defaults.nearCache
+            );
+        }
+    }
+
+    public static class CacheRegion {
+
+        private Integer backupCount;
+
+        private InMemoryFormat inMemoryFormat;
+
+        private Integer maxSize;
+
+        private Integer timeToLiveSeconds;
+
+        private Boolean nearCache;
+
+        public CacheRegion() {}
+
+        public CacheRegion(Integer backupCount, InMemoryFormat inMemoryFormat, Integer maxSize, Integer timeToLiveSeconds, Boolean nearCache) {
+            this.backupCount = backupCount;
+            this.inMemoryFormat = inMemoryFormat;
+            this.maxSize = maxSize;
+            this.timeToLiveSeconds = timeToLiveSeconds;
+            this.nearCache = nearCache;
+        }
+
+        public Integer getBackupCount() {
+            return backupCount;
+        }
+
+        public void setBackupCount(Integer backupCount) {
+            this.backupCount = backupCount;
+        }
+
+        public InMemoryFormat getInMemoryFormat() {
+            return inMemoryFormat;
+        }
+
+        public void setInMemoryFormat(InMemoryFormat inMemoryFormat) {
+            this.inMemoryFormat = inMemoryFormat;
+        }
+
+        public Integer getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(Integer maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Integer getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(Integer timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public Boolean getNearCache() {
+            return nearCache;
+        }
+
+        public void setNearCache(Boolean nearCache) {
+            this.nearCache = nearCache;
+        }
+    }
 }
@@ -32,6 +32,9 @@ public class CacheConfiguration {
 
     private static final Logger LOG = LoggerFactory.getLogger(CacheConfiguration.class);
 
+    /** Hibernate regions without their own {@code application.cache.regions} entry. */
+    static final String DOMAIN_REGIONS = "sn.ondmoney.txe.domain.*";
+
     private final Environment env;
 
     private final ServerProperties serverProperties;
@@ -64,7 +67,7 @@ public class CacheConfiguration {
     }
 
     @Bean
-    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties) {
+    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         LOG.debug("Configuring Hazelcast");
         HazelcastInstance hazelCastInstance = Hazelcast.getHazelcastInstanceByName("ondmoneyTransactionEngine");
         if (hazelCastInstance != null) {
@@ -106,7 +109,9 @@ public class CacheConfiguration {
         }
         config.setManagementCenterConfig(new ManagementCenterConfig());
         config.addMapConfig(initializeDefaultMapConfig(jHipsterProperties));
-        config.addMapConfig(initializeDomainMapConfig(jHipsterProperties));
+        ApplicationProperties.Cache cache = applicationProperties.getCache();
+        config.addMapConfig(initializeRegionMapConfig(DOMAIN_REGIONS, cache.getDefaults()));
+        cache.getRegions().keySet().forEach(name -> config.addMapConfig(initializeRegionMapConfig(name, cache.region(name))));
         return Hazelcast.newHazelcastInstance(config);
     }
 
@@ -140,9 +145,37 @@ public class CacheConfiguration {
         return mapConfig;
     }
 
-    private MapConfig initializeDomainMapConfig(JHipsterProperties jHipsterProperties) {
-        MapConfig mapConfig = new MapConfig("sn.ondmoney.txe.domain.*");
-        mapConfig.setTimeToLiveSeconds(jHipsterProperties.getCache().getHazelcast().getTimeToLiveSeconds());
+    /**
+     * Map of a cache region: a Hibernate entity or collection region, or a cache of the application.
+     */
+    static MapConfig initializeRegionMapConfig(String name, ApplicationProperties.CacheRegion region) {
+        MapConfig mapConfig = new MapConfig(name);
+        mapConfig.setBackupCount(region.getBackupCount());
+        mapConfig.setInMemoryFormat(region.getInMemoryFormat());
+        mapConfig.setTimeToLiveSeconds(region.getTimeToLiveSeconds());
+        mapConfig
+            .getEvictionConfig()
+            .setEvictionPolicy(region.getMaxSize() > 0 ? EvictionPolicy.LRU : EvictionPolicy.NONE)
+            .setMaxSizePolicy(MaxSizePolicy.PER_NODE)
+            .setSize(region.getMaxSize());
+
+        if (Boolean.TRUE.equals(region.getNearCache())) {
+            /*
+            Every node keeps the entries it reads, local ones included,
+            and drops them when they change anywhere in the cluster.
+            */
+            NearCacheConfig nearCacheConfig = new NearCacheConfig(name);
+            nearCacheConfig.setInMemoryFormat(region.getInMemoryFormat());
+            nearCacheConfig.setInvalidateOnChange(true);
+            nearCacheConfig.setCacheLocalEntries(true);
+            nearCacheConfig.setTimeToLiveSeconds(region.getTimeToLiveSeconds());
+            nearCacheConfig
+                .getEvictionConfig()
+                .setEvictionPolicy(EvictionPolicy.LRU)
+                .setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT)
+                .setSize(region.getMaxSize() > 0 ? region.getMaxSize() : Integer.MAX_VALUE);
+            mapConfig.setNearCacheConfig(nearCacheConfig);
+        }
         return mapConfig;
     }
 
@@ -0,0 +1,125 @@
+package sn.ondmoney.txe.config;
+
+import com.hazelcast.core.DistributedObject;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.LocalMapStats;
+import com.hazelcast.nearcache.NearCacheStats;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint of the cache regions: {@code GET /management/cacheregions} reports the statistics of every
+ * Hazelcast map of this member, {@code GET /management/cacheregions/{name}} those of one map.
+ * <p>
+ * Statistics are those of this member since it started: the map ones count the operations on the entries it owns,
+ * the near-cache ones the reads it served itself. A region tuned with {@code application.cache.regions} is best
+ * compared across all the members.
+ */
+@Component
+@Endpoint(id = "cacheregions")
+public class CacheRegionsEndpoint {
+
+    private final HazelcastInstance hazelcastInstance;
+
+    public CacheRegionsEndpoint(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    /**
+     * @return the statistics of the maps, by name.
+     */
+    @ReadOperation
+    public Map<String, RegionStats> regions() {
+        Map<String, RegionStats> regions = new TreeMap<>();
+        for (DistributedObject object : hazelcastInstance.getDistributedObjects()) {
+            if (object instanceof IMap<?, ?> map) {
+                regions.put(map.getName(), RegionStats.of(map.getLocalMapStats()));
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * @return the statistics of a map, or {@code null} (404) if it does not exist yet.
+     */
+    @ReadOperation
+    public RegionStats region(@Selector String name) {
+        // Looking a map up by name would create it
+        for (DistributedObject object : hazelcastInstance.getDistributedObjects()) {
+            if (object instanceof IMap<?, ?> map && map.getName().equals(name)) {
+                return RegionStats.of(map.getLocalMapStats());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param misses reads of an entry not in the map, to be loaded from the database
+     * @param invalidations entries removed on change, by Hibernate or by an application eviction
+     * @param nearCache the near-cache statistics, {@code null} without near-cache
+     */
+    public record RegionStats(
+        long entries,
+        long backupEntries,
+        int backupCount,
+        long heapCost,
+        long hits,
+        long misses,
+        long puts,
+        long invalidations,
+        long evictions,
+        long expirations,
+        NearCacheRegionStats nearCache
+    ) {
+        static RegionStats of(LocalMapStats stats) {
+            return new RegionStats(
+                stats.getOwnedEntryCount(),
+                stats.getBackupEntryCount(),
+                stats.getBackupCount(),
+                stats.getHeapCost(),
+                stats.getHits(),
+                // Hits only count reads of an existing entry
+                Math.max(0, stats.getGetOperationCount() - stats.getHits()),
+                stats.getPutOperationCount() + stats.getSetOperationCount(),
+                stats.getRemoveOperationCount(),
+                stats.getEvictionCount(),
+                stats.getExpirationCount(),
+                stats.getNearCacheStats() != null ? NearCacheRegionStats.of(stats.getNearCacheStats()) : null
+            );
+        }
+    }
+
+    /**
+     * @param invalidations entries dropped because they changed on any member
+     * @param invalidationRequests invalidation events received from the other members
+     */
+    public record NearCacheRegionStats(
+        long entries,
+        long hits,
+        long misses,
+        double hitRatio,
+        long evictions,
+        long expirations,
+        long invalidations,
+        long invalidationRequests
+    ) {
+        static NearCacheRegionStats of(NearCacheStats stats) {
+            return new NearCacheRegionStats(
+                stats.getOwnedEntryCount(),
+                stats.getHits(),
+                stats.getMisses(),
+                // Hazelcast's own ratio is hits per miss, infinite before the first miss
+                stats.getHits() + stats.getMisses() > 0 ? (double) stats.getHits() / (stats.getHits() + stats.getMisses()) : 0,
+                stats.getEvictions(),
+                stats.getExpirations(),
+                stats.getInvalidations(),
+                stats.getInvalidationRequests()
+            );
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package sn.ondmoney.txe.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.annotation.EnableRetry;
+
+/**
+ * Enables {@code @Retryable}.
+ * The retry advice is ordered just before the transaction advice, so every attempt runs in a fresh transaction.
+ */
+@Configuration
+@EnableRetry(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class RetryConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RetryConfiguration.class);
+
+    /**
+     * Counts wallet concurrency conflicts, per concurrency mode and conflict type.
+     */
+    @Bean
+    public RetryListener walletConflictRetryListener(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        return new RetryListener() {
+            @Override
+            public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+                String type;
+                if (throwable instanceof OptimisticLockingFailureException) {
+                    type = "optimistic";
+                } else if (throwable instanceof PessimisticLockingFailureException) {
+                    type = "lock";
+                } else {
+                    type = "other";
+                }
+                String mode = applicationProperties.getWallet().getConcurrencyMode().name().toLowerCase();
+                LOG.debug("Wallet {} conflict in {} mode, attempt {}", type, mode, context.getRetryCount());
+                meterRegistry.counter("txe.wallet.conflicts", "mode", mode, "type", type).increment();
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package sn.ondmoney.txe.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import sn.ondmoney.txe.broker.SubscriptionHub;
+
+/**
+ * Server-sent event hubs, one per stream: each has its own connections, delivery threads and metrics.
+ */
+@Configuration
+public class SseConfiguration {
+
+    /**
+     * Connections of the {@code sse-topic} consumer.
+     */
+    @Bean
+    public SubscriptionHub subscriptionHub(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        return new SubscriptionHub("broker", meterRegistry, applicationProperties);
+    }
+
+    /**
+     * Connections of the wallet update stream.
+     */
+    @Bean
+    public SubscriptionHub walletStreamHub(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        return new SubscriptionHub("wallet-stream", meterRegistry, applicationProperties);
+    }
+}
@@ -0,0 +1,147 @@
+package sn.ondmoney.txe.domain;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Stored outcome of a request sent with an {@code Idempotency-Key} header.
+ * Keyed by (sender phone, key); replayed instead of running the request again until it expires.
+ * A record without response is a transfer still {@code PROCESSING}.
+ */
+@Entity
+@Table(name = "idempotency_record")
+public class IdempotencyRecord implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator", allocationSize = 100)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "sender_phone", nullable = false)
+    private String senderPhone;
+
+    @Column(name = "idempotency_key", length = 100, nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    @Column(name = "tx_id")
+    private String txId;
+
+    @Column(name = "response", columnDefinition = "text")
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public IdempotencyRecord() {}
+
+    public IdempotencyRecord(String senderPhone, String idempotencyKey, String requestHash, String txId, String response, Instant expiresAt) {
+        this.senderPhone = senderPhone;
+        this.idempotencyKey = idempotencyKey;
+        this.requestHash = requestHash;
+        this.txId = txId;
+        this.response = response;
+        this.createdAt = Instant.now();
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSenderPhone() {
+        return senderPhone;
+    }
+
+    public void setSenderPhone(String senderPhone) {
+        this.senderPhone = senderPhone;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public String getTxId() {
+        return txId;
+    }
+
+    public void setTxId(String txId) {
+        this.txId = txId;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    public void setResponse(String response) {
+        this.response = response;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IdempotencyRecord)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((IdempotencyRecord) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+            "id=" + getId() +
+            ", idempotencyKey='" + getIdempotencyKey() + "'" +
+            ", txId='" + getTxId() + "'" +
+            ", createdAt='" + getCreatedAt() + "'" +
+            ", expiresAt='" + getExpiresAt() + "'" +
+            "}";
+    }
+}
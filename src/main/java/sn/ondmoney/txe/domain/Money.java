@@ -0,0 +1,160 @@
+package sn.ondmoney.txe.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * An amount of money: a {@code long} count of minor units and an ISO 4217 currency code.
+ * <p>
+ * XOF has no minor unit, so one minor unit is one franc. Arithmetic stays in {@code long} and fails on overflow
+ * instead of wrapping. In JSON a {@code Money} is a plain number in the engine currency, {@link #XOF}.
+ */
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public final class Money implements Comparable<Money>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String XOF = "XOF";
+
+    public static final Money ZERO = new Money(0, XOF);
+
+    private final long minorUnits;
+
+    private final String currency;
+
+    private Money(long minorUnits, String currency) {
+        this.minorUnits = minorUnits;
+        this.currency = Objects.requireNonNull(currency);
+    }
+
+    public static Money ofMinor(long minorUnits, String currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money xof(long amount) {
+        return new Money(amount, XOF);
+    }
+
+    /**
+     * @param amount the amount in major units
+     * @param currency the currency code
+     * @return the same amount in minor units.
+     * @throws ArithmeticException if the amount has more decimals than the currency, or does not fit in a {@code long}
+     */
+    public static Money of(BigDecimal amount, String currency) {
+        return new Money(amount.setScale(fractionDigits(currency), RoundingMode.UNNECESSARY).unscaledValue().longValueExact(), currency);
+    }
+
+    /**
+     * Like {@link #of(BigDecimal, String)}, rounding half up the decimals the currency does not have.
+     *
+     * @throws ArithmeticException if the amount does not fit in a {@code long}
+     */
+    public static Money ofRounded(BigDecimal amount, String currency) {
+        return new Money(amount.setScale(fractionDigits(currency), RoundingMode.HALF_UP).unscaledValue().longValueExact(), currency);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    private void checkCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+
+    static int fractionDigits(String currency) {
+        return XOF.equals(currency) ? 0 : Currency.getInstance(currency).getDefaultFractionDigits();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money other = (Money) o;
+        return minorUnits == other.minorUnits && currency.equals(other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits) * 31 + currency.hashCode();
+    }
+
+    /**
+     * @return the amount in major units, without the currency: {@code 5000} for 5000 XOF.
+     */
+    @Override
+    public String toString() {
+        return fractionDigits(currency) == 0 ? Long.toString(minorUnits) : toBigDecimal().toPlainString();
+    }
+
+    static class Serializer extends JsonSerializer<Money> {
+
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            if (fractionDigits(value.currency) == 0) {
+                gen.writeNumber(value.minorUnits);
+            } else {
+                gen.writeNumber(value.toBigDecimal());
+            }
+        }
+    }
+
+    static class Deserializer extends JsonDeserializer<Money> {
+
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            try {
+                return Money.of(p.getDecimalValue(), XOF);
+            } catch (ArithmeticException e) {
+                return (Money) ctxt.handleWeirdNumberValue(Money.class, p.getNumberValue(), "not a whole amount of " + XOF);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package sn.ondmoney.txe.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.math.BigDecimal;
+
+/**
+ * Stores a {@link Money} in a {@code decimal(21,2)} column. The column holds engine currency amounts, {@link Money#XOF}.
+ * <p>
+ * Rows written before {@link Money} may hold a fraction of XOF: it is read rounded half up, and written back whole
+ * if the entity is saved again.
+ */
+@Converter
+public class MoneyAttributeConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money != null ? money.toBigDecimal() : null;
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return amount != null ? Money.ofRounded(amount, Money.XOF) : null;
+    }
+}
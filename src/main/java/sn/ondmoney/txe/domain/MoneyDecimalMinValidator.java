@@ -0,0 +1,32 @@
+package sn.ondmoney.txe.domain;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.constraints.DecimalMin;
+import java.math.BigDecimal;
+
+/**
+ * Validates {@link DecimalMin} on a {@link Money}, in major units. Registered with the Bean Validation provider in
+ * {@code META-INF/services/jakarta.validation.ConstraintValidator}.
+ */
+public class MoneyDecimalMinValidator implements ConstraintValidator<DecimalMin, Money> {
+
+    private BigDecimal min;
+
+    private boolean inclusive;
+
+    @Override
+    public void initialize(DecimalMin constraint) {
+        this.min = new BigDecimal(constraint.value());
+        this.inclusive = constraint.inclusive();
+    }
+
+    @Override
+    public boolean isValid(Money value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true;
+        }
+        int comparison = value.toBigDecimal().compareTo(min);
+        return inclusive ? comparison >= 0 : comparison > 0;
+    }
+}
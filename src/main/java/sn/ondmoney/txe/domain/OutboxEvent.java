@@ -0,0 +1,148 @@
+package sn.ondmoney.txe.domain;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Event waiting to be relayed to Kafka (transactional outbox).
+ * Written in the same database transaction as the business change it describes,
+ * then drained in id order by {@link sn.ondmoney.txe.kafka.OutboxRelay}.
+ */
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator", allocationSize = 100)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "topic", length = 100, nullable = false)
+    private String topic;
+
+    @Column(name = "message_key", length = 100, nullable = false)
+    private String messageKey;
+
+    @Column(name = "payload", columnDefinition = "text")
+    private String payload;
+
+    /**
+     * Message value in a binary encoding, set instead of {@code payload}.
+     */
+    @Column(name = "binary_payload")
+    private byte[] binaryPayload;
+
+    /**
+     * Kafka headers of the message as a JSON object, {@code null} if it has none.
+     */
+    @Column(name = "headers", columnDefinition = "text")
+    private String headers;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(String topic, String messageKey, String payload) {
+        this(topic, messageKey, payload, null);
+    }
+
+    public OutboxEvent(String topic, String messageKey, String payload, String headers) {
+        this(topic, messageKey, payload, null, headers);
+    }
+
+    public OutboxEvent(String topic, String messageKey, String payload, byte[] binaryPayload, String headers) {
+        this.topic = topic;
+        this.messageKey = messageKey;
+        this.payload = payload;
+        this.binaryPayload = binaryPayload;
+        this.headers = headers;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getMessageKey() {
+        return messageKey;
+    }
+
+    public void setMessageKey(String messageKey) {
+        this.messageKey = messageKey;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public byte[] getBinaryPayload() {
+        return binaryPayload;
+    }
+
+    public void setBinaryPayload(byte[] binaryPayload) {
+        this.binaryPayload = binaryPayload;
+    }
+
+    public String getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(String headers) {
+        this.headers = headers;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OutboxEvent)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((OutboxEvent) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+            "id=" + getId() +
+            ", topic='" + getTopic() + "'" +
+            ", messageKey='" + getMessageKey() + "'" +
+            ", createdAt='" + getCreatedAt() + "'" +
+            "}";
+    }
+}
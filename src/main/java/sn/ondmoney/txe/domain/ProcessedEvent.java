@@ -2,14 +2,22 @@ package sn.ondmoney.txe.domain;
 
 import jakarta.persistence.*;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.springframework.data.domain.Persistable;
 
 /**
  * Entity to track processed Kafka events for idempotency.
  * Prevents duplicate processing of the same event.
+ * <p>
+ * The id is assigned, so the entity tells Spring Data whether it is new: a new event is persisted
+ * without the select of a merge, and a list of them is inserted in JDBC batches.
+ * <p>
+ * The table is partitioned on {@code eventDay}, the UTC day of the event time: every delivery of an event has
+ * the same one, so {@code (eventId, eventDay)} is unique in the database.
  */
 @Entity
 @Table(name = "processed_events")
-public class ProcessedEvent {
+public class ProcessedEvent implements Persistable<String> {
 
     @Id
     @Column(name = "event_id", length = 100)
@@ -18,20 +26,33 @@ public class ProcessedEvent {
     @Column(name = "event_type", length = 100)
     private String eventType;
 
+    @Column(name = "event_day", nullable = false)
+    private Instant eventDay;
+
     @Column(name = "processed_at", nullable = false)
     private Instant processedAt;
 
+    @Transient
+    private boolean isPersisted;
+
     public ProcessedEvent() {}
 
     public ProcessedEvent(String eventId) {
-        this.eventId = eventId;
-        this.processedAt = Instant.now();
+        this(eventId, null);
     }
 
     public ProcessedEvent(String eventId, String eventType) {
+        this(eventId, eventType, null);
+    }
+
+    /**
+     * @param eventTime the time of the event, the processing time if unknown
+     */
+    public ProcessedEvent(String eventId, String eventType, Instant eventTime) {
         this.eventId = eventId;
         this.eventType = eventType;
         this.processedAt = Instant.now();
+        this.eventDay = (eventTime != null ? eventTime : processedAt).truncatedTo(ChronoUnit.DAYS);
     }
 
     public String getEventId() {
@@ -50,6 +71,14 @@ public class ProcessedEvent {
         this.eventType = eventType;
     }
 
+    public Instant getEventDay() {
+        return eventDay;
+    }
+
+    public void setEventDay(Instant eventDay) {
+        this.eventDay = eventDay;
+    }
+
     public Instant getProcessedAt() {
         return processedAt;
     }
@@ -57,4 +86,20 @@ public class ProcessedEvent {
     public void setProcessedAt(Instant processedAt) {
         this.processedAt = processedAt;
     }
+
+    @Override
+    public String getId() {
+        return eventId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !isPersisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    public void updateEntityState() {
+        this.isPersisted = true;
+    }
 }
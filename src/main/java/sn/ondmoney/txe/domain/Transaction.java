@@ -1,6 +1,5 @@
 package sn.ondmoney.txe.domain;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
@@ -24,7 +23,7 @@ public class Transaction implements Serializable {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator", allocationSize = 100)
     @Column(name = "id")
     private Long id;
 
@@ -77,11 +76,9 @@ public class Transaction implements Serializable {
     private String errorMessage;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JsonIgnoreProperties(value = { "debits", "credits", "transfersSents", "transfersReceiveds" }, allowSetters = true)
     private Wallet debitedAccount;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JsonIgnoreProperties(value = { "debits", "credits", "transfersSents", "transfersReceiveds" }, allowSetters = true)
     private Wallet creditedAccount;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
@@ -1,10 +1,8 @@
 package sn.ondmoney.txe.domain;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
-import java.math.BigDecimal;
 import java.time.Instant;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
@@ -23,7 +21,7 @@ public class Transfer implements Serializable {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator", allocationSize = 100)
     @Column(name = "id")
     private Long id;
 
@@ -38,12 +36,14 @@ public class Transfer implements Serializable {
 
     @NotNull
     @DecimalMin(value = "0")
+    @Convert(converter = MoneyAttributeConverter.class)
     @Column(name = "amount", precision = 21, scale = 2, nullable = false)
-    private BigDecimal amount;
+    private Money amount;
 
     @DecimalMin(value = "0")
+    @Convert(converter = MoneyAttributeConverter.class)
     @Column(name = "fees", precision = 21, scale = 2)
-    private BigDecimal fees;
+    private Money fees;
 
     @NotNull
     @Column(name = "sender_phone", nullable = false)
@@ -68,11 +68,9 @@ public class Transfer implements Serializable {
     private String errorMessage;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JsonIgnoreProperties(value = { "debits", "credits", "transfersSents", "transfersReceiveds" }, allowSetters = true)
     private Wallet sender;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JsonIgnoreProperties(value = { "debits", "credits", "transfersSents", "transfersReceiveds" }, allowSetters = true)
     private Wallet receiver;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
@@ -116,29 +114,29 @@ public class Transfer implements Serializable {
         this.status = status;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return this.amount;
     }
 
-    public Transfer amount(BigDecimal amount) {
+    public Transfer amount(Money amount) {
         this.setAmount(amount);
         return this;
     }
 
-    public void setAmount(BigDecimal amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
-    public BigDecimal getFees() {
+    public Money getFees() {
         return this.fees;
     }
 
-    public Transfer fees(BigDecimal fees) {
+    public Transfer fees(Money fees) {
         this.setFees(fees);
         return this;
     }
 
-    public void setFees(BigDecimal fees) {
+    public void setFees(Money fees) {
         this.fees = fees;
     }
 
@@ -0,0 +1,100 @@
+package sn.ondmoney.txe.domain;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Sub-balance of a sharded (hot) {@link Wallet}.
+ * <p>
+ * Credits to a sharded wallet land on one of its shards instead of the wallet row, so concurrent
+ * credits only contend when they pick the same shard. The wallet balance is the wallet row balance
+ * plus the sum of its shards. Not cached in L2: shards are written far more often than read.
+ */
+@Entity
+@Table(name = "wallet_balance_shard")
+public class WalletBalanceShard implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator", allocationSize = 100)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+
+    @Column(name = "balance", precision = 21, scale = 2, nullable = false)
+    private BigDecimal balance;
+
+    public WalletBalanceShard() {}
+
+    public WalletBalanceShard(Long walletId, Integer shardIndex) {
+        this.walletId = walletId;
+        this.shardIndex = shardIndex;
+        this.balance = BigDecimal.ZERO;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public void setWalletId(Long walletId) {
+        this.walletId = walletId;
+    }
+
+    public Integer getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(Integer shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WalletBalanceShard)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((WalletBalanceShard) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "WalletBalanceShard{" +
+            "id=" + getId() +
+            ", walletId=" + getWalletId() +
+            ", shardIndex=" + getShardIndex() +
+            ", balance=" + getBalance() +
+            "}";
+    }
+}
@@ -5,6 +5,7 @@ package sn.ondmoney.txe.domain.enumeration;
  */
 public enum TransactionStatus {
     PENDING,
+    PROCESSING,
     COMPLETED,
     FAILED,
 }
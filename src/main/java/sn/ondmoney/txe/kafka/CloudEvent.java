@@ -0,0 +1,25 @@
+package sn.ondmoney.txe.kafka;
+
+import java.time.Instant;
+
+/**
+ * CloudEvents 1.0 envelope of the events published by the TXE, in structured JSON mode.
+ *
+ * @param <T> the type of the event data
+ */
+public record CloudEvent<T>(
+    String specversion,
+    String id,
+    String source,
+    String type,
+    String datacontenttype,
+    Instant time,
+    String subject,
+    T data,
+    Extension ondmoney
+) {
+    /**
+     * Ond Money extension attributes.
+     */
+    public record Extension(String correlationId, String version, String environment) {}
+}
@@ -0,0 +1,53 @@
+package sn.ondmoney.txe.kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+/**
+ * A serialized CloudEvent: the Kafka message value and headers.
+ * <p>
+ * In structured mode the value is the whole envelope and there are no headers. In binary mode the value is
+ * the event data and the envelope attributes are {@code ce_*} headers. Data in a binary encoding is in
+ * {@code binaryPayload}, {@code payload} is then {@code null}.
+ *
+ * @param payload the message value, as text
+ * @param binaryPayload the message value, as bytes
+ * @param headers the message headers
+ */
+public record CloudEventMessage(String payload, byte[] binaryPayload, Map<String, String> headers) {
+    public CloudEventMessage(String payload, Map<String, String> headers) {
+        this(payload, null, headers);
+    }
+
+    public CloudEventMessage(byte[] binaryPayload, Map<String, String> headers) {
+        this(null, binaryPayload, headers);
+    }
+
+    public boolean isBinary() {
+        return binaryPayload != null;
+    }
+
+    public ProducerRecord<String, String> toRecord(String topic, String key) {
+        return new ProducerRecord<>(topic, null, key, payload, recordHeaders());
+    }
+
+    public ProducerRecord<String, byte[]> toBinaryRecord(String topic, String key) {
+        return new ProducerRecord<>(topic, null, key, binaryPayload, recordHeaders());
+    }
+
+    /**
+     * A record for a byte array producer, in either mode: text payloads are UTF-8 encoded.
+     */
+    public ProducerRecord<String, byte[]> toByteArrayRecord(String topic, String key) {
+        byte[] value = isBinary() ? binaryPayload : payload.getBytes(StandardCharsets.UTF_8);
+        return new ProducerRecord<>(topic, null, key, value, recordHeaders());
+    }
+
+    private RecordHeaders recordHeaders() {
+        RecordHeaders recordHeaders = new RecordHeaders();
+        headers.forEach((name, value) -> recordHeaders.add(name, value.getBytes(StandardCharsets.UTF_8)));
+        return recordHeaders;
+    }
+}
@@ -0,0 +1,236 @@
+package sn.ondmoney.txe.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+import sn.ondmoney.txe.config.ApplicationProperties;
+
+/**
+ * Serializes events in their CloudEvents envelope.
+ * <p>
+ * The envelope constants are resolved once, and each event type gets a {@link Writer} holding an
+ * {@link ObjectWriter} bound to its envelope type, so serializing an event does no type or profile lookup.
+ * Jackson recycles the output buffers of a thread across calls.
+ * <p>
+ * The content mode is chosen per topic with {@code application.cloud-events}. In binary mode the envelope
+ * attributes travel as {@code ce_*} headers, as in the CloudEvents Kafka binding, so consumers can route and
+ * deduplicate without parsing the value.
+ * <p>
+ * The data of a topic is encoded as JSON or, with the Protobuf encoding, by the {@link EventCodec} of its type.
+ * Protobuf implies the binary mode, and the {@code ce_dataschema} header names the schema in the
+ * {@link EventSchemaRegistry}.
+ */
+@Component
+public class CloudEventWriter {
+
+    static final String SPEC_VERSION = "1.0";
+    static final String SOURCE = "ond-money/txe-service";
+    static final String DATA_CONTENT_TYPE = "application/json";
+    static final String PROTOBUF_CONTENT_TYPE = "application/protobuf";
+    static final String EXTENSION_VERSION = "1.0.0";
+    private static final String EVENT_ID_PREFIX = "evt_";
+
+    public static final String HEADER_SPEC_VERSION = "ce_specversion";
+    public static final String HEADER_ID = "ce_id";
+    public static final String HEADER_SOURCE = "ce_source";
+    public static final String HEADER_TYPE = "ce_type";
+    public static final String HEADER_TIME = "ce_time";
+    public static final String HEADER_SUBJECT = "ce_subject";
+    public static final String HEADER_DATA_SCHEMA = "ce_dataschema";
+    public static final String HEADER_CORRELATION_ID = "ce_correlationid";
+    public static final String HEADER_VERSION = "ce_ondmoneyversion";
+    public static final String HEADER_ENVIRONMENT = "ce_ondmoneyenvironment";
+    public static final String HEADER_CONTENT_TYPE = "content-type";
+
+    /**
+     * How the envelope of an event is carried.
+     */
+    public enum ContentMode {
+        /** The value is the JSON envelope, with the data inside. */
+        STRUCTURED,
+        /** The value is the data, the envelope attributes are headers. */
+        BINARY,
+    }
+
+    /**
+     * How the data of an event is encoded.
+     */
+    public enum Encoding {
+        JSON,
+        PROTOBUF,
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ApplicationProperties.CloudEvents properties;
+    private final String environment;
+    private final ObjectWriter headersWriter;
+    private final ObjectReader headersReader;
+    private final Map<Class<?>, EventCodec<?>> codecs = new HashMap<>();
+    private final EventSchemaRegistry schemaRegistry;
+
+    public CloudEventWriter(
+            ObjectMapper objectMapper,
+            ApplicationProperties applicationProperties,
+            Environment environment,
+            List<EventCodec<?>> codecs,
+            EventSchemaRegistry schemaRegistry) {
+        this.objectMapper = objectMapper;
+        codecs.forEach(codec -> this.codecs.put(codec.getDataType(), codec));
+        this.schemaRegistry = schemaRegistry;
+        this.properties = applicationProperties.getCloudEvents();
+        this.environment = environmentName(environment);
+        this.headersWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructMapType(Map.class, String.class, String.class));
+        this.headersReader = objectMapper.readerFor(
+            objectMapper.getTypeFactory().constructMapType(LinkedHashMap.class, String.class, String.class)
+        );
+    }
+
+    /**
+     * @param type the CloudEvents type of the events, also their topic
+     * @param dataType the class of the event data
+     * @return a writer for the events of the type, in the content mode and encoding of the topic.
+     * @throws IllegalStateException if the topic is encoded with Protobuf and the type has no codec
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Writer<T> forType(String type, Class<T> dataType) {
+        Encoding encoding = properties.getTopicEncodings().getOrDefault(type, properties.getEncoding());
+        if (encoding == Encoding.PROTOBUF) {
+            EventCodec<T> codec = (EventCodec<T>) codecs.get(dataType);
+            if (codec == null) {
+                throw new IllegalStateException("No Protobuf codec for the data of " + type);
+            }
+            int schemaId = schemaRegistry.register(codec.getSchemaSubject(), codec.getSchema());
+            return new Writer<>(type, ContentMode.BINARY, null, codec, schemaRegistry.getSchemaUri(schemaId));
+        }
+        ContentMode mode = properties.getTopicContentModes().getOrDefault(type, properties.getContentMode());
+        JavaType valueType = mode == ContentMode.BINARY
+            ? objectMapper.constructType(dataType)
+            : objectMapper.getTypeFactory().constructParametricType(CloudEvent.class, dataType);
+        ObjectWriter writer = objectMapper.writerFor(valueType).without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return new Writer<>(type, mode, writer, null, null);
+    }
+
+    /**
+     * @return the headers as a JSON object, to store them with an outbox event, or {@code null} if there are none.
+     */
+    public String encodeHeaders(Map<String, String> headers) throws JsonProcessingException {
+        return headers.isEmpty() ? null : headersWriter.writeValueAsString(headers);
+    }
+
+    /**
+     * @return the headers stored by {@link #encodeHeaders(Map)}.
+     */
+    public Map<String, String> decodeHeaders(String headers) throws JsonProcessingException {
+        return headers == null ? Map.of() : headersReader.readValue(headers);
+    }
+
+    static String environmentName(Environment environment) {
+        if (environment.acceptsProfiles(Profiles.of("prod"))) {
+            return "production";
+        }
+        if (environment.acceptsProfiles(Profiles.of("staging"))) {
+            return "staging";
+        }
+        return "development";
+    }
+
+    /**
+     * A random version 4 UUID. Event ids only need to be unique, so they are drawn from the thread-local
+     * generator rather than the shared {@link java.security.SecureRandom} behind {@link UUID#randomUUID()}.
+     */
+    static String newEventId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return EVENT_ID_PREFIX + new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Serializer of the events of one type.
+     */
+    public final class Writer<T> {
+
+        private final String type;
+        private final ContentMode mode;
+        private final ObjectWriter writer;
+        private final EventCodec<T> codec;
+        private final String dataSchema;
+
+        private Writer(String type, ContentMode mode, ObjectWriter writer, EventCodec<T> codec, String dataSchema) {
+            this.type = type;
+            this.mode = mode;
+            this.writer = writer;
+            this.codec = codec;
+            this.dataSchema = dataSchema;
+        }
+
+        public ContentMode getMode() {
+            return mode;
+        }
+
+        public Encoding getEncoding() {
+            return codec != null ? Encoding.PROTOBUF : Encoding.JSON;
+        }
+
+        /**
+         * @param subject the CloudEvents subject, the key of the message
+         * @param correlationId the correlation ID, the event id if {@code null}
+         * @param data the event data
+         * @return the event, as a Kafka message value and headers.
+         */
+        public CloudEventMessage write(String subject, String correlationId, T data) throws JsonProcessingException {
+            String eventId = newEventId();
+            Instant time = Instant.now();
+            String eventCorrelationId = correlationId != null ? correlationId : eventId;
+            if (mode == ContentMode.BINARY) {
+                Map<String, String> headers = new LinkedHashMap<>(16);
+                headers.put(HEADER_SPEC_VERSION, SPEC_VERSION);
+                headers.put(HEADER_ID, eventId);
+                headers.put(HEADER_SOURCE, SOURCE);
+                headers.put(HEADER_TYPE, type);
+                headers.put(HEADER_TIME, DateTimeFormatter.ISO_INSTANT.format(time));
+                if (subject != null) {
+                    headers.put(HEADER_SUBJECT, subject);
+                }
+                if (dataSchema != null) {
+                    headers.put(HEADER_DATA_SCHEMA, dataSchema);
+                }
+                headers.put(HEADER_CORRELATION_ID, eventCorrelationId);
+                headers.put(HEADER_VERSION, EXTENSION_VERSION);
+                headers.put(HEADER_ENVIRONMENT, environment);
+                if (codec != null) {
+                    headers.put(HEADER_CONTENT_TYPE, PROTOBUF_CONTENT_TYPE);
+                    return new CloudEventMessage(codec.encode(data), headers);
+                }
+                headers.put(HEADER_CONTENT_TYPE, DATA_CONTENT_TYPE);
+                return new CloudEventMessage(writer.writeValueAsString(data), headers);
+            }
+            CloudEvent<T> event = new CloudEvent<>(
+                SPEC_VERSION,
+                eventId,
+                SOURCE,
+                type,
+                DATA_CONTENT_TYPE,
+                time,
+                subject,
+                data,
+                new CloudEvent.Extension(eventCorrelationId, EXTENSION_VERSION, environment)
+            );
+            return new CloudEventMessage(writer.writeValueAsString(event), Map.of());
+        }
+    }
+}
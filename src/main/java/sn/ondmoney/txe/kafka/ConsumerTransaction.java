@@ -0,0 +1,138 @@
+package sn.ondmoney.txe.kafka;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Kafka side of the consume-process-produce transactions of the consumers.
+ * <p>
+ * Records and consumer offsets are sent in a Kafka transaction synchronized with the current database
+ * transaction: the sends are flushed before the database commits, and fail it if the broker rejects one; the
+ * Kafka transaction commits right after the database, and aborts if it rolls back. The produced events and the
+ * offset commit are visible to {@code read_committed} consumers together, or not at all.
+ * <p>
+ * One window is left: the Kafka commit failing after the database commit. The records are then redelivered and
+ * skipped as processed, without their events.
+ */
+@Component
+public class ConsumerTransaction {
+
+    private final KafkaTemplate<String, byte[]> transactionalKafkaTemplate;
+
+    public ConsumerTransaction(@Qualifier("transactionalKafkaTemplate") KafkaTemplate<String, byte[]> transactionalKafkaTemplate) {
+        this.transactionalKafkaTemplate = transactionalKafkaTemplate;
+    }
+
+    /**
+     * Send a record in the transaction.
+     */
+    public void send(ProducerRecord<String, byte[]> record) {
+        pendingSends().add(transactionalKafkaTemplate.send(record));
+    }
+
+    /**
+     * Commit the consumption of records with the transaction.
+     */
+    public void commitOffsets(Consumer<?, ?> consumer, Collection<? extends ConsumerRecord<?, ?>> records) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (ConsumerRecord<?, ?> record : records) {
+            offsets.merge(
+                new TopicPartition(record.topic(), record.partition()),
+                new OffsetAndMetadata(record.offset() + 1),
+                (a, b) -> a.offset() >= b.offset() ? a : b
+            );
+        }
+        if (!offsets.isEmpty()) {
+            pendingSends();
+            transactionalKafkaTemplate.sendOffsetsToTransaction(offsets, consumer.groupMetadata());
+        }
+    }
+
+    /**
+     * Commit the consumption of one record with the transaction.
+     */
+    public void commitOffset(Consumer<?, ?> consumer, String topic, int partition, long offset) {
+        pendingSends();
+        transactionalKafkaTemplate.sendOffsetsToTransaction(
+            Map.of(new TopicPartition(topic, partition), new OffsetAndMetadata(offset + 1)),
+            consumer.groupMetadata()
+        );
+    }
+
+    /**
+     * Send a record that cannot be processed to the dead-letter topic of its topic, in the transaction, with the
+     * same headers as the dead-letter publishing of the error handlers.
+     */
+    public void deadLetter(ConsumerRecord<String, String> record, Exception exception) {
+        RecordHeaders headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            headers.add(header);
+        }
+        headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, utf8(record.topic()));
+        headers.add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array());
+        headers.add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array());
+        headers.add(KafkaHeaders.DLT_EXCEPTION_FQCN, utf8(exception.getClass().getName()));
+        if (exception.getMessage() != null) {
+            headers.add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, utf8(exception.getMessage()));
+        }
+        byte[] value = record.value() != null ? utf8(record.value()) : null;
+        send(new ProducerRecord<>(record.topic() + DeadLetterEndpoint.DLT_SUFFIX, null, record.key(), value, headers));
+    }
+
+    /**
+     * The sends of the current transaction, checked before it commits.
+     */
+    @SuppressWarnings("unchecked")
+    private List<CompletableFuture<?>> pendingSends() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Kafka consumer transactions need an active database transaction");
+        }
+        List<CompletableFuture<?>> sends = (List<CompletableFuture<?>>) TransactionSynchronizationManager.getResource(this);
+        if (sends != null) {
+            return sends;
+        }
+        List<CompletableFuture<?>> newSends = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, newSends);
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (!newSends.isEmpty()) {
+                        transactionalKafkaTemplate.flush();
+                        // Rolls the database back if the broker rejected a record
+                        CompletableFuture.allOf(newSends.toArray(new CompletableFuture<?>[0])).join();
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ConsumerTransaction.this);
+                }
+            }
+        );
+        return newSends;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,230 @@
+package sn.ondmoney.txe.kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint of the dead-letter topics: {@code GET /management/kafkadlt/{topic}} lists the records waiting
+ * in {@code {topic}-dlt}, {@code POST /management/kafkadlt/{topic}} sends them back to the topic they failed on.
+ * <p>
+ * Progress is kept as the committed offsets of the {@value #REPLAY_GROUP} consumer group: a record is listed until
+ * it is replayed, and replayed once. Replayed records keep their key and headers, without the dead-letter and
+ * retry headers, and go through the consumer deduplication again.
+ */
+@Component
+@Endpoint(id = "kafkadlt")
+public class DeadLetterEndpoint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeadLetterEndpoint.class);
+
+    public static final String DLT_SUFFIX = "-dlt";
+
+    static final String REPLAY_GROUP = "txe-dlt-replay";
+
+    static final int DEFAULT_LIMIT = 100;
+
+    static final int MAX_LIMIT = 10_000;
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+    private static final long SEND_TIMEOUT_MS = 30_000;
+
+    private static final int MAX_VALUE_LENGTH = 2_000;
+
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    public DeadLetterEndpoint(ConsumerFactory<String, String> consumerFactory, KafkaTemplate<String, String> kafkaTemplate) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    /**
+     * @param topic the consumed topic, without the dead-letter suffix
+     * @param limit the maximum number of records listed, 100 by default
+     * @return the records not replayed yet, oldest first per partition.
+     */
+    @ReadOperation
+    public List<DeadLetter> deadLetters(@Selector String topic, @Nullable Integer limit) {
+        try (Consumer<String, String> consumer = openAtReplayPosition(topic)) {
+            List<DeadLetter> deadLetters = new ArrayList<>();
+            for (ConsumerRecord<String, String> record : poll(consumer, limit(limit))) {
+                deadLetters.add(DeadLetter.of(record, originalTopic(record, topic)));
+            }
+            return deadLetters;
+        }
+    }
+
+    /**
+     * Send dead letters back to their original topic, then commit them as replayed.
+     *
+     * @param topic the consumed topic, without the dead-letter suffix
+     * @param limit the maximum number of records replayed, 100 by default
+     * @return the number of records replayed.
+     */
+    @WriteOperation
+    public ReplayResult replay(@Selector String topic, @Nullable Integer limit) {
+        try (Consumer<String, String> consumer = openAtReplayPosition(topic)) {
+            List<ConsumerRecord<String, String>> records = poll(consumer, limit(limit));
+            List<CompletableFuture<?>> sends = new ArrayList<>(records.size());
+            Map<TopicPartition, OffsetAndMetadata> replayed = new HashMap<>();
+            for (ConsumerRecord<String, String> record : records) {
+                sends.add(kafkaTemplate.send(replayRecord(record, originalTopic(record, topic))));
+                replayed.put(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1));
+            }
+            try {
+                CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).get(SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while replaying dead letters of " + topic, e);
+            } catch (Exception e) {
+                // Nothing is committed: a new replay sends the whole batch again, the consumers deduplicate it
+                throw new IllegalStateException("Failed to replay dead letters of " + topic, e);
+            }
+            if (!replayed.isEmpty()) {
+                consumer.commitSync(replayed);
+            }
+            LOG.info("Replayed {} dead letters of {}", records.size(), topic);
+            return new ReplayResult(records.size());
+        }
+    }
+
+    private Consumer<String, String> openAtReplayPosition(String topic) {
+        String deadLetterTopic = topic + DLT_SUFFIX;
+        Consumer<String, String> consumer = consumerFactory.createConsumer(REPLAY_GROUP, "-dlt-admin");
+        List<TopicPartition> partitions = new ArrayList<>();
+        List<PartitionInfo> infos = consumer.partitionsFor(deadLetterTopic);
+        if (infos != null) {
+            for (PartitionInfo info : infos) {
+                partitions.add(new TopicPartition(deadLetterTopic, info.partition()));
+            }
+        }
+        consumer.assign(partitions);
+        if (!partitions.isEmpty()) {
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+            List<TopicPartition> fromBeginning = new ArrayList<>();
+            for (TopicPartition partition : partitions) {
+                OffsetAndMetadata offset = committed.get(partition);
+                if (offset != null) {
+                    consumer.seek(partition, offset);
+                } else {
+                    fromBeginning.add(partition);
+                }
+            }
+            consumer.seekToBeginning(fromBeginning);
+        }
+        return consumer;
+    }
+
+    private static List<ConsumerRecord<String, String>> poll(Consumer<String, String> consumer, int limit) {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        if (consumer.assignment().isEmpty()) {
+            return records;
+        }
+        while (records.size() < limit) {
+            int before = records.size();
+            for (ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT)) {
+                if (records.size() == limit) {
+                    break;
+                }
+                records.add(record);
+            }
+            if (records.size() == before) {
+                break;
+            }
+        }
+        return records;
+    }
+
+    private static ProducerRecord<String, String> replayRecord(ConsumerRecord<String, String> record, String originalTopic) {
+        RecordHeaders headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!header.key().startsWith("kafka_dlt-") && !header.key().startsWith("retry_topic-")) {
+                headers.add(header);
+            }
+        }
+        return new ProducerRecord<>(originalTopic, null, record.key(), record.value(), headers);
+    }
+
+    private static String originalTopic(ConsumerRecord<?, ?> record, String topic) {
+        Header header = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        if (header == null) {
+            return topic;
+        }
+        // Records failed in a retry topic are sent back to the main topic
+        String original = new String(header.value(), StandardCharsets.UTF_8);
+        return original.startsWith(topic) ? topic : original;
+    }
+
+    private static int limit(Integer limit) {
+        if (limit == null || limit < 1) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * A record of a dead-letter topic, with the failure that sent it there.
+     */
+    public record DeadLetter(
+        int partition,
+        long offset,
+        String key,
+        Instant timestamp,
+        String originalTopic,
+        String exception,
+        String exceptionMessage,
+        String value
+    ) {
+        static DeadLetter of(ConsumerRecord<String, String> record, String originalTopic) {
+            String value = record.value();
+            if (value != null && value.length() > MAX_VALUE_LENGTH) {
+                value = value.substring(0, MAX_VALUE_LENGTH) + "...";
+            }
+            return new DeadLetter(
+                record.partition(),
+                record.offset(),
+                record.key(),
+                Instant.ofEpochMilli(record.timestamp()),
+                originalTopic,
+                header(record, KafkaHeaders.DLT_EXCEPTION_FQCN),
+                header(record, KafkaHeaders.DLT_EXCEPTION_MESSAGE),
+                value
+            );
+        }
+
+        private static String header(ConsumerRecord<?, ?> record, String name) {
+            Header header = record.headers().lastHeader(name);
+            return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+        }
+    }
+
+    public record ReplayResult(int replayed) {}
+}
@@ -0,0 +1,46 @@
+package sn.ondmoney.txe.kafka;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of one type of event data, described by a schema.
+ *
+ * @param <T> the type of the event data
+ */
+public interface EventCodec<T> {
+    /** Classpath location of the Protobuf schema of the events. */
+    String PROTOBUF_SCHEMA = "schema/ondmoney-events.proto";
+
+    Class<T> getDataType();
+
+    /**
+     * @return the schema subject, the fully qualified name of the message type.
+     */
+    String getSchemaSubject();
+
+    /**
+     * @return the schema source.
+     */
+    String getSchema();
+
+    byte[] encode(T data);
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a valid message
+     */
+    T decode(byte[] bytes);
+
+    static String loadSchema(String location) {
+        try (InputStream in = EventCodec.class.getClassLoader().getResourceAsStream(location)) {
+            if (in == null) {
+                throw new IllegalStateException("Schema not found: " + location);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
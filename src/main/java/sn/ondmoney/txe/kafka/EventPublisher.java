@@ -0,0 +1,184 @@
+package sn.ondmoney.txe.kafka;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import sn.ondmoney.txe.config.ApplicationProperties;
+
+/**
+ * Non-blocking publisher of events to Kafka, with a bounded window of in-flight sends per topic.
+ * <p>
+ * A send returns as soon as the record is handed to the producer. When a topic already has
+ * {@code application.producer.max-in-flight-per-topic} unacknowledged sends, the caller waits for a free slot,
+ * at most {@code backpressure-timeout-ms}; past it the send fails at once, without reaching the producer. Callers
+ * keep failed events for a later attempt: the publisher never retries nor discards on its own.
+ * <p>
+ * Sends are guarded by the {@value #CIRCUIT_BREAKER} circuit breaker: once enough of them fail, it opens and
+ * sends fail at once, with a {@link CallNotPermittedException}, until the broker answers probes again.
+ * <p>
+ * Metrics, tagged by topic: {@code txe.events.publish} times each event from its enqueue to its ack, with a
+ * {@code result} tag; {@code txe.events.dropped} counts sends refused by the window; {@code txe.events.retried}
+ * counts events sent again after a failure; {@code txe.events.in_flight} gauges the unacknowledged sends.
+ */
+@Component
+public class EventPublisher {
+
+    public static final String CIRCUIT_BREAKER = "kafka-producer";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> byteArrayKafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker circuitBreaker;
+    private final int maxInFlightPerTopic;
+    private final long backpressureTimeoutMs;
+    private final Map<String, TopicWindow> windows = new ConcurrentHashMap<>();
+
+    public EventPublisher(
+            KafkaTemplate<String, String> kafkaTemplate,
+            KafkaTemplate<String, byte[]> byteArrayKafkaTemplate,
+            MeterRegistry meterRegistry,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            ApplicationProperties applicationProperties) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.byteArrayKafkaTemplate = byteArrayKafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER);
+        this.maxInFlightPerTopic = applicationProperties.getProducer().getMaxInFlightPerTopic();
+        this.backpressureTimeoutMs = applicationProperties.getProducer().getBackpressureTimeoutMs();
+    }
+
+    /**
+     * Send a text event.
+     *
+     * @param enqueuedAt when the event was created, the start of its publish latency
+     * @return a future completed when the broker acknowledges the event.
+     */
+    public CompletableFuture<?> publish(ProducerRecord<String, String> record, Instant enqueuedAt) {
+        return send(kafkaTemplate, record, enqueuedAt);
+    }
+
+    /**
+     * Send a binary-encoded event.
+     *
+     * @param enqueuedAt when the event was created, the start of its publish latency
+     * @return a future completed when the broker acknowledges the event.
+     */
+    public CompletableFuture<?> publishBinary(ProducerRecord<String, byte[]> record, Instant enqueuedAt) {
+        return send(byteArrayKafkaTemplate, record, enqueuedAt);
+    }
+
+    /**
+     * @return {@code false} while the circuit breaker is open: sends would fail at once.
+     */
+    public boolean isAvailable() {
+        // Also moves an expired open state to half-open
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return false;
+        }
+        circuitBreaker.releasePermission();
+        return true;
+    }
+
+    /**
+     * Count an event sent again after a failed attempt.
+     */
+    public void retried(String topic) {
+        window(topic).retried.increment();
+    }
+
+    /**
+     * Send the records waiting in the producers' batches without waiting for their linger time.
+     */
+    public void flush() {
+        kafkaTemplate.flush();
+        byteArrayKafkaTemplate.flush();
+    }
+
+    int inFlight(String topic) {
+        return maxInFlightPerTopic - window(topic).permits.availablePermits();
+    }
+
+    private <V> CompletableFuture<?> send(KafkaTemplate<String, V> template, ProducerRecord<String, V> record, Instant enqueuedAt) {
+        TopicWindow window = window(record.topic());
+        try {
+            if (!window.permits.tryAcquire(backpressureTimeoutMs, TimeUnit.MILLISECONDS)) {
+                window.dropped.increment();
+                return CompletableFuture.failedFuture(
+                    new RejectedExecutionException(maxInFlightPerTopic + " events already in flight on " + record.topic())
+                );
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            window.dropped.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (!circuitBreaker.tryAcquirePermission()) {
+            window.permits.release();
+            return CompletableFuture.failedFuture(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<?> sent;
+        try {
+            sent = template.send(record);
+        } catch (RuntimeException e) {
+            window.permits.release();
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            window.failed.record(Duration.between(enqueuedAt, Instant.now()));
+            return CompletableFuture.failedFuture(e);
+        }
+        return sent.whenComplete((result, failure) -> {
+            window.permits.release();
+            if (failure == null) {
+                circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                window.acked.record(Duration.between(enqueuedAt, Instant.now()));
+            } else {
+                circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, failure);
+                window.failed.record(Duration.between(enqueuedAt, Instant.now()));
+            }
+        });
+    }
+
+    /**
+     * @return whether a send failed without reaching the producer: full window or open circuit breaker.
+     */
+    static boolean isRefused(Throwable failure) {
+        return failure instanceof RejectedExecutionException || failure instanceof CallNotPermittedException;
+    }
+
+    private TopicWindow window(String topic) {
+        return windows.computeIfAbsent(topic, this::newWindow);
+    }
+
+    private TopicWindow newWindow(String topic) {
+        TopicWindow window = new TopicWindow(
+            new Semaphore(maxInFlightPerTopic),
+            meterRegistry.timer("txe.events.publish", "topic", topic, "result", "acked"),
+            meterRegistry.timer("txe.events.publish", "topic", topic, "result", "failed"),
+            meterRegistry.counter("txe.events.dropped", "topic", topic),
+            meterRegistry.counter("txe.events.retried", "topic", topic)
+        );
+        meterRegistry.gauge("txe.events.in_flight", Tags.of("topic", topic), window.permits, permits ->
+            maxInFlightPerTopic - permits.availablePermits()
+        );
+        return window;
+    }
+
+    private record TopicWindow(Semaphore permits, Timer acked, Timer failed, Counter dropped, Counter retried) {}
+}
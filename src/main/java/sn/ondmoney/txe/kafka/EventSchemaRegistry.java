@@ -0,0 +1,29 @@
+package sn.ondmoney.txe.kafka;
+
+/**
+ * Registry of the schemas of binary-encoded events. Consumers resolve the {@code ce_dataschema} header of an
+ * event to its schema through it.
+ */
+public interface EventSchemaRegistry {
+    /**
+     * Register a schema under a subject. Registering a schema again returns its existing id.
+     *
+     * @param subject the schema subject
+     * @param schema the schema source
+     * @return the schema id.
+     */
+    int register(String subject, String schema);
+
+    /**
+     * @return the schema source of the id.
+     * @throws IllegalArgumentException if no schema has the id
+     */
+    String getSchema(int id);
+
+    /**
+     * @return the URI of the schema of the id, the value of {@code ce_dataschema}.
+     */
+    default String getSchemaUri(int id) {
+        return "urn:ondmoney:schema:" + id;
+    }
+}
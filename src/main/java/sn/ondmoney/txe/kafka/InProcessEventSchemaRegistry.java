@@ -0,0 +1,35 @@
+package sn.ondmoney.txe.kafka;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link EventSchemaRegistry} held in memory. Ids are assigned in registration order, so every instance
+ * registering the same schemas at startup assigns the same ids; a shared registry replaces it when consumers
+ * need to resolve schemas remotely.
+ */
+@Component
+public class InProcessEventSchemaRegistry implements EventSchemaRegistry {
+
+    private final List<String> schemas = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    @Override
+    public synchronized int register(String subject, String schema) {
+        return ids.computeIfAbsent(subject + '\n' + schema, key -> {
+            schemas.add(schema);
+            return schemas.size();
+        });
+    }
+
+    @Override
+    public synchronized String getSchema(int id) {
+        if (id < 1 || id > schemas.size()) {
+            throw new IllegalArgumentException("Unknown schema id " + id);
+        }
+        return schemas.get(id - 1);
+    }
+}
@@ -1,30 +1,49 @@
 package sn.ondmoney.txe.kafka;
 
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.annotation.EnableKafkaRetryTopic;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.service.ProcessedEventService;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Kafka configuration for TxEngineMS.
  */
 @Configuration
 @EnableKafka
+@EnableKafkaRetryTopic
 public class KafkaConfig {
 
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    private final ApplicationProperties applicationProperties;
+
+    public KafkaConfig(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
     // Consumer configuration
     @Bean
     public ConsumerFactory<String, String> consumerFactory() {
@@ -40,14 +59,63 @@ public class KafkaConfig {
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory(
+            ProcessedEventService processedEventService) {
         ConcurrentKafkaListenerContainerFactory<String, String> factory =
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
-        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.RECORD);
+        // Offsets are committed by the listener, in its Kafka transaction (see ConsumerTransaction)
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(processedEventSynchronizer(processedEventService));
         return factory;
     }
 
+    // Batch consumer: one listener call and one transaction per poll
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchKafkaListenerContainerFactory(
+            ApplicationProperties applicationProperties,
+            ProcessedEventService processedEventService) {
+        Map<String, Object> props = new HashMap<>(consumerFactory().getConfigurationProperties());
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, applicationProperties.getUserRegistered().getMaxPollRecords());
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(processedEventSynchronizer(processedEventService));
+        factory.setCommonErrorHandler(batchErrorHandler(applicationProperties.getUserRegistered()));
+        return factory;
+    }
+
+    // Retry topics do not support batch listeners: failed batches are retried in place, then their records are
+    // sent to the same dead-letter topic as the retry topic chain. Poison records are dead-lettered by the listener.
+    private DefaultErrorHandler batchErrorHandler(ApplicationProperties.UserRegistered properties) {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
+            kafkaTemplate(),
+            (record, exception) -> new TopicPartition(record.topic() + DeadLetterEndpoint.DLT_SUFFIX, -1)
+        );
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(properties.getRetryAttempts() - 1);
+        backOff.setInitialInterval(properties.getRetryDelayMs());
+        backOff.setMultiplier(properties.getRetryMultiplier());
+        backOff.setMaxInterval(properties.getRetryMaxDelayMs());
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
+        errorHandler.addNotRetryableExceptions(PoisonEventException.class);
+        return errorHandler;
+    }
+
+    // Records of newly assigned partitions may have been processed by another instance; the Bloom filter learns them
+    // in the background, so that its first load does not hold the consumer thread past max.poll.interval.ms
+    private static ConsumerAwareRebalanceListener processedEventSynchronizer(ProcessedEventService processedEventService) {
+        return new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                if (!partitions.isEmpty()) {
+                    processedEventService.synchronize();
+                }
+            }
+        };
+    }
+
     // Producer configuration
     @Bean
     public ProducerFactory<String, String> producerFactory() {
@@ -58,6 +126,8 @@ public class KafkaConfig {
         props.put(ProducerConfig.ACKS_CONFIG, "all");
         props.put(ProducerConfig.RETRIES_CONFIG, 3);
         props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, applicationProperties.getProducer().getMaxBlockMs());
+        applicationProperties.getProducer().getProfile().apply(props);
         return new DefaultKafkaProducerFactory<>(props);
     }
 
@@ -65,4 +135,62 @@ public class KafkaConfig {
     public KafkaTemplate<String, String> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+
+    // Producer of binary-encoded (Protobuf) events
+    @Bean
+    public ProducerFactory<String, byte[]> byteArrayProducerFactory() {
+        Map<String, Object> props = new HashMap<>(producerFactory().getConfigurationProperties());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> byteArrayKafkaTemplate() {
+        return new KafkaTemplate<>(byteArrayProducerFactory());
+    }
+
+    /**
+     * Batching and compression of the producers, selected by {@code application.producer.profile}.
+     */
+    public enum ProducerProfile {
+        /** Send at once, uncompressed: lowest latency, one request per event under low load. */
+        LOW_LATENCY(0, 16_384, "none"),
+        /** Wait up to 5 ms to fill 64 KiB batches, lz4: little added latency, far fewer requests. */
+        BALANCED(5, 65_536, "lz4"),
+        /** Wait up to 20 ms to fill 256 KiB batches, zstd: highest throughput and compression ratio. */
+        THROUGHPUT(20, 262_144, "zstd");
+
+        private final int lingerMs;
+        private final int batchSize;
+        private final String compressionType;
+
+        ProducerProfile(int lingerMs, int batchSize, String compressionType) {
+            this.lingerMs = lingerMs;
+            this.batchSize = batchSize;
+            this.compressionType = compressionType;
+        }
+
+        void apply(Map<String, Object> props) {
+            props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+            props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+            props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        }
+    }
+
+    // Transactional producer of the consumers, only injected by qualifier. Its transactions hold the consumer
+    // offsets: each instance needs its own transactional ids, fencing relies on the consumer group metadata.
+    @Bean(defaultCandidate = false)
+    public ProducerFactory<String, byte[]> transactionalProducerFactory(ApplicationProperties applicationProperties) {
+        DefaultKafkaProducerFactory<String, byte[]> factory = new DefaultKafkaProducerFactory<>(
+            byteArrayProducerFactory().getConfigurationProperties()
+        );
+        String instanceId = UUID.randomUUID().toString().substring(0, 8);
+        factory.setTransactionIdPrefix(applicationProperties.getUserRegistered().getTransactionIdPrefix() + instanceId + "-");
+        return factory;
+    }
+
+    @Bean(defaultCandidate = false)
+    public KafkaTemplate<String, byte[]> transactionalKafkaTemplate(ApplicationProperties applicationProperties) {
+        return new KafkaTemplate<>(transactionalProducerFactory(applicationProperties));
+    }
 }
@@ -0,0 +1,193 @@
+package sn.ondmoney.txe.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.OutboxEvent;
+import sn.ondmoney.txe.repository.OutboxEventRepository;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Background relay draining the transactional outbox to Kafka.
+ * <p>
+ * Each poll takes a cluster-wide advisory lock, reads the oldest events in id order, sends them
+ * and deletes the ones the broker acknowledged. Sends are pipelined across keys, but a key has at
+ * most one event in flight: its next event is sent once the previous one is acknowledged. Once a
+ * send fails for a key, its later events are not sent and stay in the table, so they are never
+ * delivered ahead of it. Delivery is at-least-once: an event whose ack is lost is sent again on
+ * the next poll. Sends go through the {@link EventPublisher} window, which also times each event
+ * from its outbox insert to its ack.
+ * <p>
+ * The table is also the spool of a broker outage: while the publisher circuit breaker is open,
+ * polls are skipped and events pile up there, then drain in order once it closes.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final long RELAY_LOCK_ID = 0x6f7574626f78L; // "outbox"
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventPublisher eventPublisher;
+    private final CloudEventWriter cloudEventWriter;
+    private final ApplicationProperties.Outbox properties;
+    private final TransactionTemplate transactionTemplate;
+    // Events of the last batch sent but not acknowledged, counted as retried when sent again
+    private Set<Long> unacknowledgedIds = Set.of();
+
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            EventPublisher eventPublisher,
+            CloudEventWriter cloudEventWriter,
+            ApplicationProperties applicationProperties,
+            PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventPublisher = eventPublisher;
+        this.cloudEventWriter = cloudEventWriter;
+        this.properties = applicationProperties.getOutbox();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Drain the outbox until it is empty or a send fails.
+     */
+    @Scheduled(fixedDelayString = "${application.outbox.poll-interval-ms:200}")
+    public void relay() {
+        if (!eventPublisher.isAvailable()) {
+            LOG.debug("Kafka circuit breaker open, outbox events wait in the table");
+            return;
+        }
+        int relayed;
+        do {
+            Integer result = transactionTemplate.execute(status -> relayBatch());
+            relayed = result != null ? result : 0;
+        } while (relayed == properties.getBatchSize());
+    }
+
+    /**
+     * Relay one batch of events.
+     *
+     * @return the number of events acknowledged and removed, or -1 if the batch was only partially sent.
+     */
+    int relayBatch() {
+        if (!outboxEventRepository.tryAdvisoryXactLock(RELAY_LOCK_ID)) {
+            LOG.debug("Outbox relay lock held by another instance, skipping poll");
+            return 0;
+        }
+
+        List<OutboxEvent> batch = outboxEventRepository.findByOrderByIdAsc(PageRequest.of(0, properties.getBatchSize()));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // The events of a key, in id order
+        Map<String, Deque<OutboxEvent>> pendingByKey = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            pendingByKey.computeIfAbsent(event.getMessageKey(), key -> new ArrayDeque<>()).add(event);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getSendTimeoutMs());
+        List<Long> acknowledged = new ArrayList<>(batch.size());
+        Set<Long> sentIds = new HashSet<>();
+        boolean complete = true;
+        while (!pendingByKey.isEmpty()) {
+            // One event per key per round: the rounds pipeline the keys, and the next event of a key is only sent
+            // once the previous one is acknowledged
+            List<OutboxEvent> round = new ArrayList<>(pendingByKey.size());
+            List<CompletableFuture<?>> sends = new ArrayList<>(pendingByKey.size());
+            boolean stopped = false;
+            for (Deque<OutboxEvent> pending : pendingByKey.values()) {
+                OutboxEvent event = pending.peek();
+                if (unacknowledgedIds.contains(event.getId())) {
+                    eventPublisher.retried(event.getTopic());
+                }
+                CompletableFuture<?> sent = send(event);
+                round.add(event);
+                sends.add(sent);
+                sentIds.add(event.getId());
+                if (sent.isCompletedExceptionally() && sent.handle((result, e) -> EventPublisher.isRefused(e)).join()) {
+                    // Refused by the publisher: the rest of the batch waits for the next poll
+                    stopped = true;
+                    break;
+                }
+            }
+            eventPublisher.flush();
+
+            for (int i = 0; i < round.size(); i++) {
+                OutboxEvent event = round.get(i);
+                try {
+                    sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    acknowledged.add(event.getId());
+                    Deque<OutboxEvent> pending = pendingByKey.get(event.getMessageKey());
+                    pending.poll();
+                    if (pending.isEmpty()) {
+                        pendingByKey.remove(event.getMessageKey());
+                    }
+                } catch (ExecutionException | TimeoutException e) {
+                    LOG.warn("Failed to relay outbox event {} to {}: {}", event.getId(), event.getTopic(), e.getMessage());
+                    // The later events of the key are not sent: they stay behind it in the table
+                    pendingByKey.remove(event.getMessageKey());
+                    complete = false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stopped = true;
+                    break;
+                }
+            }
+            if (stopped) {
+                complete = false;
+                break;
+            }
+        }
+
+        if (!acknowledged.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(acknowledged);
+        }
+        // The oldest events stay first in the table: they head the next batch
+        acknowledged.forEach(sentIds::remove);
+        unacknowledgedIds = sentIds;
+        LOG.debug("Relayed {} of {} outbox events", acknowledged.size(), batch.size());
+
+        return complete ? acknowledged.size() : -1;
+    }
+
+    private CompletableFuture<?> send(OutboxEvent event) {
+        Instant enqueuedAt = event.getCreatedAt() != null ? event.getCreatedAt() : Instant.now();
+        if (event.getHeaders() == null) {
+            return eventPublisher.publish(new ProducerRecord<>(event.getTopic(), event.getMessageKey(), event.getPayload()), enqueuedAt);
+        }
+        try {
+            CloudEventMessage message = new CloudEventMessage(
+                event.getPayload(),
+                event.getBinaryPayload(),
+                cloudEventWriter.decodeHeaders(event.getHeaders())
+            );
+            return message.isBinary()
+                ? eventPublisher.publishBinary(message.toBinaryRecord(event.getTopic(), event.getMessageKey()), enqueuedAt)
+                : eventPublisher.publish(message.toRecord(event.getTopic(), event.getMessageKey()), enqueuedAt);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
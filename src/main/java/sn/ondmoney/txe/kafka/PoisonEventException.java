@@ -0,0 +1,18 @@
+package sn.ondmoney.txe.kafka;
+
+/**
+ * A consumed record that can never be processed: unreadable, or missing required data.
+ * Not retried, the record goes straight to the dead-letter topic.
+ */
+public class PoisonEventException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PoisonEventException(String message) {
+        super(message);
+    }
+
+    public PoisonEventException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,105 @@
+package sn.ondmoney.txe.kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Reader of the Protobuf wire format, the counterpart of {@link ProtobufOutput}.
+ * Fields a reader does not know are skipped, so older readers accept newer messages.
+ */
+final class ProtobufInput {
+
+    private final byte[] buffer;
+    private int position;
+    private final int limit;
+
+    ProtobufInput(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    private ProtobufInput(byte[] buffer, int offset, int limit) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * @return the next tag, or 0 at the end of the message.
+     */
+    int readTag() {
+        return position < limit ? (int) readVarint() : 0;
+    }
+
+    static int fieldOf(int tag) {
+        return tag >>> 3;
+    }
+
+    long readInt64() {
+        return readVarint();
+    }
+
+    String readString() {
+        int length = readLength();
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Read a {@code google.protobuf.Timestamp}.
+     */
+    Instant readTimestamp() {
+        int length = readLength();
+        ProtobufInput message = new ProtobufInput(buffer, position, position + length);
+        position += length;
+        long seconds = 0;
+        long nanos = 0;
+        for (int tag = message.readTag(); tag != 0; tag = message.readTag()) {
+            switch (fieldOf(tag)) {
+                case 1 -> seconds = message.readInt64();
+                case 2 -> nanos = message.readInt64();
+                default -> message.skip(tag);
+            }
+        }
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    void skip(int tag) {
+        switch (tag & 0x7) {
+            case ProtobufOutput.WIRE_VARINT -> readVarint();
+            case ProtobufOutput.WIRE_FIXED64 -> position += 8;
+            case ProtobufOutput.WIRE_LENGTH_DELIMITED -> {
+                int length = readLength();
+                position += length;
+            }
+            case ProtobufOutput.WIRE_FIXED32 -> position += 4;
+            default -> throw new IllegalArgumentException("Unsupported wire type in tag " + tag);
+        }
+        if (position > limit) {
+            throw new IllegalArgumentException("Truncated protobuf message");
+        }
+    }
+
+    private int readLength() {
+        long length = readVarint();
+        if (length < 0 || length > limit - position) {
+            throw new IllegalArgumentException("Truncated protobuf message");
+        }
+        return (int) length;
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= limit) {
+                throw new IllegalArgumentException("Truncated protobuf message");
+            }
+            byte b = buffer[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
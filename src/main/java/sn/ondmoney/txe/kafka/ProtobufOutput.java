@@ -0,0 +1,92 @@
+package sn.ondmoney.txe.kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Writer of the Protobuf wire format, for the few field types of the event schemas.
+ * {@code null} values are left out, so they read back as absent.
+ */
+final class ProtobufOutput {
+
+    static final int WIRE_VARINT = 0;
+    static final int WIRE_FIXED64 = 1;
+    static final int WIRE_LENGTH_DELIMITED = 2;
+    static final int WIRE_FIXED32 = 5;
+
+    private byte[] buffer;
+    private int position;
+
+    ProtobufOutput(int capacity) {
+        buffer = new byte[capacity];
+    }
+
+    void writeString(int field, String value) {
+        if (value == null) {
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeTag(field, WIRE_LENGTH_DELIMITED);
+        writeVarint(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    void writeInt64(int field, long value) {
+        writeTag(field, WIRE_VARINT);
+        writeVarint(value);
+    }
+
+    /**
+     * Write a {@code google.protobuf.Timestamp}.
+     */
+    void writeTimestamp(int field, Instant value) {
+        if (value == null) {
+            return;
+        }
+        int length = (value.getEpochSecond() != 0 ? 1 + varintSize(value.getEpochSecond()) : 0) +
+            (value.getNano() != 0 ? 1 + varintSize(value.getNano()) : 0);
+        writeTag(field, WIRE_LENGTH_DELIMITED);
+        writeVarint(length);
+        if (value.getEpochSecond() != 0) {
+            writeInt64(1, value.getEpochSecond());
+        }
+        if (value.getNano() != 0) {
+            writeInt64(2, value.getNano());
+        }
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeTag(int field, int wireType) {
+        writeVarint((field << 3) | wireType);
+    }
+
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private void ensureCapacity(int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package sn.ondmoney.txe.kafka;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.math.BigDecimal;
+import java.time.Instant;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.Transfer;
+import sn.ondmoney.txe.repository.WalletIdentity;
+
+/**
+ * Data of the {@code transfer.*} events. The fields of one event type only are left out of the others.
+ */
+public record TransferEventData(
+    String transferId,
+    String senderId,
+    String receiverId,
+    String senderPhoneNumber,
+    String receiverPhoneNumber,
+    String amount,
+    String fees,
+    String currency,
+    String description,
+    String status,
+    @JsonInclude(JsonInclude.Include.NON_NULL) Instant initiatedAt,
+    @JsonInclude(JsonInclude.Include.NON_NULL) Instant completedAt,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String senderNewBalance,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String receiverNewBalance,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String senderName,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String receiverName,
+    @JsonInclude(JsonInclude.Include.NON_NULL) Instant failedAt,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String failureReason,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String failureMessage
+) {
+    private static final String DESCRIPTION = "Transfert P2P";
+
+    static TransferEventData initiated(Transfer transfer, WalletIdentity sender, WalletIdentity receiver) {
+        return new TransferEventData(
+            transfer.getTxId(),
+            userId(sender),
+            userId(receiver),
+            transfer.getSenderPhone(),
+            transfer.getReceiverPhone(),
+            transfer.getAmount().toString(),
+            fees(transfer),
+            currency(sender),
+            DESCRIPTION,
+            transfer.getStatus().name(),
+            transfer.getInitiatedAt(),
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null
+        );
+    }
+
+    static TransferEventData completed(
+        Transfer transfer,
+        WalletIdentity sender,
+        WalletIdentity receiver,
+        BigDecimal senderNewBalance,
+        BigDecimal receiverNewBalance
+    ) {
+        return new TransferEventData(
+            transfer.getTxId(),
+            userId(sender),
+            userId(receiver),
+            transfer.getSenderPhone(),
+            transfer.getReceiverPhone(),
+            transfer.getAmount().toString(),
+            fees(transfer),
+            currency(sender),
+            DESCRIPTION,
+            transfer.getStatus().name(),
+            null,
+            transfer.getCompletedAt() != null ? transfer.getCompletedAt() : Instant.now(),
+            senderNewBalance.toString(),
+            receiverNewBalance.toString(),
+            fullName(sender),
+            fullName(receiver),
+            null,
+            null,
+            null
+        );
+    }
+
+    static TransferEventData failed(
+        Transfer transfer,
+        WalletIdentity sender,
+        WalletIdentity receiver,
+        String failureReason,
+        String failureMessage
+    ) {
+        return new TransferEventData(
+            transfer.getTxId(),
+            userId(sender),
+            userId(receiver),
+            transfer.getSenderPhone(),
+            transfer.getReceiverPhone(),
+            transfer.getAmount().toString(),
+            fees(transfer),
+            currency(sender),
+            DESCRIPTION,
+            transfer.getStatus().name(),
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            transfer.getFailedAt() != null ? transfer.getFailedAt() : Instant.now(),
+            failureReason,
+            failureMessage
+        );
+    }
+
+    private static String userId(WalletIdentity wallet) {
+        return wallet != null ? wallet.getUserId() : null;
+    }
+
+    private static String fees(Transfer transfer) {
+        return transfer.getFees() != null ? transfer.getFees().toString() : "0";
+    }
+
+    private static String currency(WalletIdentity sender) {
+        return sender != null ? sender.getCurrency() : Money.XOF;
+    }
+
+    /**
+     * Wallets have no name fields, the phone number stands in for it.
+     */
+    private static String fullName(WalletIdentity wallet) {
+        return wallet != null ? wallet.getPhone() : null;
+    }
+}
@@ -0,0 +1,97 @@
+package sn.ondmoney.txe.kafka;
+
+import java.time.Instant;
+import org.springframework.stereotype.Component;
+
+/**
+ * Protobuf codec of {@link TransferEventData}, message {@code TransferEvent} of {@link EventCodec#PROTOBUF_SCHEMA}.
+ */
+@Component
+public class TransferEventProtobufCodec implements EventCodec<TransferEventData> {
+
+    private static final String SCHEMA = EventCodec.loadSchema(PROTOBUF_SCHEMA);
+
+    @Override
+    public Class<TransferEventData> getDataType() {
+        return TransferEventData.class;
+    }
+
+    @Override
+    public String getSchemaSubject() {
+        return "ondmoney.txe.events.v1.TransferEvent";
+    }
+
+    @Override
+    public String getSchema() {
+        return SCHEMA;
+    }
+
+    @Override
+    public byte[] encode(TransferEventData data) {
+        ProtobufOutput out = new ProtobufOutput(256);
+        out.writeString(1, data.transferId());
+        out.writeString(2, data.senderId());
+        out.writeString(3, data.receiverId());
+        out.writeString(4, data.senderPhoneNumber());
+        out.writeString(5, data.receiverPhoneNumber());
+        out.writeInt64(6, Long.parseLong(data.amount()));
+        out.writeInt64(7, Long.parseLong(data.fees()));
+        out.writeString(8, data.currency());
+        out.writeString(9, data.description());
+        out.writeString(10, data.status());
+        out.writeTimestamp(11, data.initiatedAt());
+        out.writeTimestamp(12, data.completedAt());
+        out.writeString(13, data.senderNewBalance());
+        out.writeString(14, data.receiverNewBalance());
+        out.writeString(15, data.senderName());
+        out.writeString(16, data.receiverName());
+        out.writeTimestamp(17, data.failedAt());
+        out.writeString(18, data.failureReason());
+        out.writeString(19, data.failureMessage());
+        return out.toByteArray();
+    }
+
+    @Override
+    public TransferEventData decode(byte[] bytes) {
+        ProtobufInput in = new ProtobufInput(bytes);
+        String[] strings = new String[20];
+        long amount = 0;
+        long fees = 0;
+        Instant initiatedAt = null;
+        Instant completedAt = null;
+        Instant failedAt = null;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            int field = ProtobufInput.fieldOf(tag);
+            switch (field) {
+                case 1, 2, 3, 4, 5, 8, 9, 10, 13, 14, 15, 16, 18, 19 -> strings[field] = in.readString();
+                case 6 -> amount = in.readInt64();
+                case 7 -> fees = in.readInt64();
+                case 11 -> initiatedAt = in.readTimestamp();
+                case 12 -> completedAt = in.readTimestamp();
+                case 17 -> failedAt = in.readTimestamp();
+                default -> in.skip(tag);
+            }
+        }
+        return new TransferEventData(
+            strings[1],
+            strings[2],
+            strings[3],
+            strings[4],
+            strings[5],
+            Long.toString(amount),
+            Long.toString(fees),
+            strings[8],
+            strings[9],
+            strings[10],
+            initiatedAt,
+            completedAt,
+            strings[13],
+            strings[14],
+            strings[15],
+            strings[16],
+            failedAt,
+            strings[18],
+            strings[19]
+        );
+    }
+}
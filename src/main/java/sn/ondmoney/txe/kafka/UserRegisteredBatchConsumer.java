@@ -0,0 +1,163 @@
+package sn.ondmoney.txe.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ondmoney.txe.domain.Wallet;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.service.ProcessedEventService;
+
+/**
+ * Kafka consumer for user.registered events, one poll per transaction.
+ * <p>
+ * A batch costs at most one query for the already processed events, one for the users and one for the phone numbers
+ * that already have a wallet, one insert of the processed events, batched inserts of the wallets, and pipelined
+ * wallet.created sends. The wallets, the events and the offsets of the batch are committed together, see
+ * {@link ConsumerTransaction}. Enabled by {@code application.user-registered.batch-enabled}, in place of
+ * {@link UserRegisteredConsumer}.
+ */
+@Component
+@ConditionalOnProperty(name = "application.user-registered.batch-enabled", havingValue = "true")
+public class UserRegisteredBatchConsumer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserRegisteredBatchConsumer.class);
+    private static final String TOPIC = "user.registered";
+
+    private final WalletRepository walletRepository;
+    private final ProcessedEventService processedEventService;
+    private final WalletEventProducer walletEventProducer;
+    private final ConsumerTransaction consumerTransaction;
+    private final ObjectMapper objectMapper;
+
+    public UserRegisteredBatchConsumer(
+            WalletRepository walletRepository,
+            ProcessedEventService processedEventService,
+            WalletEventProducer walletEventProducer,
+            ConsumerTransaction consumerTransaction,
+            ObjectMapper objectMapper) {
+        this.walletRepository = walletRepository;
+        this.processedEventService = processedEventService;
+        this.walletEventProducer = walletEventProducer;
+        this.consumerTransaction = consumerTransaction;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Handle a poll of user.registered events.
+     * <p>
+     * A poison record, or the registration of a phone number that already has a wallet, is sent to the dead-letter
+     * topic within the transaction, the rest of the batch goes on. Any other failure rolls the whole batch back for
+     * redelivery.
+     */
+    @KafkaListener(
+        topics = TOPIC,
+        groupId = "txe-consumers",
+        containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    @Transactional
+    public void handleUserRegisteredBatch(List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer) {
+        LOG.info("Received {} user.registered events", records.size());
+        consumerTransaction.commitOffsets(consumer, records);
+
+        // Read the batch, keeping the first record of a repeated event
+        Map<String, UserRegisteredMessage> messages = new LinkedHashMap<>();
+        Map<String, ConsumerRecord<String, String>> recordsByEventId = new HashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                UserRegisteredMessage message = UserRegisteredMessage.parse(objectMapper, record);
+                if (messages.putIfAbsent(message.eventId(), message) == null) {
+                    recordsByEventId.put(message.eventId(), record);
+                }
+            } catch (PoisonEventException e) {
+                LOG.error("Unreadable user.registered event at offset {}, moved to the dead-letter topic: {}", record.offset(), e.getMessage());
+                consumerTransaction.deadLetter(record, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        for (String eventId : processedEventService.findProcessed(messages.keySet())) {
+            LOG.info("Event {} already processed, skipping", eventId);
+            messages.remove(eventId);
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Set<String> userIds = new HashSet<>();
+        Set<String> phones = new HashSet<>();
+        for (UserRegisteredMessage message : messages.values()) {
+            userIds.add(message.event().getUserId());
+            if (message.event().getPhoneNumber() != null) {
+                phones.add(message.event().getPhoneNumber());
+            }
+        }
+        Set<String> usersWithWallet = new HashSet<>(walletRepository.findExistingUserIds(userIds));
+        Set<String> phonesWithWallet = new HashSet<>(phones.isEmpty() ? List.of() : walletRepository.findExistingPhones(phones));
+
+        List<UserRegisteredMessage> registrations = new ArrayList<>();
+        for (Iterator<UserRegisteredMessage> it = messages.values().iterator(); it.hasNext(); ) {
+            UserRegisteredMessage message = it.next();
+            String phone = message.event().getPhoneNumber();
+            // Also skips a second registration of the same user within the batch
+            if (usersWithWallet.contains(message.event().getUserId())) {
+                LOG.info("Wallet already exists for user: {}", message.event().getUserId());
+            } else if (phone == null || !phonesWithWallet.add(phone)) {
+                // Would fail the whole batch on the phone constraint; left unprocessed so that it can be replayed
+                LOG.error("Wallet of user {} has no phone number or a used one, moved to the dead-letter topic", message.event().getUserId());
+                consumerTransaction.deadLetter(
+                    recordsByEventId.get(message.eventId()),
+                    new PoisonEventException("Phone number missing or already used by another wallet")
+                );
+                it.remove();
+            } else {
+                usersWithWallet.add(message.event().getUserId());
+                registrations.add(message);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        // Waits for, then skips, a concurrent processing of the same events
+        Map<String, Instant> eventTimes = new LinkedHashMap<>();
+        messages.values().forEach(message -> eventTimes.put(message.eventId(), message.eventTime()));
+        Set<String> processedConcurrently = processedEventService.markAllProcessed(eventTimes, TOPIC);
+        List<Wallet> wallets = new ArrayList<>();
+        List<String> correlationIds = new ArrayList<>();
+        for (UserRegisteredMessage message : registrations) {
+            if (processedConcurrently.contains(message.eventId())) {
+                LOG.info("Event {} processed concurrently, skipping", message.eventId());
+            } else {
+                wallets.add(message.newWallet());
+                correlationIds.add(message.correlationId());
+            }
+        }
+
+        walletRepository.saveAll(wallets);
+        // Surface constraint violations before anything is published
+        walletRepository.flush();
+
+        // Sent without waiting: the transaction flushes them before committing
+        for (int i = 0; i < wallets.size(); i++) {
+            walletEventProducer.publishWalletCreated(wallets.get(i), correlationIds.get(i));
+        }
+        LOG.info("Created {} wallets from {} user.registered events", wallets.size(), records.size());
+    }
+}
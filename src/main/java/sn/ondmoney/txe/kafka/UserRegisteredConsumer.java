@@ -1,51 +1,77 @@
 package sn.ondmoney.txe.kafka;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
-import sn.ondmoney.txe.domain.ProcessedEvent;
 import sn.ondmoney.txe.domain.Wallet;
-import sn.ondmoney.txe.domain.enumeration.WalletStatus;
-import sn.ondmoney.txe.repository.ProcessedEventRepository;
 import sn.ondmoney.txe.repository.WalletRepository;
-
-import java.math.BigDecimal;
-import java.time.Instant;
+import sn.ondmoney.txe.service.ProcessedEventService;
 
 /**
  * Kafka consumer for user.registered events.
- * Creates a wallet for newly registered users.
+ * Creates a wallet for newly registered users, one record per transaction: the wallet, the wallet.created event
+ * and the offset commit are committed together, see {@link ConsumerTransaction}.
+ * Replaced by {@link UserRegisteredBatchConsumer} when {@code application.user-registered.batch-enabled} is set.
  */
 @Component
+@ConditionalOnProperty(name = "application.user-registered.batch-enabled", havingValue = "false", matchIfMissing = true)
 public class UserRegisteredConsumer {
 
     private static final Logger LOG = LoggerFactory.getLogger(UserRegisteredConsumer.class);
     private static final String TOPIC = "user.registered";
-    private static final String DEFAULT_CURRENCY = "XOF";
 
     private final WalletRepository walletRepository;
-    private final ProcessedEventRepository processedEventRepository;
+    private final ProcessedEventService processedEventService;
     private final WalletEventProducer walletEventProducer;
+    private final ConsumerTransaction consumerTransaction;
     private final ObjectMapper objectMapper;
 
     public UserRegisteredConsumer(
             WalletRepository walletRepository,
-            ProcessedEventRepository processedEventRepository,
+            ProcessedEventService processedEventService,
             WalletEventProducer walletEventProducer,
+            ConsumerTransaction consumerTransaction,
             ObjectMapper objectMapper) {
         this.walletRepository = walletRepository;
-        this.processedEventRepository = processedEventRepository;
+        this.processedEventService = processedEventService;
         this.walletEventProducer = walletEventProducer;
+        this.consumerTransaction = consumerTransaction;
         this.objectMapper = objectMapper;
     }
 
+    /**
+     * Handle a user.registered event, in structured or binary CloudEvents mode. In binary mode the
+     * {@code ce_*} headers hold the envelope and the value is the event data.
+     * <p>
+     * A failed record does not block its partition: it moves through the retry topics, each one consumed after its
+     * backoff, then to the dead-letter topic. A {@link PoisonEventException} goes to the dead-letter topic at once.
+     */
+    @RetryableTopic(
+        attempts = "${application.user-registered.retry-attempts:4}",
+        backoff = @Backoff(
+            delayExpression = "${application.user-registered.retry-delay-ms:1000}",
+            multiplierExpression = "${application.user-registered.retry-multiplier:5}",
+            maxDelayExpression = "${application.user-registered.retry-max-delay-ms:60000}"
+        ),
+        exclude = PoisonEventException.class,
+        traversingCauses = "true",
+        topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+        dltTopicSuffix = DeadLetterEndpoint.DLT_SUFFIX,
+        kafkaTemplate = "kafkaTemplate"
+    )
     @KafkaListener(
         topics = TOPIC,
         groupId = "txe-consumers",
@@ -55,72 +81,80 @@ public class UserRegisteredConsumer {
     public void handleUserRegistered(
             @Payload String payload,
             @Header(KafkaHeaders.RECEIVED_KEY) String key,
-            @Header(value = "ce_id", required = false) String eventId) {
+            @Header(value = CloudEventWriter.HEADER_ID, required = false) String eventId,
+            @Header(value = CloudEventWriter.HEADER_SPEC_VERSION, required = false) String specVersion,
+            @Header(value = CloudEventWriter.HEADER_CORRELATION_ID, required = false) String correlationId,
+            @Header(value = CloudEventWriter.HEADER_TIME, required = false) String time,
+            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+            @Header(KafkaHeaders.OFFSET) long offset,
+            Consumer<?, ?> consumer) {
 
         LOG.info("Received user.registered event for key: {}", key);
 
-        try {
-            // Parse CloudEvents envelope
-            JsonNode cloudEvent = objectMapper.readTree(payload);
-
-            // Extract event ID from CloudEvents envelope if not in header
-            if (eventId == null || eventId.isBlank()) {
-                eventId = cloudEvent.has("id") ? cloudEvent.get("id").asText() : key + "-" + System.currentTimeMillis();
-            }
-
-            // Extract correlation ID
-            String correlationId = eventId;
-            if (cloudEvent.has("ondmoney") && cloudEvent.get("ondmoney").has("correlationId")) {
-                correlationId = cloudEvent.get("ondmoney").get("correlationId").asText();
-            }
-
-            // Idempotency check
-            if (processedEventRepository.existsByEventId(eventId)) {
-                LOG.info("Event {} already processed, skipping", eventId);
-                return;
-            }
-
-            // Extract data from CloudEvents envelope
-            JsonNode dataNode = cloudEvent.get("data");
-            if (dataNode == null) {
-                LOG.error("No data found in CloudEvents envelope");
-                return;
-            }
-
-            UserRegisteredEvent event = objectMapper.treeToValue(dataNode, UserRegisteredEvent.class);
-
-            // Check if wallet already exists for user
-            if (walletRepository.findByUserId(event.getUserId()).isPresent()) {
-                LOG.info("Wallet already exists for user: {}", event.getUserId());
-                processedEventRepository.save(new ProcessedEvent(eventId, TOPIC));
-                return;
-            }
-
-            // Create wallet
-            Wallet wallet = new Wallet();
-            wallet.setUserId(event.getUserId());
-            wallet.setKeycloakId(event.getKeycloakId());
-            wallet.setPhoneNumber(event.getPhoneNumber());
-            wallet.setCurrency(DEFAULT_CURRENCY);
-            wallet.setBalance(BigDecimal.ZERO);
-            wallet.setVersion(0);
-            wallet.setStatus(WalletStatus.ACTIVE);
-            wallet.setCreatedDate(Instant.now());
-
-            wallet = walletRepository.save(wallet);
-            LOG.info("Wallet created successfully: {} for user: {}", wallet.getId(), event.getUserId());
-
-            // Publish wallet.created event
-            walletEventProducer.publishWalletCreated(wallet, correlationId);
-
-            // Mark as processed
-            processedEventRepository.save(new ProcessedEvent(eventId, TOPIC));
-
-            LOG.info("Successfully processed user.registered event for user: {}", event.getUserId());
-
-        } catch (Exception e) {
-            LOG.error("Error processing user.registered event: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to process user.registered event", e);
+        // Rolled back with the transaction if the record fails, for the error handler to retry or recover it
+        consumerTransaction.commitOffset(consumer, topic, partition, offset);
+
+        // Idempotency check on the header, before parsing the value
+        if (eventId != null && !eventId.isBlank() && processedEventService.isProcessed(eventId)) {
+            LOG.info("Event {} already processed, skipping", eventId);
+            return;
+        }
+
+        boolean checkedEventId = !UserRegisteredMessage.isBlank(eventId);
+        UserRegisteredMessage message = UserRegisteredMessage.parse(
+            objectMapper,
+            payload,
+            key,
+            eventId,
+            specVersion,
+            correlationId,
+            time
+        );
+        eventId = message.eventId();
+        correlationId = message.correlationId();
+        UserRegisteredEvent event = message.event();
+
+        // Idempotency check on the envelope id, if there was no header
+        if (!checkedEventId && processedEventService.isProcessed(eventId)) {
+            LOG.info("Event {} already processed, skipping", eventId);
+            return;
+        }
+
+        // Mark as processed first: waits for, then skips, a concurrent processing of the same event
+        if (!processedEventService.markProcessed(eventId, message.eventTime(), TOPIC)) {
+            LOG.info("Event {} processed concurrently, skipping", eventId);
+            return;
         }
+
+        // Check if wallet already exists for user
+        if (walletRepository.findByUserId(event.getUserId()).isPresent()) {
+            LOG.info("Wallet already exists for user: {}", event.getUserId());
+            return;
+        }
+
+        // Create wallet
+        Wallet wallet = walletRepository.save(message.newWallet());
+        LOG.info("Wallet created successfully: {} for user: {}", wallet.getId(), event.getUserId());
+
+        // Publish wallet.created event, visible once the transaction commits
+        walletEventProducer.publishWalletCreated(wallet, correlationId);
+
+        LOG.info("Successfully processed user.registered event for user: {}", event.getUserId());
+    }
+
+    /**
+     * Log a record that exhausted its retries, or was poison. It stays in the dead-letter topic until replayed
+     * through the {@code kafkadlt} management endpoint.
+     */
+    @DltHandler
+    public void handleDeadLetter(
+            @Payload String payload,
+            @Header(value = KafkaHeaders.RECEIVED_KEY, required = false) String key,
+            @Header(value = KafkaHeaders.DLT_EXCEPTION_FQCN, required = false) String exception,
+            @Header(value = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false) String exceptionMessage,
+            Acknowledgment acknowledgment) {
+        LOG.error("user.registered event for key {} moved to the dead-letter topic: {}: {}", key, exception, exceptionMessage);
+        acknowledgment.acknowledge();
     }
 }
@@ -0,0 +1,131 @@
+package sn.ondmoney.txe.kafka;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import sn.ondmoney.txe.domain.Wallet;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+
+/**
+ * A user.registered record read from its CloudEvents envelope, in structured or binary mode.
+ *
+ * @param eventId the CloudEvents id, or a key-based one if the producer sent none
+ * @param correlationId the correlation id, defaulting to the event id
+ * @param eventTime the CloudEvents time, {@code null} if the envelope has none: unlike the record timestamp, it
+ *     does not change when the record is republished or replayed
+ * @param event the event data
+ */
+record UserRegisteredMessage(String eventId, String correlationId, Instant eventTime, UserRegisteredEvent event) {
+    private static final String DEFAULT_CURRENCY = "XOF";
+
+    /**
+     * Read a record. In binary mode the {@code ce_*} headers hold the envelope and the value is the event data.
+     *
+     * @throws PoisonEventException if the record cannot be read, has no data or no user id.
+     */
+    static UserRegisteredMessage parse(
+        ObjectMapper objectMapper,
+        String payload,
+        String key,
+        String eventId,
+        String specVersion,
+        String correlationId,
+        String time
+    ) {
+        UserRegisteredEvent event;
+        try {
+            if (specVersion != null) {
+                // Binary mode: the value is the event data
+                if (isBlank(correlationId)) {
+                    correlationId = null;
+                }
+                event = objectMapper.readValue(payload, UserRegisteredEvent.class);
+            } else {
+                JsonNode cloudEvent = objectMapper.readTree(payload);
+                if (isBlank(eventId) && cloudEvent.has("id")) {
+                    eventId = cloudEvent.get("id").asText();
+                }
+                if (isBlank(time) && cloudEvent.has("time")) {
+                    time = cloudEvent.get("time").asText();
+                }
+                correlationId = null;
+                if (cloudEvent.has("ondmoney") && cloudEvent.get("ondmoney").has("correlationId")) {
+                    correlationId = cloudEvent.get("ondmoney").get("correlationId").asText();
+                }
+                JsonNode dataNode = cloudEvent.get("data");
+                if (dataNode == null || dataNode.isNull()) {
+                    throw new PoisonEventException("No data found in CloudEvents envelope");
+                }
+                event = objectMapper.treeToValue(dataNode, UserRegisteredEvent.class);
+            }
+        } catch (IOException e) {
+            throw new PoisonEventException("Unreadable user.registered event: ", e);
+        }
+        if (event == null || isBlank(event.getUserId())) {
+            throw new PoisonEventException("No user id in user.registered event");
+        }
+        if (isBlank(eventId)) {
+            eventId = generatedId(key);
+        }
+        return new UserRegisteredMessage(eventId, correlationId != null ? correlationId : eventId, eventTime(time), event);
+    }
+
+    /**
+     * @return a new active, empty wallet for the registered user.
+     */
+    Wallet newWallet() {
+        Wallet wallet = new Wallet();
+        wallet.setUserId(event.getUserId());
+        wallet.setKeycloakId(event.getKeycloakId());
+        wallet.setPhoneNumber(event.getPhoneNumber());
+        wallet.setCurrency(DEFAULT_CURRENCY);
+        wallet.setBalance(BigDecimal.ZERO);
+        wallet.setVersion(0);
+        wallet.setStatus(WalletStatus.ACTIVE);
+        wallet.setCreatedDate(Instant.now());
+        return wallet;
+    }
+
+    static UserRegisteredMessage parse(ObjectMapper objectMapper, ConsumerRecord<String, String> record) {
+        return parse(
+            objectMapper,
+            record.value(),
+            record.key(),
+            header(record, CloudEventWriter.HEADER_ID),
+            header(record, CloudEventWriter.HEADER_SPEC_VERSION),
+            header(record, CloudEventWriter.HEADER_CORRELATION_ID),
+            header(record, CloudEventWriter.HEADER_TIME)
+        );
+    }
+
+    static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static Instant eventTime(String time) {
+        if (!isBlank(time)) {
+            try {
+                return OffsetDateTime.parse(time).toInstant();
+            } catch (DateTimeParseException e) {
+                // Not RFC 3339: no event time
+            }
+        }
+        return null;
+    }
+
+    private static String generatedId(String key) {
+        return key + "-" + System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,58 @@
+package sn.ondmoney.txe.kafka;
+
+import java.math.BigDecimal;
+import org.springframework.stereotype.Component;
+
+/**
+ * Protobuf codec of {@link WalletCreatedEvent}, message {@code WalletCreated} of {@link EventCodec#PROTOBUF_SCHEMA}.
+ */
+@Component
+public class WalletCreatedProtobufCodec implements EventCodec<WalletCreatedEvent> {
+
+    private static final String SCHEMA = EventCodec.loadSchema(PROTOBUF_SCHEMA);
+
+    @Override
+    public Class<WalletCreatedEvent> getDataType() {
+        return WalletCreatedEvent.class;
+    }
+
+    @Override
+    public String getSchemaSubject() {
+        return "ondmoney.txe.events.v1.WalletCreated";
+    }
+
+    @Override
+    public String getSchema() {
+        return SCHEMA;
+    }
+
+    @Override
+    public byte[] encode(WalletCreatedEvent data) {
+        ProtobufOutput out = new ProtobufOutput(128);
+        out.writeString(1, data.getWalletId());
+        out.writeString(2, data.getUserId());
+        out.writeString(3, data.getCurrency());
+        out.writeString(4, data.getInitialBalance() != null ? data.getInitialBalance().toPlainString() : null);
+        out.writeString(5, data.getStatus());
+        out.writeTimestamp(6, data.getCreatedAt());
+        return out.toByteArray();
+    }
+
+    @Override
+    public WalletCreatedEvent decode(byte[] bytes) {
+        ProtobufInput in = new ProtobufInput(bytes);
+        WalletCreatedEvent event = new WalletCreatedEvent();
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (ProtobufInput.fieldOf(tag)) {
+                case 1 -> event.setWalletId(in.readString());
+                case 2 -> event.setUserId(in.readString());
+                case 3 -> event.setCurrency(in.readString());
+                case 4 -> event.setInitialBalance(new BigDecimal(in.readString()));
+                case 5 -> event.setStatus(in.readString());
+                case 6 -> event.setCreatedAt(in.readTimestamp());
+                default -> in.skip(tag);
+            }
+        }
+        return event;
+    }
+}
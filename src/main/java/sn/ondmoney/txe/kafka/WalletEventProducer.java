@@ -1,18 +1,13 @@
 package sn.ondmoney.txe.kafka;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import sn.ondmoney.txe.domain.Wallet;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Producer for wallet-related Kafka events.
@@ -22,80 +17,37 @@ public class WalletEventProducer {
 
     private static final Logger LOG = LoggerFactory.getLogger(WalletEventProducer.class);
     private static final String WALLET_CREATED_TOPIC = "wallet.created";
-    private static final String SOURCE = "ond-money/txe-service";
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final ConsumerTransaction consumerTransaction;
+    private final CloudEventWriter.Writer<WalletCreatedEvent> walletCreatedWriter;
 
-    public WalletEventProducer(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
-        this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = objectMapper;
+    public WalletEventProducer(ConsumerTransaction consumerTransaction, CloudEventWriter cloudEventWriter) {
+        this.consumerTransaction = consumerTransaction;
+        this.walletCreatedWriter = cloudEventWriter.forType(WALLET_CREATED_TOPIC, WalletCreatedEvent.class);
     }
 
     /**
-     * Publish wallet.created event.
+     * Publish wallet.created event, in the Kafka transaction of the current consumer transaction: it is only
+     * visible once the wallet is committed.
      */
     public void publishWalletCreated(Wallet wallet, String correlationId) {
-        LOG.info("Publishing wallet.created event for wallet: {}", wallet.getId());
-
+        LOG.debug("Publishing wallet.created event for wallet: {}", wallet.getId());
+
+        WalletCreatedEvent eventData = WalletCreatedEvent.builder()
+            .walletId("wal_" + wallet.getId())
+            .userId(wallet.getUserId())
+            .currency(wallet.getCurrency())
+            .initialBalance(wallet.getBalance() != null ? wallet.getBalance() : BigDecimal.ZERO)
+            .status(wallet.getStatus() != null ? wallet.getStatus().name() : "ACTIVE")
+            .createdAt(wallet.getCreatedDate() != null ? wallet.getCreatedDate() : Instant.now())
+            .build();
+
+        CloudEventMessage cloudEvent;
         try {
-            WalletCreatedEvent eventData = WalletCreatedEvent.builder()
-                .walletId("wal_" + wallet.getId())
-                .userId(wallet.getUserId())
-                .currency(wallet.getCurrency())
-                .initialBalance(wallet.getBalance() != null ? wallet.getBalance() : BigDecimal.ZERO)
-                .status(wallet.getStatus() != null ? wallet.getStatus().name() : "ACTIVE")
-                .createdAt(wallet.getCreatedDate() != null ? wallet.getCreatedDate() : Instant.now())
-                .build();
-
-            String cloudEvent = wrapInCloudEvent(eventData, wallet.getUserId(), correlationId);
-
-            kafkaTemplate.send(
-                WALLET_CREATED_TOPIC,
-                wallet.getUserId(),
-                cloudEvent
-            ).get(5, TimeUnit.SECONDS);
-
-            LOG.info("Successfully published wallet.created event for wallet: {}", wallet.getId());
-
-        } catch (Exception e) {
-            LOG.error("Failed to publish wallet.created event: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to publish wallet.created event", e);
+            cloudEvent = walletCreatedWriter.write(wallet.getUserId(), correlationId, eventData);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize wallet.created event", e);
         }
-    }
-
-    /**
-     * Wrap event in CloudEvents envelope.
-     */
-    private String wrapInCloudEvent(WalletCreatedEvent event, String subject, String correlationId) 
-            throws JsonProcessingException {
-        String eventId = "evt_" + UUID.randomUUID().toString();
-
-        Map<String, Object> cloudEvent = Map.of(
-            "specversion", "1.0",
-            "id", eventId,
-            "source", SOURCE,
-            "type", WALLET_CREATED_TOPIC,
-            "datacontenttype", "application/json",
-            "time", Instant.now().toString(),
-            "subject", subject,
-            "data", event,
-            "ondmoney", Map.of(
-                "correlationId", correlationId != null ? correlationId : eventId,
-                "version", "1.0.0",
-                "environment", getEnvironment()
-            )
-        );
-
-        return objectMapper.writeValueAsString(cloudEvent);
-    }
-
-    private String getEnvironment() {
-        String profile = System.getProperty("spring.profiles.active", "dev");
-        return switch (profile) {
-            case "prod" -> "production";
-            case "staging" -> "staging";
-            default -> "development";
-        };
+        consumerTransaction.send(cloudEvent.toByteArrayRecord(WALLET_CREATED_TOPIC, wallet.getUserId()));
     }
 }
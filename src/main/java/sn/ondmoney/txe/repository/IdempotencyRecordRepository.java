@@ -0,0 +1,71 @@
+package sn.ondmoney.txe.repository;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sn.ondmoney.txe.domain.IdempotencyRecord;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for the IdempotencyRecord entity.
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    /**
+     * Find the record of a sender's idempotency key.
+     */
+    Optional<IdempotencyRecord> findBySenderPhoneAndIdempotencyKey(String senderPhone, String idempotencyKey);
+
+    /**
+     * Insert the record of a key, unless the key is already recorded. A concurrent insert of the same key waits for
+     * the other transaction, and inserts nothing if it commits.
+     *
+     * @return 1 if the record was inserted, 0 if the key is already recorded.
+     */
+    @Modifying
+    @Query(
+        value = "INSERT INTO idempotency_record (id, sender_phone, idempotency_key, request_hash, tx_id, response, created_at, expires_at) " +
+        "VALUES (nextval('sequence_generator'), :senderPhone, :idempotencyKey, :requestHash, :txId, :response, :now, :expiresAt) " +
+        "ON CONFLICT (sender_phone, idempotency_key) DO NOTHING",
+        nativeQuery = true
+    )
+    int insertIfAbsent(
+        @Param("senderPhone") String senderPhone,
+        @Param("idempotencyKey") String idempotencyKey,
+        @Param("requestHash") String requestHash,
+        @Param("txId") String txId,
+        @Param("response") String response,
+        @Param("now") Instant now,
+        @Param("expiresAt") Instant expiresAt
+    );
+
+    /**
+     * Store the response of a transfer recorded as processing.
+     *
+     * @return 1 if the record was updated, 0 if the transfer has no processing record.
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.response = :response WHERE r.txId = :txId AND r.response IS NULL")
+    int complete(@Param("txId") String txId, @Param("response") String response);
+
+    /**
+     * Delete the processing record of a transfer.
+     *
+     * @return 1 if the record was deleted, 0 if the transfer has no processing record.
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.txId = :txId AND r.response IS NULL")
+    int release(@Param("txId") String txId);
+
+    /**
+     * Delete the records that expired before the given instant.
+     *
+     * @return the number of deleted records.
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
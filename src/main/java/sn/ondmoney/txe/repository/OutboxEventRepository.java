@@ -0,0 +1,29 @@
+package sn.ondmoney.txe.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sn.ondmoney.txe.domain.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Repository for OutboxEvent - events pending relay to Kafka.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Find the oldest pending events, in insertion order.
+     */
+    List<OutboxEvent> findByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Try to take a transaction-scoped PostgreSQL advisory lock.
+     * Only one relay holds it at a time, which keeps events of the same key in order across instances.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockId)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("lockId") long lockId);
+}
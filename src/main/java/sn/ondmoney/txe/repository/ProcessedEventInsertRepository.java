@@ -0,0 +1,30 @@
+package sn.ondmoney.txe.repository;
+
+import java.util.Collection;
+import java.util.Set;
+import sn.ondmoney.txe.domain.ProcessedEvent;
+
+/**
+ * Inserts of {@link ProcessedEvent}, a fragment of {@link ProcessedEventRepository}.
+ */
+public interface ProcessedEventInsertRepository {
+    /**
+     * Insert processed events, skipping the ones already recorded for the same event day.
+     * <p>
+     * The row of the same event in a concurrent transaction is waited for: skipped once committed, inserted if
+     * rolled back.
+     *
+     * @return the ids of the inserted events.
+     */
+    Set<String> insertAllIfAbsent(Collection<ProcessedEvent> processedEvents);
+
+    /**
+     * Insert processed events whose time is unknown, skipping the ones already recorded on any day.
+     * <p>
+     * Their event day is the processing day, which differs between deliveries: their ids are looked up in every
+     * partition, under a transaction-scoped advisory lock per id that serializes concurrent deliveries.
+     *
+     * @return the ids of the inserted events.
+     */
+    Set<String> insertAllIfAbsentOnAnyDay(Collection<ProcessedEvent> processedEvents);
+}
@@ -0,0 +1,100 @@
+package sn.ondmoney.txe.repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sn.ondmoney.txe.domain.ProcessedEvent;
+
+/**
+ * Multi-row {@code INSERT … ON CONFLICT DO NOTHING} of processed events: one round trip per chunk, and the
+ * inserted ids read back from {@code RETURNING}, which batch update counts do not give with
+ * {@code reWriteBatchedInserts}. Events without a time are first locked and looked up by id across partitions.
+ */
+class ProcessedEventInsertRepositoryImpl implements ProcessedEventInsertRepository {
+
+    // Well below the 65535 bind parameters of a PostgreSQL statement
+    private static final int CHUNK_SIZE = 1000;
+
+    // Class of the two-key advisory locks of event ids, a key space apart from the one-key locks
+    static final int EVENT_ID_LOCK_CLASS = 0x70655f69;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProcessedEventInsertRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Set<String> insertAllIfAbsent(Collection<ProcessedEvent> processedEvents) {
+        return inChunks(processedEvents, this::insertIfAbsent);
+    }
+
+    @Override
+    public Set<String> insertAllIfAbsentOnAnyDay(Collection<ProcessedEvent> processedEvents) {
+        return inChunks(processedEvents, this::insertIfAbsentOnAnyDay);
+    }
+
+    private static Set<String> inChunks(Collection<ProcessedEvent> processedEvents, Function<List<ProcessedEvent>, List<String>> insert) {
+        Set<String> inserted = new HashSet<>();
+        List<ProcessedEvent> chunk = new ArrayList<>(Math.min(processedEvents.size(), CHUNK_SIZE));
+        for (ProcessedEvent processedEvent : processedEvents) {
+            chunk.add(processedEvent);
+            if (chunk.size() == CHUNK_SIZE) {
+                inserted.addAll(insert.apply(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            inserted.addAll(insert.apply(chunk));
+        }
+        return inserted;
+    }
+
+    private List<String> insertIfAbsentOnAnyDay(List<ProcessedEvent> chunk) {
+        // Locked in id order, so that two transactions locking the same ids cannot deadlock
+        StringBuilder lock = new StringBuilder("SELECT pg_advisory_xact_lock(?, hashtext(id)) FROM (SELECT id FROM (VALUES ");
+        StringBuilder lookup = new StringBuilder("SELECT event_id FROM processed_events WHERE event_id IN (");
+        Object[] lockArgs = new Object[chunk.size() + 1];
+        Object[] ids = new Object[chunk.size()];
+        lockArgs[0] = EVENT_ID_LOCK_CLASS;
+        for (int i = 0; i < chunk.size(); i++) {
+            lock.append(i == 0 ? "(?)" : ", (?)");
+            lookup.append(i == 0 ? "?" : ", ?");
+            lockArgs[i + 1] = chunk.get(i).getEventId();
+            ids[i] = chunk.get(i).getEventId();
+        }
+        lock.append(") AS ids (id) ORDER BY id) AS sorted");
+        lookup.append(')');
+        jdbcTemplate.query(lock.toString(), resultSet -> {}, lockArgs);
+
+        Set<String> recorded = new HashSet<>(jdbcTemplate.queryForList(lookup.toString(), String.class, ids));
+        List<ProcessedEvent> absent = chunk.stream().filter(processedEvent -> !recorded.contains(processedEvent.getEventId())).toList();
+        return absent.isEmpty() ? List.of() : insertIfAbsent(absent);
+    }
+
+    private List<String> insertIfAbsent(List<ProcessedEvent> chunk) {
+        StringBuilder sql = new StringBuilder("INSERT INTO processed_events (event_id, event_type, event_day, processed_at) VALUES ");
+        Object[] args = new Object[chunk.size() * 4];
+        for (int i = 0; i < chunk.size(); i++) {
+            ProcessedEvent processedEvent = chunk.get(i);
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+            args[4 * i] = processedEvent.getEventId();
+            args[4 * i + 1] = processedEvent.getEventType();
+            args[4 * i + 2] = utc(processedEvent.getEventDay());
+            args[4 * i + 3] = utc(processedEvent.getProcessedAt());
+        }
+        sql.append(" ON CONFLICT (event_id, event_day) DO NOTHING RETURNING event_id");
+        return jdbcTemplate.queryForList(sql.toString(), String.class, args);
+    }
+
+    private static LocalDateTime utc(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC).toLocalDateTime();
+    }
+}
@@ -0,0 +1,12 @@
+package sn.ondmoney.txe.repository;
+
+import java.time.Instant;
+
+/**
+ * Read-only projection of a {@link sn.ondmoney.txe.domain.ProcessedEvent}: its id and event day.
+ */
+public interface ProcessedEventKey {
+    String getEventId();
+
+    Instant getEventDay();
+}
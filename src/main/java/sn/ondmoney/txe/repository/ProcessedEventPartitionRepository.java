@@ -0,0 +1,111 @@
+package sn.ondmoney.txe.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Daily range partitions of the PostgreSQL {@code processed_events} table, on {@code event_day} (UTC).
+ * <p>
+ * A partition is named {@code processed_events_yyyyMMdd}. Rows outside every daily partition go to
+ * {@code processed_events_default}.
+ */
+@Repository
+public class ProcessedEventPartitionRepository {
+
+    private static final String TABLE = "processed_events";
+    private static final String PREFIX = TABLE + "_";
+    private static final String DEFAULT = PREFIX + "default";
+    private static final String COLUMNS = "event_id, event_type, event_day, processed_at";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProcessedEventPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Find the days that have a partition, in no particular order.
+     */
+    public List<LocalDate> findPartitionDays() {
+        List<String> names = jdbcTemplate.queryForList(
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?",
+            String.class,
+            TABLE
+        );
+        List<LocalDate> days = new ArrayList<>(names.size());
+        for (String name : names) {
+            String suffix = name.substring(PREFIX.length());
+            if (suffix.length() == 8 && suffix.chars().allMatch(Character::isDigit)) {
+                days.add(LocalDate.parse(suffix, SUFFIX));
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Create the partition of a day, in the current transaction.
+     * <p>
+     * Rows of that day already in the default partition, such as events dated ahead of the created partitions,
+     * would make the bound invalid: the default partition is then detached, the partition created, the rows moved
+     * into it and the default partition attached again.
+     */
+    public void createPartition(LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        String create =
+            "CREATE TABLE IF NOT EXISTS " + partitionName(day) + " PARTITION OF " + TABLE +
+            " FOR VALUES FROM ('" + day + " 00:00:00') TO ('" + day.plusDays(1) + " 00:00:00')";
+        Boolean inDefault = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM " + DEFAULT + " WHERE event_day >= ? AND event_day < ?)",
+            Boolean.class,
+            from,
+            to
+        );
+        if (!Boolean.TRUE.equals(inDefault)) {
+            jdbcTemplate.execute(create);
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT);
+        jdbcTemplate.execute(create);
+        jdbcTemplate.update(
+            "INSERT INTO " + partitionName(day) + " (" + COLUMNS + ") SELECT " + COLUMNS + " FROM " + DEFAULT +
+            " WHERE event_day >= ? AND event_day < ?",
+            from,
+            to
+        );
+        jdbcTemplate.update("DELETE FROM " + DEFAULT + " WHERE event_day >= ? AND event_day < ?", from, to);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + DEFAULT + " DEFAULT");
+    }
+
+    /**
+     * Drop the partition of a day and all its rows.
+     */
+    public void dropPartition(LocalDate day) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(day));
+    }
+
+    /**
+     * Delete the rows of the default partition whose event day is before a given time.
+     *
+     * @return the number of rows deleted.
+     */
+    public int deleteFromDefaultPartitionBefore(Instant before) {
+        return jdbcTemplate.update(
+            "DELETE FROM " + DEFAULT + " WHERE event_day < ?",
+            before.atOffset(ZoneOffset.UTC).toLocalDateTime()
+        );
+    }
+
+    private static String partitionName(LocalDate day) {
+        return PREFIX + day.format(SUFFIX);
+    }
+}
@@ -1,16 +1,24 @@
 package sn.ondmoney.txe.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.ondmoney.txe.domain.ProcessedEvent;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository for ProcessedEvent - tracks processed Kafka events for idempotency.
  */
 @Repository
-public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String> {
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String>, ProcessedEventInsertRepository {
 
     /**
      * Check if an event has already been processed.
@@ -18,7 +26,23 @@ public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent,
     boolean existsByEventId(String eventId);
 
     /**
-     * Delete events processed before a given time.
+     * Find which of the given events have already been processed, in one query.
      */
-    void deleteByProcessedAtBefore(Instant before);
+    @Query("SELECT p.eventId FROM ProcessedEvent p WHERE p.eventId IN :eventIds")
+    List<String> findProcessedEventIds(@Param("eventIds") Collection<String> eventIds);
+
+    /**
+     * Stream the ids and days of the events processed since a given time, without loading the entities.
+     * Must be consumed within a transaction.
+     */
+    @Query("SELECT p.eventId AS eventId, p.eventDay AS eventDay FROM ProcessedEvent p WHERE p.processedAt >= :since")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    Stream<ProcessedEventKey> streamProcessedSince(@Param("since") Instant since);
+
+    /**
+     * Try to take a transaction-scoped PostgreSQL advisory lock.
+     * Only one instance maintains the partitions at a time.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockId)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("lockId") long lockId);
 }
@@ -1,12 +1,54 @@
 package sn.ondmoney.txe.repository;
 
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.ondmoney.txe.domain.Transaction;
 
 /**
  * Spring Data JPA repository for the Transaction entity.
+ * <p>
+ * The debits and credits of a wallet are read newest first, a page at a time, like the transfers of
+ * {@link TransferRepository}, on the {@code (debited_account_id, initiated_at, id)} and
+ * {@code (credited_account_id, initiated_at, id)} indexes, and all the transactions on the {@code (initiated_at, id)} index.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {}
+public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+    @Query("select t from Transaction t where t.debitedAccount.id = :walletId order by t.initiatedAt desc, t.id desc")
+    List<Transaction> findDebitsByWallet(@Param("walletId") Long walletId, Limit limit);
+
+    @Query(
+        "select t from Transaction t where t.debitedAccount.id = :walletId and (t.initiatedAt, t.id) < (:initiatedAt, :id)" +
+        " order by t.initiatedAt desc, t.id desc"
+    )
+    List<Transaction> findDebitsByWalletBefore(
+        @Param("walletId") Long walletId,
+        @Param("initiatedAt") Instant initiatedAt,
+        @Param("id") Long id,
+        Limit limit
+    );
+
+    @Query("select t from Transaction t where t.creditedAccount.id = :walletId order by t.initiatedAt desc, t.id desc")
+    List<Transaction> findCreditsByWallet(@Param("walletId") Long walletId, Limit limit);
+
+    @Query(
+        "select t from Transaction t where t.creditedAccount.id = :walletId and (t.initiatedAt, t.id) < (:initiatedAt, :id)" +
+        " order by t.initiatedAt desc, t.id desc"
+    )
+    List<Transaction> findCreditsByWalletBefore(
+        @Param("walletId") Long walletId,
+        @Param("initiatedAt") Instant initiatedAt,
+        @Param("id") Long id,
+        Limit limit
+    );
+
+    @Query("select t from Transaction t order by t.initiatedAt desc, t.id desc")
+    List<Transaction> findNewest(Limit limit);
+
+    @Query("select t from Transaction t where (t.initiatedAt, t.id) < (:initiatedAt, :id) order by t.initiatedAt desc, t.id desc")
+    List<Transaction> findNewestBefore(@Param("initiatedAt") Instant initiatedAt, @Param("id") Long id, Limit limit);
+}
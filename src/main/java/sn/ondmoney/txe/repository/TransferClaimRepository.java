@@ -0,0 +1,25 @@
+package sn.ondmoney.txe.repository;
+
+import java.time.Instant;
+
+/**
+ * Settlement claims of {@link sn.ondmoney.txe.domain.Transfer}, a fragment of {@link TransferRepository}.
+ * <p>
+ * Only the claimed transfer is evicted from the second-level cache, where a bulk HQL update would evict the whole
+ * Transfer region.
+ */
+public interface TransferClaimRepository {
+    /**
+     * Claim a {@code PROCESSING} transfer for its credit: only one transaction, on any node, completes it.
+     *
+     * @return 1 if the transfer was completed, 0 if another transaction settled it first.
+     */
+    int completeProcessing(Long id, Instant now);
+
+    /**
+     * Claim a {@code PROCESSING} transfer for its refund: only one transaction, on any node, fails it.
+     *
+     * @return 1 if the transfer was failed, 0 if another transaction settled it first.
+     */
+    int failProcessing(Long id, String errorMessage, Instant now);
+}
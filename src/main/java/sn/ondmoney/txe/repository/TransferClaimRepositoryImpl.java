@@ -0,0 +1,79 @@
+package sn.ondmoney.txe.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sn.ondmoney.txe.domain.Transfer;
+import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
+
+/**
+ * Settlement claims run on JDBC, out of sight of Hibernate, which would otherwise evict every cached transfer.
+ * The claimed one is evicted at once, so that it is read back settled in the same transaction, and again after
+ * the commit, in case another member cached it in between.
+ */
+class TransferClaimRepositoryImpl implements TransferClaimRepository {
+
+    private static final String COMPLETE_PROCESSING =
+        "UPDATE transfer SET status = ?, completed_at = ? WHERE id = ? AND status = ?";
+
+    private static final String FAIL_PROCESSING =
+        "UPDATE transfer SET status = ?, failed_at = ?, error_message = ? WHERE id = ? AND status = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    TransferClaimRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public int completeProcessing(Long id, Instant now) {
+        int claimed = jdbcTemplate.update(
+            COMPLETE_PROCESSING,
+            TransactionStatus.COMPLETED.name(),
+            utc(now),
+            id,
+            TransactionStatus.PROCESSING.name()
+        );
+        evict(id);
+        return claimed;
+    }
+
+    @Override
+    public int failProcessing(Long id, String errorMessage, Instant now) {
+        int claimed = jdbcTemplate.update(
+            FAIL_PROCESSING,
+            TransactionStatus.FAILED.name(),
+            utc(now),
+            errorMessage,
+            id,
+            TransactionStatus.PROCESSING.name()
+        );
+        evict(id);
+        return claimed;
+    }
+
+    private void evict(Long id) {
+        entityManagerFactory.getCache().evict(Transfer.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        entityManagerFactory.getCache().evict(Transfer.class, id);
+                    }
+                }
+            );
+        }
+    }
+
+    private static LocalDateTime utc(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC).toLocalDateTime();
+    }
+}
@@ -1,12 +1,62 @@
 package sn.ondmoney.txe.repository;
 
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.ondmoney.txe.domain.Transfer;
+import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
 
 /**
  * Spring Data JPA repository for the Transfer entity.
+ * <p>
+ * The transfers of a wallet are read newest first, a page at a time: the first page, then the page before the last
+ * transfer of the previous one, by its {@code initiatedAt} and {@code id}. Each page is a range of the
+ * {@code (sender_id, initiated_at, id)} or {@code (receiver_id, initiated_at, id)} index, however deep it is.
+ * All the transfers are paged the same way on the {@code (initiated_at, id)} index.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface TransferRepository extends JpaRepository<Transfer, Long> {}
+public interface TransferRepository extends JpaRepository<Transfer, Long>, TransferClaimRepository {
+    /**
+     * Find transfers by status, with their wallets.
+     */
+    @EntityGraph(attributePaths = { "sender", "receiver" })
+    List<Transfer> findAllByStatus(TransactionStatus status);
+
+    @Query("select t from Transfer t where t.sender.id = :walletId order by t.initiatedAt desc, t.id desc")
+    List<Transfer> findSentByWallet(@Param("walletId") Long walletId, Limit limit);
+
+    @Query(
+        "select t from Transfer t where t.sender.id = :walletId and (t.initiatedAt, t.id) < (:initiatedAt, :id)" +
+        " order by t.initiatedAt desc, t.id desc"
+    )
+    List<Transfer> findSentByWalletBefore(
+        @Param("walletId") Long walletId,
+        @Param("initiatedAt") Instant initiatedAt,
+        @Param("id") Long id,
+        Limit limit
+    );
+
+    @Query("select t from Transfer t where t.receiver.id = :walletId order by t.initiatedAt desc, t.id desc")
+    List<Transfer> findReceivedByWallet(@Param("walletId") Long walletId, Limit limit);
+
+    @Query(
+        "select t from Transfer t where t.receiver.id = :walletId and (t.initiatedAt, t.id) < (:initiatedAt, :id)" +
+        " order by t.initiatedAt desc, t.id desc"
+    )
+    List<Transfer> findReceivedByWalletBefore(
+        @Param("walletId") Long walletId,
+        @Param("initiatedAt") Instant initiatedAt,
+        @Param("id") Long id,
+        Limit limit
+    );
+
+    @Query("select t from Transfer t order by t.initiatedAt desc, t.id desc")
+    List<Transfer> findNewest(Limit limit);
+
+    @Query("select t from Transfer t where (t.initiatedAt, t.id) < (:initiatedAt, :id) order by t.initiatedAt desc, t.id desc")
+    List<Transfer> findNewestBefore(@Param("initiatedAt") Instant initiatedAt, @Param("id") Long id, Limit limit);
+}
@@ -0,0 +1,62 @@
+package sn.ondmoney.txe.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.WalletBalanceShard;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the WalletBalanceShard entity.
+ */
+@Repository
+public interface WalletBalanceShardRepository extends JpaRepository<WalletBalanceShard, Long> {
+
+    /**
+     * Atomically credit one shard of an active wallet.
+     * The wallet row is only read, so credits to different shards never wait on each other.
+     *
+     * @return 1 if the shard was credited, 0 if it does not exist or the wallet is not active.
+     */
+    @Modifying
+    @Query(
+        "UPDATE WalletBalanceShard s SET s.balance = s.balance + :amount " +
+        "WHERE s.walletId = :walletId AND s.shardIndex = :shardIndex AND EXISTS (" +
+        "SELECT 1 FROM Wallet w WHERE w.id = s.walletId AND w.status = sn.ondmoney.txe.domain.enumeration.WalletStatus.ACTIVE)"
+    )
+    int credit(@Param("walletId") Long walletId, @Param("shardIndex") int shardIndex, @Param("amount") BigDecimal amount);
+
+    default int credit(Long walletId, int shardIndex, Money amount) {
+        return credit(walletId, shardIndex, amount.toBigDecimal());
+    }
+
+    /**
+     * Reset all shards of a wallet, once swept into its row.
+     *
+     * @return the number of shards.
+     */
+    @Modifying
+    @Query("UPDATE WalletBalanceShard s SET s.balance = 0 WHERE s.walletId = :walletId")
+    int empty(@Param("walletId") Long walletId);
+
+    /**
+     * Lock all shards of a wallet with {@code SELECT ... FOR UPDATE}, in shard order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM WalletBalanceShard s WHERE s.walletId = :walletId ORDER BY s.shardIndex")
+    List<WalletBalanceShard> findAllByWalletIdForUpdate(@Param("walletId") Long walletId);
+
+    /**
+     * Sum the shard balances of a wallet.
+     *
+     * @return the sum, zero if the wallet is not sharded.
+     */
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM WalletBalanceShard s WHERE s.walletId = :walletId")
+    BigDecimal sumBalanceByWalletId(@Param("walletId") Long walletId);
+
+    long countByWalletId(Long walletId);
+}
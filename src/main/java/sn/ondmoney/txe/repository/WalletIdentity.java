@@ -0,0 +1,24 @@
+package sn.ondmoney.txe.repository;
+
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+
+/**
+ * The fields of a {@link sn.ondmoney.txe.domain.Wallet} that do not change with its balance: enough to check and
+ * route a transfer, and safe to cache.
+ */
+public interface WalletIdentity {
+    Long getId();
+
+    String getUserId();
+
+    String getPhone();
+
+    String getCurrency();
+
+    WalletStatus getStatus();
+
+    /**
+     * @return the number of balance shards, 0 if the wallet is not sharded.
+     */
+    Long getBalanceShards();
+}
@@ -1,23 +1,54 @@
 package sn.ondmoney.txe.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import sn.ondmoney.txe.domain.Money;
 import sn.ondmoney.txe.domain.Wallet;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Spring Data JPA repository for the Wallet entity.
+ * <p>
+ * Balances are {@code decimal} attributes, which may hold legacy fractions: a {@link Money} amount becomes a
+ * {@link BigDecimal} only when bound to an update.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, Long> {
 
+    String SNAPSHOT_SELECT =
+        "SELECT w.id AS id, w.userId AS userId, w.phone AS phone, w.currency AS currency, w.status AS status, " +
+        "w.balance + COALESCE((SELECT SUM(s.balance) FROM WalletBalanceShard s WHERE s.walletId = w.id), 0) AS balance, " +
+        "w.version AS version, (SELECT COUNT(s) FROM WalletBalanceShard s WHERE s.walletId = w.id) AS balanceShards " +
+        "FROM Wallet w ";
+
+    String SHARDS_SUM = "(SELECT COALESCE(SUM(s.balance), 0) FROM WalletBalanceShard s WHERE s.walletId = w.id)";
+
     /**
      * Find wallet by user ID.
      */
     Optional<Wallet> findByUserId(String userId);
 
+    /**
+     * Find which of the given users already have a wallet, in one query.
+     */
+    @Query("SELECT w.userId FROM Wallet w WHERE w.userId IN :userIds")
+    List<String> findExistingUserIds(@Param("userIds") Collection<String> userIds);
+
+    /**
+     * Find which of the given phone numbers already have a wallet, in one query.
+     */
+    @Query("SELECT w.phone FROM Wallet w WHERE w.phone IN :phones")
+    List<String> findExistingPhones(@Param("phones") Collection<String> phones);
+
     /**
      * Find wallet by phone number.
      */
@@ -27,4 +58,116 @@ public interface WalletRepository extends JpaRepository<Wallet, Long> {
      * Find wallet by Keycloak ID.
      */
     Optional<Wallet> findByKeycloakId(String keycloakId);
+
+    /**
+     * Find wallet snapshots by phone numbers, without loading the entities.
+     * The balance of a sharded wallet includes its shards.
+     */
+    @Query(SNAPSHOT_SELECT + "WHERE w.phone IN :phones")
+    List<WalletSnapshot> findByPhoneIn(@Param("phones") Collection<String> phones);
+
+    /**
+     * Find wallet snapshots by IDs, without loading the entities.
+     * The balance of a sharded wallet includes its shards.
+     */
+    @Query(SNAPSHOT_SELECT + "WHERE w.id IN :ids")
+    List<WalletSnapshot> findByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Atomically debit an active wallet if its balance covers the amount.
+     *
+     * @return 1 if the wallet was debited, 0 if it is missing, not active or underfunded.
+     */
+    @Modifying
+    @Query(
+        "UPDATE Wallet w SET w.balance = w.balance - :amount, w.version = w.version + 1, w.updatedAt = :now " +
+        "WHERE w.id = :id AND w.balance >= :amount AND w.status = sn.ondmoney.txe.domain.enumeration.WalletStatus.ACTIVE"
+    )
+    int debit(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("now") Instant now);
+
+    default int debit(Long id, Money amount, Instant now) {
+        return debit(id, amount.toBigDecimal(), now);
+    }
+
+    /**
+     * Atomically credit an active wallet.
+     *
+     * @return 1 if the wallet was credited, 0 if it is missing or not active.
+     */
+    @Modifying
+    @Query(
+        "UPDATE Wallet w SET w.balance = w.balance + :amount, w.version = w.version + 1, w.updatedAt = :now " +
+        "WHERE w.id = :id AND w.status = sn.ondmoney.txe.domain.enumeration.WalletStatus.ACTIVE"
+    )
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("now") Instant now);
+
+    default int credit(Long id, Money amount, Instant now) {
+        return credit(id, amount.toBigDecimal(), now);
+    }
+
+    /**
+     * Give back a debited amount, whatever the wallet status.
+     *
+     * @return 1 if the wallet was credited, 0 if it is missing.
+     */
+    @Modifying
+    @Query("UPDATE Wallet w SET w.balance = w.balance + :amount, w.version = w.version + 1, w.updatedAt = :now WHERE w.id = :id")
+    int refund(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("now") Instant now);
+
+    default int refund(Long id, Money amount, Instant now) {
+        return refund(id, amount.toBigDecimal(), now);
+    }
+
+    /**
+     * Atomically move the shard balances of an active wallet into its row and debit it, if together they cover the amount.
+     * The shards are reset with {@link WalletBalanceShardRepository#empty(Long)}, the rows locked first.
+     *
+     * @return 1 if the wallet was debited, 0 if it is missing, not active or underfunded.
+     */
+    @Modifying
+    @Query(
+        "UPDATE Wallet w SET w.balance = w.balance + " + SHARDS_SUM + " - :amount, w.version = w.version + 1, w.updatedAt = :now " +
+        "WHERE w.id = :id AND w.balance + " + SHARDS_SUM + " >= :amount " +
+        "AND w.status = sn.ondmoney.txe.domain.enumeration.WalletStatus.ACTIVE"
+    )
+    int sweepAndDebit(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("now") Instant now);
+
+    default int sweepAndDebit(Long id, Money amount, Instant now) {
+        return sweepAndDebit(id, amount.toBigDecimal(), now);
+    }
+
+    /**
+     * Set a wallet balance if its version is still the expected one (optimistic compare-and-set).
+     *
+     * @return 1 if the wallet was updated, 0 if another transaction changed it first.
+     */
+    @Modifying
+    @Query(
+        "UPDATE Wallet w SET w.balance = :balance, w.version = w.version + 1, w.updatedAt = :now " +
+        "WHERE w.id = :id AND w.version = :version"
+    )
+    int compareAndSetBalance(
+        @Param("id") Long id,
+        @Param("version") Integer version,
+        @Param("balance") BigDecimal balance,
+        @Param("now") Instant now
+    );
+
+    /**
+     * Lock wallets with {@code SELECT ... FOR UPDATE}.
+     * PostgreSQL takes the row locks after sorting, so concurrent callers always lock in id order and cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.id IN :ids ORDER BY w.id")
+    List<Wallet> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Newest wallets, a page at a time: the first page, then the page before the last wallet of the previous one,
+     * by its {@code createdAt} and {@code id}, on the {@code (created_at, id)} index.
+     */
+    @Query("SELECT w FROM Wallet w ORDER BY w.createdAt DESC, w.id DESC")
+    List<Wallet> findNewest(Limit limit);
+
+    @Query("SELECT w FROM Wallet w WHERE (w.createdAt, w.id) < (:createdAt, :id) ORDER BY w.createdAt DESC, w.id DESC")
+    List<Wallet> findNewestBefore(@Param("createdAt") Instant createdAt, @Param("id") Long id, Limit limit);
 }
@@ -0,0 +1,16 @@
+package sn.ondmoney.txe.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of a {@link sn.ondmoney.txe.domain.Wallet}.
+ * Selected as plain columns, so it is never managed or dirty-checked by Hibernate.
+ */
+public interface WalletSnapshot extends WalletIdentity {
+    /**
+     * @return the wallet row balance plus the balance shards, if any.
+     */
+    BigDecimal getBalance();
+
+    Integer getVersion();
+}
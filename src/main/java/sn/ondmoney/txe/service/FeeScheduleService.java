@@ -0,0 +1,33 @@
+package sn.ondmoney.txe.service;
+
+import java.math.BigDecimal;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.enumeration.TransactionType;
+import sn.ondmoney.txe.service.dto.FeeQuoteResponse;
+
+/**
+ * Service Interface for the fee schedule, configured with {@code application.fees.tiers}.
+ * <p>
+ * Lookups never touch the database.
+ */
+public interface FeeScheduleService {
+    /**
+     * Compute the fees of a transaction.
+     *
+     * @param type the transaction type
+     * @param amount the transaction amount
+     * @return the fees, in the currency of the amount.
+     * @throws sn.ondmoney.txe.web.rest.errors.BadRequestAlertException if no tier of the type covers the amount, or its fees overflow
+     */
+    Money calculateFees(TransactionType type, Money amount);
+
+    /**
+     * Preview the fees of a transaction.
+     *
+     * @param type the transaction type
+     * @param amount the transaction amount, a whole number of XOF
+     * @return the amount, its fees and the total debited.
+     * @throws sn.ondmoney.txe.web.rest.errors.BadRequestAlertException if the amount is not whole, too large or not covered by a tier
+     */
+    FeeQuoteResponse quote(TransactionType type, BigDecimal amount);
+}
@@ -0,0 +1,69 @@
+package sn.ondmoney.txe.service;
+
+import java.util.function.Function;
+import sn.ondmoney.txe.service.dto.P2PTransferRequest;
+import sn.ondmoney.txe.service.dto.P2PTransferResponse;
+
+/**
+ * Service Interface for client-supplied {@code Idempotency-Key} handling.
+ * <p>
+ * The record of a key is written by the transfer itself, in its own transaction, so a transfer is never committed
+ * without it: a transfer that commits after its caller gave up, or just before a crash, is still replayed.
+ */
+public interface IdempotencyService {
+    /**
+     * Run a transfer at most once per (sender, key).
+     * <p>
+     * A retry with the same key and body gets the stored response without running the transfer again, or the
+     * transfer as {@code PROCESSING} while its credit is pending. A retry arriving while the original is still
+     * running waits for it.
+     *
+     * @param senderPhone the sender phone number
+     * @param idempotencyKey the key supplied by the client
+     * @param request the transfer request, compared with the one first sent with the key
+     * @param transfer runs the transfer, which records its outcome against the claim
+     * @return the response of the first successful run.
+     * @throws sn.ondmoney.txe.web.rest.errors.BadRequestAlertException if the key was used for another request,
+     * or if the original request is still running after the wait timeout
+     */
+    P2PTransferResponse execute(
+        String senderPhone,
+        String idempotencyKey,
+        P2PTransferRequest request,
+        Function<Claim, P2PTransferResponse> transfer
+    );
+
+    /**
+     * Record the outcome of a transfer against its key. Runs inside the caller's transaction: the transfer's.
+     *
+     * @param claim the key of the transfer
+     * @param txId the transaction id of the transfer
+     * @param response the response of the transfer, {@code null} while it is {@code PROCESSING}
+     * @throws sn.ondmoney.txe.web.rest.errors.BadRequestAlertException if the key is already recorded, by another
+     * run of the same request
+     */
+    void record(Claim claim, String txId, P2PTransferResponse response);
+
+    /**
+     * Store the response of a transfer recorded as {@code PROCESSING}, if any. Runs inside the caller's transaction.
+     *
+     * @param txId the transaction id of the transfer
+     * @param response the response of the completed transfer
+     */
+    void complete(String txId, P2PTransferResponse response);
+
+    /**
+     * Free the key of a transfer recorded as {@code PROCESSING} that failed, if any, so that it can be retried.
+     * Runs inside the caller's transaction.
+     *
+     * @param txId the transaction id of the transfer
+     */
+    void release(String txId);
+
+    /**
+     * A key being run: the transfer records its outcome against it.
+     *
+     * @param requestHash the hash of the request first sent with the key
+     */
+    record Claim(String senderPhone, String idempotencyKey, String requestHash) {}
+}
@@ -0,0 +1,59 @@
+package sn.ondmoney.txe.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+/**
+ * Position of a row in a newest-first listing: its creation instant and its id, which breaks ties.
+ * <p>
+ * The next page of a keyset listing starts right after the cursor of the last row of the previous one: it is read
+ * from the index at once, without counting nor skipping the rows before it, however deep it is. Clients get the
+ * cursor as an opaque token and send it back as is.
+ */
+public record KeysetCursor(Instant position, Long id) {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * @return the opaque token of the cursor.
+     */
+    public String encode() {
+        return ENCODER.encodeToString((position + "_" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token a token from {@link #encode()}, {@code null} or blank for the first page
+     * @return the cursor, or {@code null} for the first page.
+     * @throws IllegalArgumentException if the token was not made by {@link #encode()}.
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('_');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new KeysetCursor(Instant.parse(decoded.substring(0, separator)), Long.valueOf(decoded.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    /**
+     * @param fetched the rows read for a page, up to one more than its size
+     * @return the page, with a next one if the extra row was read.
+     */
+    public static <T> Slice<T> slice(List<T> fetched, int size) {
+        boolean hasNext = fetched.size() > size;
+        return new SliceImpl<>(hasNext ? fetched.subList(0, size) : fetched, PageRequest.ofSize(size), hasNext);
+    }
+}
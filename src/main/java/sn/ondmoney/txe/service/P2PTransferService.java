@@ -15,9 +15,15 @@ public interface P2PTransferService {
      * @param senderPhone the sender's phone number (from JWT token)
      * @param request the transfer request
      * @param correlationId the correlation ID for tracing
+     * @param claim the {@code Idempotency-Key} of the request, recorded in the transfer's transaction, {@code null} if none
      * @return the transfer response
      */
-    P2PTransferResponse initiateTransfer(String senderPhone, P2PTransferRequest request, String correlationId);
+    P2PTransferResponse initiateTransfer(
+        String senderPhone,
+        P2PTransferRequest request,
+        String correlationId,
+        IdempotencyService.Claim claim
+    );
 
     /**
      * Get the wallet balance for a user.
@@ -0,0 +1,50 @@
+package sn.ondmoney.txe.service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service Interface for the deduplication of consumed Kafka events.
+ * <p>
+ * Event ids are kept for {@code application.processed-events.retention-days} after the day of the event; an older
+ * event is no longer recognized as a duplicate.
+ */
+public interface ProcessedEventService {
+    /**
+     * @return whether the event has already been processed.
+     */
+    boolean isProcessed(String eventId);
+
+    /**
+     * @return the given events that have already been processed.
+     */
+    Set<String> findProcessed(Collection<String> eventIds);
+
+    /**
+     * Record an event as processed, in the current transaction. Waits for a concurrent transaction recording the
+     * same event.
+     *
+     * @param eventTime the time of the event, the same on every delivery; {@code null} if unknown, the event is
+     *     then recorded once whatever its day
+     * @return {@code false} if the event was already recorded: it must be skipped.
+     */
+    boolean markProcessed(String eventId, Instant eventTime, String eventType);
+
+    /**
+     * Record events of the same type as processed, in the current transaction. Waits for concurrent transactions
+     * recording the same events.
+     *
+     * @param eventTimes the time of each event by id, {@code null} if unknown, as for {@link #markProcessed}
+     * @return the given events that were already recorded: they must be skipped.
+     */
+    Set<String> markAllProcessed(Map<String, Instant> eventTimes, String eventType);
+
+    /**
+     * Learn the events processed by other instances since the last call, in the background.
+     * Called when Kafka partitions are assigned to this instance; records consumed meanwhile are still
+     * deduplicated by {@link #markProcessed} and {@link #markAllProcessed}.
+     */
+    void synchronize();
+}
@@ -3,6 +3,7 @@ package sn.ondmoney.txe.service;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import sn.ondmoney.txe.service.dto.TransferDTO;
 
 /**
@@ -41,6 +42,22 @@ public interface TransferService {
      */
     Page<TransferDTO> findAll(Pageable pageable);
 
+    /**
+     * Get a page of the transfers, newest first, without counting them.
+     *
+     * @param after the position of the last transfer of the previous page, {@code null} for the first page.
+     * @param size the page size.
+     * @return the page, which tells whether a next one exists.
+     */
+    Slice<TransferDTO> findAll(KeysetCursor after, int size);
+
+    /**
+     * Count the transfers.
+     *
+     * @return the number of entities.
+     */
+    long count();
+
     /**
      * Get the "id" transfer.
      *
@@ -0,0 +1,25 @@
+package sn.ondmoney.txe.service;
+
+/**
+ * Generator of the external transaction IDs, {@code TXN_} followed by upper-case letters and digits.
+ * <p>
+ * Implementations are thread-safe and never return the same ID twice within the cluster.
+ */
+public interface TxIdGenerator {
+    String PREFIX = "TXN_";
+
+    /**
+     * Supported generators, selected with {@code application.tx-id.generator}.
+     */
+    enum Mode {
+        /** Timestamp, node and sequence: time-ordered, so index inserts stay append-mostly. */
+        SNOWFLAKE,
+        /** 48 random bits from a random UUID, the original scheme. */
+        RANDOM,
+    }
+
+    /**
+     * @return a new transaction ID.
+     */
+    String nextTxId();
+}
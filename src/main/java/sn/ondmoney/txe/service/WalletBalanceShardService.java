@@ -0,0 +1,69 @@
+package sn.ondmoney.txe.service;
+
+import java.math.BigDecimal;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.repository.WalletIdentity;
+
+/**
+ * Service Interface for sharded (hot) wallet balances.
+ * <p>
+ * A sharded wallet keeps part of its balance in N {@link sn.ondmoney.txe.domain.WalletBalanceShard} rows.
+ * Credits go to a random shard, debits are taken from the wallet row and sweep the shards into it when
+ * the wallet row alone does not cover them. Sharding is opt-in per wallet.
+ */
+public interface WalletBalanceShardService {
+    /**
+     * Maximum number of shards of one wallet.
+     */
+    int MAX_SHARDS = 64;
+
+    /**
+     * Debit the sender and credit the receiver when at least one of them is sharded.
+     * Runs inside the caller's transaction.
+     *
+     * @param sender the sender wallet
+     * @param receiver the receiver wallet
+     * @param debitAmount the amount taken from the sender, fees included
+     * @param creditAmount the amount given to the receiver
+     * @throws sn.ondmoney.txe.web.rest.errors.BadRequestAlertException if the sender cannot cover the debit or the receiver is not active
+     */
+    void moveFunds(WalletIdentity sender, WalletIdentity receiver, Money debitAmount, Money creditAmount);
+
+    /**
+     * Debit one wallet, sweeping its shards into the wallet row if the row alone does not cover the amount.
+     * Runs inside the caller's transaction.
+     *
+     * @param wallet the wallet to debit
+     * @param amount the amount, fees included
+     * @throws sn.ondmoney.txe.web.rest.errors.BadRequestAlertException if the wallet cannot cover the debit
+     */
+    void debit(WalletIdentity wallet, Money amount);
+
+    /**
+     * Credit one wallet, on a random shard if it is sharded.
+     * Runs inside the caller's transaction.
+     *
+     * @param wallet the wallet to credit
+     * @param amount the amount
+     * @throws sn.ondmoney.txe.web.rest.errors.BadRequestAlertException if the wallet is not active
+     */
+    void credit(WalletIdentity wallet, Money amount);
+
+    /**
+     * Get the part of a wallet balance held in its shards.
+     *
+     * @param walletId the wallet ID
+     * @return the sum of the shard balances, zero if the wallet is not sharded.
+     */
+    BigDecimal getShardedBalance(Long walletId);
+
+    /**
+     * Change the number of balance shards of a wallet. The shard balances are folded back into the wallet row first,
+     * so the total balance is unchanged.
+     *
+     * @param walletId the wallet ID
+     * @param shards the new number of shards, 0 to stop sharding the wallet
+     * @return false if the wallet does not exist.
+     */
+    boolean setBalanceShards(Long walletId, int shards);
+}
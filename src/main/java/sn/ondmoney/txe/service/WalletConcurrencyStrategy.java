@@ -0,0 +1,39 @@
+package sn.ondmoney.txe.service;
+
+import sn.ondmoney.txe.domain.Money;
+
+/**
+ * Strategy protecting wallet rows while funds move between two wallets.
+ * <p>
+ * Implementations run inside the caller's transaction. A lost race surfaces as a
+ * {@link org.springframework.dao.ConcurrencyFailureException}, which the caller retries as a whole transaction.
+ */
+public interface WalletConcurrencyStrategy {
+    /**
+     * Supported concurrency modes, selected with {@code application.wallet.concurrency-mode}.
+     */
+    enum Mode {
+        /** Conditional {@code balance = balance +/- x} updates, no read before write. */
+        ATOMIC,
+        /** Read balance and version, then compare-and-set on the version. */
+        OPTIMISTIC,
+        /** {@code SELECT ... FOR UPDATE} on both wallets, in wallet id order. */
+        PESSIMISTIC,
+    }
+
+    /**
+     * @return the mode implemented by this strategy.
+     */
+    Mode getMode();
+
+    /**
+     * Debit the sender and credit the receiver.
+     *
+     * @param senderId the sender wallet ID
+     * @param receiverId the receiver wallet ID
+     * @param debitAmount the amount taken from the sender, fees included
+     * @param creditAmount the amount given to the receiver
+     * @throws sn.ondmoney.txe.web.rest.errors.BadRequestAlertException if the sender cannot cover the debit or the receiver is not active
+     */
+    void moveFunds(Long senderId, Long receiverId, Money debitAmount, Money creditAmount);
+}
@@ -0,0 +1,37 @@
+package sn.ondmoney.txe.service;
+
+import java.util.Collection;
+import java.util.Map;
+import sn.ondmoney.txe.repository.WalletIdentity;
+
+/**
+ * Service Interface for resolving wallets by phone number.
+ * <p>
+ * The identities are cached cluster-wide and near-cached on each node, so resolving a phone number does not reach
+ * the database once warm. Whatever changes the phone number, status, currency or shards of a wallet must
+ * {@linkplain #evict evict} it. Deletes that bypass {@link WalletService}, such as {@code WalletRepository.deleteAll()}
+ * or SQL, must {@linkplain #evictAll evict every wallet}.
+ */
+public interface WalletLookupService {
+    /**
+     * Name of the Hazelcast map of the wallet identities, by phone number.
+     */
+    String CACHE = "wallet-by-phone";
+
+    /**
+     * Find the wallets of phone numbers.
+     *
+     * @return the identities of the wallets found, by phone number; unknown numbers are left out.
+     */
+    Map<String, WalletIdentity> findByPhones(Collection<String> phones);
+
+    /**
+     * Forget the cached wallets of phone numbers, now and again once the current transaction commits, if any.
+     */
+    void evict(String... phones);
+
+    /**
+     * Forget every cached wallet, now and again once the current transaction commits, if any.
+     */
+    void evictAll();
+}
@@ -0,0 +1,49 @@
+package sn.ondmoney.txe.service.dto;
+
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.enumeration.TransactionType;
+
+/**
+ * DTO for a fee preview.
+ */
+public class FeeQuoteResponse {
+
+    private TransactionType type;
+    private Money amount;
+    private Money fees;
+    private Money totalDebited;
+    private String currency;
+
+    public FeeQuoteResponse() {}
+
+    public FeeQuoteResponse(TransactionType type, Money amount, Money fees) {
+        this.type = type;
+        this.amount = amount;
+        this.fees = fees;
+        this.totalDebited = amount.plus(fees);
+        this.currency = amount.getCurrency();
+    }
+
+    public TransactionType getType() { return type; }
+    public Money getAmount() { return amount; }
+    public Money getFees() { return fees; }
+    public Money getTotalDebited() { return totalDebited; }
+    public String getCurrency() { return currency; }
+
+    public void setType(TransactionType type) { this.type = type; }
+    public void setAmount(Money amount) { this.amount = amount; }
+    public void setFees(Money fees) { this.fees = fees; }
+    public void setTotalDebited(Money totalDebited) { this.totalDebited = totalDebited; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    @Override
+    public String toString() {
+        return "FeeQuoteResponse{" +
+            "type=" + type +
+            ", amount=" + amount +
+            ", fees=" + fees +
+            ", totalDebited=" + totalDebited +
+            ", currency='" + currency + "'" +
+            "}";
+    }
+}
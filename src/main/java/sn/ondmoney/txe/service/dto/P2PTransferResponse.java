@@ -1,5 +1,6 @@
 package sn.ondmoney.txe.service.dto;
 
+import sn.ondmoney.txe.domain.Money;
 import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
 
 import java.math.BigDecimal;
@@ -12,9 +13,9 @@ public class P2PTransferResponse {
 
     private String transactionId;
     private TransactionStatus status;
-    private BigDecimal amount;
-    private BigDecimal fees;
-    private BigDecimal totalDebited;
+    private Money amount;
+    private Money fees;
+    private Money totalDebited;
     private String senderPhone;
     private String receiverPhone;
     private String currency;
@@ -49,9 +50,9 @@ public class P2PTransferResponse {
     // Getters
     public String getTransactionId() { return transactionId; }
     public TransactionStatus getStatus() { return status; }
-    public BigDecimal getAmount() { return amount; }
-    public BigDecimal getFees() { return fees; }
-    public BigDecimal getTotalDebited() { return totalDebited; }
+    public Money getAmount() { return amount; }
+    public Money getFees() { return fees; }
+    public Money getTotalDebited() { return totalDebited; }
     public String getSenderPhone() { return senderPhone; }
     public String getReceiverPhone() { return receiverPhone; }
     public String getCurrency() { return currency; }
@@ -64,9 +65,9 @@ public class P2PTransferResponse {
     // Setters
     public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
     public void setStatus(TransactionStatus status) { this.status = status; }
-    public void setAmount(BigDecimal amount) { this.amount = amount; }
-    public void setFees(BigDecimal fees) { this.fees = fees; }
-    public void setTotalDebited(BigDecimal totalDebited) { this.totalDebited = totalDebited; }
+    public void setAmount(Money amount) { this.amount = amount; }
+    public void setFees(Money fees) { this.fees = fees; }
+    public void setTotalDebited(Money totalDebited) { this.totalDebited = totalDebited; }
     public void setSenderPhone(String senderPhone) { this.senderPhone = senderPhone; }
     public void setReceiverPhone(String receiverPhone) { this.receiverPhone = receiverPhone; }
     public void setCurrency(String currency) { this.currency = currency; }
@@ -79,9 +80,9 @@ public class P2PTransferResponse {
     public static class Builder {
         private String transactionId;
         private TransactionStatus status;
-        private BigDecimal amount;
-        private BigDecimal fees;
-        private BigDecimal totalDebited;
+        private Money amount;
+        private Money fees;
+        private Money totalDebited;
         private String senderPhone;
         private String receiverPhone;
         private String currency;
@@ -101,17 +102,17 @@ public class P2PTransferResponse {
             return this;
         }
 
-        public Builder amount(BigDecimal amount) {
+        public Builder amount(Money amount) {
             this.amount = amount;
             return this;
         }
 
-        public Builder fees(BigDecimal fees) {
+        public Builder fees(Money fees) {
             this.fees = fees;
             return this;
         }
 
-        public Builder totalDebited(BigDecimal totalDebited) {
+        public Builder totalDebited(Money totalDebited) {
             this.totalDebited = totalDebited;
             return this;
         }
@@ -0,0 +1,51 @@
+package sn.ondmoney.txe.service.impl;
+
+import java.time.Instant;
+import org.springframework.stereotype.Component;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.service.WalletConcurrencyStrategy;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+/**
+ * No-lock strategy: each wallet is changed by one conditional delta update.
+ * The row lock taken by the update is held until commit, so both updates are issued in wallet id order.
+ */
+@Component
+public class AtomicWalletConcurrencyStrategy implements WalletConcurrencyStrategy {
+
+    private final WalletRepository walletRepository;
+
+    public AtomicWalletConcurrencyStrategy(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    @Override
+    public Mode getMode() {
+        return Mode.ATOMIC;
+    }
+
+    @Override
+    public void moveFunds(Long senderId, Long receiverId, Money debitAmount, Money creditAmount) {
+        Instant now = Instant.now();
+        if (senderId < receiverId) {
+            debit(senderId, debitAmount, now);
+            credit(receiverId, creditAmount, now);
+        } else {
+            credit(receiverId, creditAmount, now);
+            debit(senderId, debitAmount, now);
+        }
+    }
+
+    private void debit(Long senderId, Money amount, Instant now) {
+        if (walletRepository.debit(senderId, amount, now) == 0) {
+            throw new BadRequestAlertException("Insufficient balance", "transfer", "INSUFFICIENT_BALANCE");
+        }
+    }
+
+    private void credit(Long receiverId, Money amount, Instant now) {
+        if (walletRepository.credit(receiverId, amount, now) == 0) {
+            throw new BadRequestAlertException("Receiver wallet is not active", "transfer", "RECEIVER_WALLET_INACTIVE");
+        }
+    }
+}
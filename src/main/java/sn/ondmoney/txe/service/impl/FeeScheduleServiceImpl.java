@@ -0,0 +1,90 @@
+package sn.ondmoney.txe.service.impl;
+
+import java.math.BigDecimal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.enumeration.TransactionType;
+import sn.ondmoney.txe.service.FeeScheduleService;
+import sn.ondmoney.txe.service.dto.FeeQuoteResponse;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Service Implementation for the fee schedule.
+ * <p>
+ * The tiers of {@code application.fees} are compiled once into a {@link FeeTable}. A config refresh that touches
+ * them compiles a new table and swaps it in; in-flight lookups finish on the old one. An invalid schedule is
+ * logged and the current table kept.
+ */
+@Service
+public class FeeScheduleServiceImpl implements FeeScheduleService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FeeScheduleServiceImpl.class);
+
+    static final String FEES_PREFIX = "application.fees";
+
+    private final Environment environment;
+
+    private volatile FeeTable table;
+
+    public FeeScheduleServiceImpl(ApplicationProperties applicationProperties, Environment environment) {
+        this.environment = environment;
+        this.table = FeeTable.compile(applicationProperties.getFees().getTiers());
+    }
+
+    @Override
+    public Money calculateFees(TransactionType type, Money amount) {
+        long fee;
+        try {
+            fee = table.fee(type, amount.getMinorUnits());
+        } catch (ArithmeticException e) {
+            throw tooLarge(amount);
+        }
+        if (fee == FeeTable.NO_TIER) {
+            throw new BadRequestAlertException("No " + type + " fee tier covers amount " + amount, "transfer", "FEE_TIER_NOT_FOUND");
+        }
+        return Money.ofMinor(fee, amount.getCurrency());
+    }
+
+    @Override
+    public FeeQuoteResponse quote(TransactionType type, BigDecimal amount) {
+        Money money = P2PTransferServiceImpl.amountOf(amount);
+        if (money.isNegative() || money.getMinorUnits() == 0) {
+            throw new BadRequestAlertException("Amount must be positive", "transfer", "INVALID_AMOUNT");
+        }
+        Money fees = calculateFees(type, money);
+        try {
+            return new FeeQuoteResponse(type, money, fees);
+        } catch (ArithmeticException e) {
+            // The total debited overflows
+            throw tooLarge(money);
+        }
+    }
+
+    private static BadRequestAlertException tooLarge(Money amount) {
+        return new BadRequestAlertException("Amount " + amount + " is too large", "transfer", "INVALID_AMOUNT");
+    }
+
+    /**
+     * Recompile the table when a refresh changed the fee schedule.
+     */
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().noneMatch(key -> key.startsWith(FEES_PREFIX))) {
+            return;
+        }
+        try {
+            ApplicationProperties.Fees fees = Binder.get(environment).bindOrCreate(FEES_PREFIX, ApplicationProperties.Fees.class);
+            table = FeeTable.compile(fees.getTiers());
+            LOG.info("Fee schedule reloaded with {} tiers", fees.getTiers().size());
+        } catch (RuntimeException e) {
+            LOG.error("Invalid fee schedule, keeping the current one: {}", e.getMessage());
+        }
+    }
+}
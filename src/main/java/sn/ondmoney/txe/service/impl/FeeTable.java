@@ -0,0 +1,105 @@
+package sn.ondmoney.txe.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.enumeration.TransactionType;
+
+/**
+ * Fee tiers compiled into sorted arrays, one set per {@link TransactionType}.
+ * <p>
+ * Immutable: a schedule change compiles a new table. A lookup is a binary search on the tier lower bounds
+ * followed by integer math, in XOF.
+ */
+final class FeeTable {
+
+    static final long NO_TIER = -1;
+
+    private static final long BPS = 10_000;
+
+    private final Tiers[] tiersByType = new Tiers[TransactionType.values().length];
+
+    private FeeTable() {}
+
+    /**
+     * @throws IllegalArgumentException if a tier is incomplete or negative, or two tiers of a type start at the same amount.
+     */
+    static FeeTable compile(List<ApplicationProperties.FeeTier> tiers) {
+        FeeTable table = new FeeTable();
+        for (TransactionType type : TransactionType.values()) {
+            List<ApplicationProperties.FeeTier> ofType = new ArrayList<>();
+            for (ApplicationProperties.FeeTier tier : tiers) {
+                if (tier.getType() == null) {
+                    throw new IllegalArgumentException("Fee tier without a transaction type");
+                }
+                if (tier.getType() == type) {
+                    ofType.add(tier);
+                }
+            }
+            if (!ofType.isEmpty()) {
+                table.tiersByType[type.ordinal()] = new Tiers(type, ofType);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return the fee of the amount, or {@link #NO_TIER} if no tier of the type covers it.
+     */
+    long fee(TransactionType type, long amount) {
+        Tiers tiers = tiersByType[type.ordinal()];
+        return tiers != null ? tiers.fee(amount) : NO_TIER;
+    }
+
+    private static final class Tiers {
+
+        private final long[] from;
+        private final long[] rateBps;
+        private final long[] fixedFee;
+        private final long[] minFee;
+        private final long[] maxFee;
+
+        private Tiers(TransactionType type, List<ApplicationProperties.FeeTier> tiers) {
+            tiers.sort(Comparator.comparingLong(ApplicationProperties.FeeTier::getFromAmount));
+            int size = tiers.size();
+            from = new long[size];
+            rateBps = new long[size];
+            fixedFee = new long[size];
+            minFee = new long[size];
+            maxFee = new long[size];
+            for (int i = 0; i < size; i++) {
+                ApplicationProperties.FeeTier tier = tiers.get(i);
+                if (tier.getFromAmount() < 0 || tier.getRateBps() < 0 || tier.getFixedFee() < 0 || tier.getMinFee() < 0) {
+                    throw new IllegalArgumentException("Negative value in " + type + " fee tier from " + tier.getFromAmount());
+                }
+                if (i > 0 && tier.getFromAmount() == from[i - 1]) {
+                    throw new IllegalArgumentException("Two " + type + " fee tiers start at " + tier.getFromAmount());
+                }
+                from[i] = tier.getFromAmount();
+                rateBps[i] = tier.getRateBps();
+                fixedFee[i] = tier.getFixedFee();
+                minFee[i] = tier.getMinFee();
+                maxFee[i] = tier.getMaxFee() != null ? tier.getMaxFee() : Long.MAX_VALUE;
+                if (maxFee[i] < minFee[i]) {
+                    throw new IllegalArgumentException("Max fee below min fee in " + type + " fee tier from " + tier.getFromAmount());
+                }
+            }
+        }
+
+        private long fee(long amount) {
+            int i = Arrays.binarySearch(from, amount);
+            if (i < 0) {
+                // Insertion point - 1: the last tier starting below the amount
+                i = -i - 2;
+                if (i < 0) {
+                    return NO_TIER;
+                }
+            }
+            long proportional = -Math.floorDiv(-Math.multiplyExact(amount, rateBps[i]), BPS);
+            long fee = Math.addExact(fixedFee[i], proportional);
+            return Math.min(Math.max(fee, minFee[i]), maxFee[i]);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package sn.ondmoney.txe.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.IdempotencyRecord;
+import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
+import sn.ondmoney.txe.repository.IdempotencyRecordRepository;
+import sn.ondmoney.txe.service.IdempotencyService;
+import sn.ondmoney.txe.service.dto.P2PTransferRequest;
+import sn.ondmoney.txe.service.dto.P2PTransferResponse;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Service Implementation for {@code Idempotency-Key} handling.
+ * <p>
+ * Stored responses live in a Hazelcast map in front of the {@code idempotency_record} table, both with the same TTL.
+ * The map entry lock of a key is held while its request runs, so concurrent retries, on any node, wait for it.
+ * The record is inserted by the transfer, in its transaction, and the unique (sender, key) constraint keeps a second
+ * run, after a lost lock or a timeout, from committing too. Only completed responses are cached in the map.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+    static final String IDEMPOTENCY_MAP = "idempotency-keys";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final IMap<String, IdempotencyRecord> records;
+    private final ObjectMapper objectMapper;
+    private final ApplicationProperties.Idempotency properties;
+
+    public IdempotencyServiceImpl(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            HazelcastInstance hazelcastInstance,
+            ObjectMapper objectMapper,
+            ApplicationProperties applicationProperties) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.records = hazelcastInstance.getMap(IDEMPOTENCY_MAP);
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getIdempotency();
+    }
+
+    @Override
+    public P2PTransferResponse execute(
+            String senderPhone,
+            String idempotencyKey,
+            P2PTransferRequest request,
+            Function<Claim, P2PTransferResponse> transfer) {
+        String mapKey = senderPhone + ':' + idempotencyKey;
+        String requestHash = hash(request);
+
+        Optional<P2PTransferResponse> stored = replay(mapKey, requestHash);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+
+        boolean locked;
+        try {
+            locked = records.tryLock(mapKey, properties.getWaitTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            locked = false;
+        }
+        if (!locked) {
+            throw new BadRequestAlertException("A request with this Idempotency-Key is still running", "transfer", "IDEMPOTENCY_KEY_IN_USE");
+        }
+
+        try {
+            // The original request may have finished while this one was waiting, or before a crash
+            stored = replay(mapKey, requestHash).or(() -> replayFromDatabase(senderPhone, idempotencyKey, mapKey, requestHash));
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+
+            P2PTransferResponse response = transfer.apply(new Claim(senderPhone, idempotencyKey, requestHash));
+            if (response.getStatus() == TransactionStatus.COMPLETED) {
+                cache(mapKey, new IdempotencyRecord(
+                    senderPhone, idempotencyKey, requestHash, response.getTransactionId(), toJson(response), expiresAt()
+                ));
+            }
+            return response;
+        } finally {
+            records.unlock(mapKey);
+        }
+    }
+
+    @Override
+    public void record(Claim claim, String txId, P2PTransferResponse response) {
+        int inserted = idempotencyRecordRepository.insertIfAbsent(
+            claim.senderPhone(),
+            claim.idempotencyKey(),
+            claim.requestHash(),
+            txId,
+            response != null ? toJson(response) : null,
+            Instant.now(),
+            expiresAt()
+        );
+        if (inserted == 0) {
+            // Another run of the request, after a lost lock or a timeout: only one of them commits
+            throw new BadRequestAlertException("A request with this Idempotency-Key was already run", "transfer", "IDEMPOTENCY_KEY_IN_USE");
+        }
+    }
+
+    @Override
+    public void complete(String txId, P2PTransferResponse response) {
+        idempotencyRecordRepository.complete(txId, toJson(response));
+    }
+
+    @Override
+    public void release(String txId) {
+        idempotencyRecordRepository.release(txId);
+    }
+
+    /**
+     * Purge the expired records of the database table. The map entries expire on their own.
+     */
+    @Scheduled(fixedDelayString = "${application.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = idempotencyRecordRepository.deleteExpired(Instant.now());
+        LOG.debug("Purged {} expired idempotency records", purged);
+    }
+
+    private Optional<P2PTransferResponse> replay(String mapKey, String requestHash) {
+        IdempotencyRecord record = records.get(mapKey);
+        return record != null ? Optional.of(toResponse(record, requestHash)) : Optional.empty();
+    }
+
+    private Optional<P2PTransferResponse> replayFromDatabase(String senderPhone, String idempotencyKey, String mapKey, String requestHash) {
+        Optional<IdempotencyRecord> found = idempotencyRecordRepository.findBySenderPhoneAndIdempotencyKey(senderPhone, idempotencyKey);
+        if (found.isPresent() && !found.get().getExpiresAt().isAfter(Instant.now())) {
+            // Expired but not purged yet: the key is free again
+            idempotencyRecordRepository.delete(found.get());
+            return Optional.empty();
+        }
+        return found.map(record -> {
+            if (record.getResponse() != null) {
+                cache(mapKey, record);
+            }
+            return toResponse(record, requestHash);
+        });
+    }
+
+    private void cache(String mapKey, IdempotencyRecord record) {
+        long ttl = record.getExpiresAt().getEpochSecond() - Instant.now().getEpochSecond();
+        records.set(mapKey, record, Math.max(1, ttl), TimeUnit.SECONDS);
+    }
+
+    private Instant expiresAt() {
+        return Instant.now().plusSeconds(properties.getTtlSeconds());
+    }
+
+    private String toJson(P2PTransferResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unwritable response of transfer " + response.getTransactionId(), e);
+        }
+    }
+
+    private P2PTransferResponse toResponse(IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new BadRequestAlertException("Idempotency-Key already used for another request", "transfer", "IDEMPOTENCY_KEY_REUSED");
+        }
+        if (record.getResponse() == null) {
+            return P2PTransferResponse.builder()
+                .transactionId(record.getTxId())
+                .status(TransactionStatus.PROCESSING)
+                .message("Transfert en cours de traitement")
+                .build();
+        }
+        try {
+            return objectMapper.readValue(record.getResponse(), P2PTransferResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable idempotency record " + record.getIdempotencyKey(), e);
+        }
+    }
+
+    /**
+     * Hash the fields that define a transfer. The PIN is left out: a retry may send it again differently.
+     */
+    static String hash(P2PTransferRequest request) {
+        String canonical =
+            request.getReceiverPhone() + '|' +
+            request.getAmount().stripTrailingZeros().toPlainString() + '|' +
+            (request.getDescription() != null ? request.getDescription() : "");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package sn.ondmoney.txe.service.impl;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.Wallet;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.repository.WalletSnapshot;
+import sn.ondmoney.txe.service.WalletConcurrencyStrategy;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Optimistic strategy: balances are read without locks, then written with a compare-and-set on {@code version}.
+ * A lost race throws {@link ObjectOptimisticLockingFailureException} so the whole transfer is retried.
+ */
+@Component
+public class OptimisticWalletConcurrencyStrategy implements WalletConcurrencyStrategy {
+
+    private final WalletRepository walletRepository;
+
+    public OptimisticWalletConcurrencyStrategy(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    @Override
+    public Mode getMode() {
+        return Mode.OPTIMISTIC;
+    }
+
+    @Override
+    public void moveFunds(Long senderId, Long receiverId, Money debitAmount, Money creditAmount) {
+        WalletSnapshot sender = null;
+        WalletSnapshot receiver = null;
+        for (WalletSnapshot snapshot : walletRepository.findByIdIn(List.of(senderId, receiverId))) {
+            if (snapshot.getId().equals(senderId)) {
+                sender = snapshot;
+            } else {
+                receiver = snapshot;
+            }
+        }
+
+        // The snapshot balance is decimal: the amounts are compared and applied in it
+        BigDecimal debit = debitAmount.toBigDecimal();
+        BigDecimal credit = creditAmount.toBigDecimal();
+        if (sender == null || sender.getStatus() != WalletStatus.ACTIVE || sender.getBalance().compareTo(debit) < 0) {
+            throw new BadRequestAlertException("Insufficient balance", "transfer", "INSUFFICIENT_BALANCE");
+        }
+        if (receiver == null || receiver.getStatus() != WalletStatus.ACTIVE) {
+            throw new BadRequestAlertException("Receiver wallet is not active", "transfer", "RECEIVER_WALLET_INACTIVE");
+        }
+
+        // Writes hold row locks until commit: issue them in id order
+        Instant now = Instant.now();
+        if (senderId < receiverId) {
+            compareAndSet(sender, sender.getBalance().subtract(debit), now);
+            compareAndSet(receiver, receiver.getBalance().add(credit), now);
+        } else {
+            compareAndSet(receiver, receiver.getBalance().add(credit), now);
+            compareAndSet(sender, sender.getBalance().subtract(debit), now);
+        }
+    }
+
+    private void compareAndSet(WalletSnapshot wallet, BigDecimal newBalance, Instant now) {
+        if (walletRepository.compareAndSetBalance(wallet.getId(), wallet.getVersion(), newBalance, now) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Wallet.class, wallet.getId());
+        }
+    }
+}
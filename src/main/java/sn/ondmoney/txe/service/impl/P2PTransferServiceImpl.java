@@ -2,16 +2,30 @@ package sn.ondmoney.txe.service.impl;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.Money;
 import sn.ondmoney.txe.domain.Transfer;
 import sn.ondmoney.txe.domain.Wallet;
 import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
+import sn.ondmoney.txe.domain.enumeration.TransactionType;
 import sn.ondmoney.txe.domain.enumeration.WalletStatus;
 import sn.ondmoney.txe.kafka.TransferEventProducer;
 import sn.ondmoney.txe.repository.TransferRepository;
+import sn.ondmoney.txe.repository.WalletIdentity;
 import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.repository.WalletSnapshot;
+import sn.ondmoney.txe.service.FeeScheduleService;
+import sn.ondmoney.txe.service.IdempotencyService;
 import sn.ondmoney.txe.service.P2PTransferService;
+import sn.ondmoney.txe.service.TxIdGenerator;
+import sn.ondmoney.txe.service.WalletBalanceShardService;
+import sn.ondmoney.txe.service.WalletConcurrencyStrategy;
+import sn.ondmoney.txe.service.WalletLookupService;
 import sn.ondmoney.txe.service.dto.P2PTransferRequest;
 import sn.ondmoney.txe.service.dto.P2PTransferResponse;
 import sn.ondmoney.txe.service.dto.WalletBalanceResponse;
@@ -19,7 +33,10 @@ import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.util.UUID;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Service Implementation for P2P transfers.
@@ -29,103 +46,119 @@ import java.util.UUID;
 public class P2PTransferServiceImpl implements P2PTransferService {
 
     private static final Logger LOG = LoggerFactory.getLogger(P2PTransferServiceImpl.class);
-    
-    // Fee configuration - could be externalized to config
-    private static final BigDecimal FEE_PERCENTAGE = new BigDecimal("0.01"); // 1%
-    private static final BigDecimal MIN_FEE = new BigDecimal("25"); // 25 XOF minimum
-    private static final BigDecimal MAX_FEE = new BigDecimal("5000"); // 5000 XOF maximum
 
     private final WalletRepository walletRepository;
     private final TransferRepository transferRepository;
     private final TransferEventProducer transferEventProducer;
+    private final ApplicationProperties applicationProperties;
+    private final WalletBalanceShardService walletBalanceShardService;
+    private final TxIdGenerator txIdGenerator;
+    private final FeeScheduleService feeScheduleService;
+    private final WalletLookupService walletLookupService;
+    private final IdempotencyService idempotencyService;
+    private final Map<WalletConcurrencyStrategy.Mode, WalletConcurrencyStrategy> walletConcurrencyStrategies =
+        new EnumMap<>(WalletConcurrencyStrategy.Mode.class);
 
     public P2PTransferServiceImpl(
             WalletRepository walletRepository,
             TransferRepository transferRepository,
-            TransferEventProducer transferEventProducer) {
+            TransferEventProducer transferEventProducer,
+            ApplicationProperties applicationProperties,
+            List<WalletConcurrencyStrategy> walletConcurrencyStrategies,
+            WalletBalanceShardService walletBalanceShardService,
+            TxIdGenerator txIdGenerator,
+            FeeScheduleService feeScheduleService,
+            WalletLookupService walletLookupService,
+            IdempotencyService idempotencyService) {
         this.walletRepository = walletRepository;
         this.transferRepository = transferRepository;
         this.transferEventProducer = transferEventProducer;
+        this.applicationProperties = applicationProperties;
+        this.walletBalanceShardService = walletBalanceShardService;
+        this.txIdGenerator = txIdGenerator;
+        this.feeScheduleService = feeScheduleService;
+        this.walletLookupService = walletLookupService;
+        this.idempotencyService = idempotencyService;
+        walletConcurrencyStrategies.forEach(strategy -> this.walletConcurrencyStrategies.put(strategy.getMode(), strategy));
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Retried as a whole, in a new transaction, when the wallet update loses a concurrency race.
+     */
     @Override
-    public P2PTransferResponse initiateTransfer(String senderPhone, P2PTransferRequest request, String correlationId) {
+    @Retryable(
+        retryFor = ConcurrencyFailureException.class,
+        maxAttemptsExpression = "${application.wallet.max-attempts:5}",
+        backoff = @Backoff(
+            delayExpression = "${application.wallet.retry-delay-ms:5}",
+            maxDelayExpression = "${application.wallet.retry-max-delay-ms:100}",
+            multiplier = 2,
+            random = true
+        ),
+        listeners = "walletConflictRetryListener"
+    )
+    public P2PTransferResponse initiateTransfer(
+            String senderPhone,
+            P2PTransferRequest request,
+            String correlationId,
+            IdempotencyService.Claim claim) {
         LOG.info("Initiating P2P transfer from {} to {}, amount: {}", 
             maskPhone(senderPhone), maskPhone(request.getReceiverPhone()), request.getAmount());
 
-        // Validate sender and receiver are different
-        if (senderPhone.equals(request.getReceiverPhone())) {
-            throw new BadRequestAlertException("Cannot transfer to yourself", "transfer", "SELF_TRANSFER");
-        }
+        Money amount = amountOf(request);
 
-        // Find sender wallet
-        Wallet senderWallet = walletRepository.findByPhone(senderPhone)
-            .orElseThrow(() -> new BadRequestAlertException("Sender wallet not found", "transfer", "SENDER_NOT_FOUND"));
-
-        // Validate sender wallet is active
-        if (senderWallet.getStatus() != WalletStatus.ACTIVE) {
-            throw new BadRequestAlertException("Sender wallet is not active", "transfer", "SENDER_WALLET_INACTIVE");
-        }
-
-        // Find receiver wallet
-        Wallet receiverWallet = walletRepository.findByPhone(request.getReceiverPhone())
-            .orElseThrow(() -> new BadRequestAlertException("Receiver not found", "transfer", "RECEIVER_NOT_FOUND"));
-
-        // Validate receiver wallet is active
-        if (receiverWallet.getStatus() != WalletStatus.ACTIVE) {
-            throw new BadRequestAlertException("Receiver wallet is not active", "transfer", "RECEIVER_WALLET_INACTIVE");
-        }
+        // Resolve and validate both wallets, from the cache once warm
+        WalletIdentity[] parties = resolveParties(walletLookupService, senderPhone, request.getReceiverPhone());
+        WalletIdentity senderWallet = parties[0];
+        WalletIdentity receiverWallet = parties[1];
 
         // Calculate fees
-        BigDecimal fees = calculateFees(request.getAmount());
-        BigDecimal totalToDebit = request.getAmount().add(fees);
-
-        // Validate sufficient balance
-        if (senderWallet.getBalance().compareTo(totalToDebit) < 0) {
-            throw new BadRequestAlertException("Insufficient balance", "transfer", "INSUFFICIENT_BALANCE");
+        Money fees = feeScheduleService.calculateFees(TransactionType.TRANSFER_P2P, amount);
+        Money totalToDebit = amount.plus(fees);
+
+        // Debit sender and credit receiver under the configured concurrency mode, or through the shards of hot wallets
+        if (senderWallet.getBalanceShards() > 0 || receiverWallet.getBalanceShards() > 0) {
+            walletBalanceShardService.moveFunds(senderWallet, receiverWallet, totalToDebit, amount);
+        } else {
+            walletConcurrencyStrategies
+                .get(applicationProperties.getWallet().getConcurrencyMode())
+                .moveFunds(senderWallet.getId(), receiverWallet.getId(), totalToDebit, amount);
         }
 
         // Generate transaction ID
-        String txId = "TXN_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
+        String txId = txIdGenerator.nextTxId();
 
         // Create transfer record
         Transfer transfer = new Transfer();
         transfer.setTxId(txId);
         transfer.setStatus(TransactionStatus.PENDING);
-        transfer.setAmount(request.getAmount());
+        transfer.setAmount(amount);
         transfer.setFees(fees);
         transfer.setSenderPhone(senderPhone);
         transfer.setReceiverPhone(request.getReceiverPhone());
         transfer.setInitiatedAt(Instant.now());
-        transfer.setSender(senderWallet);
-        transfer.setReceiver(receiverWallet);
-
-        // Save transfer with PENDING status
-        transfer = transferRepository.save(transfer);
+        transfer.setSender(walletRepository.getReferenceById(senderWallet.getId()));
+        transfer.setReceiver(walletRepository.getReferenceById(receiverWallet.getId()));
 
         // Publish transfer.initiated event
         transferEventProducer.publishTransferInitiated(transfer, senderWallet, receiverWallet, correlationId);
 
+        P2PTransferResponse response;
         try {
-            // Perform the transfer
-            BigDecimal senderOldBalance = senderWallet.getBalance();
-            BigDecimal receiverOldBalance = receiverWallet.getBalance();
-
-            // Debit sender
-            BigDecimal senderNewBalance = senderOldBalance.subtract(totalToDebit);
-            senderWallet.setBalance(senderNewBalance);
-            senderWallet.setVersion(senderWallet.getVersion() + 1);
-            senderWallet.setUpdatedAt(Instant.now());
-            walletRepository.save(senderWallet);
-
-            // Credit receiver
-            BigDecimal receiverNewBalance = receiverOldBalance.add(request.getAmount());
-            receiverWallet.setBalance(receiverNewBalance);
-            receiverWallet.setVersion(receiverWallet.getVersion() + 1);
-            receiverWallet.setUpdatedAt(Instant.now());
-            walletRepository.save(receiverWallet);
-
-            // Update transfer status to COMPLETED
+            // Read back the balances produced by the updates above
+            BigDecimal senderNewBalance = null;
+            BigDecimal receiverNewBalance = null;
+            for (WalletSnapshot snapshot : walletRepository.findByIdIn(List.of(senderWallet.getId(), receiverWallet.getId()))) {
+                if (snapshot.getId().equals(senderWallet.getId())) {
+                    senderNewBalance = snapshot.getBalance();
+                } else {
+                    receiverNewBalance = snapshot.getBalance();
+                }
+            }
+
+            // Save transfer as COMPLETED in a single insert
             transfer.setStatus(TransactionStatus.COMPLETED);
             transfer.setCompletedAt(Instant.now());
             transfer = transferRepository.save(transfer);
@@ -138,39 +171,20 @@ public class P2PTransferServiceImpl implements P2PTransferService {
 
             LOG.info("P2P transfer completed successfully: {}", txId);
 
-            return P2PTransferResponse.builder()
-                .transactionId(txId)
-                .status(TransactionStatus.COMPLETED)
-                .amount(request.getAmount())
-                .fees(fees)
-                .totalDebited(totalToDebit)
-                .senderPhone(senderPhone)
-                .receiverPhone(request.getReceiverPhone())
-                .currency(senderWallet.getCurrency())
-                .newBalance(senderNewBalance)
-                .description(request.getDescription())
-                .initiatedAt(transfer.getInitiatedAt())
-                .completedAt(transfer.getCompletedAt())
-                .message("Transfert effectué avec succès")
-                .build();
+            response = completedResponse(transfer, senderWallet, request.getDescription(), senderNewBalance);
 
         } catch (Exception e) {
             LOG.error("P2P transfer failed: {}", e.getMessage(), e);
 
-            // Update transfer status to FAILED
-            transfer.setStatus(TransactionStatus.FAILED);
-            transfer.setFailedAt(Instant.now());
-            transfer.setErrorMessage(e.getMessage());
-            transferRepository.save(transfer);
-
-            // Publish transfer.failed event
-            transferEventProducer.publishTransferFailed(
-                transfer, senderWallet, receiverWallet,
-                "TRANSFER_ERROR", e.getMessage(), correlationId
-            );
-
+            // Rolled back with its transfer.initiated event: the transfer never existed, no transfer.failed to send
             throw new BadRequestAlertException("Transfer failed: " + e.getMessage(), "transfer", "TRANSFER_FAILED");
         }
+
+        if (claim != null) {
+            // In this transaction: the transfer never commits without the record of its key
+            idempotencyService.record(claim, txId, response);
+        }
+        return response;
     }
 
     @Override
@@ -178,14 +192,16 @@ public class P2PTransferServiceImpl implements P2PTransferService {
     public WalletBalanceResponse getWalletBalance(String phoneNumber) {
         LOG.debug("Getting wallet balance for: {}", maskPhone(phoneNumber));
 
-        Wallet wallet = walletRepository.findByPhone(phoneNumber)
+        WalletIdentity identity = walletLookupService.findByPhones(List.of(phoneNumber)).get(phoneNumber);
+        Wallet wallet = (identity != null ? walletRepository.findById(identity.getId()) : Optional.<Wallet>empty())
             .orElseThrow(() -> new BadRequestAlertException("Wallet not found", "wallet", "WALLET_NOT_FOUND"));
+        BigDecimal balance = wallet.getBalance().add(walletBalanceShardService.getShardedBalance(wallet.getId()));
 
         return WalletBalanceResponse.builder()
             .walletId("wal_" + wallet.getId())
             .phoneNumber(wallet.getPhone())
-            .balance(wallet.getBalance())
-            .availableBalance(wallet.getBalance()) // For now, same as balance
+            .balance(balance)
+            .availableBalance(balance) // For now, same as balance
             .currency(wallet.getCurrency())
             .status(wallet.getStatus())
             .lastUpdated(wallet.getUpdatedAt() != null ? wallet.getUpdatedAt() : wallet.getCreatedAt())
@@ -200,22 +216,85 @@ public class P2PTransferServiceImpl implements P2PTransferService {
     }
 
     /**
-     * Calculate transfer fees.
-     * Fee structure: 1% of amount, minimum 25 XOF, maximum 5000 XOF
+     * Resolve the sender and receiver wallets of a transfer, without loading the entities.
+     *
+     * @return the sender and receiver identities, in that order.
+     * @throws BadRequestAlertException if a wallet is missing or not active, or if both phones are the same.
      */
-    private BigDecimal calculateFees(BigDecimal amount) {
-        BigDecimal calculatedFee = amount.multiply(FEE_PERCENTAGE);
-        
-        if (calculatedFee.compareTo(MIN_FEE) < 0) {
-            return MIN_FEE;
+    static WalletIdentity[] resolveParties(WalletLookupService walletLookupService, String senderPhone, String receiverPhone) {
+        // Validate sender and receiver are different
+        if (senderPhone.equals(receiverPhone)) {
+            throw new BadRequestAlertException("Cannot transfer to yourself", "transfer", "SELF_TRANSFER");
+        }
+
+        Map<String, WalletIdentity> walletsByPhone = walletLookupService.findByPhones(List.of(senderPhone, receiverPhone));
+
+        // Find sender wallet
+        WalletIdentity senderWallet = walletsByPhone.get(senderPhone);
+        if (senderWallet == null) {
+            throw new BadRequestAlertException("Sender wallet not found", "transfer", "SENDER_NOT_FOUND");
+        }
+
+        // Validate sender wallet is active
+        if (senderWallet.getStatus() != WalletStatus.ACTIVE) {
+            throw new BadRequestAlertException("Sender wallet is not active", "transfer", "SENDER_WALLET_INACTIVE");
         }
-        if (calculatedFee.compareTo(MAX_FEE) > 0) {
-            return MAX_FEE;
+
+        // Find receiver wallet
+        WalletIdentity receiverWallet = walletsByPhone.get(receiverPhone);
+        if (receiverWallet == null) {
+            throw new BadRequestAlertException("Receiver not found", "transfer", "RECEIVER_NOT_FOUND");
+        }
+
+        // Validate receiver wallet is active
+        if (receiverWallet.getStatus() != WalletStatus.ACTIVE) {
+            throw new BadRequestAlertException("Receiver wallet is not active", "transfer", "RECEIVER_WALLET_INACTIVE");
+        }
+
+        return new WalletIdentity[] { senderWallet, receiverWallet };
+    }
+
+    /**
+     * Build the response of a completed transfer.
+     */
+    static P2PTransferResponse completedResponse(
+            Transfer transfer,
+            WalletIdentity senderWallet,
+            String description,
+            BigDecimal senderNewBalance) {
+        return P2PTransferResponse.builder()
+            .transactionId(transfer.getTxId())
+            .status(TransactionStatus.COMPLETED)
+            .amount(transfer.getAmount())
+            .fees(transfer.getFees())
+            .totalDebited(transfer.getAmount().plus(transfer.getFees()))
+            .senderPhone(transfer.getSenderPhone())
+            .receiverPhone(transfer.getReceiverPhone())
+            .currency(senderWallet.getCurrency())
+            .newBalance(senderNewBalance)
+            .description(description)
+            .initiatedAt(transfer.getInitiatedAt())
+            .completedAt(transfer.getCompletedAt())
+            .message("Transfert effectué avec succès")
+            .build();
+    }
+
+    /**
+     * Read the amount of a transfer request. XOF has no minor unit, so the amount must be whole.
+     */
+    static Money amountOf(P2PTransferRequest request) {
+        return amountOf(request.getAmount());
+    }
+
+    static Money amountOf(BigDecimal amount) {
+        try {
+            return Money.of(amount, Money.XOF);
+        } catch (ArithmeticException e) {
+            throw new BadRequestAlertException("Amount must be a whole number of " + Money.XOF, "transfer", "INVALID_AMOUNT");
         }
-        return calculatedFee.setScale(0, java.math.RoundingMode.CEILING);
     }
 
-    private String maskPhone(String phone) {
+    static String maskPhone(String phone) {
         if (phone == null || phone.length() < 4) return "****";
         return "****" + phone.substring(phone.length() - 4);
     }
@@ -0,0 +1,569 @@
+package sn.ondmoney.txe.service.impl;
+
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.Transfer;
+import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
+import sn.ondmoney.txe.domain.enumeration.TransactionType;
+import sn.ondmoney.txe.kafka.TransferEventProducer;
+import sn.ondmoney.txe.repository.TransferRepository;
+import sn.ondmoney.txe.repository.WalletIdentity;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.repository.WalletSnapshot;
+import sn.ondmoney.txe.service.FeeScheduleService;
+import sn.ondmoney.txe.service.IdempotencyService;
+import sn.ondmoney.txe.service.TxIdGenerator;
+import sn.ondmoney.txe.service.WalletBalanceShardService;
+import sn.ondmoney.txe.service.WalletLookupService;
+import sn.ondmoney.txe.service.dto.P2PTransferRequest;
+import sn.ondmoney.txe.service.dto.P2PTransferResponse;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Single-writer P2P transfer engine, enabled with {@code application.transfer-engine.enabled}.
+ * <p>
+ * Wallets are hashed by id onto a fixed number of partitions, each drained by one writer thread.
+ * A writer takes its pending commands in micro-batches and applies a whole batch in one database
+ * transaction (group commit), each command under its own savepoint, then completes the callers.
+ * Only the owner thread of a wallet writes it, so writers never wait on each other's row locks.
+ * <p>
+ * A transfer between two wallets of the same partition is one step. A cross-partition transfer is
+ * two steps, each committed by the owner of the wallet it changes:
+ * <ol>
+ *     <li>the sender partition debits the sender and saves the transfer as {@code PROCESSING};</li>
+ *     <li>the receiver partition credits the receiver and marks the transfer {@code COMPLETED}.</li>
+ * </ol>
+ * If the credit is rejected, the sender partition refunds the sender and marks the transfer {@code FAILED}.
+ * Transfers left {@code PROCESSING} by a stop between the two steps are credited again on the next start.
+ * The credit and the refund first claim the transfer with a conditional update of its status, so a transfer
+ * resumed by several nodes at once is settled only once.
+ * <p>
+ * A caller still waiting after {@code submit-timeout-ms} gets the transfer back as {@code PROCESSING}: it goes on
+ * in the engine, and its id tells how it ended.
+ * Once {@link #stop()} has begun, new transfers are rejected with {@code 503 Service Unavailable}, and the ones
+ * already queued are drained.
+ * <p>
+ * The {@code Idempotency-Key} of a transfer is recorded by the step that commits it, or as {@code PROCESSING} by
+ * the debit, then completed by the credit or released by the refund.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.transfer-engine", name = "enabled", havingValue = "true")
+public class PartitionedTransferEngine implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionedTransferEngine.class);
+
+    private final WalletRepository walletRepository;
+    private final TransferRepository transferRepository;
+    private final TransferEventProducer transferEventProducer;
+    private final WalletBalanceShardService walletBalanceShardService;
+    private final TxIdGenerator txIdGenerator;
+    private final FeeScheduleService feeScheduleService;
+    private final WalletLookupService walletLookupService;
+    private final IdempotencyService idempotencyService;
+    private final ApplicationProperties.TransferEngine properties;
+    private final EntityManager entityManager;
+    private final TransactionTemplate batchTransaction;
+    private final Partition[] partitions;
+
+    private volatile boolean running;
+
+    public PartitionedTransferEngine(
+            WalletRepository walletRepository,
+            TransferRepository transferRepository,
+            TransferEventProducer transferEventProducer,
+            WalletBalanceShardService walletBalanceShardService,
+            TxIdGenerator txIdGenerator,
+            FeeScheduleService feeScheduleService,
+            WalletLookupService walletLookupService,
+            IdempotencyService idempotencyService,
+            ApplicationProperties applicationProperties,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager) {
+        this.walletRepository = walletRepository;
+        this.transferRepository = transferRepository;
+        this.transferEventProducer = transferEventProducer;
+        this.walletBalanceShardService = walletBalanceShardService;
+        this.txIdGenerator = txIdGenerator;
+        this.feeScheduleService = feeScheduleService;
+        this.walletLookupService = walletLookupService;
+        this.idempotencyService = idempotencyService;
+        this.properties = applicationProperties.getTransferEngine();
+        this.entityManager = entityManager;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.partitions = new Partition[properties.getPartitions()];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i);
+        }
+    }
+
+    /**
+     * Run a P2P transfer on the partition of its wallets and wait for its commit.
+     *
+     * @param senderPhone the sender phone number
+     * @param request the transfer request
+     * @param correlationId the correlation ID for tracing
+     * @param claim the {@code Idempotency-Key} of the request, recorded in the transfer's transactions, {@code null} if none
+     * @return the transfer response, {@code PROCESSING} if it is not committed within the submit timeout
+     * @throws ResponseStatusException with {@code 503 Service Unavailable} once the engine is stopping
+     */
+    public P2PTransferResponse submit(String senderPhone, P2PTransferRequest request, String correlationId, IdempotencyService.Claim claim) {
+        LOG.info("Submitting P2P transfer from {} to {}, amount: {}",
+            P2PTransferServiceImpl.maskPhone(senderPhone), P2PTransferServiceImpl.maskPhone(request.getReceiverPhone()), request.getAmount());
+        if (!running) {
+            throw stopping();
+        }
+
+        Money amount = P2PTransferServiceImpl.amountOf(request);
+        WalletIdentity[] parties = P2PTransferServiceImpl.resolveParties(walletLookupService, senderPhone, request.getReceiverPhone());
+        Command command = new Command(
+            txIdGenerator.nextTxId(),
+            parties[0],
+            parties[1],
+            request,
+            amount,
+            feeScheduleService.calculateFees(TransactionType.TRANSFER_P2P, amount),
+            correlationId,
+            claim
+        );
+        Partition senderPartition = partitionOf(command.sender.getId());
+        command.step = senderPartition == partitionOf(command.receiver.getId()) ? Step.TRANSFER : Step.DEBIT;
+
+        if (!senderPartition.offer(command)) {
+            throw new BadRequestAlertException("Transfer engine is overloaded, retry later", "transfer", "ENGINE_BUSY");
+        }
+        // Stopped meanwhile: the writer may have drained its queue and exited before the offer
+        if (!running && senderPartition.withdraw(command)) {
+            throw stopping();
+        }
+
+        try {
+            return command.result.get(properties.getSubmitTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BadRequestAlertException("Transfer failed: " + e.getCause().getMessage(), "transfer", "TRANSFER_FAILED");
+        } catch (TimeoutException e) {
+            LOG.warn("P2P transfer {} is still being processed after {} ms", command.txId, properties.getSubmitTimeoutMs());
+            return processingResponse(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return processingResponse(command);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (Partition partition : partitions) {
+            partition.thread.start();
+        }
+        recoverProcessingTransfers();
+        LOG.info("Transfer engine started with {} partitions", partitions.length);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Partition partition : partitions) {
+            try {
+                partition.thread.join(properties.getSubmitTimeoutMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static ResponseStatusException stopping() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transfer engine is stopping, retry later");
+    }
+
+    private Partition partitionOf(Long walletId) {
+        return partitions[Math.floorMod(Long.hashCode(walletId), partitions.length)];
+    }
+
+    /**
+     * Resume the credit step of transfers debited before the last stop.
+     */
+    private void recoverProcessingTransfers() {
+        List<Command> commands = batchTransaction.execute(status -> {
+            List<Command> recovered = new ArrayList<>();
+            for (Transfer transfer : transferRepository.findAllByStatus(TransactionStatus.PROCESSING)) {
+                WalletSnapshot sender = null;
+                WalletSnapshot receiver = null;
+                for (WalletSnapshot snapshot : walletRepository.findByIdIn(List.of(transfer.getSender().getId(), transfer.getReceiver().getId()))) {
+                    if (snapshot.getId().equals(transfer.getSender().getId())) {
+                        sender = snapshot;
+                    } else {
+                        receiver = snapshot;
+                    }
+                }
+                P2PTransferRequest request = new P2PTransferRequest(transfer.getReceiverPhone(), transfer.getAmount().toBigDecimal(), null, null);
+                Command command = new Command(
+                    transfer.getTxId(),
+                    sender,
+                    receiver,
+                    request,
+                    transfer.getAmount(),
+                    transfer.getFees(),
+                    "corr_recovery_" + transfer.getTxId(),
+                    null
+                );
+                command.transferId = transfer.getId();
+                // Its key, if it had one, was recorded with the debit
+                command.recorded = true;
+                command.step = Step.CREDIT;
+                recovered.add(command);
+            }
+            return recovered;
+        });
+        if (commands != null && !commands.isEmpty()) {
+            LOG.warn("Resuming {} transfers left in PROCESSING", commands.size());
+            commands.forEach(command -> partitionOf(command.receiver.getId()).enqueue(command));
+        }
+    }
+
+    /**
+     * Apply a batch in one transaction, then run the follow-ups of its commands.
+     * If the commit fails, the commands are replayed one per transaction.
+     */
+    private void process(List<Command> batch) {
+        List<Runnable> afterCommit = new ArrayList<>(batch.size());
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                for (Command command : batch) {
+                    afterCommit.add(apply(command));
+                }
+            });
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                LOG.warn("Transfer batch of {} failed, replaying one by one: {}", batch.size(), e.getMessage());
+                for (Command command : batch) {
+                    process(List.of(command));
+                }
+            } else {
+                fail(batch.get(0), e);
+            }
+            return;
+        }
+        afterCommit.forEach(Runnable::run);
+    }
+
+    /**
+     * Apply one command under a JDBC savepoint, rolled back if a balance move is rejected.
+     * <p>
+     * The command is flushed before its savepoint is released, then the persistence context is cleared either way:
+     * a rolled back command leaves no entity behind, and the next one reads the rows the bulk balance moves of
+     * the batch changed afresh.
+     *
+     * @return what to do once the batch is committed.
+     */
+    private Runnable apply(Command command) {
+        Session session = entityManager.unwrap(Session.class);
+        Savepoint savepoint = session.doReturningWork(Connection::setSavepoint);
+        try {
+            Runnable followUp = switch (command.step) {
+                case TRANSFER -> transfer(command);
+                case DEBIT -> debit(command);
+                case CREDIT -> credit(command);
+                case REFUND -> refund(command);
+            };
+            session.flush();
+            session.doWork(connection -> connection.releaseSavepoint(savepoint));
+            return followUp;
+        } catch (BadRequestAlertException e) {
+            session.doWork(connection -> connection.rollback(savepoint));
+            return () -> rejected(command, e);
+        } finally {
+            session.clear();
+        }
+    }
+
+    private Runnable transfer(Command command) {
+        walletBalanceShardService.debit(command.sender, command.totalToDebit);
+        walletBalanceShardService.credit(command.receiver, command.amount);
+
+        Transfer transfer = newTransfer(command);
+        transferEventProducer.publishTransferInitiated(transfer, command.sender, command.receiver, command.correlationId);
+        transfer.setStatus(TransactionStatus.COMPLETED);
+        transfer.setCompletedAt(Instant.now());
+        transferRepository.save(transfer);
+        return complete(command, transfer);
+    }
+
+    private Runnable debit(Command command) {
+        walletBalanceShardService.debit(command.sender, command.totalToDebit);
+        if (command.claim != null) {
+            idempotencyService.record(command.claim, command.txId, null);
+            command.recorded = true;
+        }
+
+        Transfer transfer = newTransfer(command);
+        transferEventProducer.publishTransferInitiated(transfer, command.sender, command.receiver, command.correlationId);
+        transfer.setStatus(TransactionStatus.PROCESSING);
+        command.transferId = transferRepository.save(transfer).getId();
+        return () -> {
+            command.step = Step.CREDIT;
+            partitionOf(command.receiver.getId()).enqueue(command);
+        };
+    }
+
+    private Runnable credit(Command command) {
+        if (transferRepository.completeProcessing(command.transferId, Instant.now()) == 0) {
+            return settledElsewhere(command);
+        }
+        walletBalanceShardService.credit(command.receiver, command.amount);
+
+        return complete(command, transferRepository.findById(command.transferId).orElseThrow());
+    }
+
+    private Runnable refund(Command command) {
+        if (transferRepository.failProcessing(command.transferId, command.failure.getMessage(), Instant.now()) == 0) {
+            return settledElsewhere(command);
+        }
+        walletRepository.refund(command.sender.getId(), command.totalToDebit, Instant.now());
+        if (command.recorded) {
+            idempotencyService.release(command.txId);
+        }
+
+        Transfer transfer = transferRepository.findById(command.transferId).orElseThrow();
+        // Committed with the refund, in this batch
+        transferEventProducer.publishTransferFailedInTransaction(
+            transfer, command.sender, command.receiver,
+            "TRANSFER_ERROR", command.failure.getMessage(), command.correlationId
+        );
+        return () -> command.result.completeExceptionally(command.failure);
+    }
+
+    /**
+     * The transfer was no longer {@code PROCESSING}: another node resumed it first. Answer the caller with its outcome,
+     * without moving funds nor publishing anything again.
+     */
+    private Runnable settledElsewhere(Command command) {
+        Transfer transfer = transferRepository.findById(command.transferId).orElseThrow();
+        LOG.info("P2P transfer {} was already settled as {}", command.txId, transfer.getStatus());
+        if (transfer.getStatus() != TransactionStatus.COMPLETED) {
+            BadRequestAlertException failure = new BadRequestAlertException(
+                "Transfer failed: " + transfer.getErrorMessage(), "transfer", "TRANSFER_FAILED"
+            );
+            return () -> command.result.completeExceptionally(failure);
+        }
+        BigDecimal senderNewBalance = walletRepository.findByIdIn(List.of(command.sender.getId())).stream()
+            .findFirst()
+            .map(WalletSnapshot::getBalance)
+            .orElse(null);
+        P2PTransferResponse response = P2PTransferServiceImpl.completedResponse(
+            transfer, command.sender, command.request.getDescription(), senderNewBalance
+        );
+        return () -> command.result.complete(response);
+    }
+
+    private Runnable complete(Command command, Transfer transfer) {
+        BigDecimal senderNewBalance = null;
+        BigDecimal receiverNewBalance = null;
+        for (WalletSnapshot snapshot : walletRepository.findByIdIn(List.of(command.sender.getId(), command.receiver.getId()))) {
+            if (snapshot.getId().equals(command.sender.getId())) {
+                senderNewBalance = snapshot.getBalance();
+            } else {
+                receiverNewBalance = snapshot.getBalance();
+            }
+        }
+        transferEventProducer.publishTransferCompleted(
+            transfer, command.sender, command.receiver,
+            senderNewBalance, receiverNewBalance, command.correlationId
+        );
+        P2PTransferResponse response = P2PTransferServiceImpl.completedResponse(
+            transfer, command.sender, command.request.getDescription(), senderNewBalance
+        );
+        if (command.step == Step.TRANSFER && command.claim != null) {
+            idempotencyService.record(command.claim, command.txId, response);
+        } else if (command.step == Step.CREDIT && command.recorded) {
+            idempotencyService.complete(command.txId, response);
+        }
+        return () -> {
+            LOG.info("P2P transfer completed successfully: {}", command.txId);
+            command.result.complete(response);
+        };
+    }
+
+    /**
+     * A balance move was rejected: fail the caller, or refund the sender if it was already debited.
+     */
+    private void rejected(Command command, BadRequestAlertException e) {
+        if (command.step == Step.CREDIT) {
+            command.failure = e;
+            command.step = Step.REFUND;
+            partitionOf(command.sender.getId()).enqueue(command);
+        } else {
+            command.result.completeExceptionally(e);
+        }
+    }
+
+    private static P2PTransferResponse processingResponse(Command command) {
+        return P2PTransferResponse.builder()
+            .transactionId(command.txId)
+            .status(TransactionStatus.PROCESSING)
+            .amount(command.amount)
+            .fees(command.fees)
+            .totalDebited(command.totalToDebit)
+            .senderPhone(command.sender.getPhone())
+            .receiverPhone(command.receiver.getPhone())
+            .currency(command.sender.getCurrency())
+            .description(command.request.getDescription())
+            .message("Transfert en cours de traitement")
+            .build();
+    }
+
+    private void fail(Command command, RuntimeException e) {
+        LOG.error("P2P transfer {} failed at step {}: {}", command.txId, command.step, e.getMessage(), e);
+        command.result.completeExceptionally(
+            new BadRequestAlertException("Transfer failed: " + e.getMessage(), "transfer", "TRANSFER_FAILED")
+        );
+    }
+
+    private Transfer newTransfer(Command command) {
+        Transfer transfer = new Transfer();
+        transfer.setTxId(command.txId);
+        transfer.setStatus(TransactionStatus.PENDING);
+        transfer.setAmount(command.amount);
+        transfer.setFees(command.fees);
+        transfer.setSenderPhone(command.sender.getPhone());
+        transfer.setReceiverPhone(command.receiver.getPhone());
+        transfer.setInitiatedAt(Instant.now());
+        transfer.setSender(walletRepository.getReferenceById(command.sender.getId()));
+        transfer.setReceiver(walletRepository.getReferenceById(command.receiver.getId()));
+        return transfer;
+    }
+
+    private enum Step {
+        TRANSFER,
+        DEBIT,
+        CREDIT,
+        REFUND,
+    }
+
+    /**
+     * A transfer moving through the engine. Only touched by one writer thread at a time.
+     */
+    private static final class Command {
+
+        private final String txId;
+        private final WalletIdentity sender;
+        private final WalletIdentity receiver;
+        private final P2PTransferRequest request;
+        private final Money amount;
+        private final Money fees;
+        private final Money totalToDebit;
+        private final String correlationId;
+        private final IdempotencyService.Claim claim;
+        private final CompletableFuture<P2PTransferResponse> result = new CompletableFuture<>();
+        private Step step;
+        private Long transferId;
+        private BadRequestAlertException failure;
+        private boolean recorded;
+
+        private Command(
+                String txId,
+                WalletIdentity sender,
+                WalletIdentity receiver,
+                P2PTransferRequest request,
+                Money amount,
+                Money fees,
+                String correlationId,
+                IdempotencyService.Claim claim) {
+            this.txId = txId;
+            this.sender = sender;
+            this.receiver = receiver;
+            this.request = request;
+            this.amount = amount;
+            this.fees = fees;
+            this.totalToDebit = amount.plus(fees);
+            this.correlationId = correlationId;
+            this.claim = claim;
+        }
+    }
+
+    /**
+     * One partition: a command queue and the writer thread draining it.
+     * <p>
+     * The queue is unbounded so a writer handing a step over to another partition never blocks;
+     * new transfers are refused once {@code queue-capacity} commands are pending.
+     */
+    private final class Partition implements Runnable {
+
+        private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+        private final Thread thread;
+
+        private Partition(int index) {
+            this.thread = new Thread(this, "transfer-engine-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private boolean offer(Command command) {
+            return queue.size() < properties.getQueueCapacity() && queue.offer(command);
+        }
+
+        /**
+         * @return {@code false} if the writer already took the command: it will run it.
+         */
+        private boolean withdraw(Command command) {
+            return queue.remove(command);
+        }
+
+        private void enqueue(Command command) {
+            queue.add(command);
+        }
+
+        @Override
+        public void run() {
+            List<Command> batch = new ArrayList<>(properties.getMaxBatchSize());
+            while (running || !queue.isEmpty()) {
+                try {
+                    Command first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, properties.getMaxBatchSize() - 1);
+                    process(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    LOG.error("Transfer engine partition {} failed on a batch: {}", thread.getName(), e.getMessage(), e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package sn.ondmoney.txe.service.impl;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.stereotype.Component;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.Wallet;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.service.WalletConcurrencyStrategy;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Pessimistic strategy: both wallets are locked with {@code SELECT ... FOR UPDATE} in wallet id order,
+ * checked, then updated. Consistent lock ordering rules out deadlocks between opposite transfers.
+ */
+@Component
+public class PessimisticWalletConcurrencyStrategy implements WalletConcurrencyStrategy {
+
+    private final WalletRepository walletRepository;
+
+    public PessimisticWalletConcurrencyStrategy(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    @Override
+    public Mode getMode() {
+        return Mode.PESSIMISTIC;
+    }
+
+    @Override
+    public void moveFunds(Long senderId, Long receiverId, Money debitAmount, Money creditAmount) {
+        Wallet sender = null;
+        Wallet receiver = null;
+        for (Wallet wallet : walletRepository.findAllByIdForUpdate(List.of(senderId, receiverId))) {
+            if (wallet.getId().equals(senderId)) {
+                sender = wallet;
+            } else {
+                receiver = wallet;
+            }
+        }
+
+        // The entity balance is decimal: the amounts are compared and applied in it
+        BigDecimal debit = debitAmount.toBigDecimal();
+        BigDecimal credit = creditAmount.toBigDecimal();
+        if (sender == null || sender.getStatus() != WalletStatus.ACTIVE || sender.getBalance().compareTo(debit) < 0) {
+            throw new BadRequestAlertException("Insufficient balance", "transfer", "INSUFFICIENT_BALANCE");
+        }
+        if (receiver == null || receiver.getStatus() != WalletStatus.ACTIVE) {
+            throw new BadRequestAlertException("Receiver wallet is not active", "transfer", "RECEIVER_WALLET_INACTIVE");
+        }
+
+        Instant now = Instant.now();
+        sender.setBalance(sender.getBalance().subtract(debit));
+        sender.setVersion(sender.getVersion() + 1);
+        sender.setUpdatedAt(now);
+        receiver.setBalance(receiver.getBalance().add(credit));
+        receiver.setVersion(receiver.getVersion() + 1);
+        receiver.setUpdatedAt(now);
+        walletRepository.flush();
+    }
+}
@@ -0,0 +1,303 @@
+package sn.ondmoney.txe.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.ProcessedEvent;
+import sn.ondmoney.txe.repository.ProcessedEventKey;
+import sn.ondmoney.txe.repository.ProcessedEventPartitionRepository;
+import sn.ondmoney.txe.repository.ProcessedEventRepository;
+import sn.ondmoney.txe.service.ProcessedEventService;
+
+/**
+ * Service Implementation for the deduplication of consumed Kafka events.
+ * <p>
+ * Two in-memory fronts avoid most lookups in the {@code processed_events} table:
+ * <ul>
+ *     <li>an LRU of the ids recently processed here, a hit is a duplicate;</li>
+ *     <li>a {@link RollingBloomFilter} of every id of the retention period, one generation per day,
+ *     a miss is a new event.</li>
+ * </ul>
+ * Only Bloom filter hits not in the LRU are checked in the database. Ids processed by another instance reach the
+ * filter through {@link #synchronize()}, on each partition assignment, in the background so that the consumer does
+ * not miss its poll interval: until the first one has run, every id is checked. A miss of an id the filter does not
+ * know yet is caught when it is recorded: the insert skips an event already in the table.
+ * <p>
+ * The table is partitioned by event day; {@link #maintainPartitions()} creates the coming days and drops the expired
+ * ones.
+ */
+@Service
+public class ProcessedEventServiceImpl implements ProcessedEventService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessedEventServiceImpl.class);
+
+    static final long PARTITION_LOCK_ID = 0x7478655f70655f31L;
+
+    // Covers the gap between the processing time of an event and the commit of its row
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final ProcessedEventRepository processedEventRepository;
+    private final ProcessedEventPartitionRepository partitionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ApplicationProperties.ProcessedEvents properties;
+    private final RollingBloomFilter filter;
+    private final Map<String, Boolean> recent;
+    private final Counter recentHits;
+    private final Counter filterMisses;
+    private final Counter databaseChecks;
+    private final Counter conflicts;
+    private final ExecutorService synchronizer;
+    private final AtomicBoolean synchronizationQueued = new AtomicBoolean();
+
+    private volatile boolean synchronizedOnce;
+    // Only read and written on the synchronizer thread
+    private Instant synchronizedUntil;
+
+    public ProcessedEventServiceImpl(
+            ProcessedEventRepository processedEventRepository,
+            ProcessedEventPartitionRepository partitionRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            ApplicationProperties applicationProperties) {
+        this.processedEventRepository = processedEventRepository;
+        this.partitionRepository = partitionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = applicationProperties.getProcessedEvents();
+        // The retention days, today, and the expired day until its partition is dropped
+        this.filter = new RollingBloomFilter(properties.getRetentionDays() + 2, properties.getExpectedPerDay(), properties.getFalsePositiveRate());
+        int recentCacheSize = properties.getRecentCacheSize();
+        this.recent = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > recentCacheSize;
+                }
+            }
+        );
+        this.recentHits = meterRegistry.counter("txe.processed_events.checks", "result", "recent");
+        this.filterMisses = meterRegistry.counter("txe.processed_events.checks", "result", "new");
+        this.databaseChecks = meterRegistry.counter("txe.processed_events.checks", "result", "database");
+        this.conflicts = meterRegistry.counter("txe.processed_events.conflicts");
+        this.synchronizer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("processed-events-sync-"));
+        this.synchronizedUntil = Instant.now().minus(Duration.ofDays(properties.getRetentionDays() + 1L));
+    }
+
+    @Override
+    public boolean isProcessed(String eventId) {
+        if (recent.get(eventId) != null) {
+            recentHits.increment();
+            return true;
+        }
+        if (synchronizedOnce && !filter.mightContain(eventId)) {
+            filterMisses.increment();
+            return false;
+        }
+        databaseChecks.increment();
+        boolean processed = processedEventRepository.existsByEventId(eventId);
+        if (processed) {
+            recent.put(eventId, Boolean.TRUE);
+        }
+        return processed;
+    }
+
+    @Override
+    public Set<String> findProcessed(Collection<String> eventIds) {
+        Set<String> processed = new HashSet<>();
+        List<String> candidates = new ArrayList<>();
+        for (String eventId : eventIds) {
+            if (recent.get(eventId) != null) {
+                recentHits.increment();
+                processed.add(eventId);
+            } else if (synchronizedOnce && !filter.mightContain(eventId)) {
+                filterMisses.increment();
+            } else {
+                databaseChecks.increment();
+                candidates.add(eventId);
+            }
+        }
+        if (!candidates.isEmpty()) {
+            for (String eventId : processedEventRepository.findProcessedEventIds(candidates)) {
+                recent.put(eventId, Boolean.TRUE);
+                processed.add(eventId);
+            }
+        }
+        return processed;
+    }
+
+    @Override
+    public boolean markProcessed(String eventId, Instant eventTime, String eventType) {
+        return markAllProcessed(Collections.singletonMap(eventId, eventTime), eventType).isEmpty();
+    }
+
+    @Override
+    public Set<String> markAllProcessed(Map<String, Instant> eventTimes, String eventType) {
+        List<ProcessedEvent> processedEvents = new ArrayList<>(eventTimes.size());
+        List<ProcessedEvent> dated = new ArrayList<>(eventTimes.size());
+        List<ProcessedEvent> undated = new ArrayList<>();
+        eventTimes.forEach((eventId, eventTime) -> {
+            ProcessedEvent processedEvent = new ProcessedEvent(eventId, eventType, eventTime);
+            processedEvents.add(processedEvent);
+            (eventTime != null ? dated : undated).add(processedEvent);
+        });
+        // Without an event time, the day is the processing day: a redelivery can fall on another day
+        Set<String> inserted = new HashSet<>();
+        if (!dated.isEmpty()) {
+            inserted.addAll(processedEventRepository.insertAllIfAbsent(dated));
+        }
+        if (!undated.isEmpty()) {
+            inserted.addAll(processedEventRepository.insertAllIfAbsentOnAnyDay(undated));
+        }
+
+        List<ProcessedEvent> insertedEvents = new ArrayList<>(inserted.size());
+        Set<String> recorded = new HashSet<>();
+        for (ProcessedEvent processedEvent : processedEvents) {
+            if (inserted.contains(processedEvent.getEventId())) {
+                insertedEvents.add(processedEvent);
+            } else {
+                // Committed by another transaction, which the insert waited for
+                conflicts.increment();
+                recorded.add(processedEvent.getEventId());
+                filter.put(processedEvent.getEventId(), window(processedEvent));
+                recent.put(processedEvent.getEventId(), Boolean.TRUE);
+            }
+        }
+        remember(insertedEvents);
+        return recorded;
+    }
+
+    @Override
+    public void synchronize() {
+        // A queued run covers this call: it reads up to the time it starts
+        if (!synchronizationQueued.getAndSet(true)) {
+            synchronizer.execute(this::synchronizeNow);
+        }
+    }
+
+    /**
+     * Load the events processed since the previous run into the Bloom filter, on the synchronizer thread.
+     */
+    void synchronizeNow() {
+        synchronizationQueued.set(false);
+        Instant since = synchronizedUntil.minus(SYNC_OVERLAP);
+        Instant now = Instant.now();
+        long[] loaded = new long[1];
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<ProcessedEventKey> keys = processedEventRepository.streamProcessedSince(since)) {
+                    keys.forEach(key -> {
+                        filter.put(key.getEventId(), window(key.getEventDay(), now));
+                        loaded[0]++;
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            // The ids loaded so far are kept, the next run starts over from the same time
+            LOG.warn("Could not load the processed events since {} into the Bloom filter: {}", since, e.getMessage());
+            return;
+        }
+        synchronizedUntil = now;
+        synchronizedOnce = true;
+        LOG.debug("Loaded {} processed events since {} into the Bloom filter", loaded[0], since);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronizer.shutdownNow();
+    }
+
+    /**
+     * Create the partitions of the coming days and drop the ones past the retention period.
+     * <p>
+     * The partition of the current day is never created: its rows already in the default partition stay there
+     * until they expire. Rows of a coming day, dated ahead, are moved into its partition when it is created.
+     */
+    @Scheduled(fixedDelayString = "${application.processed-events.maintenance-interval-ms:3600000}")
+    @Transactional
+    public void maintainPartitions() {
+        if (!processedEventRepository.tryAdvisoryXactLock(PARTITION_LOCK_ID)) {
+            LOG.debug("Processed events partition lock held by another instance, skipping");
+            return;
+        }
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate oldestKept = today.minusDays(properties.getRetentionDays());
+        List<LocalDate> days = partitionRepository.findPartitionDays();
+        for (LocalDate day : days) {
+            if (day.isBefore(oldestKept)) {
+                partitionRepository.dropPartition(day);
+                LOG.info("Dropped processed events partition of {}", day);
+            }
+        }
+        for (int i = 1; i <= properties.getPartitionsAhead(); i++) {
+            LocalDate day = today.plusDays(i);
+            if (!days.contains(day)) {
+                partitionRepository.createPartition(day);
+                LOG.info("Created processed events partition of {}", day);
+            }
+        }
+        int purged = partitionRepository.deleteFromDefaultPartitionBefore(oldestKept.atStartOfDay(ZoneOffset.UTC).toInstant());
+        LOG.debug("Purged {} expired processed events of the default partition", purged);
+    }
+
+    /**
+     * Add processed events to the Bloom filter now, and to the LRU once committed:
+     * a rolled back event must be processed again.
+     */
+    private void remember(List<ProcessedEvent> processedEvents) {
+        for (ProcessedEvent processedEvent : processedEvents) {
+            filter.put(processedEvent.getEventId(), window(processedEvent));
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            processedEvents.forEach(processedEvent -> recent.put(processedEvent.getEventId(), Boolean.TRUE));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    processedEvents.forEach(processedEvent -> recent.put(processedEvent.getEventId(), Boolean.TRUE));
+                }
+            }
+        );
+    }
+
+    private static long window(ProcessedEvent processedEvent) {
+        return window(processedEvent.getEventDay(), processedEvent.getProcessedAt());
+    }
+
+    /**
+     * The filter generation of an event: its day, or the processing day if ahead of it, so that an event dated in
+     * the future does not clear the generation of a current day.
+     */
+    private static long window(Instant eventDay, Instant processedAt) {
+        Instant day = eventDay.isAfter(processedAt) ? processedAt : eventDay;
+        return Math.floorDiv(day.getEpochSecond(), 86_400L);
+    }
+}
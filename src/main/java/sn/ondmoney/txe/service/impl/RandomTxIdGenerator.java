@@ -0,0 +1,22 @@
+package sn.ondmoney.txe.service.impl;
+
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import sn.ondmoney.txe.service.TxIdGenerator;
+
+/**
+ * {@link TxIdGenerator} drawing 48 random bits from a random UUID.
+ * <p>
+ * Each call goes through {@link java.security.SecureRandom}, the IDs land anywhere in the {@code tx_id} index,
+ * and collisions become likely after a few million transfers. Kept for comparison only.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.tx-id", name = "generator", havingValue = "random")
+public class RandomTxIdGenerator implements TxIdGenerator {
+
+    @Override
+    public String nextTxId() {
+        return PREFIX + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
+    }
+}
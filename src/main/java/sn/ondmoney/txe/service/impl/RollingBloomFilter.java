@@ -0,0 +1,145 @@
+package sn.ondmoney.txe.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter split into generations, one per time window, so that old entries can be forgotten.
+ * <p>
+ * An id is added to the generation of its window, and a generation is cleared when its slot is reused for a newer
+ * window. {@link #mightContain} checks every generation: {@code false} means the id was not added in the windows
+ * still held, {@code true} may be a false positive. Thread-safe; adds and lookups do not lock.
+ */
+final class RollingBloomFilter {
+
+    private final Generation[] generations;
+    private final int bits;
+    private final int hashes;
+
+    /**
+     * @param generations the number of windows held
+     * @param expectedInsertions the expected number of ids added per window
+     * @param falsePositiveRate the target false positive rate of one window at its expected size
+     */
+    RollingBloomFilter(int generations, long expectedInsertions, double falsePositiveRate) {
+        if (generations < 1 || expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing");
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        // Round up to whole longs
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, (optimalBits + 63) & ~63L);
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        this.generations = new Generation[generations];
+        for (int i = 0; i < generations; i++) {
+            this.generations[i] = new Generation(bits / 64);
+        }
+    }
+
+    /**
+     * Add an id to the generation of a window. Ignored if the window is older than the ones held.
+     */
+    void put(String id, long window) {
+        Generation generation = generationOf(window);
+        if (generation == null) {
+            return;
+        }
+        long hash1 = hash(id);
+        long hash2 = Long.rotateLeft(hash1, 32) * 0x9E3779B97F4A7C15L | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) Long.remainderUnsigned(hash1 + i * hash2, bits);
+            generation.set(bit);
+        }
+    }
+
+    boolean mightContain(String id) {
+        long hash1 = hash(id);
+        long hash2 = Long.rotateLeft(hash1, 32) * 0x9E3779B97F4A7C15L | 1;
+        for (Generation generation : generations) {
+            if (generation.contains(hash1, hash2, hashes, bits)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getBitsPerGeneration() {
+        return bits;
+    }
+
+    int getHashes() {
+        return hashes;
+    }
+
+    private Generation generationOf(long window) {
+        Generation generation = generations[(int) Math.floorMod(window, (long) generations.length)];
+        long current = generation.window;
+        if (current == window) {
+            return generation;
+        }
+        if (current > window) {
+            // The slot already holds a newer window: this one has expired
+            return null;
+        }
+        synchronized (generation) {
+            if (generation.window < window) {
+                generation.clear();
+                generation.window = window;
+            }
+            return generation.window == window ? generation : null;
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes, with a final avalanche so that close ids spread over the whole range.
+     */
+    private static long hash(String id) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Generation {
+
+        private final AtomicLongArray words;
+
+        private volatile long window = Long.MIN_VALUE;
+
+        private Generation(int words) {
+            this.words = new AtomicLongArray(words);
+        }
+
+        private void set(int bit) {
+            long mask = 1L << bit;
+            int index = bit >>> 6;
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+
+        private boolean contains(long hash1, long hash2, int hashes, int bits) {
+            if (window == Long.MIN_VALUE) {
+                return false;
+            }
+            for (int i = 0; i < hashes; i++) {
+                int bit = (int) Long.remainderUnsigned(hash1 + i * hash2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void clear() {
+            for (int i = 0; i < words.length(); i++) {
+                words.set(i, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package sn.ondmoney.txe.service.impl;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.service.TxIdGenerator;
+
+/**
+ * Snowflake-style {@link TxIdGenerator}.
+ * <p>
+ * An ID packs 41 bits of milliseconds since 2026-01-01, a 10-bit node and a 12-bit sequence, written as 13 Crockford
+ * base32 characters. The width is fixed, so string order is time order and new rows go to the right end of the
+ * {@code tx_id} index. The timestamp and sequence share one {@link AtomicLong}: a call is one CAS and one small
+ * string. A clock going backwards, or more than 4096 IDs in a millisecond, keeps counting from the last ID.
+ * <p>
+ * The node comes from {@code application.tx-id.node-id}, or is claimed in a Hazelcast map at startup. A slot held by
+ * a member that left the cluster is taken over.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.tx-id", name = "generator", havingValue = "snowflake", matchIfMissing = true)
+public class SnowflakeTxIdGenerator implements TxIdGenerator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnowflakeTxIdGenerator.class);
+
+    static final String NODE_MAP = "tx-id-nodes";
+
+    static final long EPOCH = 1767225600000L; // 2026-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODES = 1 << NODE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    // (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last ID
+    private final AtomicLong last = new AtomicLong();
+
+    @Autowired
+    public SnowflakeTxIdGenerator(ApplicationProperties applicationProperties, HazelcastInstance hazelcastInstance) {
+        this(resolveNode(applicationProperties.getTxId().getNodeId(), hazelcastInstance), System::currentTimeMillis);
+    }
+
+    SnowflakeTxIdGenerator(int node, LongSupplier clock) {
+        if (node < 0 || node >= MAX_NODES) {
+            throw new IllegalArgumentException("Transaction ID node must be between 0 and " + (MAX_NODES - 1) + ": " + node);
+        }
+        this.nodeBits = (long) node << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextTxId() {
+        return encode(nextId());
+    }
+
+    long nextId() {
+        long now = (clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            next = Math.max(previous + 1, now);
+        } while (!last.compareAndSet(previous, next));
+        return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private static int resolveNode(int configuredNode, HazelcastInstance hazelcastInstance) {
+        if (configuredNode >= 0) {
+            LOG.info("Using configured transaction ID node {}", configuredNode);
+            return configuredNode;
+        }
+        IMap<Integer, String> nodes = hazelcastInstance.getMap(NODE_MAP);
+        String self = hazelcastInstance.getCluster().getLocalMember().getUuid().toString();
+        Set<String> members = hazelcastInstance
+            .getCluster()
+            .getMembers()
+            .stream()
+            .map(member -> member.getUuid().toString())
+            .collect(Collectors.toSet());
+        for (int node = 0; node < MAX_NODES; node++) {
+            String owner = nodes.putIfAbsent(node, self);
+            if (owner == null || owner.equals(self) || (!members.contains(owner) && nodes.replace(node, owner, self))) {
+                LOG.info("Claimed transaction ID node {} for member {}", node, self);
+                return node;
+            }
+        }
+        throw new IllegalStateException("No free transaction ID node left among " + MAX_NODES);
+    }
+}
@@ -1,14 +1,18 @@
 package sn.ondmoney.txe.service.impl;
 
+import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sn.ondmoney.txe.domain.Transaction;
 import sn.ondmoney.txe.repository.TransactionRepository;
+import sn.ondmoney.txe.service.KeysetCursor;
 import sn.ondmoney.txe.service.TransactionService;
 import sn.ondmoney.txe.service.dto.TransactionDTO;
 import sn.ondmoney.txe.service.mapper.TransactionMapper;
@@ -69,6 +73,24 @@ public class TransactionServiceImpl implements TransactionService {
         return transactionRepository.findAll(pageable).map(transactionMapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<TransactionDTO> findAll(KeysetCursor after, int size) {
+        LOG.debug("Request to get Transactions after {}", after);
+        // One more row tells whether a next page exists
+        Limit limit = Limit.of(size + 1);
+        List<Transaction> transactions = after == null
+            ? transactionRepository.findNewest(limit)
+            : transactionRepository.findNewestBefore(after.position(), after.id(), limit);
+        return KeysetCursor.slice(transactions.stream().map(transactionMapper::toDto).toList(), size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return transactionRepository.count();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<TransactionDTO> findOne(Long id) {
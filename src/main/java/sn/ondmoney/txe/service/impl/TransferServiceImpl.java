@@ -1,14 +1,18 @@
 package sn.ondmoney.txe.service.impl;
 
+import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sn.ondmoney.txe.domain.Transfer;
 import sn.ondmoney.txe.repository.TransferRepository;
+import sn.ondmoney.txe.service.KeysetCursor;
 import sn.ondmoney.txe.service.TransferService;
 import sn.ondmoney.txe.service.dto.TransferDTO;
 import sn.ondmoney.txe.service.mapper.TransferMapper;
@@ -69,6 +73,24 @@ public class TransferServiceImpl implements TransferService {
         return transferRepository.findAll(pageable).map(transferMapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<TransferDTO> findAll(KeysetCursor after, int size) {
+        LOG.debug("Request to get Transfers after {}", after);
+        // One more row tells whether a next page exists
+        Limit limit = Limit.of(size + 1);
+        List<Transfer> transfers = after == null
+            ? transferRepository.findNewest(limit)
+            : transferRepository.findNewestBefore(after.position(), after.id(), limit);
+        return KeysetCursor.slice(transfers.stream().map(transferMapper::toDto).toList(), size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return transferRepository.count();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<TransferDTO> findOne(Long id) {
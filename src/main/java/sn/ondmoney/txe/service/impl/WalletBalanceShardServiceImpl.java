@@ -0,0 +1,166 @@
+package sn.ondmoney.txe.service.impl;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.Wallet;
+import sn.ondmoney.txe.domain.WalletBalanceShard;
+import sn.ondmoney.txe.repository.WalletBalanceShardRepository;
+import sn.ondmoney.txe.repository.WalletIdentity;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.service.WalletBalanceShardService;
+import sn.ondmoney.txe.service.WalletLookupService;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Service Implementation for sharded wallet balances.
+ * <p>
+ * Wallet rows are always written before shard rows, in wallet id order, so a transfer never waits on a
+ * wallet row while holding a shard lock. The sweep locks the sender row after its failed conditional debit;
+ * the rare deadlock this allows is a {@link org.springframework.dao.ConcurrencyFailureException} and is
+ * retried with the whole transfer.
+ * <p>
+ * Balance moves join the caller's transaction without a transactional proxy of their own, so a rejected
+ * debit or credit never marks that transaction rollback-only.
+ */
+@Service
+public class WalletBalanceShardServiceImpl implements WalletBalanceShardService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WalletBalanceShardServiceImpl.class);
+
+    private final WalletRepository walletRepository;
+    private final WalletBalanceShardRepository walletBalanceShardRepository;
+    private final WalletLookupService walletLookupService;
+
+    public WalletBalanceShardServiceImpl(
+            WalletRepository walletRepository,
+            WalletBalanceShardRepository walletBalanceShardRepository,
+            WalletLookupService walletLookupService) {
+        this.walletRepository = walletRepository;
+        this.walletBalanceShardRepository = walletBalanceShardRepository;
+        this.walletLookupService = walletLookupService;
+    }
+
+    @Override
+    public void moveFunds(WalletIdentity sender, WalletIdentity receiver, Money debitAmount, Money creditAmount) {
+        Instant now = Instant.now();
+        boolean senderSharded = sender.getBalanceShards() > 0;
+        boolean receiverSharded = receiver.getBalanceShards() > 0;
+
+        // Fast path on the wallet rows first, in id order
+        boolean debited;
+        if (receiverSharded || sender.getId() < receiver.getId()) {
+            debited = walletRepository.debit(sender.getId(), debitAmount, now) == 1;
+            if (!receiverSharded) {
+                creditWallet(receiver.getId(), creditAmount, now);
+            }
+        } else {
+            creditWallet(receiver.getId(), creditAmount, now);
+            debited = walletRepository.debit(sender.getId(), debitAmount, now) == 1;
+        }
+
+        if (!debited) {
+            if (!senderSharded) {
+                throw new BadRequestAlertException("Insufficient balance", "transfer", "INSUFFICIENT_BALANCE");
+            }
+            sweepAndDebit(sender.getId(), debitAmount, now);
+        }
+
+        if (receiverSharded) {
+            creditShard(receiver, creditAmount, now);
+        }
+    }
+
+    @Override
+    public void debit(WalletIdentity wallet, Money amount) {
+        Instant now = Instant.now();
+        if (walletRepository.debit(wallet.getId(), amount, now) == 0) {
+            if (wallet.getBalanceShards() == 0) {
+                throw new BadRequestAlertException("Insufficient balance", "transfer", "INSUFFICIENT_BALANCE");
+            }
+            sweepAndDebit(wallet.getId(), amount, now);
+        }
+    }
+
+    @Override
+    public void credit(WalletIdentity wallet, Money amount) {
+        Instant now = Instant.now();
+        if (wallet.getBalanceShards() > 0) {
+            creditShard(wallet, amount, now);
+        } else {
+            creditWallet(wallet.getId(), amount, now);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BigDecimal getShardedBalance(Long walletId) {
+        return walletBalanceShardRepository.sumBalanceByWalletId(walletId);
+    }
+
+    @Override
+    @Transactional
+    public boolean setBalanceShards(Long walletId, int shards) {
+        LOG.debug("Request to set {} balance shards on Wallet : {}", shards, walletId);
+        List<Wallet> wallets = walletRepository.findAllByIdForUpdate(List.of(walletId));
+        if (wallets.isEmpty()) {
+            return false;
+        }
+        Wallet wallet = wallets.get(0);
+
+        List<WalletBalanceShard> current = walletBalanceShardRepository.findAllByWalletIdForUpdate(walletId);
+        BigDecimal folded = current.stream().map(WalletBalanceShard::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        walletBalanceShardRepository.deleteAllInBatch(current);
+        wallet.setBalance(wallet.getBalance().add(folded));
+        wallet.setVersion(wallet.getVersion() + 1);
+        wallet.setUpdatedAt(Instant.now());
+
+        List<WalletBalanceShard> created = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            created.add(new WalletBalanceShard(walletId, i));
+        }
+        walletBalanceShardRepository.saveAll(created);
+        walletRepository.flush();
+        // Transfers route on the cached shard count
+        walletLookupService.evict(wallet.getPhone());
+        return true;
+    }
+
+    /**
+     * Move every shard balance into the wallet row, then debit it. Shards are locked in shard order.
+     * <p>
+     * The move is computed by the database: the caller's persistence context may hold a wallet or shard loaded
+     * before other balance moves of its transaction, and writing it back would undo them.
+     */
+    private void sweepAndDebit(Long walletId, Money amount, Instant now) {
+        // Locked first, so that no shard credit lands between the sum and the reset
+        List<Wallet> wallets = walletRepository.findAllByIdForUpdate(List.of(walletId));
+        List<WalletBalanceShard> shards = walletBalanceShardRepository.findAllByWalletIdForUpdate(walletId);
+        if (wallets.isEmpty() || walletRepository.sweepAndDebit(walletId, amount, now) == 0) {
+            throw new BadRequestAlertException("Insufficient balance", "transfer", "INSUFFICIENT_BALANCE");
+        }
+        walletBalanceShardRepository.empty(walletId);
+        LOG.debug("Swept {} balance shards into wallet {}", shards.size(), walletId);
+    }
+
+    private void creditShard(WalletIdentity wallet, Money amount, Instant now) {
+        int shard = ThreadLocalRandom.current().nextInt(wallet.getBalanceShards().intValue());
+        if (walletBalanceShardRepository.credit(wallet.getId(), shard, amount) == 0) {
+            // Shards changed since the snapshot, or the wallet is no longer active
+            creditWallet(wallet.getId(), amount, now);
+        }
+    }
+
+    private void creditWallet(Long walletId, Money amount, Instant now) {
+        if (walletRepository.credit(walletId, amount, now) == 0) {
+            throw new BadRequestAlertException("Receiver wallet is not active", "transfer", "RECEIVER_WALLET_INACTIVE");
+        }
+    }
+}
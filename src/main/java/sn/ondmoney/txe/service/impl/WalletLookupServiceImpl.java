@@ -0,0 +1,160 @@
+package sn.ondmoney.txe.service.impl;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+import sn.ondmoney.txe.repository.WalletIdentity;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.repository.WalletSnapshot;
+import sn.ondmoney.txe.service.WalletLookupService;
+
+/**
+ * Service Implementation for resolving wallets by phone number, through the {@value #CACHE} Hazelcast map.
+ * <p>
+ * Only found wallets are cached: a number may get a wallet at any time. Eviction happens twice, when the wallet
+ * changes and after the commit, so that a lookup reading the old row meanwhile cannot leave it cached; the map TTL
+ * bounds whatever would still slip through.
+ * <p>
+ * Metrics: {@code txe.wallet.phone_lookups} counts the phone numbers looked up, with a {@code result} tag:
+ * {@code hit} when cached, {@code miss} when read from the database.
+ */
+@Service
+public class WalletLookupServiceImpl implements WalletLookupService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WalletLookupServiceImpl.class);
+
+    private final WalletRepository walletRepository;
+    private final IMap<String, CachedWallet> walletsByPhone;
+    private final Counter hits;
+    private final Counter misses;
+
+    public WalletLookupServiceImpl(WalletRepository walletRepository, HazelcastInstance hazelcastInstance, MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.walletsByPhone = hazelcastInstance.getMap(CACHE);
+        this.hits = meterRegistry.counter("txe.wallet.phone_lookups", "result", "hit");
+        this.misses = meterRegistry.counter("txe.wallet.phone_lookups", "result", "miss");
+    }
+
+    @Override
+    public Map<String, WalletIdentity> findByPhones(Collection<String> phones) {
+        Map<String, WalletIdentity> wallets = new HashMap<>(walletsByPhone.getAll(new HashSet<>(phones)));
+        hits.increment(wallets.size());
+        List<String> missing = new ArrayList<>(phones.size() - wallets.size());
+        for (String phone : phones) {
+            if (!wallets.containsKey(phone)) {
+                missing.add(phone);
+            }
+        }
+        if (missing.isEmpty()) {
+            return wallets;
+        }
+
+        misses.increment(missing.size());
+        Map<String, CachedWallet> found = new HashMap<>(missing.size() * 2);
+        for (WalletSnapshot snapshot : walletRepository.findByPhoneIn(missing)) {
+            found.put(snapshot.getPhone(), CachedWallet.of(snapshot));
+        }
+        if (!found.isEmpty()) {
+            walletsByPhone.setAll(found);
+            wallets.putAll(found);
+        }
+        return wallets;
+    }
+
+    @Override
+    public void evict(String... phones) {
+        List<String> keys = new ArrayList<>(phones.length);
+        for (String phone : phones) {
+            if (phone != null) {
+                keys.add(phone);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        LOG.debug("Evicting the cached wallets of {} phone numbers", keys.size());
+        nowAndAfterCommit(() -> keys.forEach(walletsByPhone::delete));
+    }
+
+    @Override
+    public void evictAll() {
+        LOG.debug("Evicting every cached wallet");
+        nowAndAfterCommit(walletsByPhone::clear);
+    }
+
+    private static void nowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        eviction.run();
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * A cached wallet identity. Serialized between the cluster members.
+     */
+    record CachedWallet(Long id, String userId, String phone, String currency, WalletStatus status, Long balanceShards)
+        implements WalletIdentity, Serializable {
+        static CachedWallet of(WalletIdentity wallet) {
+            return new CachedWallet(
+                wallet.getId(),
+                wallet.getUserId(),
+                wallet.getPhone(),
+                wallet.getCurrency(),
+                wallet.getStatus(),
+                Objects.requireNonNullElse(wallet.getBalanceShards(), 0L)
+            );
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getUserId() {
+            return userId;
+        }
+
+        @Override
+        public String getPhone() {
+            return phone;
+        }
+
+        @Override
+        public String getCurrency() {
+            return currency;
+        }
+
+        @Override
+        public WalletStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public Long getBalanceShards() {
+            return balanceShards;
+        }
+    }
+}
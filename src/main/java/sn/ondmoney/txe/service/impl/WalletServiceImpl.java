@@ -1,20 +1,27 @@
 package sn.ondmoney.txe.service.impl;
 
+import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sn.ondmoney.txe.domain.Wallet;
 import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.service.KeysetCursor;
+import sn.ondmoney.txe.service.WalletLookupService;
 import sn.ondmoney.txe.service.WalletService;
 import sn.ondmoney.txe.service.dto.WalletDTO;
 import sn.ondmoney.txe.service.mapper.WalletMapper;
 
 /**
  * Service Implementation for managing {@link sn.ondmoney.txe.domain.Wallet}.
+ * <p>
+ * Every change evicts the old and new phone numbers of the wallet from the {@link WalletLookupService} cache.
  */
 @Service
 @Transactional
@@ -26,9 +33,12 @@ public class WalletServiceImpl implements WalletService {
 
     private final WalletMapper walletMapper;
 
-    public WalletServiceImpl(WalletRepository walletRepository, WalletMapper walletMapper) {
+    private final WalletLookupService walletLookupService;
+
+    public WalletServiceImpl(WalletRepository walletRepository, WalletMapper walletMapper, WalletLookupService walletLookupService) {
         this.walletRepository = walletRepository;
         this.walletMapper = walletMapper;
+        this.walletLookupService = walletLookupService;
     }
 
     @Override
@@ -36,14 +46,17 @@ public class WalletServiceImpl implements WalletService {
         LOG.debug("Request to save Wallet : {}", walletDTO);
         Wallet wallet = walletMapper.toEntity(walletDTO);
         wallet = walletRepository.save(wallet);
+        walletLookupService.evict(wallet.getPhone());
         return walletMapper.toDto(wallet);
     }
 
     @Override
     public WalletDTO update(WalletDTO walletDTO) {
         LOG.debug("Request to update Wallet : {}", walletDTO);
+        String previousPhone = walletRepository.findById(walletDTO.getId()).map(Wallet::getPhone).orElse(null);
         Wallet wallet = walletMapper.toEntity(walletDTO);
         wallet = walletRepository.save(wallet);
+        walletLookupService.evict(previousPhone, wallet.getPhone());
         return walletMapper.toDto(wallet);
     }
 
@@ -54,7 +67,9 @@ public class WalletServiceImpl implements WalletService {
         return walletRepository
             .findById(walletDTO.getId())
             .map(existingWallet -> {
+                String previousPhone = existingWallet.getPhone();
                 walletMapper.partialUpdate(existingWallet, walletDTO);
+                walletLookupService.evict(previousPhone, existingWallet.getPhone());
 
                 return existingWallet;
             })
@@ -69,6 +84,24 @@ public class WalletServiceImpl implements WalletService {
         return walletRepository.findAll(pageable).map(walletMapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<WalletDTO> findAll(KeysetCursor after, int size) {
+        LOG.debug("Request to get Wallets after {}", after);
+        // One more row tells whether a next page exists
+        Limit limit = Limit.of(size + 1);
+        List<Wallet> wallets = after == null
+            ? walletRepository.findNewest(limit)
+            : walletRepository.findNewestBefore(after.position(), after.id(), limit);
+        return KeysetCursor.slice(wallets.stream().map(walletMapper::toDto).toList(), size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return walletRepository.count();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<WalletDTO> findOne(Long id) {
@@ -79,6 +112,7 @@ public class WalletServiceImpl implements WalletService {
     @Override
     public void delete(Long id) {
         LOG.debug("Request to delete Wallet : {}", id);
+        walletRepository.findById(id).ifPresent(wallet -> walletLookupService.evict(wallet.getPhone()));
         walletRepository.deleteById(id);
     }
 }
@@ -1,10 +1,13 @@
 package sn.ondmoney.txe.service.mapper;
 
+import java.math.BigDecimal;
 import org.mapstruct.*;
+import sn.ondmoney.txe.domain.Money;
 import sn.ondmoney.txe.domain.Transfer;
 import sn.ondmoney.txe.domain.Wallet;
 import sn.ondmoney.txe.service.dto.TransferDTO;
 import sn.ondmoney.txe.service.dto.WalletDTO;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
 
 /**
  * Mapper for the entity {@link Transfer} and its DTO {@link TransferDTO}.
@@ -32,4 +35,19 @@ public interface TransferMapper extends EntityMapper<TransferDTO, Transfer> {
     @BeanMapping(ignoreByDefault = true)
     @Mapping(target = "id", source = "id")
     WalletDTO toDtoWalletId(Wallet wallet);
+
+    default BigDecimal toBigDecimal(Money money) {
+        return money != null ? money.toBigDecimal() : null;
+    }
+
+    default Money toMoney(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        try {
+            return Money.of(amount, Money.XOF);
+        } catch (ArithmeticException e) {
+            throw new BadRequestAlertException("Amount must be a whole number of " + Money.XOF, "transfer", "INVALID_AMOUNT");
+        }
+    }
 }
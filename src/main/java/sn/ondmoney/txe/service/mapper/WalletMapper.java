@@ -15,10 +15,6 @@ public interface WalletMapper extends EntityMapper<WalletDTO, Wallet> {
     @Mapping(target = "keycloakId", ignore = true)
     @Mapping(target = "currency", ignore = true)
     @Mapping(target = "createdDate", ignore = true)
-    @Mapping(target = "debits", ignore = true)
-    @Mapping(target = "credits", ignore = true)
-    @Mapping(target = "transfersSents", ignore = true)
-    @Mapping(target = "transfersReceiveds", ignore = true)
     Wallet toEntity(WalletDTO dto);
 
     @Override
@@ -26,9 +22,5 @@ public interface WalletMapper extends EntityMapper<WalletDTO, Wallet> {
     @Mapping(target = "keycloakId", ignore = true)
     @Mapping(target = "currency", ignore = true)
     @Mapping(target = "createdDate", ignore = true)
-    @Mapping(target = "debits", ignore = true)
-    @Mapping(target = "credits", ignore = true)
-    @Mapping(target = "transfersSents", ignore = true)
-    @Mapping(target = "transfersReceiveds", ignore = true)
     void partialUpdate(@MappingTarget Wallet entity, WalletDTO dto);
 }
@@ -0,0 +1,66 @@
+package sn.ondmoney.txe.web.rest;
+
+import java.util.function.Function;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+import sn.ondmoney.txe.service.KeysetCursor;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Keyset pagination of the list endpoints, requested with an {@code after} parameter: empty for the first page, then
+ * the token of the {@code next} link of the previous page.
+ * <p>
+ * Pages are newest first and never counted, unless {@code count=true} asks for an {@code X-Total-Count} header.
+ */
+final class KeysetPaginationUtil {
+
+    static final String AFTER = "after";
+
+    static final int MAX_SIZE = 2000;
+
+    private static final String HEADER_X_TOTAL_COUNT = "X-Total-Count";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * @return the cursor of the {@code after} parameter, {@code null} for the first page.
+     */
+    static KeysetCursor cursor(String after, int size, String entityName) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new BadRequestAlertException("Page size must be between 1 and " + MAX_SIZE, entityName, "invalidpagesize");
+        }
+        try {
+            return KeysetCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", entityName, "invalidcursor");
+        }
+    }
+
+    /**
+     * @param position the cursor of a row of the page
+     * @param total the number of rows, {@code null} if not asked for
+     * @return the {@code Link} header to the next page, if any, and the {@code X-Total-Count} header, if asked for.
+     */
+    static <T> HttpHeaders generateKeysetPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        Slice<T> page,
+        Function<T, KeysetCursor> position,
+        Long total
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        if (total != null) {
+            headers.add(HEADER_X_TOTAL_COUNT, Long.toString(total));
+        }
+        if (page.hasNext()) {
+            String next = uriBuilder
+                .replaceQueryParam(AFTER, position.apply(page.getContent().get(page.getNumberOfElements() - 1)).encode())
+                .replaceQueryParam("size", page.getSize())
+                // Counted once, on the first page
+                .replaceQueryParam("count")
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
@@ -12,11 +12,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import sn.ondmoney.txe.repository.TransactionRepository;
+import sn.ondmoney.txe.service.KeysetCursor;
 import sn.ondmoney.txe.service.TransactionService;
 import sn.ondmoney.txe.service.dto.TransactionDTO;
 import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
@@ -149,6 +151,32 @@ public class TransactionResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /transactions?after=} : get a keyset page of the transactions, newest first.
+     *
+     * @param after the token of the {@code next} link of the previous page, empty for the first page.
+     * @param size the page size.
+     * @param count whether to count all the transactions, in an {@code X-Total-Count} header.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of transactions in body, or with status {@code 400 (Bad Request)} if the cursor or the size is invalid.
+     */
+    @GetMapping(value = "", params = KeysetPaginationUtil.AFTER)
+    public ResponseEntity<List<TransactionDTO>> getTransactionsAfter(
+        @RequestParam(KeysetPaginationUtil.AFTER) String after,
+        @RequestParam(name = "size", defaultValue = "20") int size,
+        @RequestParam(name = "count", defaultValue = "false") boolean count
+    ) {
+        LOG.debug("REST request to get a keyset page of Transactions");
+        KeysetCursor cursor = KeysetPaginationUtil.cursor(after, size, ENTITY_NAME);
+        Slice<TransactionDTO> page = transactionService.findAll(cursor, size);
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            page,
+            transaction -> new KeysetCursor(transaction.getInitiatedAt(), transaction.getId()),
+            count ? transactionService.count() : null
+        );
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
     /**
      * {@code GET  /transactions/:id} : get the "id" transaction.
      *
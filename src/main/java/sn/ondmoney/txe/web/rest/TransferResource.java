@@ -12,11 +12,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import sn.ondmoney.txe.repository.TransferRepository;
+import sn.ondmoney.txe.service.KeysetCursor;
 import sn.ondmoney.txe.service.TransferService;
 import sn.ondmoney.txe.service.dto.TransferDTO;
 import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
@@ -149,6 +151,32 @@ public class TransferResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /transfers?after=} : get a keyset page of the transfers, newest first.
+     *
+     * @param after the token of the {@code next} link of the previous page, empty for the first page.
+     * @param size the page size.
+     * @param count whether to count all the transfers, in an {@code X-Total-Count} header.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of transfers in body, or with status {@code 400 (Bad Request)} if the cursor or the size is invalid.
+     */
+    @GetMapping(value = "", params = KeysetPaginationUtil.AFTER)
+    public ResponseEntity<List<TransferDTO>> getTransfersAfter(
+        @RequestParam(KeysetPaginationUtil.AFTER) String after,
+        @RequestParam(name = "size", defaultValue = "20") int size,
+        @RequestParam(name = "count", defaultValue = "false") boolean count
+    ) {
+        LOG.debug("REST request to get a keyset page of Transfers");
+        KeysetCursor cursor = KeysetPaginationUtil.cursor(after, size, ENTITY_NAME);
+        Slice<TransferDTO> page = transferService.findAll(cursor, size);
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            page,
+            transfer -> new KeysetCursor(transfer.getInitiatedAt(), transfer.getId()),
+            count ? transferService.count() : null
+        );
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
     /**
      * {@code GET  /transfers/:id} : get the "id" transfer.
      *
@@ -12,11 +12,16 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.security.AuthoritiesConstants;
+import sn.ondmoney.txe.service.KeysetCursor;
+import sn.ondmoney.txe.service.WalletBalanceShardService;
 import sn.ondmoney.txe.service.WalletService;
 import sn.ondmoney.txe.service.dto.WalletDTO;
 import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
@@ -42,9 +47,16 @@ public class WalletResource {
 
     private final WalletRepository walletRepository;
 
-    public WalletResource(WalletService walletService, WalletRepository walletRepository) {
+    private final WalletBalanceShardService walletBalanceShardService;
+
+    public WalletResource(
+        WalletService walletService,
+        WalletRepository walletRepository,
+        WalletBalanceShardService walletBalanceShardService
+    ) {
         this.walletService = walletService;
         this.walletRepository = walletRepository;
+        this.walletBalanceShardService = walletBalanceShardService;
     }
 
     /**
@@ -135,6 +147,32 @@ public class WalletResource {
         );
     }
 
+    /**
+     * {@code PUT  /wallets/:id/balance-shards} : Shard the balance of a hot wallet (merchant, cash-in agent).
+     * <p>
+     * Credits then spread over {@code count} sub-balance rows instead of serialising on the wallet row.
+     * The {@code balance} of the wallet entity only holds the unsharded part; the P2P balance endpoint returns the total.
+     *
+     * @param id the id of the wallet.
+     * @param count the number of shards, {@code 0} to stop sharding the wallet.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)},
+     * or with status {@code 400 (Bad Request)} if the wallet does not exist or the count is out of range.
+     */
+    @PutMapping("/{id}/balance-shards")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Void> setWalletBalanceShards(@PathVariable("id") Long id, @RequestParam("count") int count) {
+        LOG.debug("REST request to set {} balance shards on Wallet : {}", count, id);
+        if (count < 0 || count > WalletBalanceShardService.MAX_SHARDS) {
+            throw new BadRequestAlertException("Invalid shard count", ENTITY_NAME, "invalidshardcount");
+        }
+        if (!walletBalanceShardService.setBalanceShards(id, count)) {
+            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        }
+        return ResponseEntity.noContent()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, id.toString()))
+            .build();
+    }
+
     /**
      * {@code GET  /wallets} : get all the wallets.
      *
@@ -149,6 +187,32 @@ public class WalletResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /wallets?after=} : get a keyset page of the wallets, newest first.
+     *
+     * @param after the token of the {@code next} link of the previous page, empty for the first page.
+     * @param size the page size.
+     * @param count whether to count all the wallets, in an {@code X-Total-Count} header.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of wallets in body, or with status {@code 400 (Bad Request)} if the cursor or the size is invalid.
+     */
+    @GetMapping(value = "", params = KeysetPaginationUtil.AFTER)
+    public ResponseEntity<List<WalletDTO>> getWalletsAfter(
+        @RequestParam(KeysetPaginationUtil.AFTER) String after,
+        @RequestParam(name = "size", defaultValue = "20") int size,
+        @RequestParam(name = "count", defaultValue = "false") boolean count
+    ) {
+        LOG.debug("REST request to get a keyset page of Wallets");
+        KeysetCursor cursor = KeysetPaginationUtil.cursor(after, size, ENTITY_NAME);
+        Slice<WalletDTO> page = walletService.findAll(cursor, size);
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            page,
+            wallet -> new KeysetCursor(wallet.getCreatedAt(), wallet.getId()),
+            count ? walletService.count() : null
+        );
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
     /**
      * {@code GET  /wallets/:id} : get the "id" wallet.
      *
@@ -5,16 +5,27 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import sn.ondmoney.txe.broker.WalletStream;
+import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
+import sn.ondmoney.txe.domain.enumeration.TransactionType;
+import sn.ondmoney.txe.service.FeeScheduleService;
+import sn.ondmoney.txe.service.IdempotencyService;
 import sn.ondmoney.txe.service.P2PTransferService;
+import sn.ondmoney.txe.service.dto.FeeQuoteResponse;
 import sn.ondmoney.txe.service.dto.P2PTransferRequest;
 import sn.ondmoney.txe.service.dto.P2PTransferResponse;
 import sn.ondmoney.txe.service.dto.WalletBalanceResponse;
+import sn.ondmoney.txe.service.impl.PartitionedTransferEngine;
 import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
 
+import java.math.BigDecimal;
 import java.util.UUID;
 
 /**
@@ -30,8 +41,25 @@ public class TransactionController {
 
     private final P2PTransferService p2pTransferService;
 
-    public TransactionController(P2PTransferService p2pTransferService) {
+    private final PartitionedTransferEngine transferEngine;
+
+    private final IdempotencyService idempotencyService;
+
+    private final FeeScheduleService feeScheduleService;
+
+    private final WalletStream walletStream;
+
+    public TransactionController(
+            P2PTransferService p2pTransferService,
+            ObjectProvider<PartitionedTransferEngine> transferEngine,
+            IdempotencyService idempotencyService,
+            FeeScheduleService feeScheduleService,
+            WalletStream walletStream) {
         this.p2pTransferService = p2pTransferService;
+        this.transferEngine = transferEngine.getIfAvailable();
+        this.idempotencyService = idempotencyService;
+        this.feeScheduleService = feeScheduleService;
+        this.walletStream = walletStream;
     }
 
     /**
@@ -39,14 +67,16 @@ public class TransactionController {
      *
      * @param jwt the JWT token containing user info
      * @param request the transfer request
-     * @return the transfer response
+     * @param idempotencyKey optional client key: retries with the same key get the first response back
+     * @return the transfer response, with status {@code 202 (Accepted)} if it is still being processed
      */
     @PostMapping("/transactions/transfer")
     @Operation(summary = "Effectuer un transfert P2P", description = "Transfère de l'argent vers un autre utilisateur")
     public ResponseEntity<P2PTransferResponse> initiateTransfer(
             @AuthenticationPrincipal Jwt jwt,
             @Valid @RequestBody P2PTransferRequest request,
-            @RequestHeader(value = "X-Correlation-ID", required = false) String correlationId) {
+            @RequestHeader(value = "X-Correlation-ID", required = false) String correlationId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         
         LOG.debug("REST request to initiate P2P transfer: {}", request);
 
@@ -58,11 +88,43 @@ public class TransactionController {
             correlationId = "corr_" + UUID.randomUUID().toString();
         }
 
-        P2PTransferResponse response = p2pTransferService.initiateTransfer(senderPhone, request, correlationId);
+        P2PTransferResponse response;
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            response = transfer(senderPhone, request, correlationId, null);
+        } else {
+            if (idempotencyKey.length() > 100) {
+                throw new BadRequestAlertException("Idempotency-Key is too long", "transfer", "IDEMPOTENCY_KEY_INVALID");
+            }
+            String transferCorrelationId = correlationId;
+            response = idempotencyService.execute(senderPhone, idempotencyKey, request, claim ->
+                transfer(senderPhone, request, transferCorrelationId, claim)
+            );
+        }
         
+        if (response.getStatus() == TransactionStatus.PROCESSING) {
+            // Not settled yet: a retry with the same Idempotency-Key, or the transaction id, tells how it ended
+            return ResponseEntity.accepted().body(response);
+        }
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * GET /api/v1/transactions/quote : Preview the fees of a transaction, without running it.
+     *
+     * @param amount the transaction amount
+     * @param type the transaction type, P2P transfer by default
+     * @return the amount, its fees and the total debited
+     */
+    @GetMapping("/transactions/quote")
+    @Operation(summary = "Simuler les frais", description = "Calcule les frais et le montant total débité d'une transaction")
+    public ResponseEntity<FeeQuoteResponse> quote(
+            @RequestParam BigDecimal amount,
+            @RequestParam(defaultValue = "TRANSFER_P2P") TransactionType type) {
+        LOG.debug("REST request to quote the fees of {} {}", type, amount);
+
+        return ResponseEntity.ok(feeScheduleService.quote(type, amount));
+    }
+
     /**
      * GET /api/v1/wallet/balance : Get wallet balance.
      *
@@ -97,6 +159,37 @@ public class TransactionController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * GET /api/v1/wallet/stream : Stream the wallet updates of the connected user, as server-sent events.
+     *
+     * @param jwt the JWT token containing user info
+     * @param lastEventId the id of the last update received before a reconnection, set by browsers on their own
+     * @param resumeFrom the same, for clients that cannot set headers
+     * @return the stream of balance changes and transfer statuses
+     */
+    @GetMapping(value = "/wallet/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Suivre le wallet", description = "Reçoit en direct les changements de solde et le statut des transferts")
+    public SseEmitter streamWallet(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = "lastEventId", required = false) String resumeFrom) {
+        LOG.debug("REST request to stream the wallet updates");
+
+        String phoneNumber = extractPhoneFromJwt(jwt);
+        return walletStream.subscribe(phoneNumber, lastEventId != null ? lastEventId : resumeFrom);
+    }
+
+    private P2PTransferResponse transfer(
+            String senderPhone,
+            P2PTransferRequest request,
+            String correlationId,
+            IdempotencyService.Claim claim) {
+        // The partitioned engine commits transfers on its own threads, so no transaction is held while waiting
+        return transferEngine != null
+            ? transferEngine.submit(senderPhone, request, correlationId, claim)
+            : p2pTransferService.initiateTransfer(senderPhone, request, correlationId, claim);
+    }
+
     /**
      * Extract phone number from JWT claims.
      * Tries multiple claim names as different OAuth providers use different conventions.
@@ -0,0 +1,183 @@
+package sn.ondmoney.txe.broker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.springframework.web.servlet.mvc.method.annotation.SseEmitter.event;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import sn.ondmoney.txe.config.ApplicationProperties;
+
+class SubscriptionHubTest {
+
+    private MeterRegistry meterRegistry;
+    private ApplicationProperties applicationProperties;
+    private Queue<Runnable> deliveries;
+    private ExecutorService delivery;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSse().setQueueCapacity(2);
+        // Deliveries run when the test says so, as if the clients were slow
+        deliveries = new ArrayDeque<>();
+        delivery = mock(ExecutorService.class);
+        doAnswer(invocation -> deliveries.add(invocation.getArgument(0))).when(delivery).execute(any(Runnable.class));
+    }
+
+    @Test
+    void deliversToTheConnectionsOfTheUserOnly() {
+        SubscriptionHub hub = new SubscriptionHub("test", meterRegistry, applicationProperties, delivery);
+        RecordingEmitter first = (RecordingEmitter) hub.subscribe("usr_1", new RecordingEmitter(), List.of());
+        RecordingEmitter second = (RecordingEmitter) hub.subscribe("usr_1", new RecordingEmitter(), List.of());
+        RecordingEmitter other = (RecordingEmitter) hub.subscribe("usr_2", new RecordingEmitter(), List.of());
+
+        hub.publish("usr_1", event().data("balance"));
+        deliver();
+
+        assertThat(first.data()).containsExactly("balance");
+        assertThat(second.data()).containsExactly("balance");
+        assertThat(other.data()).isEmpty();
+        assertThat(meterRegistry.counter("txe.sse.sent", "hub", "test").count()).isEqualTo(2);
+        assertThat(meterRegistry.get("txe.sse.subscribers").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void dropsTheOldestEventsOfASlowClient() {
+        SubscriptionHub hub = new SubscriptionHub("test", meterRegistry, applicationProperties, delivery);
+        RecordingEmitter emitter = (RecordingEmitter) hub.subscribe("usr_1", new RecordingEmitter(), List.of());
+
+        hub.publish("usr_1", event().data("1"));
+        hub.publish("usr_1", event().data("2"));
+        hub.publish("usr_1", event().data("3"));
+        assertThat(meterRegistry.get("txe.sse.queue_depth").gauge().value()).isEqualTo(2);
+        deliver();
+
+        assertThat(emitter.data()).containsExactly("2", "3");
+        assertThat(meterRegistry.counter("txe.sse.dropped", "hub", "test", "reason", "overflow").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("txe.sse.queue_depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void disconnectsASlowClient() {
+        applicationProperties.getSse().setOverflowPolicy(SubscriptionHub.OverflowPolicy.DISCONNECT);
+        SubscriptionHub hub = new SubscriptionHub("test", meterRegistry, applicationProperties, delivery);
+        hub.subscribe("usr_1", new RecordingEmitter(), List.of());
+
+        hub.publish("usr_1", event().data("1"));
+        hub.publish("usr_1", event().data("2"));
+        hub.publish("usr_1", event().data("3"));
+
+        assertThat(hub.subscriptions("usr_1")).isZero();
+        assertThat(meterRegistry.counter("txe.sse.dropped", "hub", "test", "reason", "overflow").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("txe.sse.dropped", "hub", "test", "reason", "disconnected").count()).isEqualTo(2);
+        assertThat(meterRegistry.get("txe.sse.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    void removesAConnectionThatFailsToSend() {
+        SubscriptionHub hub = new SubscriptionHub("test", meterRegistry, applicationProperties, delivery);
+        hub.subscribe(
+            "usr_1",
+            new SseEmitter() {
+                @Override
+                public void send(Set<DataWithMediaType> items) throws IOException {
+                    throw new IOException("Broken pipe");
+                }
+            },
+            List.of()
+        );
+
+        hub.publish("usr_1", event().data("1"));
+        deliver();
+
+        assertThat(hub.subscriptions("usr_1")).isZero();
+    }
+
+    @Test
+    void closesAConnectionWhoseWriteIsBlocked() {
+        applicationProperties.getSse().setSendTimeoutMs(0);
+        SubscriptionHub hub = new SubscriptionHub("test", meterRegistry, applicationProperties, delivery);
+        RecordingEmitter other = (RecordingEmitter) hub.subscribe("usr_2", new RecordingEmitter(), List.of());
+        hub.subscribe(
+            "usr_1",
+            new SseEmitter() {
+                @Override
+                public void send(Set<DataWithMediaType> items) throws IOException {
+                    // The client stopped reading: the check runs while the write is blocked, and closing fails it
+                    hub.closeStalled();
+                    throw new IOException("Connection closed");
+                }
+            },
+            List.of()
+        );
+
+        hub.publish("usr_1", event().data("1"));
+        hub.publish("usr_1", event().data("2"));
+        hub.publish("usr_2", event().data("3"));
+        deliver();
+
+        assertThat(hub.subscriptions("usr_1")).isZero();
+        assertThat(other.data()).containsExactly("3");
+        assertThat(meterRegistry.counter("txe.sse.dropped", "hub", "test", "reason", "stalled").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("txe.sse.dropped", "hub", "test", "reason", "disconnected").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("txe.sse.queue_depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void sendsHeartbeatsToIdleConnectionsOnly() {
+        SubscriptionHub hub = new SubscriptionHub("test", meterRegistry, applicationProperties, delivery);
+        RecordingEmitter idle = (RecordingEmitter) hub.subscribe("usr_1", new RecordingEmitter(), List.of());
+        RecordingEmitter busy = (RecordingEmitter) hub.subscribe("usr_2", new RecordingEmitter(), List.of());
+        hub.publish("usr_2", event().data("1"));
+
+        hub.heartbeat();
+        deliver();
+
+        assertThat(idle.data()).containsExactly(":heartbeat\n\n");
+        assertThat(busy.data()).containsExactly("1");
+    }
+
+    private void deliver() {
+        Runnable next;
+        while ((next = deliveries.poll()) != null) {
+            next.run();
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Set<DataWithMediaType>> sent = new ArrayList<>();
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            sent.add(items);
+        }
+
+        /**
+         * @return the data lines of the sent events, or the whole of those without any.
+         */
+        List<String> data() {
+            return sent
+                .stream()
+                .map(items -> items.stream().map(item -> item.getData().toString()).collect(Collectors.joining()))
+                .map(text -> text.startsWith("data:") ? text.substring("data:".length()).strip() : text)
+                .toList();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package sn.ondmoney.txe.broker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
+import com.hazelcast.topic.MessageListener;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.kafka.TransferEventData;
+
+class WalletStreamTest {
+
+    private static final String SENDER = "771234567";
+    private static final String RECEIVER = "781234567";
+
+    private SubscriptionHub hub;
+    private ITopic<WalletUpdate> topic;
+    private WalletStream walletStream;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        hub = mock(SubscriptionHub.class);
+        topic = mock(ITopic.class);
+        HazelcastInstance hazelcastInstance = mock(HazelcastInstance.class);
+        when(hazelcastInstance.<WalletUpdate>getReliableTopic(WalletStream.TOPIC)).thenReturn(topic);
+        ArgumentCaptor<MessageListener<WalletUpdate>> listener = ArgumentCaptor.forClass(MessageListener.class);
+        when(topic.addMessageListener(listener.capture())).thenReturn(UUID.randomUUID());
+        // The topic delivers its messages back to this node at once
+        when(topic.publishAllAsync(anyList())).thenAnswer(invocation -> {
+            ((Collection<WalletUpdate>) invocation.getArgument(0)).forEach(update ->
+                listener.getValue().onMessage(new Message<>(WalletStream.TOPIC, update, 0, null))
+            );
+            return CompletableFuture.completedFuture(null);
+        });
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getWalletStream().setReplaySize(2);
+        walletStream = new WalletStream(hub, hazelcastInstance, applicationProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void pushesACompletedTransferToBothPartiesAfterTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        walletStream.transferSettled(completed("TX1"));
+
+        verify(topic, never()).publishAllAsync(anyList());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(hub).publish(eq(SENDER), any(SseEventBuilder.class));
+        verify(hub).publish(eq(RECEIVER), any(SseEventBuilder.class));
+    }
+
+    @Test
+    void pushesAFailedTransferToTheSenderOnly() {
+        List<WalletUpdate> updates = WalletStream.updatesOf(failed("TX1"));
+
+        assertThat(updates).singleElement().satisfies(update -> {
+            assertThat(update.phone()).isEqualTo(SENDER);
+            assertThat(update.status()).isEqualTo("FAILED");
+            assertThat(update.balance()).isNull();
+        });
+    }
+
+    @Test
+    void replaysTheUpdatesMissedSinceTheLastEventId() {
+        walletStream.transferSettled(completed("TX1"));
+        walletStream.transferSettled(completed("TX2"));
+
+        walletStream.subscribe(RECEIVER, "TX1:COMPLETED");
+
+        assertThat(ids(subscribedWith(RECEIVER))).containsExactly("id:TX2:COMPLETED");
+    }
+
+    @Test
+    void asksForAResyncWhenTheLastEventIdIsNoLongerKept() {
+        walletStream.transferSettled(completed("TX1"));
+        walletStream.transferSettled(completed("TX2"));
+        walletStream.transferSettled(completed("TX3"));
+
+        walletStream.subscribe(SENDER, "TX1:COMPLETED");
+
+        assertThat(subscribedWith(SENDER)).singleElement().satisfies(event ->
+            assertThat(event.build()).anySatisfy(item -> assertThat(item.getData().toString()).startsWith("event:" + WalletStream.RESYNC))
+        );
+    }
+
+    @Test
+    void replaysNothingToANewClient() {
+        walletStream.transferSettled(completed("TX1"));
+
+        walletStream.subscribe(SENDER, null);
+
+        assertThat(subscribedWith(SENDER)).isEmpty();
+    }
+
+    @Test
+    void publishesOutOfTheReplayLock() throws Exception {
+        List<WalletUpdate> updates = WalletStream.updatesOf(completed("TX1"));
+        CountDownLatch publishing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            publishing.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        })
+            .when(hub)
+            .publish(eq(SENDER), any(SseEventBuilder.class));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> blocked = executor.submit(() -> walletStream.deliver(updates.get(0)));
+            assertThat(publishing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Neither the other users nor a new connection of the same user wait for it
+            CompletableFuture.runAsync(() -> {
+                walletStream.deliver(updates.get(1));
+                walletStream.subscribe(SENDER, "TX1:COMPLETED");
+            }).get(2, TimeUnit.SECONDS);
+
+            verify(hub).publish(eq(RECEIVER), any(SseEventBuilder.class));
+            assertThat(subscribedWith(SENDER)).isEmpty();
+            release.countDown();
+            blocked.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SseEventBuilder> subscribedWith(String phone) {
+        ArgumentCaptor<List<SseEventBuilder>> missed = ArgumentCaptor.forClass(List.class);
+        verify(hub).subscribe(eq(phone), missed.capture());
+        return missed.getValue();
+    }
+
+    private static List<String> ids(List<SseEventBuilder> events) {
+        return events
+            .stream()
+            .flatMap(event -> event.build().stream())
+            .map(item -> item.getData().toString())
+            .filter(data -> data.startsWith("id:"))
+            .map(data -> data.lines().findFirst().orElseThrow())
+            .toList();
+    }
+
+    private static TransferEventData completed(String txId) {
+        return new TransferEventData(txId, "usr_1", "usr_2", SENDER, RECEIVER, "1000", "10", "XOF", "Transfert P2P", "COMPLETED",
+            null, Instant.now(), "8990", "2000", SENDER, RECEIVER, null, null, null);
+    }
+
+    private static TransferEventData failed(String txId) {
+        return new TransferEventData(txId, "usr_1", "usr_2", SENDER, RECEIVER, "1000", "10", "XOF", "Transfert P2P", "FAILED",
+            null, null, null, null, null, null, Instant.now(), "TRANSFER_ERROR", "boom");
+    }
+}
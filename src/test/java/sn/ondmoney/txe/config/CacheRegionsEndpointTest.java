@@ -0,0 +1,101 @@
+package sn.ondmoney.txe.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.hazelcast.collection.IQueue;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.core.DistributedObject;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.LocalMapStats;
+import com.hazelcast.nearcache.NearCacheStats;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheRegionsEndpointTest {
+
+    private static final String TRANSFER = "sn.ondmoney.txe.domain.Transfer";
+    private static final String WALLET_BY_PHONE = "wallet-by-phone";
+
+    private CacheRegionsEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        LocalMapStats transferStats = mock(LocalMapStats.class);
+        when(transferStats.getOwnedEntryCount()).thenReturn(40L);
+        when(transferStats.getGetOperationCount()).thenReturn(100L);
+        when(transferStats.getHits()).thenReturn(70L);
+        when(transferStats.getRemoveOperationCount()).thenReturn(12L);
+
+        NearCacheStats nearCacheStats = mock(NearCacheStats.class);
+        when(nearCacheStats.getHits()).thenReturn(90L);
+        when(nearCacheStats.getMisses()).thenReturn(10L);
+        when(nearCacheStats.getInvalidations()).thenReturn(3L);
+        LocalMapStats walletByPhoneStats = mock(LocalMapStats.class);
+        when(walletByPhoneStats.getNearCacheStats()).thenReturn(nearCacheStats);
+
+        List<DistributedObject> objects = List.of(map(WALLET_BY_PHONE, walletByPhoneStats), map(TRANSFER, transferStats), mock(IQueue.class));
+        HazelcastInstance hazelcastInstance = mock(HazelcastInstance.class);
+        when(hazelcastInstance.getDistributedObjects()).thenReturn(objects);
+        endpoint = new CacheRegionsEndpoint(hazelcastInstance);
+    }
+
+    @Test
+    void reportsTheMapsByName() {
+        assertThat(endpoint.regions().keySet()).containsExactly(TRANSFER, WALLET_BY_PHONE);
+    }
+
+    @Test
+    void reportsTheMissesAndInvalidationsOfARegion() {
+        CacheRegionsEndpoint.RegionStats stats = endpoint.region(TRANSFER);
+
+        assertThat(stats.entries()).isEqualTo(40);
+        assertThat(stats.hits()).isEqualTo(70);
+        assertThat(stats.misses()).isEqualTo(30);
+        assertThat(stats.invalidations()).isEqualTo(12);
+        assertThat(stats.nearCache()).isNull();
+    }
+
+    @Test
+    void reportsTheNearCacheOfARegion() {
+        CacheRegionsEndpoint.NearCacheRegionStats nearCache = endpoint.region(WALLET_BY_PHONE).nearCache();
+
+        assertThat(nearCache.hitRatio()).isEqualTo(0.9);
+        assertThat(nearCache.invalidations()).isEqualTo(3);
+    }
+
+    @Test
+    void reportsNothingForAnUnknownRegion() {
+        assertThat(endpoint.region("unknown")).isNull();
+    }
+
+    @Test
+    void configuresARegionFromItsSettingsThenTheDefaults() {
+        ApplicationProperties.Cache cache = new ApplicationProperties().getCache();
+        ApplicationProperties.CacheRegion walletByPhone = new ApplicationProperties.CacheRegion();
+        walletByPhone.setInMemoryFormat(InMemoryFormat.OBJECT);
+        walletByPhone.setNearCache(true);
+        cache.getRegions().put(WALLET_BY_PHONE, walletByPhone);
+
+        MapConfig mapConfig = CacheConfiguration.initializeRegionMapConfig(WALLET_BY_PHONE, cache.region(WALLET_BY_PHONE));
+
+        assertThat(mapConfig.getInMemoryFormat()).isEqualTo(InMemoryFormat.OBJECT);
+        assertThat(mapConfig.getBackupCount()).isEqualTo(cache.getDefaults().getBackupCount());
+        assertThat(mapConfig.getEvictionConfig().getEvictionPolicy()).isEqualTo(EvictionPolicy.LRU);
+        assertThat(mapConfig.getNearCacheConfig().isInvalidateOnChange()).isTrue();
+        assertThat(mapConfig.getNearCacheConfig().getEvictionConfig().getSize()).isEqualTo(cache.getDefaults().getMaxSize());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IMap<Object, Object> map(String name, LocalMapStats stats) {
+        IMap<Object, Object> map = mock(IMap.class);
+        when(map.getName()).thenReturn(name);
+        when(map.getLocalMapStats()).thenReturn(stats);
+        return map;
+    }
+}
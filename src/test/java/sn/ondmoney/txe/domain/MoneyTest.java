@@ -0,0 +1,90 @@
+package sn.ondmoney.txe.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import java.math.BigDecimal;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readsWholeAmountsInMinorUnits() {
+        assertThat(Money.of(new BigDecimal("5000.00"), Money.XOF)).isEqualTo(Money.xof(5000));
+        assertThat(Money.of(new BigDecimal("12.34"), "EUR").getMinorUnits()).isEqualTo(1234);
+    }
+
+    @Test
+    void rejectsAmountsFinerThanTheCurrency() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("10.5"), Money.XOF)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1e30"), Money.XOF)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void addsWithoutMixingCurrencies() {
+        assertThat(Money.xof(5000).plus(Money.xof(50))).isEqualTo(Money.xof(5050));
+        assertThat(Money.xof(50).minus(Money.xof(5000)).isNegative()).isTrue();
+        assertThatThrownBy(() -> Money.xof(1).plus(Money.ofMinor(1, "EUR"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.xof(Long.MAX_VALUE).plus(Money.xof(1))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void convertsToDecimalColumn() {
+        MoneyAttributeConverter converter = new MoneyAttributeConverter();
+
+        assertThat(converter.convertToDatabaseColumn(Money.xof(5050))).isEqualByComparingTo("5050");
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("5050.00"))).isEqualTo(Money.xof(5050));
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+
+    @Test
+    void readsLegacyFractionsRounded() {
+        MoneyAttributeConverter converter = new MoneyAttributeConverter();
+
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("50.50"))).isEqualTo(Money.xof(51));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("50.49"))).isEqualTo(Money.xof(50));
+    }
+
+    @Test
+    void validatesTheMinimumOfTransferAmounts() {
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            Validator validator = factory.getValidator();
+
+            assertThat(validator.validate(transfer(Money.xof(0), Money.xof(25)))).isEmpty();
+            assertThat(validator.validate(transfer(Money.xof(-1), Money.xof(25))))
+                .extracting(violation -> violation.getPropertyPath().toString())
+                .containsExactly("amount");
+            assertThat(validator.validate(transfer(Money.xof(5000), Money.xof(-25))))
+                .extracting(violation -> violation.getPropertyPath().toString())
+                .containsExactly("fees");
+        }
+    }
+
+    @Test
+    void isAPlainJsonNumber() throws Exception {
+        assertThat(objectMapper.writeValueAsString(Money.xof(5050))).isEqualTo("5050");
+        assertThat(objectMapper.writeValueAsString(Money.ofMinor(1234, "EUR"))).isEqualTo("12.34");
+        assertThat(objectMapper.readValue("5050.00", Money.class)).isEqualTo(Money.xof(5050));
+        assertThatThrownBy(() -> objectMapper.readValue("10.5", Money.class)).isInstanceOf(InvalidFormatException.class);
+    }
+
+    private static Transfer transfer(Money amount, Money fees) {
+        return new Transfer()
+            .txId("tx-1")
+            .status(TransactionStatus.COMPLETED)
+            .amount(amount)
+            .fees(fees)
+            .senderPhone("+221770000001")
+            .receiverPhone("+221770000002")
+            .initiatedAt(Instant.now());
+    }
+}
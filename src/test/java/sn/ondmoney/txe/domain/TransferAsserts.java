@@ -1,7 +1,6 @@
 package sn.ondmoney.txe.domain;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static sn.ondmoney.txe.domain.AssertUtils.bigDecimalCompareTo;
 
 public class TransferAsserts {
 
@@ -50,10 +49,8 @@ public class TransferAsserts {
             .as("Verify Transfer relevant properties")
             .satisfies(a -> assertThat(a.getTxId()).as("check txId").isEqualTo(expected.getTxId()))
             .satisfies(a -> assertThat(a.getStatus()).as("check status").isEqualTo(expected.getStatus()))
-            .satisfies(a ->
-                assertThat(a.getAmount()).as("check amount").usingComparator(bigDecimalCompareTo).isEqualTo(expected.getAmount())
-            )
-            .satisfies(a -> assertThat(a.getFees()).as("check fees").usingComparator(bigDecimalCompareTo).isEqualTo(expected.getFees()))
+            .satisfies(a -> assertThat(a.getAmount()).as("check amount").isEqualTo(expected.getAmount()))
+            .satisfies(a -> assertThat(a.getFees()).as("check fees").isEqualTo(expected.getFees()))
             .satisfies(a -> assertThat(a.getSenderPhone()).as("check senderPhone").isEqualTo(expected.getSenderPhone()))
             .satisfies(a -> assertThat(a.getReceiverPhone()).as("check receiverPhone").isEqualTo(expected.getReceiverPhone()))
             .satisfies(a -> assertThat(a.getInitiatedAt()).as("check initiatedAt").isEqualTo(expected.getInitiatedAt()))
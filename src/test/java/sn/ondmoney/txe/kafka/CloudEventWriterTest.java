@@ -0,0 +1,138 @@
+package sn.ondmoney.txe.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.Transfer;
+import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
+
+class CloudEventWriterTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+
+    @Test
+    void writesTheEnvelope() throws Exception {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("prod");
+        CloudEventWriter.Writer<TransferEventData> writer = cloudEventWriter(new ApplicationProperties(), environment).forType(
+            "transfer.initiated",
+            TransferEventData.class
+        );
+
+        JsonNode event = objectMapper.readTree(
+            writer.write("TXN_1", "corr_1", TransferEventData.initiated(transfer(), null, null)).payload()
+        );
+
+        assertThat(event.get("specversion").asText()).isEqualTo("1.0");
+        assertThat(event.get("id").asText()).matches("evt_[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}");
+        assertThat(event.get("source").asText()).isEqualTo("ond-money/txe-service");
+        assertThat(event.get("type").asText()).isEqualTo("transfer.initiated");
+        assertThat(event.get("datacontenttype").asText()).isEqualTo("application/json");
+        assertThat(Instant.parse(event.get("time").asText())).isNotNull();
+        assertThat(event.get("subject").asText()).isEqualTo("TXN_1");
+        assertThat(event.get("ondmoney").get("correlationId").asText()).isEqualTo("corr_1");
+        assertThat(event.get("ondmoney").get("version").asText()).isEqualTo("1.0.0");
+        assertThat(event.get("ondmoney").get("environment").asText()).isEqualTo("production");
+    }
+
+    @Test
+    void writesOnlyTheFieldsOfTheEventType() throws Exception {
+        CloudEventWriter.Writer<TransferEventData> writer = cloudEventWriter(new ApplicationProperties(), new MockEnvironment()).forType(
+            "transfer.completed",
+            TransferEventData.class
+        );
+
+        JsonNode event = objectMapper.readTree(
+            writer.write("TXN_1", null, TransferEventData.completed(transfer(), null, null, new BigDecimal("900"), new BigDecimal("100"))).payload()
+        );
+
+        JsonNode data = event.get("data");
+        assertThat(data.get("transferId").asText()).isEqualTo("TXN_1");
+        assertThat(data.get("amount").asText()).isEqualTo("100");
+        assertThat(data.get("fees").asText()).isEqualTo("25");
+        assertThat(data.get("currency").asText()).isEqualTo("XOF");
+        assertThat(data.get("senderId").isNull()).isTrue();
+        assertThat(data.get("completedAt").asText()).isEqualTo("2026-01-03T14:00:02Z");
+        assertThat(data.get("senderNewBalance").asText()).isEqualTo("900");
+        assertThat(data.has("initiatedAt")).isFalse();
+        assertThat(data.has("failureReason")).isFalse();
+        assertThat(event.get("ondmoney").get("correlationId").asText()).isEqualTo(event.get("id").asText());
+        assertThat(event.get("ondmoney").get("environment").asText()).isEqualTo("development");
+    }
+
+    @Test
+    void writesTheEnvelopeAsHeadersInBinaryMode() throws Exception {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getCloudEvents().getTopicContentModes().put("transfer.initiated", CloudEventWriter.ContentMode.BINARY);
+        CloudEventWriter cloudEventWriter = cloudEventWriter(properties, new MockEnvironment());
+        CloudEventWriter.Writer<TransferEventData> writer = cloudEventWriter.forType("transfer.initiated", TransferEventData.class);
+
+        CloudEventMessage message = writer.write("TXN_1", "corr_1", TransferEventData.initiated(transfer(), null, null));
+
+        assertThat(writer.getMode()).isEqualTo(CloudEventWriter.ContentMode.BINARY);
+        assertThat(objectMapper.readTree(message.payload()).get("transferId").asText()).isEqualTo("TXN_1");
+        assertThat(message.headers())
+            .containsEntry(CloudEventWriter.HEADER_SPEC_VERSION, "1.0")
+            .containsEntry(CloudEventWriter.HEADER_TYPE, "transfer.initiated")
+            .containsEntry(CloudEventWriter.HEADER_SUBJECT, "TXN_1")
+            .containsEntry(CloudEventWriter.HEADER_CORRELATION_ID, "corr_1")
+            .containsEntry(CloudEventWriter.HEADER_CONTENT_TYPE, "application/json")
+            .containsKey(CloudEventWriter.HEADER_ID);
+        assertThat(cloudEventWriter.decodeHeaders(cloudEventWriter.encodeHeaders(message.headers()))).isEqualTo(message.headers());
+        assertThat(cloudEventWriter.forType("transfer.completed", TransferEventData.class).getMode()).isEqualTo(
+            CloudEventWriter.ContentMode.STRUCTURED
+        );
+    }
+
+    @Test
+    void encodesTheDataWithProtobuf() throws Exception {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getCloudEvents().getTopicEncodings().put("transfer.initiated", CloudEventWriter.Encoding.PROTOBUF);
+        CloudEventWriter.Writer<TransferEventData> writer = cloudEventWriter(properties, new MockEnvironment()).forType(
+            "transfer.initiated",
+            TransferEventData.class
+        );
+
+        CloudEventMessage message = writer.write("TXN_1", "corr_1", TransferEventData.initiated(transfer(), null, null));
+
+        assertThat(writer.getMode()).isEqualTo(CloudEventWriter.ContentMode.BINARY);
+        assertThat(message.isBinary()).isTrue();
+        assertThat(new TransferEventProtobufCodec().decode(message.binaryPayload()).transferId()).isEqualTo("TXN_1");
+        assertThat(message.headers())
+            .containsEntry(CloudEventWriter.HEADER_CONTENT_TYPE, "application/protobuf")
+            .containsEntry(CloudEventWriter.HEADER_DATA_SCHEMA, "urn:ondmoney:schema:1");
+    }
+
+    private CloudEventWriter cloudEventWriter(ApplicationProperties properties, MockEnvironment environment) {
+        return new CloudEventWriter(
+            objectMapper,
+            properties,
+            environment,
+            List.of(new TransferEventProtobufCodec(), new WalletCreatedProtobufCodec()),
+            new InProcessEventSchemaRegistry()
+        );
+    }
+
+    private static Transfer transfer() {
+        Transfer transfer = new Transfer();
+        transfer.setTxId("TXN_1");
+        transfer.setStatus(TransactionStatus.COMPLETED);
+        transfer.setAmount(Money.xof(100));
+        transfer.setFees(Money.xof(25));
+        transfer.setSenderPhone("+221770000001");
+        transfer.setReceiverPhone("+221770000002");
+        transfer.setInitiatedAt(Instant.parse("2026-01-03T14:00:00Z"));
+        transfer.setCompletedAt(Instant.parse("2026-01-03T14:00:02Z"));
+        return transfer;
+    }
+}
@@ -0,0 +1,125 @@
+package sn.ondmoney.txe.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ConsumerTransactionTest {
+
+    private static final ConsumerGroupMetadata GROUP = new ConsumerGroupMetadata("txe-consumers");
+
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private Consumer<?, ?> consumer;
+    private ConsumerTransaction consumerTransaction;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        consumer = mock(Consumer.class);
+        when(consumer.groupMetadata()).thenReturn(GROUP);
+        consumerTransaction = new ConsumerTransaction(kafkaTemplate);
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void commitsTheNextOffsetOfEachPartition() {
+        consumerTransaction.commitOffsets(
+            consumer,
+            List.of(
+                new ConsumerRecord<>("user.registered", 0, 4, "usr_1", "{}"),
+                new ConsumerRecord<>("user.registered", 1, 9, "usr_2", "{}"),
+                new ConsumerRecord<>("user.registered", 0, 5, "usr_3", "{}")
+            )
+        );
+
+        verify(kafkaTemplate).sendOffsetsToTransaction(
+            Map.of(
+                new TopicPartition("user.registered", 0),
+                new OffsetAndMetadata(6),
+                new TopicPartition("user.registered", 1),
+                new OffsetAndMetadata(10)
+            ),
+            GROUP
+        );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deadLettersWithTheFailure() {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("user.registered", 2, 7, "usr_1", "{not json");
+        record.headers().add(CloudEventWriter.HEADER_ID, "evt-1".getBytes(StandardCharsets.UTF_8));
+
+        consumerTransaction.deadLetter(record, new PoisonEventException("Unreadable user.registered event"));
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        assertThat(sent.getValue().topic()).isEqualTo("user.registered-dlt");
+        assertThat(sent.getValue().key()).isEqualTo("usr_1");
+        assertThat(sent.getValue().headers().lastHeader(CloudEventWriter.HEADER_ID)).isNotNull();
+        assertThat(new String(sent.getValue().headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_FQCN).value(), StandardCharsets.UTF_8)).isEqualTo(
+            PoisonEventException.class.getName()
+        );
+        assertThat(new String(sent.getValue().headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC).value(), StandardCharsets.UTF_8)).isEqualTo(
+            "user.registered"
+        );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failsTheCommitIfASendFails() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        consumerTransaction.send(new ProducerRecord<>("wallet.created", "usr_1", new byte[0]));
+
+        assertThatThrownBy(() -> TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.beforeCommit(false))).isInstanceOf(
+            CompletionException.class
+        );
+        verify(kafkaTemplate).flush();
+    }
+
+    @Test
+    void needsADatabaseTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+
+        assertThatThrownBy(() -> consumerTransaction.commitOffset(consumer, "user.registered", 0, 1)).isInstanceOf(
+            IllegalStateException.class
+        );
+        verify(kafkaTemplate, never()).sendOffsetsToTransaction(any(), eq(GROUP));
+    }
+}
@@ -0,0 +1,116 @@
+package sn.ondmoney.txe.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+
+class DeadLetterEndpointTest {
+
+    private static final String DLT = "user.registered-dlt";
+    private static final TopicPartition PARTITION = new TopicPartition(DLT, 0);
+
+    private MockConsumer<String, String> consumer;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private DeadLetterEndpoint endpoint;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // Left open by the endpoint, to read its commits
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void close() {}
+        };
+        consumer.updatePartitions(DLT, List.of(new PartitionInfo(DLT, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        ConsumerFactory<String, String> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer(DeadLetterEndpoint.REPLAY_GROUP, "-dlt-admin")).thenReturn(consumer);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        endpoint = new DeadLetterEndpoint(consumerFactory, kafkaTemplate);
+    }
+
+    @Test
+    void listsDeadLettersWithTheirFailure() {
+        consumer.schedulePollTask(() -> consumer.addRecord(deadLetter(0, "usr_1")));
+
+        List<DeadLetterEndpoint.DeadLetter> deadLetters = endpoint.deadLetters("user.registered", null);
+
+        assertThat(deadLetters).singleElement().satisfies(deadLetter -> {
+            assertThat(deadLetter.key()).isEqualTo("usr_1");
+            assertThat(deadLetter.originalTopic()).isEqualTo("user.registered");
+            assertThat(deadLetter.exception()).isEqualTo(PoisonEventException.class.getName());
+        });
+        assertThat(consumer.committed(Set.of(PARTITION)).get(PARTITION)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaysUpToTheLimitToTheMainTopic() {
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(deadLetter(0, "usr_1"));
+            consumer.addRecord(deadLetter(1, "usr_2"));
+            consumer.addRecord(deadLetter(2, "usr_3"));
+        });
+
+        assertThat(endpoint.replay("user.registered", 2).replayed()).isEqualTo(2);
+
+        ArgumentCaptor<ProducerRecord<String, String>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(sent.capture());
+        assertThat(sent.getAllValues()).allSatisfy(record -> {
+            assertThat(record.topic()).isEqualTo("user.registered");
+            assertThat(record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_FQCN)).isNull();
+            assertThat(record.headers().lastHeader(CloudEventWriter.HEADER_ID)).isNotNull();
+        });
+        assertThat(consumer.committed(Set.of(PARTITION)).get(PARTITION).offset()).isEqualTo(2);
+    }
+
+    @Test
+    void commitsNothingIfASendFails() {
+        consumer.schedulePollTask(() -> consumer.addRecord(deadLetter(0, "usr_1")));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertThatThrownBy(() -> endpoint.replay("user.registered", null)).isInstanceOf(
+            IllegalStateException.class
+        );
+        assertThat(consumer.committed(Set.of(PARTITION)).get(PARTITION)).isNull();
+    }
+
+    @Test
+    void unknownTopicHasNoDeadLetters() {
+        assertThat(endpoint.deadLetters("wallet.unknown", null)).isEmpty();
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+    }
+
+    private static ConsumerRecord<String, String> deadLetter(long offset, String key) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(DLT, 0, offset, key, "{\"userId\":null}");
+        record.headers().add(KafkaHeaders.DLT_ORIGINAL_TOPIC, "user.registered-retry-1".getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaHeaders.DLT_EXCEPTION_FQCN, PoisonEventException.class.getName().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(CloudEventWriter.HEADER_ID, ("evt-" + offset).getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+}
@@ -0,0 +1,108 @@
+package sn.ondmoney.txe.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import sn.ondmoney.txe.config.ApplicationProperties;
+
+class EventPublisherTest {
+
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private EventPublisher publisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreakerRegistry = CircuitBreakerRegistry.of(
+            CircuitBreakerConfig.custom().slidingWindowSize(4).minimumNumberOfCalls(4).build()
+        );
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getProducer().setMaxInFlightPerTopic(2);
+        applicationProperties.getProducer().setBackpressureTimeoutMs(0);
+        publisher = new EventPublisher(kafkaTemplate, mock(KafkaTemplate.class), meterRegistry, circuitBreakerRegistry, applicationProperties);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refusesSendsBeyondTheWindowOfATopic() {
+        CompletableFuture<SendResult<String, String>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(pending);
+
+        publisher.publish(record("transfer.initiated", "TXN_A"), Instant.now());
+        publisher.publish(record("transfer.initiated", "TXN_B"), Instant.now());
+        CompletableFuture<?> refused = publisher.publish(record("transfer.initiated", "TXN_C"), Instant.now());
+        // Other topics have their own window
+        publisher.publish(record("transfer.completed", "TXN_A"), Instant.now());
+
+        assertThat(refused).failsWithin(Duration.ZERO).withThrowableOfType(ExecutionException.class).withCauseInstanceOf(
+            RejectedExecutionException.class
+        );
+        verify(kafkaTemplate, times(3)).send(any(ProducerRecord.class));
+        assertThat(publisher.inFlight("transfer.initiated")).isEqualTo(2);
+        assertThat(meterRegistry.get("txe.events.dropped").tags("topic", "transfer.initiated").counter().count()).isEqualTo(1);
+
+        pending.complete(new SendResult<>(null, null));
+
+        assertThat(publisher.inFlight("transfer.initiated")).isZero();
+        assertThat(publisher.publish(record("transfer.initiated", "TXN_C"), Instant.now())).isDone();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void timesEventsFromTheirEnqueue() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        publisher.publish(record("transfer.initiated", "TXN_A"), Instant.now().minusSeconds(2));
+
+        assertThat(
+            meterRegistry.get("txe.events.publish").tags("topic", "transfer.initiated", "result", "acked").timer().totalTime(
+                TimeUnit.SECONDS
+            )
+        ).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void opensTheCircuitAfterFailedSends() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker down")));
+        for (int i = 0; i < 4; i++) {
+            publisher.publish(record("transfer.initiated", "TXN_" + i), Instant.now());
+        }
+
+        assertThat(publisher.isAvailable()).isFalse();
+        assertThat(publisher.publish(record("transfer.initiated", "TXN_4"), Instant.now()))
+            .failsWithin(Duration.ZERO)
+            .withThrowableOfType(ExecutionException.class)
+            .withCauseInstanceOf(CallNotPermittedException.class);
+        verify(kafkaTemplate, times(4)).send(any(ProducerRecord.class));
+        assertThat(publisher.inFlight("transfer.initiated")).isZero();
+    }
+
+    private static ProducerRecord<String, String> record(String topic, String key) {
+        return new ProducerRecord<>(topic, key, "{}");
+    }
+}
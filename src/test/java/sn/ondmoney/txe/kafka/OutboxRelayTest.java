@@ -0,0 +1,175 @@
+package sn.ondmoney.txe.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.OutboxEvent;
+import sn.ondmoney.txe.repository.OutboxEventRepository;
+
+class OutboxRelayTest {
+
+    private OutboxEventRepository outboxEventRepository;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private CloudEventWriter cloudEventWriter;
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        cloudEventWriter = new CloudEventWriter(
+            new ObjectMapper(),
+            applicationProperties,
+            new MockEnvironment(),
+            List.of(),
+            new InProcessEventSchemaRegistry()
+        );
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreakerRegistry = CircuitBreakerRegistry.of(
+            CircuitBreakerConfig.custom().slidingWindowSize(4).minimumNumberOfCalls(4).build()
+        );
+        relay = new OutboxRelay(
+            outboxEventRepository,
+            new EventPublisher(kafkaTemplate, mock(KafkaTemplate.class), meterRegistry, circuitBreakerRegistry, applicationProperties),
+            cloudEventWriter,
+            applicationProperties,
+            mock(PlatformTransactionManager.class)
+        );
+        when(outboxEventRepository.tryAdvisoryXactLock(anyLong())).thenReturn(true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deletesAcknowledgedEvents() {
+        when(outboxEventRepository.findByOrderByIdAsc(any(Pageable.class))).thenReturn(
+            List.of(event(1L, "transfer.initiated", "TXN_A"), event(2L, "transfer.completed", "TXN_A"))
+        );
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        assertThat(relay.relayBatch()).isEqualTo(2);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        assertThat(meterRegistry.get("txe.events.publish").tags("topic", "transfer.initiated", "result", "acked").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keepsLaterEventsOfAFailedKey() {
+        when(outboxEventRepository.findByOrderByIdAsc(any(Pageable.class))).thenReturn(
+            List.of(event(1L, "transfer.initiated", "TXN_A"), event(2L, "transfer.initiated", "TXN_B"), event(3L, "transfer.completed", "TXN_A"))
+        );
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, String> record = invocation.getArgument(0);
+            return record.topic().equals("transfer.initiated") && record.key().equals("TXN_A")
+                ? CompletableFuture.failedFuture(new IllegalStateException("broker down"))
+                : CompletableFuture.completedFuture(new SendResult<>(null, null));
+        });
+
+        assertThat(relay.relayBatch()).isEqualTo(-1);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(2L));
+        // Never sent ahead of the failed event of its key
+        verify(kafkaTemplate, never()).send(argThat((ProducerRecord<String, String> record) -> record.topic().equals("transfer.completed")));
+
+        // The next poll sends the failed key again
+        when(outboxEventRepository.findByOrderByIdAsc(any(Pageable.class))).thenReturn(
+            List.of(event(1L, "transfer.initiated", "TXN_A"), event(3L, "transfer.completed", "TXN_A"))
+        );
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        assertThat(relay.relayBatch()).isEqualTo(2);
+        assertThat(meterRegistry.get("txe.events.retried").tags("topic", "transfer.initiated").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("txe.events.retried").tags("topic", "transfer.completed").counter().count()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendsTheNextEventOfAKeyOnceThePreviousOneIsAcknowledged() {
+        when(outboxEventRepository.findByOrderByIdAsc(any(Pageable.class))).thenReturn(
+            List.of(event(1L, "transfer.initiated", "TXN_A"), event(2L, "transfer.completed", "TXN_A"), event(3L, "transfer.initiated", "TXN_B"))
+        );
+        List<String> sent = new ArrayList<>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, String> record = invocation.getArgument(0);
+            sent.add(record.topic() + "/" + record.key());
+            return CompletableFuture.completedFuture(new SendResult<>(null, null));
+        });
+
+        assertThat(relay.relayBatch()).isEqualTo(3);
+        // TXN_B is pipelined with the first event of TXN_A, the second one waits for its ack
+        assertThat(sent).containsExactly("transfer.initiated/TXN_A", "transfer.initiated/TXN_B", "transfer.completed/TXN_A");
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 3L, 2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendsStoredHeaders() throws Exception {
+        OutboxEvent event = new OutboxEvent(
+            "transfer.completed",
+            "TXN_A",
+            "{}",
+            cloudEventWriter.encodeHeaders(Map.of(CloudEventWriter.HEADER_ID, "evt_1"))
+        );
+        event.setId(1L);
+        when(outboxEventRepository.findByOrderByIdAsc(any(Pageable.class))).thenReturn(List.of(event));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        assertThat(relay.relayBatch()).isEqualTo(1);
+        ArgumentCaptor<ProducerRecord<String, String>> record = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(record.capture());
+        assertThat(record.getValue().key()).isEqualTo("TXN_A");
+        assertThat(new String(record.getValue().headers().lastHeader(CloudEventWriter.HEADER_ID).value(), StandardCharsets.UTF_8)).isEqualTo(
+            "evt_1"
+        );
+    }
+
+    @Test
+    void skipsPollsWhileTheCircuitIsOpen() {
+        circuitBreakerRegistry.circuitBreaker(EventPublisher.CIRCUIT_BREAKER).transitionToOpenState();
+
+        relay.relay();
+
+        verify(outboxEventRepository, never()).findByOrderByIdAsc(any(Pageable.class));
+    }
+
+    @Test
+    void skipsPollWhenLockIsHeldElsewhere() {
+        when(outboxEventRepository.tryAdvisoryXactLock(anyLong())).thenReturn(false);
+
+        assertThat(relay.relayBatch()).isZero();
+        verify(outboxEventRepository, never()).findByOrderByIdAsc(any(Pageable.class));
+    }
+
+    private static OutboxEvent event(Long id, String topic, String key) {
+        OutboxEvent event = new OutboxEvent(topic, key, "{}");
+        event.setId(id);
+        return event;
+    }
+}
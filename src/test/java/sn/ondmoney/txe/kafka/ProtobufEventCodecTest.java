@@ -0,0 +1,226 @@
+package sn.ondmoney.txe.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class ProtobufEventCodecTest {
+
+    private final TransferEventProtobufCodec transferCodec = new TransferEventProtobufCodec();
+    private final WalletCreatedProtobufCodec walletCodec = new WalletCreatedProtobufCodec();
+
+    @Test
+    void roundTripsTransferEvents() {
+        TransferEventData data = new TransferEventData(
+            "TXN_1",
+            "usr_1",
+            null,
+            "+221770000001",
+            "+221770000002",
+            "123456",
+            "1235",
+            "XOF",
+            "Transfert P2P",
+            "FAILED",
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            Instant.parse("2026-01-03T14:00:02.123456Z"),
+            "INSUFFICIENT_BALANCE",
+            "Solde insuffisant é"
+        );
+
+        assertThat(transferCodec.decode(transferCodec.encode(data))).isEqualTo(data);
+    }
+
+    @Test
+    void roundTripsWalletCreatedEvents() {
+        WalletCreatedEvent event = WalletCreatedEvent.builder()
+            .walletId("wal_1")
+            .userId("usr_1")
+            .currency("XOF")
+            .initialBalance(new BigDecimal("0.00"))
+            .status("ACTIVE")
+            .createdAt(Instant.parse("2026-01-03T14:00:00Z"))
+            .build();
+
+        WalletCreatedEvent decoded = walletCodec.decode(walletCodec.encode(event));
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @Test
+    void writesTheProtobufWireFormat() {
+        WalletCreatedEvent event = WalletCreatedEvent.builder().walletId("w").createdAt(Instant.ofEpochSecond(1, 2)).build();
+
+        // field 1 string "w", field 6 Timestamp { seconds: 1, nanos: 2 }
+        assertThat(walletCodec.encode(event)).containsExactly(0x0A, 0x01, 'w', 0x32, 0x04, 0x08, 0x01, 0x10, 0x02);
+    }
+
+    @Test
+    void skipsUnknownFields() {
+        byte[] known = walletCodec.encode(WalletCreatedEvent.builder().walletId("w").build());
+        // field 99 varint 7, then field 100 string "x", as written by a newer schema
+        byte[] unknown = { (byte) 0x98, 0x06, 0x07, (byte) 0xA2, 0x06, 0x01, 'x' };
+        byte[] bytes = Arrays.copyOf(known, known.length + unknown.length);
+        System.arraycopy(unknown, 0, bytes, known.length, unknown.length);
+
+        assertThat(walletCodec.decode(bytes).getWalletId()).isEqualTo("w");
+    }
+
+    @Test
+    void rejectsTruncatedMessages() {
+        byte[] bytes = walletCodec.encode(WalletCreatedEvent.builder().walletId("wallet").build());
+
+        assertThatThrownBy(() -> walletCodec.decode(Arrays.copyOf(bytes, bytes.length - 1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void encodesTransferEventsAsTheSchemaDeclares() {
+        TransferEventData data = new TransferEventData(
+            "TXN_1",
+            "usr_1",
+            "usr_2",
+            "+221770000001",
+            "+221770000002",
+            "123456",
+            "1235",
+            "XOF",
+            "Transfert P2P",
+            "FAILED",
+            Instant.parse("2026-01-03T14:00:00Z"),
+            Instant.parse("2026-01-03T14:00:01Z"),
+            "98765.43",
+            "12345.67",
+            "Awa",
+            "Moussa",
+            Instant.parse("2026-01-03T14:00:02.123456Z"),
+            "INSUFFICIENT_BALANCE",
+            "Solde insuffisant"
+        );
+
+        assertMatchesSchema("TransferEvent", transferCodec.encode(data), data);
+    }
+
+    @Test
+    void encodesWalletCreatedEventsAsTheSchemaDeclares() {
+        WalletCreatedEvent event = WalletCreatedEvent.builder()
+            .walletId("wal_1")
+            .userId("usr_1")
+            .currency("XOF")
+            .initialBalance(new BigDecimal("0.00"))
+            .status("ACTIVE")
+            .createdAt(Instant.parse("2026-01-03T14:00:00Z"))
+            .build();
+
+        assertMatchesSchema("WalletCreated", walletCodec.encode(event), event);
+    }
+
+    @Test
+    void registersSchemasOnce() {
+        InProcessEventSchemaRegistry registry = new InProcessEventSchemaRegistry();
+
+        int transferId = registry.register(transferCodec.getSchemaSubject(), transferCodec.getSchema());
+        int walletId = registry.register(walletCodec.getSchemaSubject(), walletCodec.getSchema());
+
+        assertThat(registry.register(transferCodec.getSchemaSubject(), transferCodec.getSchema())).isEqualTo(transferId);
+        assertThat(walletId).isNotEqualTo(transferId);
+        assertThat(registry.getSchema(walletId)).contains("message WalletCreated");
+        assertThatThrownBy(() -> registry.getSchema(99)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Check an encoded message against its declaration in the {@code .proto} schema: it holds every field of the
+     * message and no other, each with the wire type of its declared type and the value of the data property of the
+     * same name.
+     */
+    private static void assertMatchesSchema(String message, byte[] bytes, Object data) {
+        Map<Integer, SchemaField> fields = schemaFields(message);
+        Map<Integer, Object> encoded = new TreeMap<>();
+        ProtobufInput in = new ProtobufInput(bytes);
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            int number = ProtobufInput.fieldOf(tag);
+            SchemaField field = fields.get(number);
+            assertThat(field).as("field %d of %s", number, message).isNotNull();
+            assertThat(tag & 7).as("wire type of %s.%s", message, field.name()).isEqualTo(field.wireType());
+            encoded.put(number, field.read(in));
+        }
+        assertThat(encoded.keySet()).as("fields of %s", message).isEqualTo(fields.keySet());
+        fields.forEach((number, field) ->
+            assertThat(encoded.get(number)).as("%s.%s", message, field.name()).isEqualTo(field.expected(property(data, field.javaName())))
+        );
+    }
+
+    private static Map<Integer, SchemaField> schemaFields(String message) {
+        Matcher body = Pattern.compile("message " + message + " \\{([^}]*)}").matcher(EventCodec.loadSchema(EventCodec.PROTOBUF_SCHEMA));
+        assertThat(body.find()).as("message %s in the schema", message).isTrue();
+        Map<Integer, SchemaField> fields = new TreeMap<>();
+        Matcher field = Pattern.compile("^\\s*(?:optional\\s+)?([\\w.]+)\\s+(\\w+)\\s*=\\s*(\\d+);", Pattern.MULTILINE).matcher(body.group(1));
+        while (field.find()) {
+            fields.put(Integer.valueOf(field.group(3)), new SchemaField(field.group(1), field.group(2)));
+        }
+        assertThat(fields).as("fields of %s", message).isNotEmpty();
+        return fields;
+    }
+
+    private static Object property(Object data, String name) {
+        Class<?> type = data.getClass();
+        try {
+            Method accessor = type.isRecord()
+                ? type.getMethod(name)
+                : type.getMethod("get" + Character.toUpperCase(name.charAt(0)) + name.substring(1));
+            return accessor.invoke(data);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("No property " + name + " in " + type.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * A field of the schema, with the scalar types and messages used by the TXE events.
+     */
+    private record SchemaField(String type, String name) {
+        int wireType() {
+            return switch (type) {
+                case "int64" -> 0;
+                case "string", "google.protobuf.Timestamp" -> 2;
+                default -> throw new AssertionError("Unsupported schema type " + type);
+            };
+        }
+
+        Object read(ProtobufInput in) {
+            return switch (type) {
+                case "int64" -> in.readInt64();
+                case "string" -> in.readString();
+                default -> in.readTimestamp();
+            };
+        }
+
+        Object expected(Object value) {
+            return switch (type) {
+                case "int64" -> Long.valueOf(value.toString());
+                case "string" -> value instanceof BigDecimal decimal ? decimal.toPlainString() : value;
+                default -> value;
+            };
+        }
+
+        String javaName() {
+            StringBuilder javaName = new StringBuilder(name.length());
+            for (String part : name.split("_")) {
+                javaName.append(javaName.isEmpty() ? part : Character.toUpperCase(part.charAt(0)) + part.substring(1));
+            }
+            return javaName.toString();
+        }
+    }
+}
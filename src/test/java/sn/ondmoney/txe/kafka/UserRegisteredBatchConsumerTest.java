@@ -0,0 +1,230 @@
+package sn.ondmoney.txe.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import sn.ondmoney.txe.domain.Wallet;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.service.ProcessedEventService;
+
+class UserRegisteredBatchConsumerTest {
+
+    private WalletRepository walletRepository;
+    private ProcessedEventService processedEventService;
+    private WalletEventProducer walletEventProducer;
+    private ConsumerTransaction consumerTransaction;
+    private Consumer<?, ?> kafkaConsumer;
+    private UserRegisteredBatchConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        walletRepository = mock(WalletRepository.class);
+        processedEventService = mock(ProcessedEventService.class);
+        walletEventProducer = mock(WalletEventProducer.class);
+        consumerTransaction = mock(ConsumerTransaction.class);
+        kafkaConsumer = mock(Consumer.class);
+        consumer = new UserRegisteredBatchConsumer(
+            walletRepository,
+            processedEventService,
+            walletEventProducer,
+            consumerTransaction,
+            new ObjectMapper()
+        );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createsWalletsWithOneQueryOfEachKind() {
+        when(processedEventService.findProcessed(anyCollection())).thenReturn(Set.of("evt-2"));
+        when(walletRepository.findExistingUserIds(anyCollection())).thenReturn(List.of("usr_3"));
+
+        List<ConsumerRecord<String, String>> records = List.of(
+            structured(0, "evt-1", "usr_1"),
+            structured(1, "evt-2", "usr_2"),
+            structured(2, "evt-3", "usr_3"),
+            binary(3, "evt-4", "usr_4"),
+            structured(4, "evt-1", "usr_1"),
+            structured(5, "evt-5", "usr_4")
+        );
+        consumer.handleUserRegisteredBatch(records, kafkaConsumer);
+
+        verify(processedEventService, times(1)).findProcessed(anyCollection());
+        verify(walletRepository, times(1)).findExistingUserIds(anyCollection());
+
+        ArgumentCaptor<List<Wallet>> wallets = ArgumentCaptor.forClass(List.class);
+        verify(walletRepository).saveAll(wallets.capture());
+        assertThat(wallets.getValue()).extracting(Wallet::getUserId).containsExactly("usr_1", "usr_4");
+
+        ArgumentCaptor<Map<String, Instant>> processed = ArgumentCaptor.forClass(Map.class);
+        verify(processedEventService).markAllProcessed(processed.capture(), eq("user.registered"));
+        assertThat(processed.getValue()).containsOnlyKeys("evt-1", "evt-3", "evt-4", "evt-5");
+
+        verify(walletEventProducer, times(2)).publishWalletCreated(any(), any());
+        verify(walletEventProducer).publishWalletCreated(any(), eq("corr-evt-4"));
+        verify(consumerTransaction).commitOffsets(kafkaConsumer, records);
+    }
+
+    @Test
+    void skipsABatchOfProcessedEvents() {
+        when(processedEventService.findProcessed(anyCollection())).thenReturn(Set.of("evt-1"));
+        List<ConsumerRecord<String, String>> records = List.of(structured(0, "evt-1", "usr_1"));
+
+        consumer.handleUserRegisteredBatch(records, kafkaConsumer);
+
+        verify(walletRepository, never()).findExistingUserIds(anyCollection());
+        verify(walletRepository, never()).saveAll(anyList());
+        verify(walletEventProducer, never()).publishWalletCreated(any(), any());
+        verify(consumerTransaction).commitOffsets(kafkaConsumer, records);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deadLettersTheUnreadableRecordAndGoesOn() {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        records.add(structured(0, "evt-1", "usr_1"));
+        ConsumerRecord<String, String> unreadable = new ConsumerRecord<>("user.registered", 0, 1, "usr_2", "{not json");
+        records.add(unreadable);
+
+        consumer.handleUserRegisteredBatch(records, kafkaConsumer);
+
+        verify(consumerTransaction).deadLetter(eq(unreadable), any(PoisonEventException.class));
+        ArgumentCaptor<List<Wallet>> wallets = ArgumentCaptor.forClass(List.class);
+        verify(walletRepository).saveAll(wallets.capture());
+        assertThat(wallets.getValue()).extracting(Wallet::getUserId).containsExactly("usr_1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deadLettersTheRegistrationOfAUsedPhoneAndGoesOn() {
+        when(walletRepository.findExistingPhones(anyCollection())).thenReturn(List.of(phone("usr_0")));
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        records.add(structured(0, "evt-1", "usr_1"));
+        ConsumerRecord<String, String> usedPhone = structured(1, "evt-2", "usr_2", phone("usr_0"));
+        records.add(usedPhone);
+        ConsumerRecord<String, String> samePhoneInBatch = structured(2, "evt-3", "usr_3", phone("usr_1"));
+        records.add(samePhoneInBatch);
+
+        consumer.handleUserRegisteredBatch(records, kafkaConsumer);
+
+        verify(walletRepository, times(1)).findExistingPhones(anyCollection());
+        verify(consumerTransaction).deadLetter(eq(usedPhone), any(PoisonEventException.class));
+        verify(consumerTransaction).deadLetter(eq(samePhoneInBatch), any(PoisonEventException.class));
+        ArgumentCaptor<List<Wallet>> wallets = ArgumentCaptor.forClass(List.class);
+        verify(walletRepository).saveAll(wallets.capture());
+        assertThat(wallets.getValue()).extracting(Wallet::getUserId).containsExactly("usr_1");
+        // Left unprocessed, so that they can be replayed from the dead-letter topic
+        ArgumentCaptor<Map<String, Instant>> processed = ArgumentCaptor.forClass(Map.class);
+        verify(processedEventService).markAllProcessed(processed.capture(), eq("user.registered"));
+        assertThat(processed.getValue()).containsOnlyKeys("evt-1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void skipsTheEventsProcessedConcurrently() {
+        when(processedEventService.markAllProcessed(anyMap(), eq("user.registered"))).thenReturn(Set.of("evt-1"));
+        List<ConsumerRecord<String, String>> records = List.of(structured(0, "evt-1", "usr_1"), structured(1, "evt-2", "usr_2"));
+
+        consumer.handleUserRegisteredBatch(records, kafkaConsumer);
+
+        ArgumentCaptor<List<Wallet>> wallets = ArgumentCaptor.forClass(List.class);
+        verify(walletRepository).saveAll(wallets.capture());
+        assertThat(wallets.getValue()).extracting(Wallet::getUserId).containsExactly("usr_2");
+        verify(walletEventProducer, times(1)).publishWalletCreated(any(), any());
+    }
+
+    @Test
+    void recordsTheEventTimeOfTheEnvelope() {
+        List<ConsumerRecord<String, String>> records = List.of(structured(0, "evt-1", "usr_1"), binary(1, "evt-2", "usr_2"));
+
+        consumer.handleUserRegisteredBatch(records, kafkaConsumer);
+
+        verify(processedEventService).markAllProcessed(
+            eq(Map.of("evt-1", Instant.parse("2026-10-17T23:59:59Z"), "evt-2", Instant.parse("2026-10-18T08:00:00Z"))),
+            eq("user.registered")
+        );
+    }
+
+    @Test
+    void recordsNoEventTimeWithoutOneInTheEnvelope() {
+        // Republished from the DLT: a new record timestamp, which must not date the event
+        ConsumerRecord<String, String> republished = new ConsumerRecord<>(
+            "user.registered",
+            0,
+            0,
+            Instant.parse("2026-10-19T10:00:00Z").toEpochMilli(),
+            TimestampType.CREATE_TIME,
+            -1,
+            -1,
+            "usr_1",
+            data("usr_1", phone("usr_1")),
+            new RecordHeaders(),
+            Optional.empty()
+        );
+        republished.headers().add(CloudEventWriter.HEADER_SPEC_VERSION, "1.0".getBytes(StandardCharsets.UTF_8));
+        republished.headers().add(CloudEventWriter.HEADER_ID, "evt-1".getBytes(StandardCharsets.UTF_8));
+
+        consumer.handleUserRegisteredBatch(List.of(republished), kafkaConsumer);
+
+        Map<String, Instant> eventTimes = new HashMap<>();
+        eventTimes.put("evt-1", null);
+        verify(processedEventService).markAllProcessed(eq(eventTimes), eq("user.registered"));
+    }
+
+    private static ConsumerRecord<String, String> structured(long offset, String eventId, String userId) {
+        return structured(offset, eventId, userId, phone(userId));
+    }
+
+    private static ConsumerRecord<String, String> structured(long offset, String eventId, String userId, String phone) {
+        String payload =
+            "{\"specversion\":\"1.0\",\"id\":\"" +
+            eventId +
+            "\",\"type\":\"user.registered\",\"time\":\"2026-10-17T23:59:59Z\",\"ondmoney\":{\"correlationId\":\"corr-" +
+            eventId +
+            "\"},\"data\":" +
+            data(userId, phone) +
+            "}";
+        return new ConsumerRecord<>("user.registered", 0, offset, userId, payload);
+    }
+
+    private static ConsumerRecord<String, String> binary(long offset, String eventId, String userId) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("user.registered", 0, offset, userId, data(userId, phone(userId)));
+        record.headers().add(CloudEventWriter.HEADER_SPEC_VERSION, "1.0".getBytes(StandardCharsets.UTF_8));
+        record.headers().add(CloudEventWriter.HEADER_ID, eventId.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(CloudEventWriter.HEADER_CORRELATION_ID, ("corr-" + eventId).getBytes(StandardCharsets.UTF_8));
+        record.headers().add(CloudEventWriter.HEADER_TIME, "2026-10-18T08:00:00Z".getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private static String data(String userId, String phone) {
+        return "{\"userId\":\"" + userId + "\",\"keycloakId\":\"kc-" + userId + "\",\"phoneNumber\":\"" + phone + "\"}";
+    }
+
+    private static String phone(String userId) {
+        return "+22177000000" + userId.substring(userId.indexOf('_') + 1);
+    }
+}
@@ -15,6 +15,7 @@ import sn.ondmoney.txe.domain.Wallet;
 import sn.ondmoney.txe.repository.ProcessedEventRepository;
 import sn.ondmoney.txe.repository.WalletRepository;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
@@ -111,6 +112,37 @@ class UserRegisteredConsumerIntegrationTest {
         assertThat(wallet.get().getBalance()).isNotNull();
     }
 
+    @Test
+    @DisplayName("Should create wallet when receiving a binary-mode user.registered event")
+    void handleUserRegistered_ShouldCreateWalletFromBinaryEvent() throws Exception {
+        // Given
+        Map<String, Object> userData = Map.of(
+            "userId", TEST_USER_ID,
+            "keycloakId", "kc_123",
+            "phoneNumber", TEST_PHONE,
+            "registeredAt", Instant.now().toString()
+        );
+        ProducerRecord<String, String> record = new ProducerRecord<>(
+            USER_REGISTERED_TOPIC,
+            TEST_USER_ID,
+            objectMapper.writeValueAsString(userData)
+        );
+        record.headers().add(CloudEventWriter.HEADER_SPEC_VERSION, "1.0".getBytes(StandardCharsets.UTF_8));
+        record.headers().add(CloudEventWriter.HEADER_ID, ("evt_" + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8));
+        record.headers().add(CloudEventWriter.HEADER_TYPE, USER_REGISTERED_TOPIC.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(CloudEventWriter.HEADER_CORRELATION_ID, "corr_123".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        kafkaTemplate.send(record);
+
+        // Then - wait for wallet to be created
+        await()
+            .atMost(Duration.ofSeconds(10))
+            .until(() -> walletRepository.findByUserId(TEST_USER_ID).isPresent());
+
+        assertThat(walletRepository.findByUserId(TEST_USER_ID).get().getPhone()).isEqualTo(TEST_PHONE);
+    }
+
     @Test
     @DisplayName("Should be idempotent - not create duplicate wallet for same event")
     void handleUserRegistered_ShouldBeIdempotent() throws Exception {
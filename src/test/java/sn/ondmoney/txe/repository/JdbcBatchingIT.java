@@ -0,0 +1,115 @@
+package sn.ondmoney.txe.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import sn.ondmoney.txe.IntegrationTest;
+import sn.ondmoney.txe.domain.Wallet;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+import sn.ondmoney.txe.service.P2PTransferService;
+import sn.ondmoney.txe.service.WalletLookupService;
+import sn.ondmoney.txe.service.dto.P2PTransferRequest;
+
+/**
+ * Counts the JDBC statements of the write paths, to catch a lost batching or sequence pooling setting.
+ * <p>
+ * Sequence calls are bounded by one per entity type: each type pools 100 ids.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class JdbcBatchingIT {
+
+    private static final int TRANSFERS = 10;
+    private static final int IMPORTED_WALLETS = 100;
+
+    @Autowired
+    private P2PTransferService p2pTransferService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private WalletLookupService walletLookupService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanup() {
+        outboxEventRepository.deleteAll();
+        transferRepository.deleteAll();
+        walletRepository.deleteAll();
+        walletLookupService.evictAll();
+    }
+
+    @Test
+    void transferRunsAFixedNumberOfStatements() {
+        walletRepository.saveAndFlush(createWallet(0));
+        walletRepository.saveAndFlush(createWallet(1));
+        // Warm up the id pools of Transfer and OutboxEvent
+        p2pTransferService.initiateTransfer(phone(0), new P2PTransferRequest(phone(1), new BigDecimal("1000"), "warm-up", null), "corr_batch", null);
+        statistics.clear();
+
+        for (int i = 0; i < TRANSFERS; i++) {
+            p2pTransferService.initiateTransfer(phone(0), new P2PTransferRequest(phone(1), new BigDecimal("1000"), "batch", null), "corr_batch", null);
+        }
+
+        // Per transfer: resolve both wallets, debit, credit, read back balances,
+        // then one insert for the transfer and one batched insert for its two outbox events
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(3L * TRANSFERS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6L * TRANSFERS + 2);
+    }
+
+    @Test
+    void bulkImportIsBatched() {
+        List<Wallet> wallets = new ArrayList<>();
+        for (int i = 0; i < IMPORTED_WALLETS; i++) {
+            wallets.add(createWallet(i));
+        }
+        statistics.clear();
+
+        walletRepository.saveAll(wallets);
+
+        // 100 inserts in batches of 25, and at most two sequence calls
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(IMPORTED_WALLETS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(IMPORTED_WALLETS / 25 + 2);
+    }
+
+    private static String phone(int index) {
+        return String.format("+22176%07d", index);
+    }
+
+    private static Wallet createWallet(int index) {
+        return new Wallet()
+            .userId("usr_batch_" + index)
+            .phone(phone(index))
+            .status(WalletStatus.ACTIVE)
+            .balance(new BigDecimal("1000000"))
+            .version(0)
+            .createdAt(Instant.now());
+    }
+}
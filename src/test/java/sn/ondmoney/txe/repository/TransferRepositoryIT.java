@@ -0,0 +1,110 @@
+package sn.ondmoney.txe.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import sn.ondmoney.txe.IntegrationTest;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.Transfer;
+import sn.ondmoney.txe.domain.Wallet;
+import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+
+/**
+ * Keyset pages of the transfers of a wallet, and their settlement claims.
+ */
+@IntegrationTest
+class TransferRepositoryIT {
+
+    private static final Instant START = Instant.parse("2026-10-01T00:00:00Z");
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    private Wallet sender;
+    private Wallet receiver;
+
+    @BeforeEach
+    void setUp() {
+        sender = walletRepository.saveAndFlush(createWallet("usr_page_sender", "+221760000001"));
+        receiver = walletRepository.saveAndFlush(createWallet("usr_page_receiver", "+221760000002"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        transferRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void pagesTheSentTransfersNewestFirst() {
+        List<Transfer> transfers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // Two transfers per instant, ordered by id
+            transfers.add(createTransfer("TX_PAGE_" + i, START.plusSeconds(i / 2)));
+        }
+        transferRepository.saveAllAndFlush(transfers);
+
+        List<Transfer> first = transferRepository.findSentByWallet(sender.getId(), Limit.of(2));
+        Transfer last = first.get(first.size() - 1);
+        List<Transfer> second = transferRepository.findSentByWalletBefore(sender.getId(), last.getInitiatedAt(), last.getId(), Limit.of(2));
+        last = second.get(second.size() - 1);
+        List<Transfer> third = transferRepository.findSentByWalletBefore(sender.getId(), last.getInitiatedAt(), last.getId(), Limit.of(2));
+
+        assertThat(first).extracting(Transfer::getTxId).containsExactly("TX_PAGE_4", "TX_PAGE_3");
+        assertThat(second).extracting(Transfer::getTxId).containsExactly("TX_PAGE_2", "TX_PAGE_1");
+        assertThat(third).extracting(Transfer::getTxId).containsExactly("TX_PAGE_0");
+        assertThat(transferRepository.findReceivedByWallet(sender.getId(), Limit.of(2))).isEmpty();
+        assertThat(transferRepository.findReceivedByWallet(receiver.getId(), Limit.of(10))).hasSize(5);
+    }
+
+    @Test
+    void settlesAProcessingTransferOnce() {
+        Transfer transfer = createTransfer("TX_CLAIM", START);
+        transfer.setStatus(TransactionStatus.PROCESSING);
+        Long id = transferRepository.saveAndFlush(transfer).getId();
+
+        assertThat(transferRepository.completeProcessing(id, START.plusSeconds(1))).isEqualTo(1);
+        assertThat(transferRepository.completeProcessing(id, START.plusSeconds(2))).isZero();
+        assertThat(transferRepository.failProcessing(id, "too late", START.plusSeconds(2))).isZero();
+
+        Transfer settled = transferRepository.findById(id).orElseThrow();
+        assertThat(settled.getStatus()).isEqualTo(TransactionStatus.COMPLETED);
+        assertThat(settled.getCompletedAt()).isEqualTo(START.plusSeconds(1));
+        assertThat(settled.getErrorMessage()).isNull();
+    }
+
+    private Transfer createTransfer(String txId, Instant initiatedAt) {
+        return new Transfer()
+            .txId(txId)
+            .status(TransactionStatus.COMPLETED)
+            .amount(Money.xof(1000))
+            .fees(Money.xof(10))
+            .senderPhone(sender.getPhone())
+            .receiverPhone(receiver.getPhone())
+            .initiatedAt(initiatedAt)
+            .sender(sender)
+            .receiver(receiver);
+    }
+
+    private static Wallet createWallet(String userId, String phone) {
+        return new Wallet()
+            .userId(userId)
+            .phone(phone)
+            .status(WalletStatus.ACTIVE)
+            .balance(new BigDecimal("1000000"))
+            .version(0)
+            .createdAt(Instant.now());
+    }
+}
@@ -0,0 +1,49 @@
+package sn.ondmoney.txe.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Slice;
+
+class KeysetCursorTest {
+
+    @Test
+    void decodesTheTokenItEncodes() {
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("2026-10-18T10:15:30.123456Z"), 1234L);
+
+        String token = cursor.encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void startsFromTheFirstPageWithoutToken() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode("")).isNull();
+    }
+
+    @Test
+    void rejectsATokenItDidNotEncode() {
+        String forged = Base64.getUrlEncoder().encodeToString("yesterday_1".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(forged)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("not a token")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void tellsWhetherANextPageExistsFromTheExtraRow() {
+        Slice<Integer> page = KeysetCursor.slice(List.of(1, 2, 3), 2);
+        Slice<Integer> last = KeysetCursor.slice(List.of(1, 2), 2);
+
+        assertThat(page.getContent()).containsExactly(1, 2);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(last.getContent()).containsExactly(1, 2);
+        assertThat(last.hasNext()).isFalse();
+    }
+}
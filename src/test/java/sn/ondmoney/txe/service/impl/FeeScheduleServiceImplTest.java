@@ -0,0 +1,124 @@
+package sn.ondmoney.txe.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.mock.env.MockEnvironment;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.enumeration.TransactionType;
+import sn.ondmoney.txe.service.dto.FeeQuoteResponse;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+class FeeScheduleServiceImplTest {
+
+    private final MockEnvironment environment = new MockEnvironment();
+
+    @Test
+    void defaultScheduleIsOnePercentRoundedUpWithinBounds() {
+        FeeScheduleServiceImpl service = new FeeScheduleServiceImpl(new ApplicationProperties(), environment);
+
+        assertThat(service.calculateFees(TransactionType.TRANSFER_P2P, Money.xof(1))).isEqualTo(Money.xof(25));
+        assertThat(service.calculateFees(TransactionType.TRANSFER_P2P, Money.xof(2501))).isEqualTo(Money.xof(26));
+        assertThat(service.calculateFees(TransactionType.TRANSFER_P2P, Money.xof(5000))).isEqualTo(Money.xof(50));
+        assertThat(service.calculateFees(TransactionType.TRANSFER_P2P, Money.xof(123_456))).isEqualTo(Money.xof(1235));
+        assertThat(service.calculateFees(TransactionType.TRANSFER_P2P, Money.xof(500_001))).isEqualTo(Money.xof(5000));
+    }
+
+    @Test
+    void picksTheTierOfTheAmount() {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getFees().setTiers(List.of(
+            new ApplicationProperties.FeeTier(TransactionType.BILL_PAYMENT, 100, 0, 50, 0, null),
+            new ApplicationProperties.FeeTier(TransactionType.BILL_PAYMENT, 10_000, 50, 100, 0, 1000L)
+        ));
+        FeeScheduleServiceImpl service = new FeeScheduleServiceImpl(properties, environment);
+
+        assertThat(service.calculateFees(TransactionType.BILL_PAYMENT, Money.xof(100))).isEqualTo(Money.xof(50));
+        assertThat(service.calculateFees(TransactionType.BILL_PAYMENT, Money.xof(9999))).isEqualTo(Money.xof(50));
+        assertThat(service.calculateFees(TransactionType.BILL_PAYMENT, Money.xof(10_000))).isEqualTo(Money.xof(150));
+        assertThat(service.calculateFees(TransactionType.BILL_PAYMENT, Money.xof(10_000_000))).isEqualTo(Money.xof(1000));
+        assertThatThrownBy(() -> service.calculateFees(TransactionType.BILL_PAYMENT, Money.xof(99)))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "FEE_TIER_NOT_FOUND");
+        assertThatThrownBy(() -> service.calculateFees(TransactionType.TRANSFER_P2P, Money.xof(1000)))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "FEE_TIER_NOT_FOUND");
+    }
+
+    @Test
+    void quotesTheTotalDebited() {
+        FeeScheduleServiceImpl service = new FeeScheduleServiceImpl(new ApplicationProperties(), environment);
+
+        FeeQuoteResponse quote = service.quote(TransactionType.TRANSFER_P2P, new BigDecimal("10000"));
+
+        assertThat(quote.getFees()).isEqualTo(Money.xof(100));
+        assertThat(quote.getTotalDebited()).isEqualTo(Money.xof(10_100));
+        assertThat(quote.getCurrency()).isEqualTo(Money.XOF);
+        assertThatThrownBy(() -> service.quote(TransactionType.TRANSFER_P2P, new BigDecimal("0")))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "INVALID_AMOUNT");
+    }
+
+    @Test
+    void rejectsAnAmountWhoseFeesOverflow() {
+        FeeScheduleServiceImpl service = new FeeScheduleServiceImpl(new ApplicationProperties(), environment);
+
+        assertThatThrownBy(() -> service.quote(TransactionType.TRANSFER_P2P, BigDecimal.valueOf(Long.MAX_VALUE / 10)))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "INVALID_AMOUNT");
+        assertThatThrownBy(() -> service.quote(TransactionType.TRANSFER_P2P, new BigDecimal("1e30")))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "INVALID_AMOUNT");
+    }
+
+    @Test
+    void rejectsAnAmountWhoseTotalOverflows() {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getFees().setTiers(List.of(new ApplicationProperties.FeeTier(TransactionType.TRANSFER_P2P, 0, 0, 10, 0, null)));
+        FeeScheduleServiceImpl service = new FeeScheduleServiceImpl(properties, environment);
+
+        assertThatThrownBy(() -> service.quote(TransactionType.TRANSFER_P2P, BigDecimal.valueOf(Long.MAX_VALUE - 5)))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "INVALID_AMOUNT");
+    }
+
+    @Test
+    void rejectsAnInvalidSchedule() {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getFees().setTiers(List.of(
+            new ApplicationProperties.FeeTier(TransactionType.TRANSFER_P2P, 0, 100, 0, 25, 5000L),
+            new ApplicationProperties.FeeTier(TransactionType.TRANSFER_P2P, 0, 50, 0, 25, 5000L)
+        ));
+
+        assertThatThrownBy(() -> new FeeScheduleServiceImpl(properties, environment)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reloadsTheScheduleOnRefresh() {
+        FeeScheduleServiceImpl service = new FeeScheduleServiceImpl(new ApplicationProperties(), environment);
+        environment
+            .withProperty("application.fees.tiers[0].type", "TRANSFER_P2P")
+            .withProperty("application.fees.tiers[0].from-amount", "0")
+            .withProperty("application.fees.tiers[0].fixed-fee", "10");
+
+        service.onEnvironmentChange(new EnvironmentChangeEvent(Set.of("application.fees.tiers[0].fixed-fee")));
+
+        assertThat(service.calculateFees(TransactionType.TRANSFER_P2P, Money.xof(100_000))).isEqualTo(Money.xof(10));
+    }
+
+    @Test
+    void keepsTheScheduleWhenTheRefreshIsInvalid() {
+        FeeScheduleServiceImpl service = new FeeScheduleServiceImpl(new ApplicationProperties(), environment);
+        environment.withProperty("application.fees.tiers[0].from-amount", "0");
+
+        service.onEnvironmentChange(new EnvironmentChangeEvent(Set.of("application.fees.tiers[0].from-amount")));
+
+        assertThat(service.calculateFees(TransactionType.TRANSFER_P2P, Money.xof(100_000))).isEqualTo(Money.xof(1000));
+    }
+}
@@ -0,0 +1,128 @@
+package sn.ondmoney.txe.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.IdempotencyRecord;
+import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
+import sn.ondmoney.txe.repository.IdempotencyRecordRepository;
+import sn.ondmoney.txe.service.IdempotencyService;
+import sn.ondmoney.txe.service.dto.P2PTransferRequest;
+import sn.ondmoney.txe.service.dto.P2PTransferResponse;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+class IdempotencyServiceImplTest {
+
+    private static final String SENDER = "+221770000001";
+    private static final String KEY = "c0ffee";
+    private static final P2PTransferRequest REQUEST = new P2PTransferRequest("+221770000002", new BigDecimal("1000"), "rent", null);
+
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    private IMap<String, IdempotencyRecord> records;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private IdempotencyServiceImpl service;
+    private final AtomicInteger transfers = new AtomicInteger();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws InterruptedException {
+        idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+        records = mock(IMap.class);
+        HazelcastInstance hazelcastInstance = mock(HazelcastInstance.class);
+        when(hazelcastInstance.<String, IdempotencyRecord>getMap(IdempotencyServiceImpl.IDEMPOTENCY_MAP)).thenReturn(records);
+        when(records.tryLock(any(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        when(idempotencyRecordRepository.findBySenderPhoneAndIdempotencyKey(SENDER, KEY)).thenReturn(Optional.empty());
+        service = new IdempotencyServiceImpl(idempotencyRecordRepository, hazelcastInstance, objectMapper, new ApplicationProperties());
+    }
+
+    @Test
+    void runsFirstRequestAndCachesItsResponse() {
+        P2PTransferResponse response = service.execute(SENDER, KEY, REQUEST, this::transfer);
+
+        assertThat(response.getTransactionId()).isEqualTo("TXN_1");
+        verify(records).set(eq(SENDER + ":" + KEY), any(IdempotencyRecord.class), eq(86400L), eq(TimeUnit.SECONDS));
+        // Recorded by the transfer itself, in its transaction
+        verify(idempotencyRecordRepository, never()).save(any(IdempotencyRecord.class));
+        verify(records).unlock(SENDER + ":" + KEY);
+    }
+
+    @Test
+    void replaysProcessingTransferWithoutCachingIt() throws Exception {
+        IdempotencyRecord processing = new IdempotencyRecord(
+            SENDER, KEY, IdempotencyServiceImpl.hash(REQUEST), "TXN_ORIGINAL", null, Instant.now().plusSeconds(60)
+        );
+        when(idempotencyRecordRepository.findBySenderPhoneAndIdempotencyKey(SENDER, KEY)).thenReturn(Optional.of(processing));
+
+        P2PTransferResponse response = service.execute(SENDER, KEY, REQUEST, this::transfer);
+
+        assertThat(response.getTransactionId()).isEqualTo("TXN_ORIGINAL");
+        assertThat(response.getStatus()).isEqualTo(TransactionStatus.PROCESSING);
+        assertThat(transfers).hasValue(0);
+        verify(records, never()).set(any(), any(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void rejectsRecordOfKeyAlreadyRecorded() {
+        when(
+            idempotencyRecordRepository.insertIfAbsent(eq(SENDER), eq(KEY), any(), eq("TXN_2"), any(), any(Instant.class), any(Instant.class))
+        ).thenReturn(0);
+
+        assertThatThrownBy(() -> service.record(new IdempotencyService.Claim(SENDER, KEY, "hash"), "TXN_2", transfer(null)))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "IDEMPOTENCY_KEY_IN_USE");
+    }
+
+    @Test
+    void replaysStoredResponseWithoutRunningTransfer() throws Exception {
+        when(records.get(SENDER + ":" + KEY)).thenReturn(record(IdempotencyServiceImpl.hash(REQUEST)));
+
+        P2PTransferResponse response = service.execute(SENDER, KEY, REQUEST, this::transfer);
+
+        assertThat(response.getTransactionId()).isEqualTo("TXN_ORIGINAL");
+        assertThat(transfers).hasValue(0);
+        verify(records, never()).tryLock(any(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void rejectsKeyReusedForAnotherRequest() throws Exception {
+        when(records.get(SENDER + ":" + KEY)).thenReturn(record("another-hash"));
+
+        assertThatThrownBy(() -> service.execute(SENDER, KEY, REQUEST, this::transfer))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "IDEMPOTENCY_KEY_REUSED");
+        assertThat(transfers).hasValue(0);
+    }
+
+    private P2PTransferResponse transfer(IdempotencyService.Claim claim) {
+        return P2PTransferResponse.builder()
+            .transactionId("TXN_" + transfers.incrementAndGet())
+            .status(TransactionStatus.COMPLETED)
+            .build();
+    }
+
+    private IdempotencyRecord record(String requestHash) throws Exception {
+        String json = objectMapper.writeValueAsString(
+            P2PTransferResponse.builder().transactionId("TXN_ORIGINAL").status(TransactionStatus.COMPLETED).build()
+        );
+        return new IdempotencyRecord(SENDER, KEY, requestHash, "TXN_ORIGINAL", json, Instant.now().plusSeconds(60));
+    }
+}
@@ -0,0 +1,91 @@
+package sn.ondmoney.txe.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.enumeration.TransactionType;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+import sn.ondmoney.txe.kafka.TransferEventProducer;
+import sn.ondmoney.txe.repository.TransferRepository;
+import sn.ondmoney.txe.repository.WalletIdentity;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.service.FeeScheduleService;
+import sn.ondmoney.txe.service.IdempotencyService;
+import sn.ondmoney.txe.service.TxIdGenerator;
+import sn.ondmoney.txe.service.WalletBalanceShardService;
+import sn.ondmoney.txe.service.WalletConcurrencyStrategy;
+import sn.ondmoney.txe.service.WalletLookupService;
+import sn.ondmoney.txe.service.dto.P2PTransferRequest;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+class P2PTransferServiceImplTest {
+
+    private static final String SENDER = "+221770000001";
+    private static final String RECEIVER = "+221770000002";
+
+    @Test
+    void rejectsFractionalAmounts() {
+        P2PTransferRequest request = new P2PTransferRequest(RECEIVER, new BigDecimal("1000.50"), null, null);
+
+        assertThatThrownBy(() -> P2PTransferServiceImpl.amountOf(request))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "INVALID_AMOUNT");
+    }
+
+    @Test
+    void sendsNoFailedEventForATransferRolledBack() {
+        WalletRepository walletRepository = mock(WalletRepository.class);
+        when(walletRepository.findByIdIn(anyCollection())).thenThrow(new IllegalStateException("Connection reset"));
+        WalletConcurrencyStrategy strategy = mock(WalletConcurrencyStrategy.class);
+        when(strategy.getMode()).thenReturn(WalletConcurrencyStrategy.Mode.ATOMIC);
+        FeeScheduleService feeScheduleService = mock(FeeScheduleService.class);
+        when(feeScheduleService.calculateFees(any(TransactionType.class), any(Money.class))).thenReturn(Money.xof(10));
+        Map<String, WalletIdentity> parties = Map.of(SENDER, identity(1L, SENDER), RECEIVER, identity(2L, RECEIVER));
+        WalletLookupService walletLookupService = mock(WalletLookupService.class);
+        when(walletLookupService.findByPhones(anyCollection())).thenReturn(parties);
+        TxIdGenerator txIdGenerator = mock(TxIdGenerator.class);
+        when(txIdGenerator.nextTxId()).thenReturn("TX_ROLLED_BACK");
+        TransferEventProducer transferEventProducer = mock(TransferEventProducer.class);
+        P2PTransferServiceImpl service = new P2PTransferServiceImpl(
+            walletRepository,
+            mock(TransferRepository.class),
+            transferEventProducer,
+            new ApplicationProperties(),
+            List.of(strategy),
+            mock(WalletBalanceShardService.class),
+            txIdGenerator,
+            feeScheduleService,
+            walletLookupService,
+            mock(IdempotencyService.class)
+        );
+
+        P2PTransferRequest request = new P2PTransferRequest(RECEIVER, new BigDecimal("1000"), null, null);
+        assertThatThrownBy(() -> service.initiateTransfer(SENDER, request, "corr-1", null))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "TRANSFER_FAILED");
+
+        // Only the transfer.initiated event of the rolled back transaction
+        verify(transferEventProducer).publishTransferInitiated(any(), any(), any(), any());
+        verifyNoMoreInteractions(transferEventProducer);
+    }
+
+    private static WalletIdentity identity(Long id, String phone) {
+        WalletIdentity identity = mock(WalletIdentity.class);
+        when(identity.getId()).thenReturn(id);
+        when(identity.getPhone()).thenReturn(phone);
+        when(identity.getStatus()).thenReturn(WalletStatus.ACTIVE);
+        when(identity.getBalanceShards()).thenReturn(0L);
+        return identity;
+    }
+}
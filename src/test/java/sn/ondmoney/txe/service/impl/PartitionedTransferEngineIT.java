@@ -0,0 +1,131 @@
+package sn.ondmoney.txe.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import sn.ondmoney.txe.IntegrationTest;
+import sn.ondmoney.txe.domain.Wallet;
+import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+import sn.ondmoney.txe.repository.OutboxEventRepository;
+import sn.ondmoney.txe.repository.TransferRepository;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.service.WalletLookupService;
+import sn.ondmoney.txe.service.dto.P2PTransferRequest;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Integration tests for the {@link PartitionedTransferEngine}.
+ */
+@IntegrationTest
+@TestPropertySource(properties = { "application.transfer-engine.enabled=true", "application.transfer-engine.partitions=4" })
+class PartitionedTransferEngineIT {
+
+    private static final int WALLETS = 6;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000");
+    private static final BigDecimal AMOUNT = new BigDecimal("1000");
+    private static final BigDecimal FEES = new BigDecimal("25");
+
+    @Autowired
+    private PartitionedTransferEngine transferEngine;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private WalletLookupService walletLookupService;
+
+    private final List<Wallet> wallets = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Wallets of other tests may have had the same phone numbers
+        walletLookupService.evictAll();
+        for (int i = 0; i < WALLETS; i++) {
+            wallets.add(walletRepository.saveAndFlush(createWallet(i, WalletStatus.ACTIVE)));
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        outboxEventRepository.deleteAll();
+        transferRepository.deleteAll();
+        walletRepository.deleteAll();
+        walletLookupService.evictAll();
+        wallets.clear();
+    }
+
+    @Test
+    void concurrentTransfersAcrossPartitionsLoseNoUpdate() throws Exception {
+        AtomicInteger completed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(
+                executor.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        Wallet from = wallets.get((thread + i) % WALLETS);
+                        Wallet to = wallets.get((thread + i + 1 + thread % 3) % WALLETS);
+                        transferEngine.submit(from.getPhone(), new P2PTransferRequest(to.getPhone(), AMOUNT, "engine", null), "corr_engine", null);
+                        completed.incrementAndGet();
+                    }
+                    return null;
+                })
+            );
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        BigDecimal total = walletRepository.findAll().stream().map(Wallet::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(total).isEqualByComparingTo(
+            INITIAL_BALANCE.multiply(BigDecimal.valueOf(WALLETS)).subtract(FEES.multiply(BigDecimal.valueOf(completed.get())))
+        );
+        assertThat(transferRepository.findAllByStatus(TransactionStatus.COMPLETED)).hasSize(completed.get());
+        assertThat(transferRepository.findAllByStatus(TransactionStatus.PROCESSING)).isEmpty();
+    }
+
+    @Test
+    void rejectedTransferLeavesSenderUntouched() {
+        Wallet receiver = walletRepository.saveAndFlush(createWallet(WALLETS, WalletStatus.SUSPENDED));
+        Wallet sender = wallets.get(0);
+
+        assertThatThrownBy(() ->
+            transferEngine.submit(sender.getPhone(), new P2PTransferRequest(receiver.getPhone(), AMOUNT, "engine", null), "corr_engine", null)
+        ).isInstanceOf(BadRequestAlertException.class);
+
+        assertThat(walletRepository.findById(sender.getId()).orElseThrow().getBalance()).isEqualByComparingTo(INITIAL_BALANCE);
+        assertThat(transferRepository.findAllByStatus(TransactionStatus.PROCESSING)).isEmpty();
+    }
+
+    private static Wallet createWallet(int index, WalletStatus status) {
+        return new Wallet()
+            .userId("usr_engine_" + index)
+            .phone("+22177100000" + index)
+            .status(status)
+            .balance(INITIAL_BALANCE)
+            .version(0)
+            .createdAt(Instant.now());
+    }
+}
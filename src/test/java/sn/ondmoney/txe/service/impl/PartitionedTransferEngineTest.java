@@ -0,0 +1,50 @@
+package sn.ondmoney.txe.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.kafka.TransferEventProducer;
+import sn.ondmoney.txe.repository.TransferRepository;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.service.FeeScheduleService;
+import sn.ondmoney.txe.service.IdempotencyService;
+import sn.ondmoney.txe.service.TxIdGenerator;
+import sn.ondmoney.txe.service.WalletBalanceShardService;
+import sn.ondmoney.txe.service.WalletLookupService;
+import sn.ondmoney.txe.service.dto.P2PTransferRequest;
+
+class PartitionedTransferEngineTest {
+
+    @Test
+    void rejectsTransfersWhileNotRunning() {
+        WalletLookupService walletLookupService = mock(WalletLookupService.class);
+        TxIdGenerator txIdGenerator = mock(TxIdGenerator.class);
+        PartitionedTransferEngine engine = new PartitionedTransferEngine(
+            mock(WalletRepository.class),
+            mock(TransferRepository.class),
+            mock(TransferEventProducer.class),
+            mock(WalletBalanceShardService.class),
+            txIdGenerator,
+            mock(FeeScheduleService.class),
+            walletLookupService,
+            mock(IdempotencyService.class),
+            new ApplicationProperties(),
+            mock(EntityManager.class),
+            mock(PlatformTransactionManager.class)
+        );
+        P2PTransferRequest request = new P2PTransferRequest("+221770000002", new BigDecimal("1000"), null, null);
+
+        assertThatThrownBy(() -> engine.submit("+221770000001", request, "corr-1", null))
+            .isInstanceOf(ResponseStatusException.class)
+            .hasFieldOrPropertyWithValue("statusCode", HttpStatus.SERVICE_UNAVAILABLE);
+        verifyNoInteractions(walletLookupService, txIdGenerator);
+    }
+}
@@ -0,0 +1,249 @@
+package sn.ondmoney.txe.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.ProcessedEvent;
+import sn.ondmoney.txe.repository.ProcessedEventKey;
+import sn.ondmoney.txe.repository.ProcessedEventPartitionRepository;
+import sn.ondmoney.txe.repository.ProcessedEventRepository;
+
+class ProcessedEventServiceImplTest {
+
+    private ProcessedEventRepository processedEventRepository;
+    private ProcessedEventPartitionRepository partitionRepository;
+    private ProcessedEventServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        processedEventRepository = mock(ProcessedEventRepository.class);
+        partitionRepository = mock(ProcessedEventPartitionRepository.class);
+        // Everything is inserted, unless a test says otherwise
+        when(processedEventRepository.insertAllIfAbsent(anyCollection())).thenAnswer(ProcessedEventServiceImplTest::allIds);
+        when(processedEventRepository.insertAllIfAbsentOnAnyDay(anyCollection())).thenAnswer(ProcessedEventServiceImplTest::allIds);
+        service = new ProcessedEventServiceImpl(
+            processedEventRepository,
+            partitionRepository,
+            mock(PlatformTransactionManager.class),
+            new SimpleMeterRegistry(),
+            new ApplicationProperties()
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void checksTheDatabaseUntilSynchronized() {
+        assertThat(service.isProcessed("evt-1")).isFalse();
+
+        verify(processedEventRepository).existsByEventId("evt-1");
+    }
+
+    @Test
+    void newEventsSkipTheDatabaseOnceSynchronized() {
+        when(processedEventRepository.streamProcessedSince(any())).thenReturn(Stream.of(key("evt-old", Instant.now())));
+        when(processedEventRepository.existsByEventId("evt-old")).thenReturn(true);
+        service.synchronizeNow();
+
+        assertThat(service.isProcessed("evt-new")).isFalse();
+        verify(processedEventRepository, never()).existsByEventId("evt-new");
+
+        assertThat(service.isProcessed("evt-old")).isTrue();
+        assertThat(service.isProcessed("evt-old")).isTrue();
+        // The second check is answered by the recent ids
+        verify(processedEventRepository, times(1)).existsByEventId("evt-old");
+    }
+
+    @Test
+    void remembersCommittedEventsOnly() {
+        when(processedEventRepository.streamProcessedSince(any())).thenReturn(Stream.empty());
+        service.synchronizeNow();
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.markProcessed("evt-rolled-back", Instant.now(), "user.registered");
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.markProcessed("evt-committed", Instant.now(), "user.registered");
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(service.isProcessed("evt-rolled-back")).isFalse();
+        verify(processedEventRepository).existsByEventId("evt-rolled-back");
+        assertThat(service.isProcessed("evt-committed")).isTrue();
+        verify(processedEventRepository, never()).existsByEventId("evt-committed");
+    }
+
+    @Test
+    void queriesOnlyTheFilterHitsOfABatch() {
+        when(processedEventRepository.streamProcessedSince(any())).thenReturn(Stream.of(key("evt-2", Instant.now())));
+        when(processedEventRepository.findProcessedEventIds(anyCollection())).thenReturn(List.of("evt-2"));
+        service.synchronizeNow();
+        service.markAllProcessed(Map.of("evt-1", Instant.now()), "user.registered");
+
+        assertThat(service.findProcessed(List.of("evt-1", "evt-2", "evt-3"))).containsExactlyInAnyOrder("evt-1", "evt-2");
+        verify(processedEventRepository).findProcessedEventIds(List.of("evt-2"));
+    }
+
+    @Test
+    void synchronizesOffTheCallingThread() {
+        String caller = Thread.currentThread().getName();
+        AtomicReference<String> loader = new AtomicReference<>();
+        when(processedEventRepository.streamProcessedSince(any())).thenAnswer(invocation -> {
+            loader.set(Thread.currentThread().getName());
+            return Stream.of(key("evt-old", Instant.now()));
+        });
+
+        service.synchronize();
+
+        verify(processedEventRepository, timeout(5000)).streamProcessedSince(any());
+        assertThat(loader.get()).isNotEqualTo(caller);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordsEachEventOnItsOwnDay() {
+        Instant eventTime = Instant.parse("2026-10-17T23:59:59Z");
+
+        service.markProcessed("evt-1", eventTime, "user.registered");
+
+        ArgumentCaptor<Collection<ProcessedEvent>> inserted = ArgumentCaptor.forClass(Collection.class);
+        verify(processedEventRepository).insertAllIfAbsent(inserted.capture());
+        assertThat(inserted.getValue()).extracting(ProcessedEvent::getEventDay).containsExactly(Instant.parse("2026-10-17T00:00:00Z"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void looksUpEventsWithoutTimeOnEveryDay() {
+        when(processedEventRepository.insertAllIfAbsentOnAnyDay(anyCollection())).thenReturn(Set.of());
+
+        Map<String, Instant> eventTimes = new LinkedHashMap<>();
+        eventTimes.put("evt-1", Instant.parse("2026-10-17T23:59:59Z"));
+        eventTimes.put("evt-2", null);
+        assertThat(service.markAllProcessed(eventTimes, "user.registered")).containsExactly("evt-2");
+
+        ArgumentCaptor<Collection<ProcessedEvent>> dated = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<ProcessedEvent>> undated = ArgumentCaptor.forClass(Collection.class);
+        verify(processedEventRepository).insertAllIfAbsent(dated.capture());
+        verify(processedEventRepository).insertAllIfAbsentOnAnyDay(undated.capture());
+        assertThat(dated.getValue()).extracting(ProcessedEvent::getEventId).containsExactly("evt-1");
+        assertThat(undated.getValue()).extracting(ProcessedEvent::getEventId).containsExactly("evt-2");
+    }
+
+    @Test
+    void reportsTheEventsAlreadyRecorded() {
+        when(processedEventRepository.streamProcessedSince(any())).thenReturn(Stream.empty());
+        service.synchronizeNow();
+        when(processedEventRepository.insertAllIfAbsent(anyCollection())).thenReturn(Set.of("evt-1"));
+
+        Map<String, Instant> eventTimes = new LinkedHashMap<>();
+        eventTimes.put("evt-1", Instant.now());
+        eventTimes.put("evt-2", Instant.now());
+        assertThat(service.markAllProcessed(eventTimes, "user.registered")).containsExactly("evt-2");
+        assertThat(service.markProcessed("evt-2", Instant.now(), "user.registered")).isFalse();
+
+        // The filter missed it, the insert did not: known from now on
+        assertThat(service.isProcessed("evt-2")).isTrue();
+        verify(processedEventRepository, never()).existsByEventId("evt-2");
+    }
+
+    @Test
+    void dropsExpiredPartitionsAndCreatesTheComingOnes() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        when(processedEventRepository.tryAdvisoryXactLock(anyLong())).thenReturn(true);
+        when(partitionRepository.findPartitionDays()).thenReturn(List.of(today.minusDays(30), today.minusDays(7), today.plusDays(1)));
+
+        service.maintainPartitions();
+
+        verify(partitionRepository).dropPartition(today.minusDays(30));
+        verify(partitionRepository, never()).dropPartition(today.minusDays(7));
+        verify(partitionRepository, never()).createPartition(today);
+        verify(partitionRepository, never()).createPartition(today.plusDays(1));
+        verify(partitionRepository).createPartition(today.plusDays(2));
+        verify(partitionRepository).deleteFromDefaultPartitionBefore(today.minusDays(7).atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+
+    @Test
+    void skipsMaintenanceWithoutTheLock() {
+        service.maintainPartitions();
+
+        verify(partitionRepository, never()).findPartitionDays();
+    }
+
+    @Test
+    void bloomFilterForgetsExpiredWindows() {
+        RollingBloomFilter filter = new RollingBloomFilter(3, 10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("evt-" + i, 0);
+        }
+        int falsePositives = 0;
+        for (int i = 10_000; i < 20_000; i++) {
+            if (filter.mightContain("evt-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(200);
+        assertThat(filter.mightContain("evt-42")).isTrue();
+
+        // Window 3 reuses the slot of window 0
+        filter.put("evt-late", 3);
+        filter.put("evt-expired", 0);
+        assertThat(filter.mightContain("evt-42")).isFalse();
+        assertThat(filter.mightContain("evt-expired")).isFalse();
+        assertThat(filter.mightContain("evt-late")).isTrue();
+    }
+
+    private static ProcessedEventKey key(String eventId, Instant eventDay) {
+        return new ProcessedEventKey() {
+            @Override
+            public String getEventId() {
+                return eventId;
+            }
+
+            @Override
+            public Instant getEventDay() {
+                return eventDay;
+            }
+        };
+    }
+
+    private static Set<String> allIds(InvocationOnMock invocation) {
+        Collection<ProcessedEvent> processedEvents = invocation.getArgument(0);
+        return processedEvents.stream().map(ProcessedEvent::getEventId).collect(Collectors.toSet());
+    }
+}
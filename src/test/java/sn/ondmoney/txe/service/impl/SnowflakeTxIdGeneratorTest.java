@@ -0,0 +1,84 @@
+package sn.ondmoney.txe.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class SnowflakeTxIdGeneratorTest {
+
+    private static final long NOW = SnowflakeTxIdGenerator.EPOCH + 86_400_000L;
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+
+    @Test
+    void keepsTheExternalFormat() {
+        String txId = new SnowflakeTxIdGenerator(7, clock::get).nextTxId();
+
+        assertThat(txId).matches("TXN_[0-9A-HJKMNP-TV-Z]{13}");
+    }
+
+    @Test
+    void packsTimestampNodeAndSequence() {
+        SnowflakeTxIdGenerator generator = new SnowflakeTxIdGenerator(7, clock::get);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertThat(first >>> 22).isEqualTo(NOW - SnowflakeTxIdGenerator.EPOCH);
+        assertThat((first >>> 12) & 1023).isEqualTo(7);
+        assertThat(first & 4095).isZero();
+        assertThat(second).isEqualTo(first + 1);
+    }
+
+    @Test
+    void staysOrderedWhenClockGoesBackwardsOrSequenceOverflows() {
+        SnowflakeTxIdGenerator generator = new SnowflakeTxIdGenerator(0, clock::get);
+        List<String> txIds = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            txIds.add(generator.nextTxId());
+        }
+        clock.addAndGet(-1000);
+        txIds.add(generator.nextTxId());
+        clock.set(NOW + 10);
+        txIds.add(generator.nextTxId());
+
+        assertThat(txIds).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void neverRepeatsAcrossThreads() throws Exception {
+        SnowflakeTxIdGenerator generator = new SnowflakeTxIdGenerator(3, System::currentTimeMillis);
+        Set<String> txIds = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(
+                executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        txIds.add(generator.nextTxId());
+                    }
+                })
+            );
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(txIds).hasSize(8 * 20_000);
+    }
+
+    @Test
+    void rejectsNodeOutOfRange() {
+        assertThatThrownBy(() -> new SnowflakeTxIdGenerator(1024, clock::get)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,116 @@
+package sn.ondmoney.txe.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sn.ondmoney.txe.domain.Money;
+import sn.ondmoney.txe.domain.Wallet;
+import sn.ondmoney.txe.domain.WalletBalanceShard;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+import sn.ondmoney.txe.repository.WalletBalanceShardRepository;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.repository.WalletSnapshot;
+import sn.ondmoney.txe.service.WalletLookupService;
+import sn.ondmoney.txe.web.rest.errors.BadRequestAlertException;
+
+class WalletBalanceShardServiceImplTest {
+
+    private static final Money DEBIT = Money.xof(1025);
+    private static final Money CREDIT = Money.xof(1000);
+
+    private WalletRepository walletRepository;
+    private WalletBalanceShardRepository walletBalanceShardRepository;
+    private WalletBalanceShardServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        walletRepository = mock(WalletRepository.class);
+        walletBalanceShardRepository = mock(WalletBalanceShardRepository.class);
+        service = new WalletBalanceShardServiceImpl(walletRepository, walletBalanceShardRepository, mock(WalletLookupService.class));
+    }
+
+    @Test
+    void creditsShardOfHotReceiverWithoutTouchingItsWalletRow() {
+        when(walletRepository.debit(eq(1L), eq(DEBIT), any(Instant.class))).thenReturn(1);
+        when(walletBalanceShardRepository.credit(eq(2L), anyInt(), eq(CREDIT))).thenReturn(1);
+
+        service.moveFunds(snapshot(1L, 0), snapshot(2L, 8), DEBIT, CREDIT);
+
+        verify(walletRepository, never()).credit(anyLong(), any(Money.class), any());
+    }
+
+    @Test
+    void sweepsShardsWhenWalletRowDoesNotCoverDebit() {
+        when(walletRepository.debit(eq(2L), eq(DEBIT), any(Instant.class))).thenReturn(0);
+        when(walletRepository.credit(eq(1L), eq(CREDIT), any(Instant.class))).thenReturn(1);
+        when(walletRepository.findAllByIdForUpdate(List.of(2L))).thenReturn(List.of(wallet(2L, "500")));
+        when(walletBalanceShardRepository.findAllByWalletIdForUpdate(2L)).thenReturn(List.of(shard(2L, 0, "300"), shard(2L, 1, "400")));
+        when(walletRepository.sweepAndDebit(eq(2L), eq(DEBIT), any(Instant.class))).thenReturn(1);
+
+        service.moveFunds(snapshot(2L, 2), snapshot(1L, 0), DEBIT, CREDIT);
+
+        verify(walletBalanceShardRepository).empty(2L);
+    }
+
+    @Test
+    void sweepsWithoutWritingBackTheLockedEntities() {
+        // Loaded before other balance moves of the transaction: their balance is stale
+        Wallet wallet = wallet(2L, "5000");
+        WalletBalanceShard shard = shard(2L, 0, "300");
+        when(walletRepository.debit(eq(2L), eq(DEBIT), any(Instant.class))).thenReturn(0);
+        when(walletRepository.findAllByIdForUpdate(List.of(2L))).thenReturn(List.of(wallet));
+        when(walletBalanceShardRepository.findAllByWalletIdForUpdate(2L)).thenReturn(List.of(shard));
+        when(walletRepository.sweepAndDebit(eq(2L), eq(DEBIT), any(Instant.class))).thenReturn(1);
+
+        service.debit(snapshot(2L, 1), DEBIT);
+
+        assertThat(wallet.getBalance()).isEqualByComparingTo("5000");
+        assertThat(shard.getBalance()).isEqualByComparingTo("300");
+    }
+
+    @Test
+    void rejectsDebitAboveWalletRowPlusShards() {
+        when(walletRepository.debit(eq(2L), eq(DEBIT), any(Instant.class))).thenReturn(0);
+        when(walletRepository.credit(eq(1L), eq(CREDIT), any(Instant.class))).thenReturn(1);
+        when(walletRepository.findAllByIdForUpdate(List.of(2L))).thenReturn(List.of(wallet(2L, "500")));
+        when(walletBalanceShardRepository.findAllByWalletIdForUpdate(2L)).thenReturn(List.of(shard(2L, 0, "300")));
+        when(walletRepository.sweepAndDebit(eq(2L), eq(DEBIT), any(Instant.class))).thenReturn(0);
+
+        assertThatThrownBy(() -> service.moveFunds(snapshot(2L, 1), snapshot(1L, 0), DEBIT, CREDIT))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "INSUFFICIENT_BALANCE");
+        verify(walletBalanceShardRepository, never()).empty(anyLong());
+    }
+
+    private static WalletSnapshot snapshot(Long id, long shards) {
+        WalletSnapshot snapshot = mock(WalletSnapshot.class);
+        when(snapshot.getId()).thenReturn(id);
+        when(snapshot.getBalanceShards()).thenReturn(shards);
+        return snapshot;
+    }
+
+    private static Wallet wallet(Long id, String balance) {
+        Wallet wallet = new Wallet().status(WalletStatus.ACTIVE).balance(new BigDecimal(balance)).version(0);
+        wallet.setId(id);
+        return wallet;
+    }
+
+    private static WalletBalanceShard shard(Long walletId, int index, String balance) {
+        WalletBalanceShard shard = new WalletBalanceShard(walletId, index);
+        shard.setBalance(new BigDecimal(balance));
+        return shard;
+    }
+}
@@ -0,0 +1,192 @@
+package sn.ondmoney.txe.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import sn.ondmoney.txe.IntegrationTest;
+import sn.ondmoney.txe.config.ApplicationProperties;
+import sn.ondmoney.txe.domain.Wallet;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+import sn.ondmoney.txe.repository.OutboxEventRepository;
+import sn.ondmoney.txe.repository.TransferRepository;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.service.P2PTransferService;
+import sn.ondmoney.txe.service.WalletConcurrencyStrategy;
+import sn.ondmoney.txe.service.WalletLookupService;
+import sn.ondmoney.txe.service.dto.P2PTransferRequest;
+
+/**
+ * Contention harness for the {@link WalletConcurrencyStrategy} modes.
+ * <p>
+ * Drives N threads of opposing A→B / B→A transfers against the same two wallets for each mode,
+ * checks that no update is lost, and logs throughput, p99 latency and conflict counts.
+ * Size the run with {@code -Dtxe.harness.threads} and {@code -Dtxe.harness.transfers}.
+ */
+@IntegrationTest
+class WalletConcurrencyStrategyIT {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WalletConcurrencyStrategyIT.class);
+
+    private static final String PHONE_A = "+221770000001";
+    private static final String PHONE_B = "+221770000002";
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100000000");
+    private static final BigDecimal AMOUNT = new BigDecimal("1000");
+    private static final BigDecimal FEES = new BigDecimal("25");
+
+    private static final int THREADS = Integer.getInteger("txe.harness.threads", 8);
+    private static final int TRANSFERS_PER_THREAD = Integer.getInteger("txe.harness.transfers", 50);
+
+    @Autowired
+    private P2PTransferService p2pTransferService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private WalletLookupService walletLookupService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private WalletConcurrencyStrategy.Mode initialMode;
+
+    @BeforeEach
+    void setUp() {
+        initialMode = applicationProperties.getWallet().getConcurrencyMode();
+    }
+
+    @AfterEach
+    void cleanup() {
+        applicationProperties.getWallet().setConcurrencyMode(initialMode);
+        outboxEventRepository.deleteAll();
+        transferRepository.deleteAll();
+        walletRepository.deleteAll();
+        walletLookupService.evictAll();
+    }
+
+    @Test
+    void opposingTransfersLoseNoUpdateInAnyMode() throws Exception {
+        List<String> report = new ArrayList<>();
+        for (WalletConcurrencyStrategy.Mode mode : WalletConcurrencyStrategy.Mode.values()) {
+            report.add(run(mode));
+        }
+        LOG.info("Wallet contention harness ({} threads x {} transfers):\n{}", THREADS, TRANSFERS_PER_THREAD, String.join("\n", report));
+    }
+
+    private String run(WalletConcurrencyStrategy.Mode mode) throws Exception {
+        applicationProperties.getWallet().setConcurrencyMode(mode);
+        outboxEventRepository.deleteAll();
+        transferRepository.deleteAll();
+        walletRepository.deleteAll();
+        // The wallets of the previous mode had the same phone numbers
+        walletLookupService.evictAll();
+        Wallet walletA = walletRepository.saveAndFlush(createWallet("usr_harness_a", PHONE_A));
+        Wallet walletB = walletRepository.saveAndFlush(createWallet("usr_harness_b", PHONE_B));
+
+        double optimisticBefore = conflicts(mode, "optimistic");
+        double lockBefore = conflicts(mode, "lock");
+        AtomicInteger failures = new AtomicInteger();
+        Queue<RuntimeException> unexpectedFailures = new ConcurrentLinkedQueue<>();
+        long[] latencies = new long[THREADS * TRANSFERS_PER_THREAD];
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            String from = thread % 2 == 0 ? PHONE_A : PHONE_B;
+            String to = thread % 2 == 0 ? PHONE_B : PHONE_A;
+            futures.add(
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        long begin = System.nanoTime();
+                        try {
+                            p2pTransferService.initiateTransfer(from, new P2PTransferRequest(to, AMOUNT, "harness", null), "corr_harness", null);
+                        } catch (RuntimeException e) {
+                            failures.incrementAndGet();
+                            // Only a race still lost after the retries may fail a transfer
+                            if (!(e instanceof ConcurrencyFailureException)) {
+                                unexpectedFailures.add(e);
+                            }
+                        }
+                        latencies[thread * TRANSFERS_PER_THREAD + i] = System.nanoTime() - begin;
+                    }
+                    return null;
+                })
+            );
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        // Every completed transfer burns exactly its fees; any lost update breaks this equality
+        long completed = latencies.length - failures.get();
+        assertThat(unexpectedFailures).as("unexpected failures in %s mode", mode).isEmpty();
+        assertThat(completed).as("completed transfers in %s mode", mode).isPositive();
+        BigDecimal total = walletRepository.findById(walletA.getId()).orElseThrow().getBalance()
+            .add(walletRepository.findById(walletB.getId()).orElseThrow().getBalance());
+        assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.add(INITIAL_BALANCE).subtract(FEES.multiply(BigDecimal.valueOf(completed))));
+        assertThat(transferRepository.count()).isEqualTo(completed);
+
+        Arrays.sort(latencies);
+        long p99 = latencies[(int) Math.ceil(latencies.length * 0.99) - 1];
+        return String.format(
+            "  %-11s throughput=%8.1f tx/s  p99=%7.2f ms  failed=%d  optimistic-retries=%.0f  lock-conflicts=%.0f",
+            mode,
+            completed / (elapsed / 1e9),
+            p99 / 1e6,
+            failures.get(),
+            conflicts(mode, "optimistic") - optimisticBefore,
+            conflicts(mode, "lock") - lockBefore
+        );
+    }
+
+    private double conflicts(WalletConcurrencyStrategy.Mode mode, String type) {
+        Counter counter = meterRegistry.find("txe.wallet.conflicts").tag("mode", mode.name().toLowerCase()).tag("type", type).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static Wallet createWallet(String userId, String phone) {
+        return new Wallet()
+            .userId(userId)
+            .phone(phone)
+            .status(WalletStatus.ACTIVE)
+            .balance(INITIAL_BALANCE)
+            .version(0)
+            .createdAt(Instant.now());
+    }
+}
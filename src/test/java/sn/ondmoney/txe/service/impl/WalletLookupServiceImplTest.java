@@ -0,0 +1,122 @@
+package sn.ondmoney.txe.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sn.ondmoney.txe.domain.enumeration.WalletStatus;
+import sn.ondmoney.txe.repository.WalletIdentity;
+import sn.ondmoney.txe.repository.WalletRepository;
+import sn.ondmoney.txe.repository.WalletSnapshot;
+import sn.ondmoney.txe.service.WalletLookupService;
+
+class WalletLookupServiceImplTest {
+
+    private static final String SENDER = "+221770000001";
+    private static final String RECEIVER = "+221770000002";
+
+    private WalletRepository walletRepository;
+    private IMap<String, WalletLookupServiceImpl.CachedWallet> cache;
+    private MeterRegistry meterRegistry;
+    private WalletLookupServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        walletRepository = mock(WalletRepository.class);
+        cache = mock(IMap.class);
+        HazelcastInstance hazelcastInstance = mock(HazelcastInstance.class);
+        when(hazelcastInstance.<String, WalletLookupServiceImpl.CachedWallet>getMap(WalletLookupService.CACHE)).thenReturn(cache);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new WalletLookupServiceImpl(walletRepository, hazelcastInstance, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void resolvesCachedPhonesWithoutTheDatabase() {
+        when(cache.getAll(Set.of(SENDER, RECEIVER))).thenReturn(Map.of(SENDER, cached(1L, SENDER), RECEIVER, cached(2L, RECEIVER)));
+
+        Map<String, WalletIdentity> wallets = service.findByPhones(List.of(SENDER, RECEIVER));
+
+        assertThat(wallets.get(SENDER).getId()).isEqualTo(1L);
+        assertThat(wallets.get(RECEIVER).getId()).isEqualTo(2L);
+        verify(walletRepository, never()).findByPhoneIn(anyCollection());
+        assertThat(meterRegistry.counter("txe.wallet.phone_lookups", "result", "hit").count()).isEqualTo(2);
+    }
+
+    @Test
+    void readsAndCachesTheMissingPhones() {
+        when(cache.getAll(anySet())).thenReturn(Map.of(SENDER, cached(1L, SENDER)));
+        WalletSnapshot receiver = mock(WalletSnapshot.class);
+        when(receiver.getId()).thenReturn(2L);
+        when(receiver.getPhone()).thenReturn(RECEIVER);
+        when(receiver.getStatus()).thenReturn(WalletStatus.ACTIVE);
+        when(receiver.getBalanceShards()).thenReturn(0L);
+        when(walletRepository.findByPhoneIn(List.of(RECEIVER))).thenReturn(List.of(receiver));
+
+        Map<String, WalletIdentity> wallets = service.findByPhones(List.of(SENDER, RECEIVER));
+
+        assertThat(wallets.get(RECEIVER).getId()).isEqualTo(2L);
+        verify(cache).setAll(Map.of(RECEIVER, WalletLookupServiceImpl.CachedWallet.of(receiver)));
+        assertThat(meterRegistry.counter("txe.wallet.phone_lookups", "result", "miss").count()).isEqualTo(1);
+    }
+
+    @Test
+    void cachesNothingForUnknownPhones() {
+        when(cache.getAll(anySet())).thenReturn(Map.of());
+        when(walletRepository.findByPhoneIn(List.of(SENDER))).thenReturn(List.of());
+
+        assertThat(service.findByPhones(List.of(SENDER))).isEmpty();
+        verify(cache, never()).setAll(anyMap());
+    }
+
+    @Test
+    void evictsAgainAfterTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.evict(SENDER, null);
+
+        verify(cache).delete(SENDER);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache, times(2)).delete(SENDER);
+    }
+
+    @Test
+    void evictsEveryWalletAgainAfterTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.evictAll();
+
+        verify(cache).clear();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache, times(2)).clear();
+    }
+
+    private static WalletLookupServiceImpl.CachedWallet cached(Long id, String phone) {
+        return new WalletLookupServiceImpl.CachedWallet(id, "usr_" + id, phone, "XOF", WalletStatus.ACTIVE, 0L);
+    }
+}
@@ -11,7 +11,6 @@ import static sn.ondmoney.txe.web.rest.TestUtil.sameNumber;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Random;
@@ -21,11 +20,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import sn.ondmoney.txe.IntegrationTest;
+import sn.ondmoney.txe.domain.Money;
 import sn.ondmoney.txe.domain.Transfer;
 import sn.ondmoney.txe.domain.enumeration.TransactionStatus;
 import sn.ondmoney.txe.repository.TransferRepository;
@@ -46,11 +47,11 @@ class TransferResourceIT {
     private static final TransactionStatus DEFAULT_STATUS = TransactionStatus.PENDING;
     private static final TransactionStatus UPDATED_STATUS = TransactionStatus.COMPLETED;
 
-    private static final BigDecimal DEFAULT_AMOUNT = new BigDecimal(0);
-    private static final BigDecimal UPDATED_AMOUNT = new BigDecimal(1);
+    private static final Money DEFAULT_AMOUNT = Money.xof(0);
+    private static final Money UPDATED_AMOUNT = Money.xof(1);
 
-    private static final BigDecimal DEFAULT_FEES = new BigDecimal(0);
-    private static final BigDecimal UPDATED_FEES = new BigDecimal(1);
+    private static final Money DEFAULT_FEES = Money.xof(0);
+    private static final Money UPDATED_FEES = Money.xof(1);
 
     private static final String DEFAULT_SENDER_PHONE = "AAAAAAAAAA";
     private static final String UPDATED_SENDER_PHONE = "BBBBBBBBBB";
@@ -308,8 +309,8 @@ class TransferResourceIT {
             .andExpect(jsonPath("$.[*].id").value(hasItem(transfer.getId().intValue())))
             .andExpect(jsonPath("$.[*].txId").value(hasItem(DEFAULT_TX_ID)))
             .andExpect(jsonPath("$.[*].status").value(hasItem(DEFAULT_STATUS.toString())))
-            .andExpect(jsonPath("$.[*].amount").value(hasItem(sameNumber(DEFAULT_AMOUNT))))
-            .andExpect(jsonPath("$.[*].fees").value(hasItem(sameNumber(DEFAULT_FEES))))
+            .andExpect(jsonPath("$.[*].amount").value(hasItem(sameNumber(DEFAULT_AMOUNT.toBigDecimal()))))
+            .andExpect(jsonPath("$.[*].fees").value(hasItem(sameNumber(DEFAULT_FEES.toBigDecimal()))))
             .andExpect(jsonPath("$.[*].senderPhone").value(hasItem(DEFAULT_SENDER_PHONE)))
             .andExpect(jsonPath("$.[*].receiverPhone").value(hasItem(DEFAULT_RECEIVER_PHONE)))
             .andExpect(jsonPath("$.[*].initiatedAt").value(hasItem(DEFAULT_INITIATED_AT.toString())))
@@ -318,6 +319,39 @@ class TransferResourceIT {
             .andExpect(jsonPath("$.[*].errorMessage").value(hasItem(DEFAULT_ERROR_MESSAGE)));
     }
 
+    @Test
+    @Transactional
+    void getAllTransfersByKeyset() throws Exception {
+        // Initialize the database
+        insertedTransfer = transferRepository.saveAndFlush(transfer);
+        Transfer newer = transferRepository.saveAndFlush(createUpdatedEntity());
+
+        // The first page holds the newest transfer and links to the next one
+        String link = restTransferMockMvc
+            .perform(get(ENTITY_API_URL + "?after=&size=1&count=true"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[0].id").value(newer.getId().intValue()))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LINK);
+        assertThat(link).endsWith("; rel=\"next\"").doesNotContain("count=");
+
+        restTransferMockMvc
+            .perform(get(link.substring(link.indexOf('<') + 1, link.indexOf('>'))))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[0].id").value(insertedTransfer.getId().intValue()));
+
+        transferRepository.delete(newer);
+    }
+
+    @Test
+    @Transactional
+    void getAllTransfersWithAnInvalidCursor() throws Exception {
+        restTransferMockMvc.perform(get(ENTITY_API_URL + "?after=not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getTransfer() throws Exception {
@@ -332,8 +366,8 @@ class TransferResourceIT {
             .andExpect(jsonPath("$.id").value(transfer.getId().intValue()))
             .andExpect(jsonPath("$.txId").value(DEFAULT_TX_ID))
             .andExpect(jsonPath("$.status").value(DEFAULT_STATUS.toString()))
-            .andExpect(jsonPath("$.amount").value(sameNumber(DEFAULT_AMOUNT)))
-            .andExpect(jsonPath("$.fees").value(sameNumber(DEFAULT_FEES)))
+            .andExpect(jsonPath("$.amount").value(sameNumber(DEFAULT_AMOUNT.toBigDecimal())))
+            .andExpect(jsonPath("$.fees").value(sameNumber(DEFAULT_FEES.toBigDecimal())))
             .andExpect(jsonPath("$.senderPhone").value(DEFAULT_SENDER_PHONE))
             .andExpect(jsonPath("$.receiverPhone").value(DEFAULT_RECEIVER_PHONE))
             .andExpect(jsonPath("$.initiatedAt").value(DEFAULT_INITIATED_AT.toString()))